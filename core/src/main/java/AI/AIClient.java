@@ -2,9 +2,13 @@ package AI;
 
 import catan.SettlersOfCatan;
 import client.Client;
+import client.Turn;
 import enums.Difficulty;
 import intergroup.Events;
 
+import java.util.List;
+import java.util.function.Supplier;
+
 public abstract class AIClient extends Client
 {
 	private AICore ai;
@@ -37,6 +41,10 @@ public abstract class AIClient extends Client
 			ai = new EasyAI(this);
 			break;
 
+		case HARD:
+			ai = new HardAI(this);
+			break;
+
 		case VERYEASY:
 		default:
 			ai = new VeryEasyAI(this);
@@ -44,32 +52,34 @@ public abstract class AIClient extends Client
 		}
 	}
 
+	/**
+	 * Blocks for each batch of events from the server and processes it. The AI
+	 * has no thread of its own, but is scheduled to move after each batch,
+	 * as well as once to begin with.
+	 */
 	@Override
 	public void run()
 	{
 		active = true;
-		Thread aiThread = new Thread(ai);
-		aiThread.start();
+		ai.schedule();
 
-		// Loop processing events when needed and sending turns
+		// Loop processing events and letting the AI move after them
 		while (active && (getState() == null || !getState().isOver()))
 		{
 			try
 			{
-				Events.Event ev = acquireLocksAndGetEvents();
-				if (ai.getExpectedEvents().contains(ev.getTypeCase())
-						|| ev.getTypeCase().equals(Events.Event.TypeCase.ERROR)
-						|| ev.getTypeCase().equals(Events.Event.TypeCase.ALLRESOURCES))
+				List<Events.Event> events = acquireLocksAndGetEvents();
+				if (events == null)
 				{
-					if (!ev.getTypeCase().equals(Events.Event.TypeCase.CARDSDISCARDED)
-							|| ev.getInstigator().getId().getNumber() == getPlayer().getId().getNumber())
-					{
-						log("Client Proc", "Resuming");
-						ai.resume();
-					}
+					shutDown();
+					break;
 				}
 
-				Thread.sleep(100);
+				for (Events.Event ev : events)
+				{
+					resumeIfExpected(ev);
+				}
+				ai.schedule();
 			}
 			catch (Exception e)
 			{
@@ -81,11 +91,76 @@ public abstract class AIClient extends Client
 	}
 
 	/**
-	 * Acquires locks and attempts to move
+	 * Lets the AI move again if the given event is an outcome of the move it
+	 * is waiting on
+	 *
+	 * @param ev the event which was just processed
+	 */
+	void resumeIfExpected(Events.Event ev)
+	{
+		if (ai.getExpectedEvents() != null && ai.getExpectedEvents().contains(ev.getTypeCase())
+				|| ev.getTypeCase().equals(Events.Event.TypeCase.ERROR)
+				|| ev.getTypeCase().equals(Events.Event.TypeCase.ALLRESOURCES))
+		{
+			if (!ev.getTypeCase().equals(Events.Event.TypeCase.CARDSDISCARDED)
+					|| ev.getInstigator().getId().getNumber() == getPlayer().getId().getNumber())
+			{
+				log("Client Proc", "Resuming");
+				ai.resume();
+			}
+		}
+	}
+
+	/**
+	 * @return the AI making this client's moves
+	 */
+	AICore getAI()
+	{
+		return ai;
+	}
+
+	/**
+	 * Lets the AI decide its move again, as the last one it sent may have been
+	 * lost with the old connection
+	 */
+	@Override
+	protected void sessionResumed()
+	{
+		ai.resume();
+	}
+
+	/**
+	 * Acquires locks and takes whatever the AI needs to think over its next
+	 * move, so that the thinking can be done without the locks and events are
+	 * still processed meanwhile
+	 *
+	 * @return the thinking, or null if there is nothing to think over
+	 */
+	Supplier<Turn> acquireLocksAndPrepareThinking()
+	{
+		return withLocks(ai::prepareThinking);
+	}
+
+	/**
+	 * Acquires locks and attempts to move, making the move thinking chose if
+	 * it is still possible
+	 *
+	 * @param thought the move thinking chose, or null
+	 */
+	boolean acquireLocksAndPerformMove(Turn thought)
+	{
+		Boolean val = withLocks(() -> ai.performMove(thought));
+		return val != null && val;
+	}
+
+	/**
+	 * Runs the task while holding the state and turn locks
+	 *
+	 * @return what the task returned, or null if interrupted
 	 */
-	boolean acquireLocksAndPerformMove()
+	private <T> T withLocks(Supplier<T> task)
 	{
-		boolean val = false;
+		T val = null;
 		try
 		{
 			getStateLock().acquire();
@@ -94,7 +169,7 @@ public abstract class AIClient extends Client
 				getTurnLock().acquire();
 				try
 				{
-					val = ai.performMove();
+					val = task.get();
 				}
 				finally
 				{
@@ -4,16 +4,43 @@ import client.ClientGame;
 import client.Turn;
 import client.TurnState;
 import game.players.Player;
+import grid.BoardElement;
+import grid.BoardTopology;
 import intergroup.Events;
 import intergroup.Requests;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
-public abstract class AICore implements IAI, Runnable
+public abstract class AICore implements IAI
 {
+	private static final ExecutorService MOVES = Executors.newFixedThreadPool(ThinkingScheduler.get().getThreads(),
+			r ->
+			{
+				Thread t = new Thread(r, "AI moves");
+				t.setDaemon(true);
+				return t;
+			});
+	private static final ExecutorService THINKING = Executors.newCachedThreadPool(r ->
+	{
+		Thread t = new Thread(r, "AI thinking");
+		t.setDaemon(true);
+		return t;
+	});
+	private static final ExecutorService RETRIES = Executors.newCachedThreadPool(r ->
+	{
+		Thread t = new Thread(r, "AI retries");
+		t.setDaemon(true);
+		return t;
+	});
+	private static final long RETRY_DELAY = 100;
 	protected final AIClient client;
 	private final Random rand;
-	private boolean waiting;
+	private volatile boolean waiting, unsent, missed;
+	private final AtomicBoolean scheduled, moving;
 	private ArrayList<Events.Event.TypeCase> expectedEventPossibilities;
 	private final Map<Requests.Request.BodyCase, ArrayList<Events.Event.TypeCase>> expectedEvents;
 
@@ -21,40 +48,196 @@ public abstract class AICore implements IAI, Runnable
 	{
 		this.client = client;
 		this.rand = new Random();
+		scheduled = new AtomicBoolean();
+		moving = new AtomicBoolean();
 		expectedEvents = setUpExpectedEvents();
 	}
 
-	@Override
-	public void run()
+	/**
+	 * Makes a move soon on the executor shared by every AI, unless one is
+	 * already due or the AI is waiting on the outcome of its last move. Called
+	 * whenever events have been processed, as they may have let the AI move.
+	 */
+	void schedule()
 	{
-		client.log("Client Play", "Starting AI client loop");
-		waiting = false;
+		if (!waiting && client.isActive() && scheduled.compareAndSet(false, true)) MOVES.execute(this::move);
+	}
+
+	/**
+	 * Starts a move. Any long thinking is handed to an executor of its own,
+	 * which the {@link ThinkingScheduler} keeps to its share of the cores, so
+	 * that a search never holds up the moves of other AIs.
+	 */
+	private void move()
+	{
+		scheduled.set(false);
+		if (waiting || !client.isActive() || getState() != null && getState().isOver()) return;
+
+		// The locks are let go while thinking, so only one move is worked out
+		// at a time. One asked for meanwhile is tried again after it.
+		if (!moving.compareAndSet(false, true))
+		{
+			missed = true;
+			return;
+		}
+		missed = false;
+
+		try
+		{
+			Supplier<Turn> thinking = client.acquireLocksAndPrepareThinking();
+			if (thinking == null)
+				finish(null);
+			else
+				THINKING.execute(() -> think(thinking));
+		}
+		catch (Exception e)
+		{
+			moving.set(false);
+			e.printStackTrace();
+			client.shutDown();
+		}
+	}
+
+	/**
+	 * Thinks, and then hands the move back to be made whatever happened, so
+	 * that a failed search cannot leave the AI thinking for ever
+	 *
+	 * @param thinking the thinking to do
+	 */
+	private void think(Supplier<Turn> thinking)
+	{
+		Turn thought = null;
+		try
+		{
+			thought = thinking.get();
+		}
+		catch (RuntimeException e)
+		{
+			// Leave the move to the ranking
+			e.printStackTrace();
+		}
+		finally
+		{
+			Turn chosen = thought;
+			MOVES.execute(() -> finish(chosen));
+		}
+	}
+
+	/**
+	 * Makes the move, and tries again if it could not be sent. A move asked
+	 * for while thinking is tried at once. Otherwise no event may come to
+	 * prompt another try, so it is tried again a little later.
+	 *
+	 * @param thought the move thinking chose, or null
+	 */
+	private void finish(Turn thought)
+	{
+		boolean sent;
+		try
+		{
+			sent = client.acquireLocksAndPerformMove(thought);
+		}
+		catch (Exception e)
+		{
+			e.printStackTrace();
+			client.shutDown();
+			return;
+		}
+		finally
+		{
+			moving.set(false);
+		}
 
-		// Loop sending turns
-		while (client.isActive() && (getState() == null || !getState().isOver()))
+		if (sent) return;
+		if (missed)
+			schedule();
+		else if (unsent) retryLater();
+	}
+
+	/**
+	 * Tries to move again once RETRY_DELAY has passed on the client's clock.
+	 * The wait is slept rather than scheduled, as a virtual clock only runs
+	 * scheduled tasks when something moves it on, which may be nothing, but
+	 * sleeping on it moves it on.
+	 */
+	private void retryLater()
+	{
+		RETRIES.execute(() ->
 		{
 			try
 			{
-				// Attempt to make a move and send a turn
-				if (!waiting)
-				{
-					waiting = client.acquireLocksAndPerformMove();
-				}
-				Thread.sleep(100);
+				client.getClock().sleep(RETRY_DELAY);
+				schedule();
 			}
-			catch (Exception e)
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		});
+	}
+
+	/**
+	 * Makes a move there and then, thinking on the calling thread, unless
+	 * still waiting on the outcome of the last one
+	 *
+	 * @return whether a move was sent
+	 */
+	boolean step()
+	{
+		if (waiting) return false;
+
+		if (!moving.compareAndSet(false, true))
+		{
+			missed = true;
+			return false;
+		}
+		try
+		{
+			boolean sent;
+			do
 			{
-				e.printStackTrace();
-				client.shutDown();
+				missed = false;
+				Supplier<Turn> thinking = client.acquireLocksAndPrepareThinking();
+				sent = client.acquireLocksAndPerformMove(thinking == null ? null : thinking.get());
 			}
+			while (!sent && missed && !waiting);
+			return sent;
+		}
+		finally
+		{
+			moving.set(false);
 		}
-		client.log("Client Play", "Ending AI client loop");
+	}
+
+	/**
+	 * Takes, while the locks are held, whatever the AI needs to think over its
+	 * next move at length, so that the thinking can be done without them
+	 *
+	 * @return the thinking, which answers with the move to make or null to
+	 *         leave it to the ranking, or null if there is nothing to think
+	 *         over
+	 */
+	Supplier<Turn> prepareThinking()
+	{
+		return null;
 	}
 
 	@Override
 	public boolean performMove()
 	{
-		Turn turn = selectAndPrepareMove();
+		return performMove(null);
+	}
+
+	/**
+	 * Makes the move thinking chose if it is still possible, or else the move
+	 * the ranking chooses
+	 *
+	 * @param thought the move thinking chose, or null
+	 * @return whether a move was sent
+	 */
+	boolean performMove(Turn thought)
+	{
+		Turn turn = selectAndPrepareMove(thought);
 		if (turn != null)
 		{
 			if (getPlayer() != null && getPlayer().getId() != null)
@@ -66,18 +249,30 @@ public abstract class AICore implements IAI, Runnable
 			}
 
 			expectedEventPossibilities = expectedEvents.get(turn.getChosenMove());
-			return client.sendTurn(turn);
 
+			// Set while the locks are held, so that the outcome cannot be
+			// processed first
+			waiting = client.sendTurn(turn);
+			unsent = !waiting;
+			return waiting;
 		}
+		unsent = false;
 		return false;
 	}
 
 	/**
 	 * Top-level method for choosing move out of available choices.
+	 *
+	 * @param thought the move thinking chose, or null
 	 */
-	private Turn selectAndPrepareMove()
+	private Turn selectAndPrepareMove(Turn thought)
 	{
-		List<Turn> optimalMoves = rankMoves(getMoves());
+		List<Turn> moves = getMoves();
+		for (Turn turn : thought == null ? Collections.<Turn> emptyList() : moves)
+		{
+			if (isSameMove(turn, thought)) return turn;
+		}
+		List<Turn> optimalMoves = rankMoves(moves);
 
 		// Prepare turn object
 		return optimalMoves != null && optimalMoves.size() > 0 ? selectMove(optimalMoves) : null;
@@ -194,10 +389,26 @@ public abstract class AICore implements IAI, Runnable
 		return optimalMoves.get(rand.nextInt(optimalMoves.size()));
 	}
 
+	/**
+	 * @return whether the two turns make the same move on the same node, edge
+	 *         or hex
+	 */
+	private static boolean isSameMove(Turn a, Turn b)
+	{
+		return a.getChosenMove() == b.getChosenMove() && getId(a.getChosenNode()) == getId(b.getChosenNode())
+				&& getId(a.getChosenEdge()) == getId(b.getChosenEdge())
+				&& getId(a.getChosenHex()) == getId(b.getChosenHex());
+	}
+
+	private static int getId(BoardElement element)
+	{
+		return element == null ? BoardTopology.NONE : element.getId();
+	}
+
 	/**
 	 * @return a list of Turn objects, entailing move type and additional info.
 	 */
-	private List<Turn> getMoves()
+	List<Turn> getMoves()
 	{
 		List<Turn> options = client.getMoveProcessor().getPossibleMoves();
 
@@ -0,0 +1,198 @@
+package AI;
+
+import client.ClientGame;
+import enums.Colour;
+import enums.DevelopmentCardType;
+import enums.ResourceType;
+import exceptions.BankLimitException;
+import game.Bank;
+import game.ResourceBag;
+import game.players.Player;
+import server.ServerGame;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Turns what one player can see of a game into whole games a search can play
+ * on. The board, the buildings and the player's own hand are known. How many
+ * resources and development cards each other player holds is known, but not
+ * which, so each game deals them at random from the cards which are not
+ * accounted for: the resources which are not in the player's hand, and the
+ * development cards which neither the player has bought nor anyone has
+ * played. What is left over of those is the bank's.
+ *
+ * @author 140001596
+ */
+class Determinizer
+{
+	private static final ThreadLocal<ByteBuffer> SNAPSHOT = ThreadLocal.withInitial(() -> ByteBuffer.allocate(1024));
+	private final Colour colour;
+	private final ServerGame base;
+	private final Map<Colour, Integer> handSizes, cardCounts;
+	private final Map<DevelopmentCardType, Integer> unknownCards;
+
+	/**
+	 * Takes what can be seen of the game now, which must be while nothing
+	 * else is changing it
+	 *
+	 * @param view the player's view of the game
+	 */
+	Determinizer(ClientGame view)
+	{
+		colour = view.getPlayer().getColour();
+		base = new ServerGame(new Random());
+		base.readFrom(snapshot(view));
+
+		handSizes = new EnumMap<>(Colour.class);
+		cardCounts = new EnumMap<>(Colour.class);
+		unknownCards = new EnumMap<>(DevelopmentCardType.class);
+		unknownCards.putAll(view.getBank().getAvailableDevCards());
+		for (Player p : view.getPlayers().values())
+		{
+			Colour c = p.getColour();
+			if (c == colour) continue;
+
+			handSizes.put(c, Math.max(0, view.getPlayerResources(c)));
+			cardCounts.put(c, Math.max(0, view.getBoughtDevCards().getOrDefault(c, 0)));
+
+			// The bank here has only taken out the cards this player bought
+			for (Map.Entry<DevelopmentCardType, Integer> e : view.getPlayedDevCards().get(c).entrySet())
+			{
+				unknownCards.merge(e.getKey(), -e.getValue(), Integer::sum);
+			}
+		}
+	}
+
+	/**
+	 * Writes the view into this thread's buffer, which grows until the
+	 * snapshot fits
+	 *
+	 * @return the buffer, ready to read the snapshot from
+	 */
+	private static ByteBuffer snapshot(ClientGame view)
+	{
+		ByteBuffer buf = SNAPSHOT.get();
+		while (true)
+		{
+			buf.clear();
+			try
+			{
+				view.writeTo(buf);
+				buf.flip();
+				return buf;
+			}
+			catch (BufferOverflowException e)
+			{
+				buf = ByteBuffer.allocate(buf.capacity() * 2);
+				SNAPSHOT.set(buf);
+			}
+		}
+	}
+
+	/**
+	 * @return the colour of the player whose view this is
+	 */
+	Colour getColour()
+	{
+		return colour;
+	}
+
+	/**
+	 * @param random the source of the copy's dice rolls
+	 * @return a copy of the game with no one else's cards dealt, for one
+	 *         thread to deal from
+	 */
+	ServerGame copy(Random random)
+	{
+		return base.fork(random);
+	}
+
+	/**
+	 * Forks the given copy, and deals the other players' hands in the fork
+	 *
+	 * @param copy a copy made by {@link #copy(Random)}
+	 * @param random the source of the deal, and of the fork's dice rolls
+	 * @return one way the game could be
+	 */
+	ServerGame deal(ServerGame copy, Random random)
+	{
+		ServerGame game = copy.fork(random);
+		Bank bank = game.getBank();
+
+		// Every resource not in this player's hand is the bank's until dealt
+		Map<ResourceType, Integer> own = game.getPlayer(colour).getResources();
+		for (ResourceType r : ResourceType.values())
+		{
+			if (r == ResourceType.Generic) continue;
+			bank.getAvailableResources().put(r, Bank.RESOURCES_PER_TYPE - own.getOrDefault(r, 0));
+		}
+		Map<DevelopmentCardType, Integer> deck = bank.getAvailableDevCards();
+		for (DevelopmentCardType d : DevelopmentCardType.values())
+		{
+			deck.put(d, Math.max(0, unknownCards.getOrDefault(d, 0)));
+		}
+
+		for (Map.Entry<Colour, Integer> e : handSizes.entrySet())
+		{
+			Player p = game.getPlayer(e.getKey());
+			ResourceBag hand = new ResourceBag(), left = new ResourceBag(bank.getAvailableResources());
+			for (int i = 0; i < e.getValue(); i++)
+			{
+				ResourceType r = draw(left, random);
+				if (r == null) break;
+
+				left.set(r, left.count(r) - 1);
+				hand.set(r, hand.count(r) + 1);
+			}
+
+			try
+			{
+				p.grantResources(hand, bank);
+			}
+			catch (BankLimitException ex)
+			{
+				// Drawn from what the bank has
+				throw new IllegalStateException(ex);
+			}
+
+			Map<DevelopmentCardType, Integer> cards = p.getDevelopmentCards();
+			for (int i = 0; i < cardCounts.get(e.getKey()); i++)
+			{
+				DevelopmentCardType d = draw(deck, random);
+				if (d == null) break;
+
+				deck.put(d, deck.get(d) - 1);
+				cards.put(d, cards.getOrDefault(d, 0) + 1);
+			}
+		}
+		return game;
+	}
+
+	/**
+	 * @param pool how many there are of each thing
+	 * @param random the source of the choice
+	 * @return one of the things, chosen with chances in proportion to how
+	 *         many there are of it, or null if there are none
+	 */
+	static <T> T draw(Map<T, Integer> pool, Random random)
+	{
+		int total = 0;
+		for (int count : pool.values())
+		{
+			total += Math.max(0, count);
+		}
+		if (total == 0) return null;
+
+		int pick = random.nextInt(total);
+		for (Map.Entry<T, Integer> e : pool.entrySet())
+		{
+			pick -= Math.max(0, e.getValue());
+			if (pick < 0) return e.getKey();
+		}
+		return null;
+	}
+}
@@ -5,6 +5,7 @@ import enums.Colour;
 import enums.DevelopmentCardType;
 import enums.ResourceType;
 import game.Game;
+import game.ResourceBag;
 import game.build.Building;
 import game.build.City;
 import game.build.Road;
@@ -153,9 +154,9 @@ public class EasyAI extends AICore
         int rank = 4;
 
         //check if player can build or set a road if so-> decrease rank by 2
-        if(getPlayer().canAfford(Settlement.getSettlementCost())
-                || getPlayer().canAfford(Road.getRoadCost())
-                || getPlayer().canAfford(City.getCityCost())){
+        if(getPlayer().canAfford(Settlement.COST)
+                || getPlayer().canAfford(Road.COST)
+                || getPlayer().canAfford(City.COST)){
             rank =-2;
         }
         return rank - getPlayer().getNumDevCards();
@@ -198,11 +199,10 @@ public class EasyAI extends AICore
                 }
             }
 
-        }else{// if settlement can be build at the end of this road
-            Node toAnalyse = (!n1.isNearRoad(getPlayer().getColour())) ? n1 :n2 ;
-            RankNode rn = new RankNode(toAnalyse, getPlayer());
-            rn.rank(false);
-            rank += (rn.getRanking()/2);
+        }else{// if the road leads towards somewhere a settlement could be built
+            RankEdge re = new RankEdge(chosenEdge, getState());
+            re.rank(getPlayer());
+            rank += (re.getRanking()/2);
         }
 
         return rank;
@@ -216,8 +216,7 @@ public class EasyAI extends AICore
         int amount = getPlayer().getNumResources();
         int diff = amount / 2;
         Map<ResourceType, Integer> discard = new HashMap<ResourceType, Integer>();
-        Map<ResourceType, Integer> resources = new HashMap<ResourceType, Integer>();
-        resources.putAll(getPlayer().getResources());
+        Map<ResourceType, Integer> resources = new ResourceBag(getPlayer().getResources());
 
 
         while(diff > 0)
@@ -325,20 +324,7 @@ public class EasyAI extends AICore
         {
             Player p = players.get(c);
 
-            HashMap<ResourceType, Integer> resources = (HashMap<ResourceType, Integer>) p.getResources();
-
-            Set<ResourceType> types = resources.keySet();
-
-            for(ResourceType t: types)
-            {
-                if(!totalRank.keySet().contains(c))
-                {
-                    totalRank.put(c, 0);
-                }
-                totalRank.put(c, totalRank.get(c) + resources.get(t));
-            }
-
-            totalRank.put(c, totalRank.get(c) + p.getVp());
+            totalRank.put(c, p.getNumResources() + p.getVp());
         }
 
         ArrayList<Integer> ranks = new ArrayList<Integer>();
@@ -369,8 +355,7 @@ public class EasyAI extends AICore
         if (getTurn().hasTraded()) return -1;
 
         Map<ResourceType, Integer> tradeReq = new HashMap<>();
-        Map<ResourceType, Integer> resources = new HashMap<>();
-        resources.putAll(getPlayer().getResources());
+        Map<ResourceType, Integer> resources = new ResourceBag(getPlayer().getResources());
         List<ResourceType> want = getDesiredResources(resources);
         ResourceType maxResource = findMax(resources);
         ResourceType leastResource;
@@ -0,0 +1,143 @@
+package AI;
+
+import client.Turn;
+import game.players.Player;
+import intergroup.Requests;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * An AI which looks ahead. Whenever the best move by the {@link EasyAI}'s
+ * ranking would be to build, buy a development card, move the robber or end
+ * the turn, it instead searches the best few moves of each of those kinds, and
+ * the turns which could follow them, with a {@link TreeSearch}. Trades,
+ * discards, development cards and the first two settlements and roads are left
+ * to the ranking.
+ *
+ * What the search needs is taken while the client's locks are held, and the
+ * search itself is run without them. The search is given a slice of time and
+ * threads by the {@link ThinkingScheduler}, longer as someone nears winning,
+ * and a number of iterations from the system property catan.ai.iterations. It
+ * answers as soon as either runs out.
+ *
+ * @author 140001596
+ */
+public class HardAI extends EasyAI
+{
+	private static final int ITERATIONS = Integer.getInteger("catan.ai.iterations", 4000);
+	private static final int PER_KIND = 3;
+	private static final int OPENING_POINTS = 3, ENDGAME_POINTS = 2;
+
+	public HardAI(AIClient client)
+	{
+		super(client);
+	}
+
+	@Override
+	Supplier<Turn> prepareThinking()
+	{
+		if (getState() == null) return null;
+
+		List<Turn> moves = getMoves();
+		List<Turn> optimalMoves = rankMoves(moves);
+		if (optimalMoves == null || optimalMoves.isEmpty() || !isSearched(optimalMoves.get(0))
+				|| getPlayer().getSettlements().size() < 2 || getPlayer().getNumRoads() < 2)
+			return null;
+
+		List<Turn> searched = shortlist(moves);
+		if (searched.size() < 2) return null;
+
+		Determinizer determinizer = new Determinizer(getState());
+		ThinkingScheduler.Phase phase = getPhase();
+		return () -> search(determinizer, searched, phase);
+	}
+
+	/**
+	 * Searches the moves, without any of the client's locks
+	 *
+	 * @return the move the search tried most, or null to leave the choice to
+	 *         the ranking
+	 */
+	private Turn search(Determinizer determinizer, List<Turn> moves, ThinkingScheduler.Phase phase)
+	{
+		try (ThinkingScheduler.Slice slice = ThinkingScheduler.get().begin(phase))
+		{
+			TreeSearch search = new TreeSearch(determinizer, moves);
+			Turn best = search.search(slice, ITERATIONS);
+			client.log("Client Play", String.format("Searched %d moves with %d iterations, growing %d branches",
+					moves.size(), search.getIterations(), search.getSize()));
+			return best;
+		}
+		catch (RuntimeException e)
+		{
+			// Fall back on the ranking rather than give up the game
+			client.log("Client Play", String.format("Search failed, so ranking instead: %s", e));
+			return null;
+		}
+	}
+
+	/**
+	 * @return how far the game has gone, by the points of whoever is ahead
+	 */
+	private ThinkingScheduler.Phase getPhase()
+	{
+		int lead = 0;
+		for (Player p : getState().getPlayers().values())
+		{
+			lead = Math.max(lead, p.getVp());
+		}
+
+		if (lead >= Player.VP_THRESHOLD - ENDGAME_POINTS) return ThinkingScheduler.Phase.ENDGAME;
+		if (lead <= OPENING_POINTS) return ThinkingScheduler.Phase.OPENING;
+		return ThinkingScheduler.Phase.MIDGAME;
+	}
+
+	/**
+	 * Keeps the few best moves of each kind by the ranking, so that the
+	 * search is not spread over every edge a road could go on
+	 *
+	 * @param moves every possible move
+	 * @return the moves to search between
+	 */
+	private List<Turn> shortlist(List<Turn> moves)
+	{
+		Map<Requests.Request.BodyCase, List<Turn>> byKind = new EnumMap<>(Requests.Request.BodyCase.class);
+		Map<Turn, Integer> ranks = new IdentityHashMap<>();
+		for (Turn turn : moves)
+		{
+			if (!isSearched(turn)) continue;
+
+			ranks.put(turn, rankMove(turn));
+			byKind.computeIfAbsent(turn.getChosenMove(), k -> new ArrayList<>()).add(turn);
+		}
+
+		List<Turn> shortlist = new ArrayList<>();
+		for (List<Turn> kind : byKind.values())
+		{
+			kind.sort(Comparator.comparingInt((Turn t) -> ranks.get(t)).reversed());
+			shortlist.addAll(kind.subList(0, Math.min(PER_KIND, kind.size())));
+		}
+		return shortlist;
+	}
+
+	/**
+	 * @param turn a possible move
+	 * @return whether it is of a kind the search chooses between
+	 */
+	private static boolean isSearched(Turn turn)
+	{
+		switch (turn.getChosenMove())
+		{
+		case BUILDROAD:
+		case BUILDSETTLEMENT:
+		case BUILDCITY:
+		case BUYDEVCARD:
+		case MOVEROBBER:
+		case ENDTURN:
+			return true;
+		default:
+			return false;
+		}
+	}
+}
@@ -4,6 +4,7 @@ import catan.SettlersOfCatan;
 import connection.LocalClientConnection;
 import connection.LocalServerConnection;
 import enums.Difficulty;
+import game.Clock;
 import server.LocalServer;
 import server.Server;
 
@@ -52,6 +53,16 @@ public class LocalAIClient extends AIClient
 		}
 	}
 
+	/**
+	 * Hands the clock to the local server and its AIs as well
+	 */
+	@Override
+	public void setClock(Clock clock)
+	{
+		super.setClock(clock);
+		server.setClock(clock);
+	}
+
 	public Server getServer()
 	{
 		return server;
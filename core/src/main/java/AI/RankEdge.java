@@ -1,20 +1,61 @@
 package AI;
 
 import client.ClientGame;
+import game.players.Player;
+import grid.BoardState;
+import grid.BoardTopology;
 import grid.Edge;
+import grid.HexGrid;
+import grid.Node;
 
 /**
  * Created by 140002949 on 23/03/17.
  */
 public class RankEdge
 {
+	private static final int REACH = 2; // How far past the road to look for settlement sites
 
 	ClientGame game;
 	Edge edge;
+	int ranking = 0;
 
 	public RankEdge(Edge edge, ClientGame game)
 	{
 		this.edge = edge;
 		this.game = game;
 	}
+
+	/**
+	 * Ranks the road by the best settlement site it brings the player closer
+	 * to. A site's rank is divided by one more than the edges left between it
+	 * and the road, so a site at the end of the road counts in full. Sites the
+	 * player is already as close to some other way are passed over.
+	 *
+	 * @param player the player who would build the road
+	 */
+	public void rank(Player player)
+	{
+		HexGrid grid = game.getGrid();
+		BoardTopology topology = grid.getTopology();
+		BoardState state = grid.getState();
+		int[] ends = topology.getEdgeNodes(edge.getId());
+
+		for (int n = 0; n < topology.getNumNodes(); n++)
+		{
+			int distance = Math.min(topology.getNodeDistance(ends[0], n), topology.getNodeDistance(ends[1], n));
+			if (distance > REACH || distance >= state.getDistanceToOwned(player.getColour(), n)) continue;
+
+			Node node = grid.getNodeById(n);
+			if (node.getBuilding() != null || node.isNearBuilding()) continue;
+
+			RankNode rn = new RankNode(node, player);
+			rn.rank(false);
+			ranking = Math.max(ranking, rn.getRanking() / (distance + 1));
+		}
+	}
+
+	public int getRanking()
+	{
+		return ranking;
+	}
 }
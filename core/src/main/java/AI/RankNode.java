@@ -11,7 +11,7 @@ import grid.Node;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.List;
 
 public class RankNode
 {
@@ -27,13 +27,13 @@ public class RankNode
 																							// if
 																							// wanted
 
-	LinkedList<Hex> surroundingHexes = new LinkedList<Hex>();
+	List<Hex> surroundingHexes;
 
 	public RankNode(Node node, Player player)
 	{
 		this.player = player;
 		this.node = node;
-		surroundingHexes = (LinkedList<Hex>) node.getHexes();
+		surroundingHexes = node.getHexes();
 	}
 
 	public void rank(boolean preRound)
@@ -0,0 +1,326 @@
+package AI;
+
+import enums.Colour;
+import enums.DevelopmentCardType;
+import enums.ResourceType;
+import exceptions.*;
+import game.Bank;
+import game.ResourceBag;
+import game.players.Player;
+import grid.BoardTopology;
+import grid.Edge;
+import grid.Hex;
+import grid.HexGrid;
+import grid.Node;
+import intergroup.board.Board;
+import server.ServerGame;
+
+import java.util.Random;
+
+/**
+ * Plays a game on quickly from where it is, so that a search can judge the
+ * move which led there. Every player follows the same simple policy: roll,
+ * and then build the best thing they can afford, a city before a settlement
+ * before a road or a development card, on a site chosen at random. No one
+ * trades or plays their development cards. A seven makes everyone with more
+ * than seven resources discard half of them at random, and the player moves
+ * the robber to a random hex and steals from someone beside it.
+ *
+ * The game is changed as it is played, so it should be a fork.
+ *
+ * @author 140001596
+ */
+class Rollout
+{
+	static final int MAX_TURNS = Integer.getInteger("catan.ai.rolloutTurns", 20);
+	private static final int MAX_BUILDS = 8; // In one turn
+	private final ServerGame game;
+	private final HexGrid grid;
+	private final Bank bank;
+	private final Random dice, random;
+	private final Colour[] seats; // By id
+
+	/**
+	 * @param game the game to play on
+	 * @param dice the source of the dice
+	 * @param random the source of the policy's choices, kept apart from the
+	 *            dice so that the same dice can be rolled after different
+	 *            moves
+	 */
+	Rollout(ServerGame game, Random dice, Random random)
+	{
+		this.game = game;
+		this.dice = dice;
+		this.random = random;
+		grid = game.getGrid();
+		bank = game.getBank();
+		seats = new Colour[game.getPlayers().size()];
+		for (Player p : game.getPlayers().values())
+		{
+			seats[p.getId().getNumber()] = p.getColour();
+		}
+	}
+
+	/**
+	 * Moves the robber for the current player, who has just rolled a seven,
+	 * and steals from someone beside it
+	 *
+	 * @param hex the hex to move the robber to
+	 */
+	void moveRobber(Hex hex)
+	{
+		try
+		{
+			game.moveRobber(Board.Point.newBuilder().setX(hex.getX()).setY(hex.getY()).build());
+		}
+		catch (InvalidCoordinatesException e)
+		{
+			// The hex came from this board
+			throw new IllegalStateException(e);
+		}
+
+		// Someone beside the hex with something to steal
+		Colour current = game.getCurrentPlayer(), victim = null;
+		int seen = 0;
+		for (Node node : hex.getNodes())
+		{
+			if (node.getBuilding() == null) continue;
+
+			Player p = game.getPlayer(node.getBuilding().getPlayerColour());
+			if (p.getColour() != current && p.getNumResources() > 0 && random.nextInt(++seen) == 0)
+			{
+				victim = p.getColour();
+			}
+		}
+		if (victim != null) game.takeResource(game.getPlayer(victim).getId());
+	}
+
+	/**
+	 * Ends the current player's turn, and then plays turns until someone has
+	 * won or MAX_TURNS have been played
+	 */
+	void play()
+	{
+		for (int turn = 0; turn < MAX_TURNS && !game.isOver(); turn++)
+		{
+			next();
+			build();
+		}
+	}
+
+	/**
+	 * Ends the current player's turn, and rolls the dice for the next
+	 */
+	void next()
+	{
+		int seat = game.getPlayer(game.getCurrentPlayer()).getId().getNumber();
+		game.getPlayer(seats[seat]).clearRecentDevCards();
+		game.setCurrentPlayer(seats[(seat + 1) % seats.length]);
+		roll();
+	}
+
+	/**
+	 * @param colour a player's colour
+	 * @return one if they have won, nothing if someone else has, or else their
+	 *         share of the victory points between them and whoever is ahead
+	 *         of the others
+	 */
+	double score(Colour colour)
+	{
+		int own = 0, best = 0;
+		for (Player p : game.getPlayers().values())
+		{
+			if (p.hasWon()) return p.getColour() == colour ? 1 : 0;
+
+			if (p.getColour() == colour)
+				own = p.getVp();
+			else
+				best = Math.max(best, p.getVp());
+		}
+		return own + best == 0 ? 0.5 : (double) own / (own + best);
+	}
+
+	/**
+	 * Rolls the dice for the current player
+	 */
+	private void roll()
+	{
+		int roll = dice.nextInt(6) + dice.nextInt(6) + 2;
+		if (roll != 7)
+		{
+			game.allocateResources(roll);
+			return;
+		}
+
+		for (Player p : game.getPlayers().values())
+		{
+			if (p.getNumResources() > 7) discard(p, p.getNumResources() / 2);
+		}
+
+		Hex robber = grid.getHexWithRobber(), hex;
+		do
+		{
+			hex = grid.getHexById(random.nextInt(grid.getTopology().getNumHexes()));
+		}
+		while (hex == robber);
+		moveRobber(hex);
+	}
+
+	/**
+	 * Gives resources chosen at random back to the bank
+	 */
+	private void discard(Player p, int amount)
+	{
+		ResourceBag discard = new ResourceBag();
+		ResourceBag left = new ResourceBag(p.getResources());
+		for (int i = 0; i < amount; i++)
+		{
+			ResourceType r = Determinizer.draw(left, random);
+			left.set(r, left.count(r) - 1);
+			discard.set(r, discard.count(r) + 1);
+		}
+
+		try
+		{
+			p.spendResources(discard, bank);
+		}
+		catch (CannotAffordException e)
+		{
+			// Drawn from the player's own hand
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Builds whatever the current player can afford, one thing at a time
+	 */
+	void build()
+	{
+		Player p = game.getPlayer(game.getCurrentPlayer());
+		for (int i = 0; i < MAX_BUILDS && !p.hasWon(); i++)
+		{
+			if (!buildOnce(p)) return;
+		}
+	}
+
+	/**
+	 * @return whether anything was built
+	 */
+	private boolean buildOnce(Player p)
+	{
+		Node node;
+		if (p.canAffordCity(bank) && (node = pickNode(p, true)) != null) return buildCity(node);
+		if (p.canAffordSettlement(bank) && (node = pickNode(p, false)) != null) return buildSettlement(node);
+
+		boolean card = p.canAfford(DevelopmentCardType.CARD_COST) && bank.getNumAvailableDevCards() > 0;
+		Edge edge = p.canAffordRoad(bank) ? pickEdge(p) : null;
+		if (card && (edge == null || random.nextBoolean())) return buyDevelopmentCard();
+		return edge != null && buildRoad(edge);
+	}
+
+	/**
+	 * Upgrades a settlement of the current player's
+	 *
+	 * @param node the settlement's node
+	 * @return whether the city was built
+	 */
+	boolean buildCity(Node node)
+	{
+		try
+		{
+			game.upgradeSettlement(node.toProto());
+			return true;
+		}
+		catch (CannotAffordException | CannotUpgradeException | InvalidCoordinatesException | BankLimitException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * @param node the node to build the current player a settlement on
+	 * @return whether the settlement was built
+	 */
+	boolean buildSettlement(Node node)
+	{
+		try
+		{
+			game.buildSettlement(node.toProto());
+			return true;
+		}
+		catch (CannotAffordException | IllegalPlacementException | SettlementExistsException
+				| InvalidCoordinatesException | BankLimitException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * @param edge the edge to build the current player a road on
+	 * @return whether the road was built
+	 */
+	boolean buildRoad(Edge edge)
+	{
+		try
+		{
+			game.buildRoad(edge.toEdgeProto());
+			return true;
+		}
+		catch (CannotAffordException | CannotBuildRoadException | RoadExistsException | InvalidCoordinatesException
+				| BankLimitException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * @return whether the current player bought a development card
+	 */
+	boolean buyDevelopmentCard()
+	{
+		try
+		{
+			game.buyDevelopmentCard();
+			return true;
+		}
+		catch (CannotAffordException | BankLimitException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * @return a node chosen at random from those the player could put a city
+	 *         or settlement on, or null
+	 */
+	private Node pickNode(Player p, boolean city)
+	{
+		BoardTopology topology = grid.getTopology();
+		Node chosen = null;
+		int seen = 0;
+		for (int n = 0; n < topology.getNumNodes(); n++)
+		{
+			Node node = grid.getNodeById(n);
+			boolean site = city ? p.isCitySite(node) : p.isSettlementSite(node);
+			if (site && random.nextInt(++seen) == 0) chosen = node;
+		}
+		return chosen;
+	}
+
+	/**
+	 * @return an edge chosen at random from those the player could put a road
+	 *         on, or null
+	 */
+	private Edge pickEdge(Player p)
+	{
+		BoardTopology topology = grid.getTopology();
+		Edge chosen = null;
+		int seen = 0;
+		for (int e = 0; e < topology.getNumEdges(); e++)
+		{
+			Edge edge = grid.getEdgeById(e);
+			if (p.isRoadSite(edge) && random.nextInt(++seen) == 0) chosen = edge;
+		}
+		return chosen;
+	}
+}
@@ -0,0 +1,95 @@
+package AI;
+
+import connection.IServerConnection;
+import enums.Difficulty;
+import intergroup.Events;
+
+/**
+ * Class representing an ai client which has no thread of its own. Rather than
+ * polling for events and sleeping between moves, it is stepped by whoever
+ * runs the game, on the game's own thread, whenever the server is waiting for
+ * a move.
+ *
+ * @author 140001596
+ */
+public class SimulatedAIClient extends AIClient
+{
+	private final IServerConnection conn;
+	private int turns, rejections;
+
+	/**
+	 * @param difficulty the difficulty of the AI
+	 * @param conn the connection to the server, which must not block when
+	 *            there is nothing to receive
+	 */
+	public SimulatedAIClient(Difficulty difficulty, IServerConnection conn)
+	{
+		super(difficulty);
+		this.conn = conn;
+		setUpConnection();
+		active = true;
+	}
+
+	@Override
+	protected void setUpConnection()
+	{
+		setUp(conn);
+	}
+
+	/**
+	 * Processes the events the server has sent since the last step, and then
+	 * lets the AI move, unless it is still waiting on the outcome of its last
+	 * move
+	 *
+	 * @return whether a move was sent
+	 * @throws Exception
+	 */
+	public boolean step() throws Exception
+	{
+		for (Events.Event ev : processPendingMessages())
+		{
+			if (ev.getTypeCase().equals(Events.Event.TypeCase.TURNENDED))
+			{
+				turns++;
+			}
+			rejections = ev.getTypeCase().equals(Events.Event.TypeCase.ERROR) ? rejections + 1 : 0;
+			resumeIfExpected(ev);
+		}
+
+		return (getState() == null || !getState().isOver()) && getAI().step();
+	}
+
+	/**
+	 * Lets the AI move again even though it is waiting, for when the outcome
+	 * it is waiting on will never come
+	 */
+	public void wake()
+	{
+		getAI().resume();
+	}
+
+	/**
+	 * @return the number of turns which have ended so far
+	 */
+	public int getTurns()
+	{
+		return turns;
+	}
+
+	/**
+	 * @return the number of moves in a row the server has rejected. A client
+	 *         whose view of the game has drifted from the server's keeps
+	 *         trying moves which are rejected.
+	 */
+	public int getRejections()
+	{
+		return rejections;
+	}
+
+	/**
+	 * Stepped clients have nothing worth printing at the rate they play
+	 */
+	@Override
+	public void log(String tag, String msg)
+	{}
+}
@@ -0,0 +1,166 @@
+package AI;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shares out the time AIs spend thinking between every AI seat in the
+ * process. The thinking is done by a fixed number of threads, from the system
+ * property catan.ai.threads, which is one per core unless set, so however
+ * many tables are playing the AIs never use more cores than that.
+ *
+ * An AI which wants to think asks for a {@link Slice}: a deadline and a
+ * number of threads to think on until then. The slice's length is
+ * catan.ai.millis, weighed by how much the decision matters in the
+ * {@link Phase} the game is in, and cut short when more decisions are waiting
+ * than there are threads. Its threads are one, and as many more of the spare
+ * ones as its share, so a lone decision gets every core and many decisions at
+ * once get one each. An AI must answer with the best it has by the deadline.
+ * Time spent waiting for a thread counts against the slice, and a decision
+ * which gets none before the deadline is given none and must answer at once.
+ *
+ * @author 140001596
+ */
+class ThinkingScheduler
+{
+	private static final ThinkingScheduler SHARED = new ThinkingScheduler(Long.getLong("catan.ai.millis", 500),
+			Integer.getInteger("catan.ai.threads", Runtime.getRuntime().availableProcessors()));
+	private final long millis;
+	private final int threads;
+	private final Semaphore free;
+	private final AtomicInteger pending; // Decisions waiting for or holding a slice
+
+	/**
+	 * How far a game has gone, which decides how long its decisions may take
+	 */
+	enum Phase
+	{
+		OPENING(0.5), // No one has more than a few points
+		MIDGAME(1),
+		ENDGAME(2); // Someone is close to winning
+
+		private final double weight;
+
+		Phase(double weight)
+		{
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * @param millis the length of a slice in the middle of the game with a
+	 *            thread to spare
+	 * @param threads the most threads thinking at once
+	 */
+	ThinkingScheduler(long millis, int threads)
+	{
+		this.millis = millis;
+		this.threads = Math.max(1, threads);
+		free = new Semaphore(this.threads, true);
+		pending = new AtomicInteger();
+	}
+
+	/**
+	 * @return the scheduler shared by every AI in the process
+	 */
+	static ThinkingScheduler get()
+	{
+		return SHARED;
+	}
+
+	/**
+	 * @return the most threads thinking at once
+	 */
+	int getThreads()
+	{
+		return threads;
+	}
+
+	/**
+	 * Waits for a thread to think on, for no longer than the slice lasts
+	 *
+	 * @param phase how far the game has gone
+	 * @return the slice, which must be closed once the decision is made
+	 */
+	Slice begin(Phase phase)
+	{
+		int waiting = pending.incrementAndGet();
+		double share = Math.min(1, (double) threads / waiting);
+		long length = (long) (millis * phase.weight * share * 1000000L);
+		long deadline = System.nanoTime() + length;
+
+		int held = 0;
+		try
+		{
+			if (free.tryAcquire(length, TimeUnit.NANOSECONDS))
+			{
+				held = 1;
+				int most = Math.max(1, (int) (threads * share));
+				while (held < most && free.tryAcquire())
+				{
+					held++;
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		return new Slice(deadline, held);
+	}
+
+	/**
+	 * A decision's share of the thinking time
+	 */
+	final class Slice implements AutoCloseable
+	{
+		private final long deadline;
+		private final int held;
+		private boolean closed;
+
+		private Slice(long deadline, int held)
+		{
+			this.deadline = deadline;
+			this.held = held;
+		}
+
+		/**
+		 * @return the time by which to answer, by {@link System#nanoTime()}
+		 */
+		long getDeadline()
+		{
+			return deadline;
+		}
+
+		/**
+		 * @return how many threads to think on, counting the one which asked
+		 *         for the slice. None means there is no time to think.
+		 */
+		int getThreads()
+		{
+			return held;
+		}
+
+		/**
+		 * @return whether the deadline has passed
+		 */
+		boolean isOver()
+		{
+			return held == 0 || System.nanoTime() >= deadline;
+		}
+
+		/**
+		 * Gives the slice's threads back for other decisions
+		 */
+		@Override
+		public void close()
+		{
+			if (closed) return;
+
+			closed = true;
+			free.release(held);
+			pending.decrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,379 @@
+package AI;
+
+import client.Turn;
+import enums.Colour;
+import enums.DevelopmentCardType;
+import game.Bank;
+import game.players.Player;
+import grid.BoardTopology;
+import grid.HexGrid;
+import intergroup.Requests;
+import server.ServerGame;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses between moves by information set Monte Carlo tree search. Each
+ * iteration deals a game from what the player can see with the
+ * {@link Determinizer}, and walks down one tree which every deal shares, from
+ * the player's move now through the moves of each seat after them. Every
+ * branch of the tree is one move by whoever's turn it was: a build, a
+ * development card, moving the robber or ending the turn, after which the next
+ * seat rolls and chooses in turn. Below the root, the moves to choose between
+ * are those open in the deal being played, so what the opponents may do
+ * follows from the cards they were dealt, and each move is chosen by how well
+ * it did against how often it could have been chosen (UCT, counting only the
+ * iterations in which it was open). On reaching a move not yet in the tree,
+ * the iteration adds it, leaves the {@link Rollout}'s policy to finish the turn
+ * and play on, and credits every move on the way with how well whoever made it
+ * did.
+ *
+ * Iterations run on the thread which asked and on as many more threads of a
+ * pool shared by every search as its {@link ThinkingScheduler.Slice} holds,
+ * which take turns at each branch as they pass. A move counts as visited as
+ * soon as a thread goes through it, before its score is in, so that threads
+ * spread over the tree rather than follow each other. Each search stops at the
+ * end of its slice or once it has played its number of iterations, whichever
+ * is first, and then answers with the move tried most, so busy threads lead to
+ * fewer iterations rather than to a late answer. An iteration still running on
+ * the pool when the search answers is left to finish, and is ignored.
+ *
+ * @author 140001596
+ */
+class TreeSearch
+{
+	private static final ForkJoinPool POOL = new ForkJoinPool(ThinkingScheduler.get().getThreads());
+	private static final double EXPLORATION = Double.parseDouble(System.getProperty("catan.ai.exploration", "0.7"));
+	private static final Action END_TURN = new Action(Requests.Request.BodyCase.ENDTURN, -1);
+	private final Determinizer determinizer;
+	private final Map<Action, Turn> moves;
+	private final List<Action> rootMoves;
+	private final Branch root = new Branch(null, null);
+	private int iterations, size;
+
+	/**
+	 * @param determinizer what the player can see of the game
+	 * @param moves the moves to choose between
+	 */
+	TreeSearch(Determinizer determinizer, List<Turn> moves)
+	{
+		this.determinizer = determinizer;
+		this.moves = new HashMap<>();
+		rootMoves = new ArrayList<>(moves.size());
+		for (Turn move : moves)
+		{
+			Action action = Action.of(move);
+			if (this.moves.putIfAbsent(action, move) == null) rootMoves.add(action);
+		}
+	}
+
+	/**
+	 * Searches until the slice is over or the limit is reached
+	 *
+	 * @param slice the time and threads to search with
+	 * @param limit the most iterations to play
+	 * @return the move tried most, or null if not one iteration finished in
+	 *         time
+	 */
+	Turn search(ThinkingScheduler.Slice slice, int limit)
+	{
+		if (slice.isOver()) return null;
+
+		long deadline = slice.getDeadline();
+		AtomicInteger left = new AtomicInteger(limit);
+
+		// Each thread deals from its own copy, so only the tree is shared
+		for (int i = 1; i < slice.getThreads(); i++)
+		{
+			ServerGame copy = determinizer.copy(new Random());
+			POOL.execute(() -> work(copy, deadline, left));
+		}
+		work(determinizer.copy(new Random()), deadline, left);
+
+		return best();
+	}
+
+	/**
+	 * @return the number of iterations which had finished when the search
+	 *         answered
+	 */
+	synchronized int getIterations()
+	{
+		return iterations;
+	}
+
+	/**
+	 * @return the number of moves in the tree, not counting the root
+	 */
+	synchronized int getSize()
+	{
+		return size;
+	}
+
+	/**
+	 * Plays one iteration after another until the search is over
+	 */
+	private void work(ServerGame copy, long deadline, AtomicInteger left)
+	{
+		Random random = new Random(), dice = new Random();
+		while (System.nanoTime() < deadline && left.getAndDecrement() > 0)
+		{
+			ServerGame game = determinizer.deal(copy, random);
+			iterate(game, new Rollout(game, dice, random), random);
+		}
+	}
+
+	/**
+	 * Walks down the tree in the dealt game until reaching a move not yet in
+	 * it or the end of the game, plays on, and credits the moves on the way
+	 */
+	private void iterate(ServerGame game, Rollout rollout, Random random)
+	{
+		List<Branch> path = new ArrayList<>();
+		Branch branch = root;
+		boolean added = false, allowed = true;
+		while (!added && allowed && !game.isOver())
+		{
+			List<Action> open = branch == root ? rootMoves : open(game);
+			Branch parent = branch;
+			synchronized (parent)
+			{
+				branch = parent.expand(open, game.getCurrentPlayer(), random);
+				added = branch != null;
+				if (!added) branch = parent.select(open);
+				branch.visits++;
+			}
+			path.add(branch);
+			allowed = apply(branch.action, game, rollout);
+		}
+
+		// A move open in the real game may not be in every deal, and then
+		// counts for nothing
+		Map<Colour, Double> scores = new EnumMap<>(Colour.class);
+		if (allowed)
+		{
+			rollout.build();
+			rollout.play();
+			for (Player p : game.getPlayers().values())
+			{
+				scores.put(p.getColour(), rollout.score(p.getColour()));
+			}
+		}
+
+		Branch parent = root;
+		for (Branch b : path)
+		{
+			synchronized (parent)
+			{
+				b.total += scores.getOrDefault(b.mover, 0.0);
+			}
+			parent = b;
+		}
+		record(added);
+	}
+
+	/**
+	 * @return every move the current player could make in the game: each
+	 *         city, settlement and road they can afford and has a site, a
+	 *         development card if they can buy one, and ending their turn
+	 */
+	private static List<Action> open(ServerGame game)
+	{
+		Player p = game.getPlayer(game.getCurrentPlayer());
+		Bank bank = game.getBank();
+		HexGrid grid = game.getGrid();
+		BoardTopology topology = grid.getTopology();
+		List<Action> open = new ArrayList<>();
+		open.add(END_TURN);
+
+		boolean city = p.canAffordCity(bank), settlement = p.canAffordSettlement(bank);
+		for (int n = 0; (city || settlement) && n < topology.getNumNodes(); n++)
+		{
+			if (city && p.isCitySite(grid.getNodeById(n)))
+				open.add(new Action(Requests.Request.BodyCase.BUILDCITY, n));
+			else if (settlement && p.isSettlementSite(grid.getNodeById(n)))
+				open.add(new Action(Requests.Request.BodyCase.BUILDSETTLEMENT, n));
+		}
+		for (int e = 0; p.canAffordRoad(bank) && e < topology.getNumEdges(); e++)
+		{
+			if (p.isRoadSite(grid.getEdgeById(e))) open.add(new Action(Requests.Request.BodyCase.BUILDROAD, e));
+		}
+		if (p.canAfford(DevelopmentCardType.CARD_COST) && bank.getNumAvailableDevCards() > 0)
+			open.add(new Action(Requests.Request.BodyCase.BUYDEVCARD, -1));
+
+		return open;
+	}
+
+	/**
+	 * Makes the move in a game dealt for an iteration
+	 *
+	 * @return whether the move was allowed
+	 */
+	private static boolean apply(Action move, ServerGame game, Rollout rollout)
+	{
+		switch (move.kind)
+		{
+		case BUILDROAD:
+			return rollout.buildRoad(game.getGrid().getEdgeById(move.id));
+		case BUILDSETTLEMENT:
+			return rollout.buildSettlement(game.getGrid().getNodeById(move.id));
+		case BUILDCITY:
+			return rollout.buildCity(game.getGrid().getNodeById(move.id));
+		case BUYDEVCARD:
+			return rollout.buyDevelopmentCard();
+		case MOVEROBBER:
+			rollout.moveRobber(game.getGrid().getHexById(move.id));
+			return true;
+		case ENDTURN:
+			rollout.next();
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private synchronized void record(boolean added)
+	{
+		iterations++;
+		if (added) size++;
+	}
+
+	/**
+	 * @return the move at the root tried most, or null if none has been
+	 */
+	private Turn best()
+	{
+		Branch chosen = null;
+		synchronized (root)
+		{
+			for (Branch b : root.children.values())
+			{
+				if (b.visits > 0 && (chosen == null || b.visits > chosen.visits)) chosen = b;
+			}
+		}
+		return chosen == null ? null : moves.get(chosen.action);
+	}
+
+	/**
+	 * A move in the tree, with what came of the iterations through it. Its
+	 * numbers are kept under its parent's lock, and its children under its
+	 * own.
+	 */
+	private static final class Branch
+	{
+		private final Action action;
+		private final Colour mover;
+		private final Map<Action, Branch> children = new HashMap<>();
+		private int visits, available; // Iterations through it, and in which it was open
+		private double total; // Of its mover's scores
+
+		private Branch(Action action, Colour mover)
+		{
+			this.action = action;
+			this.mover = mover;
+		}
+
+		/**
+		 * Counts every open move already tried as available, and adds one
+		 * chosen at random from those not tried yet, if there are any
+		 *
+		 * @param mover whoever is to choose between the open moves
+		 * @return the move added, or null if every open move had been tried
+		 */
+		private Branch expand(List<Action> open, Colour mover, Random random)
+		{
+			Action untried = null;
+			int seen = 0;
+			for (Action action : open)
+			{
+				Branch child = children.get(action);
+				if (child != null)
+					child.available++;
+				else if (random.nextInt(++seen) == 0) untried = action;
+			}
+			if (untried == null) return null;
+
+			Branch child = new Branch(untried, mover);
+			child.available++;
+			children.put(untried, child);
+			return child;
+		}
+
+		/**
+		 * @param open the moves open, all of which have been tried
+		 * @return the open move with the best upper confidence bound on its
+		 *         score
+		 */
+		private Branch select(List<Action> open)
+		{
+			Branch chosen = null;
+			double best = Double.NEGATIVE_INFINITY;
+			for (Action action : open)
+			{
+				Branch child = children.get(action);
+				double bound = child.total / child.visits
+						+ EXPLORATION * Math.sqrt(Math.log(child.available) / child.visits);
+				if (bound > best)
+				{
+					best = bound;
+					chosen = child;
+				}
+			}
+			return chosen;
+		}
+	}
+
+	/**
+	 * A move, by its kind and the id of the node, edge or hex it is on, so
+	 * that the same move can be found in every deal
+	 */
+	private static final class Action
+	{
+		private final Requests.Request.BodyCase kind;
+		private final int id;
+
+		private Action(Requests.Request.BodyCase kind, int id)
+		{
+			this.kind = kind;
+			this.id = id;
+		}
+
+		private static Action of(Turn turn)
+		{
+			switch (turn.getChosenMove())
+			{
+			case BUILDROAD:
+				return new Action(turn.getChosenMove(), turn.getChosenEdge().getId());
+			case BUILDSETTLEMENT:
+			case BUILDCITY:
+				return new Action(turn.getChosenMove(), turn.getChosenNode().getId());
+			case MOVEROBBER:
+				return new Action(turn.getChosenMove(), turn.getChosenHex().getId());
+			default:
+				return new Action(turn.getChosenMove(), -1);
+			}
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Action)) return false;
+
+			Action other = (Action) o;
+			return kind == other.kind && id == other.id;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return kind.hashCode() * 31 + id;
+		}
+	}
+}
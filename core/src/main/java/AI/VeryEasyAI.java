@@ -4,6 +4,7 @@ import client.Turn;
 import enums.Colour;
 import enums.DevelopmentCardType;
 import enums.ResourceType;
+import game.ResourceBag;
 import game.build.Building;
 import game.players.Player;
 import grid.Edge;
@@ -71,8 +72,7 @@ public class VeryEasyAI extends AICore
 		if (getTurn().hasTraded()) return -1;
 
 		Map<ResourceType, Integer> tradeReq = new HashMap<>();
-		Map<ResourceType, Integer> resources = new HashMap<>();
-		resources.putAll(getPlayer().getResources());
+		Map<ResourceType, Integer> resources = new ResourceBag(getPlayer().getResources());
 		List<ResourceType> want = getDesiredResources(resources);
 		ResourceType maxResource = findMax(resources);
 		ResourceType leastResource;
@@ -119,8 +119,7 @@ public class VeryEasyAI extends AICore
 	{
 		int amount = getPlayer().getNumResources(), diff = amount / 2;
 		Map<ResourceType, Integer> discard = new HashMap<>();
-		Map<ResourceType, Integer> resources = new HashMap<>();
-		resources.putAll(getPlayer().getResources());
+		Map<ResourceType, Integer> resources = new ResourceBag(getPlayer().getResources());
 
 		// Randomly assign resources to discard
 		while (diff > 0)
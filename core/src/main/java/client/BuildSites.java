@@ -0,0 +1,140 @@
+package client;
+
+import enums.Colour;
+import game.players.Player;
+import grid.BoardListener;
+import grid.BoardState;
+import grid.BoardTopology;
+import grid.HexGrid;
+
+import java.util.BitSet;
+
+/**
+ * The nodes and edges where the player could build, leaving aside whether it
+ * is their turn or whether they can pay. Each site is checked once, and then
+ * again only when something is built or taken away next to it: a building
+ * marks its node, the nodes next to it and its edges, and a road marks the
+ * nodes at its ends and every edge which meets them. The whole board is only
+ * checked again for a new board, or when the player moves past the first two
+ * settlements or roads, whose rules are different. The board state's
+ * distances to what the player owns rule out sites beyond their reach
+ * before the placement rules are asked.
+ *
+ * @author 140001596
+ */
+class BuildSites implements BoardListener
+{
+	private final BitSet settlements, cities, roads; // By id
+	private final BitSet dirtyNodes, dirtyEdges;
+	private HexGrid grid;
+	private BoardTopology topology;
+	private Player player;
+	private boolean firstSettlements, firstRoads;
+
+	BuildSites()
+	{
+		settlements = new BitSet();
+		cities = new BitSet();
+		roads = new BitSet();
+		dirtyNodes = new BitSet();
+		dirtyEdges = new BitSet();
+	}
+
+	/**
+	 * Checks again every site which has been marked since the last update
+	 *
+	 * @param grid the board
+	 * @param player the player who would build
+	 */
+	synchronized void update(HexGrid grid, Player player)
+	{
+		if (grid != this.grid || player != this.player)
+		{
+			if (this.grid != null) this.grid.getState().removeListener(this);
+			grid.getState().addListener(this);
+			this.grid = grid;
+			this.player = player;
+			topology = grid.getTopology();
+			dirtyNodes.set(0, topology.getNumNodes());
+			dirtyEdges.set(0, topology.getNumEdges());
+		}
+
+		boolean first = player.getSettlements().size() < 2;
+		if (first != firstSettlements) dirtyNodes.set(0, topology.getNumNodes());
+		firstSettlements = first;
+		first = player.getNumRoads() < 2;
+		if (first != firstRoads) dirtyEdges.set(0, topology.getNumEdges());
+		firstRoads = first;
+
+		// Past the first two settlements, a site must be on the player's road,
+		// and a road must always meet something of theirs, so sites out of
+		// their reach are ruled out without looking at the board
+		BoardState state = grid.getState();
+		Colour colour = player.getColour();
+		for (int n = dirtyNodes.nextSetBit(0); n >= 0; n = dirtyNodes.nextSetBit(n + 1))
+		{
+			boolean reached = firstSettlements || state.getDistanceToOwned(colour, n) == 0;
+			settlements.set(n, reached && player.isSettlementSite(grid.getNodeById(n)));
+			cities.set(n, player.isCitySite(grid.getNodeById(n)));
+		}
+		for (int e = dirtyEdges.nextSetBit(0); e >= 0; e = dirtyEdges.nextSetBit(e + 1))
+		{
+			roads.set(e, state.getEdgeDistanceToOwned(colour, e) == 0 && player.isRoadSite(grid.getEdgeById(e)));
+		}
+		dirtyNodes.clear();
+		dirtyEdges.clear();
+	}
+
+	/**
+	 * @return the ids of the nodes a settlement could go on, as of the last
+	 *         update
+	 */
+	BitSet getSettlementSites()
+	{
+		return settlements;
+	}
+
+	/**
+	 * @return the ids of the nodes with a settlement which could become a
+	 *         city, as of the last update
+	 */
+	BitSet getCitySites()
+	{
+		return cities;
+	}
+
+	/**
+	 * @return the ids of the edges a road could go on, as of the last update
+	 */
+	BitSet getRoadSites()
+	{
+		return roads;
+	}
+
+	@Override
+	public synchronized void buildingChanged(int node)
+	{
+		dirtyNodes.set(node);
+		for (int e : topology.getNodeEdges(node))
+		{
+			dirtyEdges.set(e);
+			for (int n : topology.getEdgeNodes(e))
+			{
+				dirtyNodes.set(n);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void roadChanged(int edge)
+	{
+		for (int n : topology.getEdgeNodes(edge))
+		{
+			dirtyNodes.set(n);
+			for (int e : topology.getNodeEdges(n))
+			{
+				dirtyEdges.set(e);
+			}
+		}
+	}
+}
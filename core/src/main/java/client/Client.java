@@ -4,6 +4,7 @@ import catan.SettlersOfCatan;
 import com.badlogic.gdx.Gdx;
 import connection.IServerConnection;
 import enums.Colour;
+import game.Clock;
 import game.Game;
 import game.players.ClientPlayer;
 import intergroup.Events;
@@ -12,6 +13,7 @@ import intergroup.Requests;
 import intergroup.board.Board;
 import intergroup.lobby.Lobby;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Semaphore;
@@ -34,7 +36,14 @@ public abstract class Client implements Runnable
 	private IServerConnection conn;
 	private Semaphore stateLock, turnLock;
 	private final List<String> usersInLobby;
+	private int gameId;
+	private String sessionToken;
+	private long sequence;
+	private boolean resuming;
+	private volatile Clock clock = Clock.SYSTEM;
 	protected boolean active;
+	private static final int MAX_RECONNECTS = 6;
+	private static final long RECONNECT_DELAY = 100;
 
 	protected Client(SettlersOfCatan game, String userName)
 	{
@@ -62,7 +71,7 @@ public abstract class Client implements Runnable
 			try
 			{
 				acquireLocksAndGetEvents();
-				Thread.sleep(100);
+				clock.sleep(100);
 			}
 			catch (Exception e)
 			{
@@ -74,21 +83,27 @@ public abstract class Client implements Runnable
 	}
 
 	/**
-	 * Acquires locks and attempts to process an event
+	 * Acquires locks and processes the next message from the server. All of
+	 * the events in a batch are processed under one acquisition of the locks.
+	 *
+	 * @return the events which were processed, or null if the connection has
+	 *         closed
 	 */
-	protected Events.Event acquireLocksAndGetEvents() throws Exception
+	protected List<Events.Event> acquireLocksAndGetEvents() throws Exception
 	{
-		Events.Event ev = null;
+		List<Events.Event> events = new ArrayList<>();
 		try
 		{
-			Messages.Message msg = eventProcessor.getNextMessage();
+			Messages.Message msg = getNextMessage();
+			if (msg == null) return null;
+
 			getStateLock().acquire();
 			try
 			{
 				getTurnLock().acquire();
 				try
 				{
-					ev = eventProcessor.processMessage(msg);
+					events = eventProcessor.processMessage(msg);
 				}
 				finally
 				{
@@ -103,13 +118,124 @@ public abstract class Client implements Runnable
 			{
 				getStateLock().release();
 			}
-			Thread.sleep(100);
 		}
 		catch (InterruptedException e)
 		{
 			e.printStackTrace();
 		}
-		return ev;
+		return events;
+	}
+
+	/**
+	 * Processes every message the server has already sent, without waiting
+	 * for more. For clients which are stepped on the same thread as their
+	 * server, rather than running on their own.
+	 *
+	 * @return the events which were processed
+	 * @throws Exception
+	 */
+	protected List<Events.Event> processPendingMessages() throws Exception
+	{
+		List<Events.Event> events = new ArrayList<>();
+		Messages.Message msg;
+		while ((msg = eventProcessor.getNextMessage()) != null)
+		{
+			events.addAll(eventProcessor.processMessage(msg));
+		}
+		return events;
+	}
+
+	/**
+	 * Blocks for the next message from the server. If the connection is lost
+	 * and the server granted this client a session, the session is resumed on
+	 * a new connection.
+	 *
+	 * @return the next message
+	 * @throws Exception
+	 */
+	private Messages.Message getNextMessage() throws Exception
+	{
+		while (true)
+		{
+			try
+			{
+				Messages.Message msg = eventProcessor.getNextMessage();
+				if (msg != null)
+				{
+					refused(msg);
+					return msg;
+				}
+				if (!canResume()) return null;
+			}
+			catch (IOException e)
+			{
+				if (!canResume()) throw e;
+			}
+
+			resumeSession();
+		}
+	}
+
+	/**
+	 * @return whether a lost connection should be re-established
+	 */
+	private boolean canResume()
+	{
+		return active && sessionToken != null;
+	}
+
+	/**
+	 * Forgets the session if the server turned it down. A server which
+	 * refuses a session sends an error in place of the session. The connection
+	 * merely dropping again says nothing, as it may have reached a server
+	 * which was on its way down.
+	 *
+	 * @param msg the message received
+	 */
+	private void refused(Messages.Message msg)
+	{
+		if (resuming && msg.getTypeCase().equals(Messages.Message.TypeCase.EVENT)
+				&& msg.getEvent().getTypeCase().equals(Events.Event.TypeCase.ERROR))
+		{
+			log("Client Play", "The server refused to resume the session");
+			sessionToken = null;
+			resuming = false;
+		}
+	}
+
+	/**
+	 * Reconnects to the server, backing off between attempts, and asks for the
+	 * events missed since the last one applied. Holds the locks throughout, so
+	 * that no turn is sent in the meantime.
+	 *
+	 * @throws Exception if the server could not be reached
+	 */
+	private void resumeSession() throws Exception
+	{
+		log("Client Play", String.format("Lost connection. Resuming session after event %d", sequence));
+		getStateLock().acquire();
+		try
+		{
+			getTurnLock().acquire();
+			try
+			{
+				for (int attempt = 0; !conn.reconnect(); attempt++)
+				{
+					if (attempt == MAX_RECONNECTS) throw new IOException("Could not resume session");
+					clock.sleep(RECONNECT_DELAY << attempt);
+				}
+				turnProcessor.resume();
+				resuming = true;
+			}
+			finally
+			{
+				getTurnLock().release();
+			}
+		}
+		finally
+		{
+			getStateLock().release();
+		}
 	}
 
 	/**
@@ -210,6 +336,7 @@ public abstract class Client implements Runnable
 				updateTurn(new Turn(Requests.Request.BodyCase.GETRESOURCES));
 				turnProcessor.setUpMove();
 			}
+			turnProcessor.flush();
 
 			return true;
 		}
@@ -264,7 +391,6 @@ public abstract class Client implements Runnable
 	 */
 	public void shutDown()
 	{
-		System.exit(1);
 		if (active)
 		{
 			active = false;
@@ -351,11 +477,103 @@ public abstract class Client implements Runnable
 		this.thisPlayer = p;
 	}
 
+	/**
+	 * @return the id of the game this client asks to join
+	 */
+	public int getGameId()
+	{
+		return gameId;
+	}
+
+	/**
+	 * Sets which game to join when connecting to a server hosting several
+	 *
+	 * @param gameId the id of the game to join
+	 */
+	public void setGameId(int gameId)
+	{
+		this.gameId = gameId;
+	}
+
+	/**
+	 * @return the token to present when resuming this client's seat, or null
+	 *         if the server did not grant a session
+	 */
+	String getSessionToken()
+	{
+		return sessionToken;
+	}
+
+	/**
+	 * @return the number of events applied from the server so far
+	 */
+	long getSequence()
+	{
+		return sequence;
+	}
+
+	/**
+	 * Remembers the session granted by the server
+	 *
+	 * @param session the session's token, and the number of events which came
+	 *            before those that follow
+	 */
+	void setSession(Lobby.Session session)
+	{
+		boolean resumed = resuming;
+		sessionToken = session.getToken();
+		sequence = session.getSequence();
+		resuming = false;
+
+		if (resumed)
+		{
+			sessionResumed();
+		}
+	}
+
+	/**
+	 * Called once the server has handed this client's seat back after its
+	 * connection dropped. A move sent as the connection dropped may never
+	 * have been processed.
+	 */
+	protected void sessionResumed()
+	{}
+
+	/**
+	 * Counts an event as applied. Snapshots of the whole game state are sent
+	 * outside of the numbered stream of events.
+	 *
+	 * @param ev the event
+	 */
+	void eventApplied(Events.Event ev)
+	{
+		if (!ev.getTypeCase().equals(Events.Event.TypeCase.GAMEINFO))
+		{
+			sequence++;
+		}
+	}
+
 	public boolean isActive()
 	{
 		return active;
 	}
 
+	/**
+	 * @return the clock this client waits on
+	 */
+	public Clock getClock()
+	{
+		return clock;
+	}
+
+	/**
+	 * @param clock the clock for this client to wait on
+	 */
+	public void setClock(Clock clock)
+	{
+		this.clock = clock;
+	}
+
 	public void setActive(boolean active)
 	{
 		this.active = active;
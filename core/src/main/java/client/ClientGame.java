@@ -17,6 +17,7 @@ import intergroup.lobby.Lobby;
 import intergroup.resource.Resource;
 import intergroup.trade.Trade;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -73,11 +74,10 @@ public class ClientGame extends Game
 	{
 		HexGrid grid = new HexGrid(false);
 		this.grid = grid;
-		List<Hex> hexes = processHexes(beginGame.getHexesList());
 		processPlayerSettings(beginGame.getOwnPlayer(), beginGame.getPlayerSettingsList());
 
 		// Overwrite current grid
-		grid.setNodesAndHexes(hexes);
+		grid.setNodesAndHexes(beginGame.getHexesList());
 		List<Port> ports = processPorts(beginGame.getHarboursList());
 		grid.setPorts(ports);
 
@@ -168,47 +168,6 @@ public class ClientGame extends Game
 		}
 	}
 
-	/**
-	 * Retrieve the hex objects referred to by the proto
-	 * 
-	 * @param protos the hex protos
-	 */
-	private List<Hex> processHexes(List<Board.Hex> protos)
-	{
-		List<Hex> hexes = new ArrayList<>();
-
-		// Add nodes
-		for (Board.Hex proto : protos)
-		{
-			hexes.add(Hex.fromProto(proto));
-		}
-
-		return hexes;
-	}
-
-	/**
-	 * Retrieve the port objects referred to by the proto
-	 * 
-	 * @param protos the port protos
-	 */
-	private List<Port> processPorts(List<Board.Harbour> protos)
-	{
-		List<Port> ports = new ArrayList<>();
-
-		// Add ports
-		for (Board.Harbour harbour : protos)
-		{
-			Board.Edge e = harbour.getLocation();
-			Board.Point p1 = e.getA(), p2 = e.getB();
-			Port port = new Port(grid.getNode(p1.getX(), p1.getY()), grid.getNode(p2.getX(), p2.getY()));
-			port.setExchangeType(ResourceType.fromProto(harbour.getResource()));
-
-			ports.add(port);
-		}
-
-		return ports;
-	}
-
 	/**
 	 * @return if the game has ended or not
 	 */
@@ -343,7 +302,7 @@ public class ClientGame extends Game
 			if (!player.getColour().equals(getPlayer().getColour()))
 			{
 				int existing = resources.get(player.getColour());
-				resources.put(player.getColour(), existing - Road.getRoadCost().size());
+				resources.put(player.getColour(), existing - Road.COST.size());
 			}
 		}
 
@@ -377,15 +336,12 @@ public class ClientGame extends Game
 		// Handle resources
 		if (player.getColour().equals(getPlayer().getColour()))
 		{
-			player.spendResources(City.getCityCost(), bank);
+			player.spendResources(City.COST, bank);
 		}
 		else
 		{
 			int existing = resources.get(player.getColour());
-			int cost = 0;
-			for (ResourceType r : City.getCityCost().keySet())
-				cost += City.getCityCost().get(r);
-			resources.put(player.getColour(), existing - cost);
+			resources.put(player.getColour(), existing - City.COST.total());
 		}
 
 		// Create and add the city
@@ -423,23 +379,25 @@ public class ClientGame extends Game
 		{
 			if (player.getColour().equals(getPlayer().getColour()))
 			{
-				player.spendResources(Settlement.getSettlementCost(), bank);
+				player.spendResources(Settlement.COST, bank);
 			}
 			else
 			{
 				int existing = resources.get(player.getColour());
-				resources.put(player.getColour(), existing - Settlement.getSettlementCost().size());
+				resources.put(player.getColour(), existing - Settlement.COST.size());
 			}
 		}
 
 		// Create and add the settlement
 		Settlement s = new Settlement(node, player.getColour());
-		checkIfRoadBroken(node);
 
 		// Updates settlement and score
 		players.get(player.getColour()).addSettlement(s);
 		getBank().setAvailableSettlements(player.getColour(),
 				getBank().getAvailableSettlements(player.getColour()) - 1);
+
+		// The settlement must be on the board before it can break a road
+		checkIfRoadBroken(node);
 		return s;
 	}
 
@@ -494,13 +452,13 @@ public class ClientGame extends Game
 		// Handle resources
 		if (player.getColour().equals(getPlayer().getColour()))
 		{
-			player.spendResources(DevelopmentCardType.getCardCost(), bank);
+			player.spendResources(DevelopmentCardType.CARD_COST, bank);
 			getPlayer().addDevelopmentCard(boughtDevCard);
 		}
 		else
 		{
 			int existing = resources.get(player.getColour());
-			resources.put(player.getColour(), existing - DevelopmentCardType.getCardCost().size());
+			resources.put(player.getColour(), existing - DevelopmentCardType.CARD_COST.size());
 		}
 
 		// Update number of dev cards each player is known to have
@@ -699,6 +657,29 @@ public class ClientGame extends Game
 		}
 	}
 
+	/**
+	 * Writes what this player can see of the game into a snapshot which a
+	 * ServerGame can read. Other players' hands are not known here, so they
+	 * are written empty, and no settlement is left owed its initial
+	 * resources.
+	 *
+	 * @param buf the buffer to write to
+	 */
+	@Override
+	public void writeTo(ByteBuffer buf)
+	{
+		super.writeTo(buf);
+		buf.put((byte) players.size());
+		for (Colour c : Colour.values())
+		{
+			if (players.containsKey(c))
+			{
+				players.get(c).writeTo(buf);
+				buf.put((byte) 0);
+			}
+		}
+	}
+
 	/**
 	 * Return the total amounts of dev cards owned by each player
 	 * 
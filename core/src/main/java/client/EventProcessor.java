@@ -13,6 +13,8 @@ import intergroup.board.Board;
 import intergroup.trade.Trade;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -23,6 +25,7 @@ class EventProcessor
 {
 	private final Client client;
 	private final IServerConnection conn;
+	private boolean render;
 
 	public EventProcessor(IServerConnection conn, Client client)
 	{
@@ -52,32 +55,32 @@ class EventProcessor
 			break;
 		case CITYBUILT:
 			getGame().processNewCity(ev.getCityBuilt(), ev.getInstigator());
-			client.render();
+			render = true;
 			break;
 		case SETTLEMENTBUILT:
 			getGame().processNewSettlement(ev.getSettlementBuilt(), ev.getInstigator());
-			client.render();
+			render = true;
 			break;
 		case ROADBUILT:
 			getGame().processRoad(ev.getRoadBuilt(), ev.getInstigator());
-			client.render();
+			render = true;
 			break;
 		case ROLLED:
 			int roll = ev.getRolled().getA() + ev.getRolled().getB();
 			getGame().processDice(roll, ev.getRolled().getResourceAllocationList());
-			client.render();
+			render = true;
 			break;
 		case ROBBERMOVED:
 			getGame().moveRobber(ev.getRobberMoved());
-			client.render();
+			render = true;
 			break;
 		case DEVCARDBOUGHT:
 			getGame().recordDevCard(ev.getDevCardBought(), ev.getInstigator());
-			client.render();
+			render = true;
 			break;
 		case DEVCARDPLAYED:
 			getGame().processPlayedDevCard(ev.getDevCardPlayed(), ev.getInstigator());
-			client.render();
+			render = true;
 			break;
 		case BEGINGAME:
 			client.setGame(new ClientGame(client));
@@ -100,7 +103,8 @@ class EventProcessor
 			break;
 		case PLAYERTRADEINITIATED:
 			Player p = getGame().getPlayer(ev.getPlayerTradeInitiated().getOther().getId());
-			getTurn().setCurrentTrade(new CurrentTrade(ev.getPlayerTradeInitiated(), ev.getInstigator()));
+			getTurn().setCurrentTrade(new CurrentTrade(ev.getPlayerTradeInitiated(), ev.getInstigator(),
+					client.getClock().currentTimeMillis()));
 
 			if (p.getColour().equals(getGame().getPlayer().getColour()))
 			{
@@ -119,7 +123,7 @@ class EventProcessor
 				Trade.WithPlayer trade = ev.getPlayerTradeAccepted();
 				getGame().processPlayerTrade(trade, ev.getInstigator());
 			}
-			client.render();
+			render = true;
 			break;
 		case PLAYERTRADEREJECTED:
 			client.log("Client Play", "Player Trade rejected");
@@ -130,23 +134,23 @@ class EventProcessor
 			break;
 		case CARDSDISCARDED:
 			getGame().processDiscard(ev.getCardsDiscarded(), ev.getInstigator());
-			client.render();
+			render = true;
 			break;
 		case MONOPOLYRESOLUTION:
 			getGame().processMonopoly(ev.getMonopolyResolution(), ev.getInstigator());
-			client.render();
+			render = true;
 			break;
 		case RESOURCECHOSEN:
 			getGame().processResourceChosen(ev.getResourceChosen(), ev.getInstigator());
-			client.render();
+			render = true;
 			break;
 		case RESOURCESTOLEN:
 			getGame().processResourcesStolen(ev.getResourceStolen(), ev.getInstigator());
-			client.render();
+			render = true;
 			break;
 		case INITIALALLOCATION:
 			getGame().processAllocation(ev.getInitialAllocation().getResourceAllocationList());
-			client.render();
+			render = true;
 			break;
 		case ALLRESOURCES:
 			boolean discard = ev.getAllResources().getDiscard();
@@ -443,24 +447,55 @@ class EventProcessor
 	}
 
 	/**
-	 * Process the next message.
+	 * Process the next message. A batch of events is processed in full, and
+	 * the screen is redrawn at most once for the whole message.
 	 * 
+	 * @return the events which were processed
 	 * @throws IOException
 	 */
-	public Event processMessage(Message msg) throws Exception
+	public List<Event> processMessage(Message msg) throws Exception
 	{
-		if (msg == null) return null;
+		if (msg == null) return Collections.emptyList();
 
-		// switch on message type
-		switch (msg.getTypeCase())
+		List<Event> events = new ArrayList<>();
+		try
 		{
-		// Extract and process event
-		case EVENT:
-			processEvent(msg.getEvent());
-			return msg.getEvent();
+			// switch on message type
+			switch (msg.getTypeCase())
+			{
+			// Extract and process event
+			case EVENT:
+				processEvent(msg.getEvent());
+				client.eventApplied(msg.getEvent());
+				events.add(msg.getEvent());
+				break;
+
+			// Process every event in order
+			case BATCH:
+				for (Event ev : msg.getBatch().getEventsList())
+				{
+					processEvent(ev);
+					client.eventApplied(ev);
+					events.add(ev);
+				}
+				break;
+
+			// Remember how to resume this seat
+			case SESSION:
+				client.setSession(msg.getSession());
+				break;
+			}
+		}
+		finally
+		{
+			if (render)
+			{
+				render = false;
+				client.render();
+			}
 		}
 
-		return null;
+		return events;
 	}
 
 	/**
@@ -8,12 +8,14 @@ import game.CurrentTrade;
 import game.players.Player;
 import grid.Edge;
 import grid.Hex;
+import grid.HexGrid;
 import grid.Node;
 import intergroup.Requests;
 import intergroup.resource.Resource;
 import intergroup.trade.Trade;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,14 +28,21 @@ import java.util.Map;
 public class MoveProcessor
 {
 	private final Client client;
+	private final BuildSites sites;
 
 	public MoveProcessor(Client client)
 	{
 		this.client = client;
+		sites = new BuildSites();
 	}
 
 	/**
-	 * Retrieve a list of all building possibilities, regardless of game context
+	 * Retrieve a list of the buildings the player could make now: nothing
+	 * unless it is their turn, and only the kinds of building which are
+	 * expected and which they can afford. Only the sites next to whatever has
+	 * been built since the last call are checked again, and whether the move
+	 * is expected and affordable is checked once for each kind of building
+	 * rather than once for each site.
 	 *
 	 * @return a list of all possible building turns
 	 */
@@ -43,39 +52,29 @@ public class MoveProcessor
 
 		// This player
 		Player p = getGame().getPlayer();
-		if (p.getSettlements().size() == 1 && p.getRoads().size() == 1
+		if (p.getSettlements().size() == 1 && p.getNumRoads() == 1
 				&& !getGame().getCurrentPlayer().equals(p.getColour())) { return moves; }
+		if (!checkTurn()) return moves;
 
-		// For each node
-		for (Node n : getGame().getGrid().nodes.values())
-		{
-			Turn turn = new Turn();
-			if (n.getBuilding() == null)
-			{
-				turn.setChosenNode(n);
-				turn.setChosenMove(Requests.Request.BodyCase.BUILDSETTLEMENT);
-
-			}
-			else if (n.getBuilding() != null)
-			{
-				turn.setChosenNode(n);
-				turn.setChosenMove(Requests.Request.BodyCase.BUILDCITY);
-			}
+		HexGrid grid = getGame().getGrid();
+		Bank bank = getGame().getBank();
+		sites.update(grid, p);
 
-			if (checkBuild(turn))
-			{
-				moves.add(turn);
-			}
+		if (isExpected(new Turn(Requests.Request.BodyCase.BUILDSETTLEMENT)) && p.canAffordSettlement(bank))
+		{
+			addNodeTurns(moves, sites.getSettlementSites(), Requests.Request.BodyCase.BUILDSETTLEMENT);
 		}
-
-		// For each edge
-		for (Edge e : getGame().getGrid().getEdgesAsList())
+		if (isExpected(new Turn(Requests.Request.BodyCase.BUILDCITY)) && p.canAffordCity(bank))
 		{
-			Turn turn = new Turn();
-			turn.setChosenEdge(e);
-			turn.setChosenMove(Requests.Request.BodyCase.BUILDROAD);
-			if (checkBuildRoad(turn))
+			addNodeTurns(moves, sites.getCitySites(), Requests.Request.BodyCase.BUILDCITY);
+		}
+		if (isExpected(new Turn(Requests.Request.BodyCase.BUILDROAD)) && p.canAffordRoad(bank))
+		{
+			BitSet roads = sites.getRoadSites();
+			for (int e = roads.nextSetBit(0); e >= 0; e = roads.nextSetBit(e + 1))
 			{
+				Turn turn = new Turn(Requests.Request.BodyCase.BUILDROAD);
+				turn.setChosenEdge(grid.getEdgeById(e));
 				moves.add(turn);
 			}
 		}
@@ -83,6 +82,19 @@ public class MoveProcessor
 		return moves;
 	}
 
+	/**
+	 * Adds a turn building on each of the given nodes
+	 */
+	private void addNodeTurns(List<Turn> moves, BitSet nodes, Requests.Request.BodyCase move)
+	{
+		for (int n = nodes.nextSetBit(0); n >= 0; n = nodes.nextSetBit(n + 1))
+		{
+			Turn turn = new Turn(move);
+			turn.setChosenNode(getGame().getGrid().getNodeById(n));
+			moves.add(turn);
+		}
+	}
+
 	/**
 	 * Processes a turn and ascertains all possible moves
 	 *
@@ -337,7 +349,7 @@ public class MoveProcessor
 
 		// If its the user's turn, they have no expected moves, and
 		return checkTurn() && isExpected(turn) && getGame().getBank().getNumAvailableDevCards() > 0
-				&& getGame().getPlayer().canAfford(DevelopmentCardType.getCardCost());
+				&& getGame().getPlayer().canAfford(DevelopmentCardType.CARD_COST);
 	}
 
 	/**
@@ -1,5 +1,6 @@
 package client;
 
+import connection.Compression;
 import connection.IServerConnection;
 import enums.DevelopmentCardType;
 import enums.ResourceType;
@@ -89,6 +90,48 @@ class TurnProcessor
 		sendToServer(request.build());
 	}
 
+	/**
+	 * Writes out the requests set up since the last flush
+	 */
+	void flush()
+	{
+		try
+		{
+			if (conn != null) conn.flush();
+		}
+		catch (Exception e)
+		{
+			client.log("Client Error", "Error sending requests to server");
+			lost(e);
+		}
+	}
+
+	/**
+	 * Rejoins the game on a new connection, presenting the session token
+	 */
+	void resume()
+	{
+		sendToServer(Requests.Request.newBuilder().setJoinLobby(getJoinLobby()).build());
+		flush();
+	}
+
+	/**
+	 * Shuts the client down after failing to send, unless its session can be
+	 * resumed. In that case, the client reconnects when it next reads from the
+	 * server.
+	 *
+	 * @param e the error
+	 */
+	private void lost(Exception e)
+	{
+		if (client.getSessionToken() == null)
+		{
+			conn = null;
+			client.shutDown();
+			e.printStackTrace();
+		}
+	}
+
 	/**
 	 * Sends the given request to the server
 	 * 
@@ -102,11 +145,9 @@ class TurnProcessor
 		}
 		catch (Exception e)
 		{
-			conn = null;
 			client.log("Client Error",
 					String.format("Error sending request %s to server", request.getBodyCase().name()));
-			client.shutDown();
-			e.printStackTrace();
+			lost(e);
 		}
 	}
 
@@ -115,8 +156,17 @@ class TurnProcessor
 	 */
 	private Lobby.Join getJoinLobby()
 	{
-		// TODO update gameID?
-		return Lobby.Join.newBuilder().setUsername(client.getPlayer().getUsername()).setGameId(0).build();
+		Lobby.Join.Builder join = Lobby.Join.newBuilder().setUsername(client.getPlayer().getUsername())
+				.setGameId(client.getGameId()).addCapabilities(Lobby.Capability.EVENT_BATCH)
+				.addCapabilities(Lobby.Capability.DEFLATE).addCapabilities(Lobby.Capability.SESSION_RESUME)
+				.setDictionaryId(Compression.getDictionaryId());
+
+		// Resume the seat this client already holds
+		if (client.getSessionToken() != null)
+		{
+			join.setSessionToken(client.getSessionToken()).setLastSequence(client.getSequence());
+		}
+		return join.build();
 	}
 
 	/**
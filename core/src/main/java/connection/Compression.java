@@ -0,0 +1,235 @@
+package connection;
+
+import com.google.protobuf.ByteString;
+import grid.Edge;
+import grid.Hex;
+import grid.HexGrid;
+import grid.Node;
+import grid.Port;
+import intergroup.Events;
+import intergroup.Messages;
+import intergroup.board.Board;
+import intergroup.lobby.Lobby;
+import intergroup.resource.Resource;
+import intergroup.terrain.Terrain;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate compression for large frames, such as the board and game info sent
+ * to each player. Both ends prime deflate with the same preset dictionary,
+ * built from a template game info message, so that even the first message on
+ * a connection compresses well. The template depends on how the board lists
+ * its hexes, harbours, nodes and edges, which may differ between builds, so
+ * a client names its dictionary by its Adler-32 checksum when it joins and
+ * the server only compresses for it if the checksums match.
+ *
+ * @author 140001596
+ */
+public final class Compression
+{
+	/** Frames smaller than this are not worth compressing */
+	static final int THRESHOLD = Integer.getInteger("catan.deflate.threshold", 512);
+	private static byte[] dictionary;
+	private static int dictionaryId;
+
+	private Compression()
+	{}
+
+	/**
+	 * Compresses a serialised message
+	 *
+	 * @param data the buffer holding the message
+	 * @param offset where the message starts
+	 * @param length the message's length
+	 * @return the compressed message
+	 */
+	public static byte[] deflate(byte[] data, int offset, int length)
+	{
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try
+		{
+			deflater.setDictionary(getDictionary());
+			deflater.setInput(data, offset, length);
+			deflater.finish();
+
+			byte[] out = new byte[length + 64];
+			int size = 0;
+			while (!deflater.finished())
+			{
+				if (size == out.length) out = Arrays.copyOf(out, out.length * 2);
+				size += deflater.deflate(out, size, out.length - size);
+			}
+			return Arrays.copyOf(out, size);
+		}
+		finally
+		{
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Decompresses a message compressed by {@link #deflate(byte[], int, int)}
+	 *
+	 * @param deflated the compressed message
+	 * @return the original message
+	 * @throws IOException if the data is corrupt, was compressed with a
+	 *             different dictionary or expands beyond the frame size limit
+	 */
+	public static Messages.Message inflate(ByteString deflated) throws IOException
+	{
+		Inflater inflater = new Inflater();
+		try
+		{
+			inflater.setInput(deflated.toByteArray());
+
+			byte[] out = new byte[Math.max(THRESHOLD, deflated.size() * 4)];
+			int size = 0;
+			while (!inflater.finished())
+			{
+				if (size == out.length)
+				{
+					if (out.length >= FrameDecoder.MAX_FRAME_SIZE) throw new IOException("Inflated frame too large");
+					out = Arrays.copyOf(out, Math.min(out.length * 2, FrameDecoder.MAX_FRAME_SIZE));
+				}
+
+				int n = inflater.inflate(out, size, out.length - size);
+				if (n == 0 && inflater.needsDictionary())
+				{
+					if (inflater.getAdler() != getDictionaryId())
+					{
+						throw new IOException("Frame compressed with a different dictionary");
+					}
+					inflater.setDictionary(getDictionary());
+				}
+				else if (n == 0 && inflater.needsInput())
+				{
+					throw new IOException("Truncated compressed frame");
+				}
+				size += n;
+			}
+
+			return Messages.Message.parser().parseFrom(out, 0, size);
+		}
+		catch (DataFormatException | IllegalArgumentException e)
+		{
+			throw new IOException("Corrupt compressed frame", e);
+		}
+		finally
+		{
+			inflater.end();
+		}
+	}
+
+	/**
+	 * @param join a client's join request
+	 * @return the capabilities the client asked for, without compression if
+	 *         the client's dictionary differs from this one
+	 */
+	public static List<Lobby.Capability> getCapabilities(Lobby.Join join)
+	{
+		List<Lobby.Capability> capabilities = new ArrayList<>(join.getCapabilitiesList());
+		if (join.getDictionaryId() != getDictionaryId())
+		{
+			capabilities.remove(Lobby.Capability.DEFLATE);
+		}
+		return capabilities;
+	}
+
+	/**
+	 * @return the Adler-32 checksum of the preset dictionary, which deflate
+	 *         also writes into each compressed frame's header
+	 */
+	public static synchronized int getDictionaryId()
+	{
+		getDictionary();
+		return dictionaryId;
+	}
+
+	/**
+	 * @return the preset dictionary, building it on first use
+	 */
+	static synchronized byte[] getDictionary()
+	{
+		if (dictionary == null)
+		{
+			dictionary = buildDictionary();
+			Adler32 adler = new Adler32();
+			adler.update(dictionary);
+			dictionaryId = (int) adler.getValue();
+		}
+		return dictionary;
+	}
+
+	/**
+	 * Builds a game info message for a board with the real layout, but with
+	 * terrain, number tokens, harbours and players filled in by a fixed
+	 * pattern rather than at random
+	 *
+	 * @return the serialised template message
+	 */
+	private static byte[] buildDictionary()
+	{
+		HexGrid grid = new HexGrid(true);
+		Lobby.GameSetup.Builder setup = Lobby.GameSetup.newBuilder();
+		Lobby.GameInfo.Builder info = Lobby.GameInfo.newBuilder();
+		Board.Player.Id[] ids = { Board.Player.Id.PLAYER_1, Board.Player.Id.PLAYER_2, Board.Player.Id.PLAYER_3,
+				Board.Player.Id.PLAYER_4 };
+
+		List<Hex> hexes = grid.getHexesAsList();
+		for (int i = 0; i < hexes.size(); i++)
+		{
+			int token = 2 + i % 10;
+			setup.addHexes(hexes.get(i).toHexProto().toBuilder().setTerrain(Terrain.Kind.forNumber(i % 6))
+					.setNumberToken(token < 7 ? token : token + 1));
+		}
+		List<Port> ports = grid.getPortsAsList();
+		for (int i = 0; i < ports.size(); i++)
+		{
+			setup.addHarbours(ports.get(i).toPortProto().toBuilder().setResource(Resource.Kind.forNumber(i % 6)));
+		}
+		for (int i = 0; i < ids.length; i++)
+		{
+			setup.addPlayerSettings(Lobby.GameSetup.PlayerSetting.newBuilder().setUsername("Player " + (i + 1))
+					.setPlayer(Board.Player.newBuilder().setId(ids[i]))
+					.setColour(Lobby.GameSetup.PlayerSetting.Colour.forNumber(i)));
+		}
+		setup.setOwnPlayer(Board.Player.newBuilder().setId(ids[0]));
+		info.setGameInfo(setup);
+
+		// A few pieces on the board and the players' cards
+		int i = 0;
+		for (Node n : grid.nodes.values())
+		{
+			if (i++ % 6 != 0) continue;
+			info.addSettlements(Lobby.GameInfo.Settlement.newBuilder().setPoint(n.toProto())
+					.setOwner(Board.Player.newBuilder().setId(ids[i % ids.length])));
+		}
+		i = 0;
+		for (Edge e : grid.edges)
+		{
+			if (i++ % 8 != 0) continue;
+			info.addRoads(Lobby.GameInfo.Road.newBuilder().setEdge(e.toEdgeProto())
+					.setOwner(Board.Player.newBuilder().setId(ids[i % ids.length])));
+		}
+		Lobby.GameInfo.PlayerDevCardInfo cards = Lobby.GameInfo.PlayerDevCardInfo.newBuilder().setKnight(1)
+				.setMonopoly(1).setRoadBuilding(1).setYearOfPlenty(1).setUniversity(1).setLibrary(1).build();
+		info.setResources(Resource.Counts.newBuilder().setBrick(1).setLumber(1).setGrain(1).setWool(1).setOre(1));
+		info.setCards(cards);
+		for (Board.Player.Id id : ids)
+		{
+			info.addPlayers(Lobby.GameInfo.PlayerInfo.newBuilder().setPlayer(Board.Player.newBuilder().setId(id))
+					.setResources(5).setUnusedCards(1).setPlayedCards(cards));
+		}
+
+		return Messages.Message.newBuilder().setEvent(Events.Event.newBuilder().setGameInfo(info)).build()
+				.toByteArray();
+	}
+}
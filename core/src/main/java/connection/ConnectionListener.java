@@ -0,0 +1,27 @@
+package connection;
+
+import intergroup.Messages;
+
+/**
+ * Receives the messages pushed up by a non-blocking connection
+ *
+ * @author 140001596
+ */
+public interface ConnectionListener
+{
+	/**
+	 * Called on an I/O thread whenever a complete message has been read
+	 *
+	 * @param conn the connection the message arrived on
+	 * @param msg the message
+	 */
+	void messageReceived(NioClientConnection conn, Messages.Message msg);
+
+	/**
+	 * Called on an I/O thread when the remote end closes the connection, or it
+	 * fails
+	 *
+	 * @param conn the connection which was lost
+	 */
+	void connectionClosed(NioClientConnection conn);
+}
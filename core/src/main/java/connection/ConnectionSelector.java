@@ -0,0 +1,232 @@
+package connection;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A single I/O thread which services many non-blocking client connections
+ * through one {@link Selector}. Reads are decoded into messages and pushed to
+ * each connection's listener, and queued writes are flushed as the sockets
+ * become writable.
+ *
+ * @author 140001596
+ */
+public class ConnectionSelector implements Runnable
+{
+	private final Selector selector;
+	private final Queue<NioClientConnection> registrations;
+	private final Queue<NioClientConnection> writes;
+	private volatile boolean active;
+
+	public ConnectionSelector() throws IOException
+	{
+		selector = Selector.open();
+		registrations = new ConcurrentLinkedQueue<>();
+		writes = new ConcurrentLinkedQueue<>();
+		active = true;
+	}
+
+	/**
+	 * Wraps a newly accepted socket in a connection serviced by this thread.
+	 * The connection is not read from until it is registered.
+	 *
+	 * @param channel the newly accepted socket
+	 * @return the connection wrapping the socket
+	 * @throws IOException
+	 */
+	public NioClientConnection wrap(SocketChannel channel) throws IOException
+	{
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+
+		return new NioClientConnection(channel, this);
+	}
+
+	/**
+	 * Starts servicing the given connection. Its listener must already be set.
+	 *
+	 * @param conn the connection to read from and write to
+	 */
+	public void register(NioClientConnection conn)
+	{
+		registrations.add(conn);
+		selector.wakeup();
+	}
+
+	/**
+	 * Asks this thread to flush the connection's outbound queue
+	 *
+	 * @param conn the connection with data to write
+	 */
+	void requestWrite(NioClientConnection conn)
+	{
+		writes.add(conn);
+		selector.wakeup();
+	}
+
+	@Override
+	public void run()
+	{
+		while (active)
+		{
+			try
+			{
+				selector.select();
+				registerPending();
+				flushPending();
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext())
+				{
+					SelectionKey key = keys.next();
+					keys.remove();
+					service(key);
+				}
+			}
+			catch (IOException | RuntimeException e)
+			{
+				// A connection's own failures are dealt with as it is serviced,
+				// so anything else is logged and the thread carries on
+				e.printStackTrace();
+			}
+		}
+
+		close();
+	}
+
+	/**
+	 * Reads from and writes to the connection behind a ready key
+	 *
+	 * @param key the selected key
+	 */
+	private void service(SelectionKey key)
+	{
+		NioClientConnection conn = (NioClientConnection) key.attachment();
+		try
+		{
+			if (key.isReadable() && !conn.read())
+			{
+				drop(conn);
+				return;
+			}
+			if (key.isValid() && key.isWritable() && conn.write())
+			{
+				key.interestOps(SelectionKey.OP_READ);
+			}
+		}
+		catch (IOException | CancelledKeyException e)
+		{
+			drop(conn);
+		}
+		catch (RuntimeException e)
+		{
+			e.printStackTrace();
+			drop(conn);
+		}
+	}
+
+	/**
+	 * Registers newly accepted connections with the selector
+	 */
+	private void registerPending()
+	{
+		NioClientConnection conn;
+		while ((conn = registrations.poll()) != null)
+		{
+			try
+			{
+				conn.setKey(conn.getChannel().register(selector, SelectionKey.OP_READ, conn));
+
+				// Catch any messages queued before the key existed
+				writes.add(conn);
+			}
+			catch (IOException e)
+			{
+				drop(conn);
+			}
+		}
+	}
+
+	/**
+	 * Writes out queued messages, leaving write interest set on any socket
+	 * which could not take everything
+	 */
+	private void flushPending()
+	{
+		NioClientConnection conn;
+		while ((conn = writes.poll()) != null)
+		{
+			SelectionKey key = conn.getKey();
+			if (key == null || !key.isValid()) continue;
+
+			try
+			{
+				if (!conn.write())
+				{
+					key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+				}
+			}
+			catch (IOException | CancelledKeyException e)
+			{
+				drop(conn);
+			}
+			catch (RuntimeException e)
+			{
+				e.printStackTrace();
+				drop(conn);
+			}
+		}
+	}
+
+	/**
+	 * Closes a connection which failed, or whose listener threw, so that
+	 * neither stops this thread servicing every other connection. A listener
+	 * which throws when told of the close is logged, and the socket is closed
+	 * anyway.
+	 *
+	 * @param conn the connection to close
+	 */
+	private void drop(NioClientConnection conn)
+	{
+		try
+		{
+			conn.closed();
+		}
+		catch (RuntimeException e)
+		{
+			e.printStackTrace();
+			conn.shutDown();
+		}
+	}
+
+	/**
+	 * Stops the I/O thread, closing every connection it services
+	 */
+	public void shutDown()
+	{
+		active = false;
+		selector.wakeup();
+	}
+
+	private void close()
+	{
+		for (SelectionKey key : selector.keys())
+		{
+			((NioClientConnection) key.attachment()).shutDown();
+		}
+		try
+		{
+			selector.close();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package connection;
+
+/**
+ * Counters describing how a connection's outbound queue has behaved
+ *
+ * @author 140001596
+ */
+public class ConnectionStats
+{
+	private int depth, maxDepth;
+	private long written, dropped, coalesced, totalLatency, maxLatency, writeCalls, bytesWritten;
+
+	/**
+	 * Records the queue's depth after a frame was added
+	 *
+	 * @param depth the number of frames waiting
+	 */
+	synchronized void queued(int depth)
+	{
+		this.depth = depth;
+		maxDepth = Math.max(maxDepth, depth);
+	}
+
+	/**
+	 * Records that a frame was completely written
+	 *
+	 * @param latency the nanoseconds between it being queued and written
+	 * @param depth the number of frames still waiting
+	 */
+	synchronized void written(long latency, int depth)
+	{
+		this.depth = depth;
+		written++;
+		totalLatency += latency;
+		maxLatency = Math.max(maxLatency, latency);
+	}
+
+	/**
+	 * Records one write call on the socket, which may carry many frames
+	 *
+	 * @param bytes the number of bytes written
+	 */
+	synchronized void wrote(long bytes)
+	{
+		writeCalls++;
+		bytesWritten += bytes;
+	}
+
+	synchronized void dropped()
+	{
+		dropped++;
+	}
+
+	synchronized void coalesced()
+	{
+		coalesced++;
+	}
+
+	/**
+	 * @return the number of frames waiting when last observed
+	 */
+	public synchronized int getQueueDepth()
+	{
+		return depth;
+	}
+
+	public synchronized int getMaxQueueDepth()
+	{
+		return maxDepth;
+	}
+
+	public synchronized long getFramesWritten()
+	{
+		return written;
+	}
+
+	/**
+	 * @return the number of write calls made on the socket
+	 */
+	public synchronized long getWriteCalls()
+	{
+		return writeCalls;
+	}
+
+	public synchronized long getBytesWritten()
+	{
+		return bytesWritten;
+	}
+
+	public synchronized long getFramesDropped()
+	{
+		return dropped;
+	}
+
+	public synchronized long getFramesCoalesced()
+	{
+		return coalesced;
+	}
+
+	/**
+	 * @return the mean time from a frame being queued to being written, in
+	 *         milliseconds
+	 */
+	public synchronized double getMeanWriteLatency()
+	{
+		return written == 0 ? 0 : totalLatency / 1e6 / written;
+	}
+
+	/**
+	 * @return the longest time from a frame being queued to being written, in
+	 *         milliseconds
+	 */
+	public synchronized double getMaxWriteLatency()
+	{
+		return maxLatency / 1e6;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return String.format(
+				"queue depth %d (max %d), %d frames (%d bytes) in %d writes, %d dropped, %d coalesced, "
+						+ "write latency mean %.3fms max %.3fms",
+				depth, maxDepth, written, bytesWritten, writeCalls, dropped, coalesced, getMeanWriteLatency(),
+				getMaxWriteLatency());
+	}
+}
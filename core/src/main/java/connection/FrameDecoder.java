@@ -0,0 +1,104 @@
+package connection;
+
+import intergroup.Messages;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Incrementally reassembles varint-delimited protobuf messages from a
+ * non-blocking channel. Bytes are accumulated across reads until a whole frame
+ * is available, so frames may arrive split or coalesced in any way.
+ *
+ * @author 140001596
+ */
+public class FrameDecoder
+{
+	private static final int INITIAL_SIZE = 4096;
+	static final int MAX_FRAME_SIZE = 1 << 20;
+	private byte[] data;
+	private ByteBuffer window;
+	private int start, end;
+
+	public FrameDecoder()
+	{
+		data = new byte[INITIAL_SIZE];
+		window = ByteBuffer.wrap(data);
+	}
+
+	/**
+	 * Reads whatever bytes are currently available from the channel
+	 *
+	 * @param channel the channel to read from
+	 * @return the number of bytes read, or -1 at the end of the stream
+	 * @throws IOException
+	 */
+	public int read(ReadableByteChannel channel) throws IOException
+	{
+		makeSpace();
+		window.limit(data.length).position(end);
+		int read = channel.read(window);
+		if (read > 0)
+		{
+			end += read;
+		}
+		return read;
+	}
+
+	/**
+	 * @return the next complete message, or null if more bytes are needed
+	 * @throws IOException if the frame is malformed or too large
+	 */
+	public Messages.Message next() throws IOException
+	{
+		// Parse the varint length prefix by hand, as it may be incomplete
+		int length = 0, pos = start;
+		for (int shift = 0;; shift += 7)
+		{
+			if (pos == end) return null;
+			if (shift > 28) throw new IOException("Malformed frame length");
+
+			byte b = data[pos++];
+			length |= (b & 0x7F) << shift;
+			if (b >= 0)
+			{
+				break;
+			}
+		}
+		if (length < 0 || length > MAX_FRAME_SIZE) throw new IOException("Frame too large: " + length);
+		if (end - pos < length) return null;
+
+		Messages.Message msg = Messages.Message.parser().parseFrom(data, pos, length);
+		start = pos + length;
+		if (start == end)
+		{
+			start = end = 0;
+		}
+
+		return msg;
+	}
+
+	/**
+	 * Ensures there is room for another read, first by discarding consumed
+	 * bytes and then by growing the buffer
+	 */
+	private void makeSpace()
+	{
+		if (end < data.length) return;
+
+		if (start > 0)
+		{
+			System.arraycopy(data, start, data, 0, end - start);
+			end -= start;
+			start = 0;
+		}
+		else
+		{
+			byte[] larger = new byte[data.length * 2];
+			System.arraycopy(data, 0, larger, 0, end);
+			data = larger;
+			window = ByteBuffer.wrap(data);
+		}
+	}
+}
@@ -1,9 +1,14 @@
 package connection;
 
 import intergroup.Messages;
+import intergroup.lobby.Lobby;
+
+import java.util.Collection;
 
 /**
- * Class representing a connection with a client
+ * Class representing a connection with a client, through which the server
+ * sends messages. How the client's messages reach the server depends on the
+ * connection: see {@link IPolledClientConnection}.
  * 
  * @author 140001596
  */
@@ -11,7 +16,39 @@ public interface IClientConnection
 {
 	void sendMessageToClient(Messages.Message message) throws Exception;
 
-	Messages.Message getMessageFromClient() throws Exception;
+	/**
+	 * Sends a message which may be shared with other connections. Connections
+	 * which write to a socket should reuse the frame's encoding.
+	 *
+	 * @param frame the message to send
+	 * @throws Exception
+	 */
+	default void sendMessageToClient(MessageFrame frame) throws Exception
+	{
+		sendMessageToClient(frame.getMessage());
+	}
+
+	/**
+	 * Holds back messages sent from now on until {@link #flush()}, so that a
+	 * burst of them can be written together
+	 */
+	default void cork()
+	{}
+
+	/**
+	 * Writes out everything held back since {@link #cork()}
+	 */
+	default void flush()
+	{}
+
+	/**
+	 * Enables the optional protocol extensions which the client asked for when
+	 * it joined, and which this connection supports
+	 *
+	 * @param capabilities the client's capabilities
+	 */
+	default void setCapabilities(Collection<Lobby.Capability> capabilities)
+	{}
 
 	void shutDown();
 }
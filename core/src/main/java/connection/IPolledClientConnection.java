@@ -0,0 +1,20 @@
+package connection;
+
+import intergroup.Messages;
+
+/**
+ * A connection with a client whose messages are read by asking for them,
+ * rather than being pushed to a listener as they arrive
+ *
+ * @author 140001596
+ */
+public interface IPolledClientConnection extends IClientConnection
+{
+	/**
+	 * Blocks for the next message from the client
+	 *
+	 * @return the message, or null if the connection was closed
+	 * @throws Exception
+	 */
+	Messages.Message getMessageFromClient() throws Exception;
+}
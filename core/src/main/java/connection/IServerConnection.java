@@ -13,5 +13,23 @@ public interface IServerConnection
 
 	void sendMessageToServer(Messages.Message message) throws Exception;
 
+	/**
+	 * Writes out any requests which are still buffered
+	 *
+	 * @throws Exception
+	 */
+	default void flush() throws Exception
+	{}
+
+	/**
+	 * Replaces a lost connection with a new one to the same server
+	 *
+	 * @return true if a new connection was established
+	 */
+	default boolean reconnect()
+	{
+		return false;
+	}
+
 	void shutDown();
 }
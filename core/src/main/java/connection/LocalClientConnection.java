@@ -1,7 +1,11 @@
 package connection;
 
 import intergroup.Messages;
+import intergroup.lobby.Lobby;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -10,19 +14,41 @@ import java.util.concurrent.LinkedBlockingQueue;
  * 
  * @author 140001596
  */
-public class LocalClientConnection implements IClientConnection
+public class LocalClientConnection implements IPolledClientConnection
 {
 	private LocalServerConnection conn;
 	BlockingQueue<Messages.Message> fromClient;
+	private boolean corked, batching;
+	private final List<Messages.Message> held;
 
 	public LocalClientConnection(LocalServerConnection conn)
 	{
 		this.conn = conn;
 		fromClient = new LinkedBlockingQueue<>();
+		held = new ArrayList<>();
 	}
 
 	@Override
 	public void sendMessageToClient(Messages.Message message)
+	{
+		// Events are held back to be sent as one batch when flushed
+		if (corked && batching && message.getTypeCase().equals(Messages.Message.TypeCase.EVENT))
+		{
+			held.add(message);
+			return;
+		}
+
+		// Anything else must not overtake the events held back
+		release();
+		put(message);
+	}
+
+	/**
+	 * Hands the message straight to the client
+	 *
+	 * @param message the message to send
+	 */
+	private void put(Messages.Message message)
 	{
 		if (conn == null || conn.fromServer == null)
 		{
@@ -52,6 +78,46 @@ public class LocalClientConnection implements IClientConnection
 		return null;
 	}
 
+	@Override
+	public void cork()
+	{
+		corked = true;
+	}
+
+	@Override
+	public void flush()
+	{
+		corked = false;
+		release();
+	}
+
+	/**
+	 * Sends the events held back so far, as one batch if there are several
+	 */
+	private void release()
+	{
+		if (held.size() == 1)
+		{
+			put(held.get(0));
+		}
+		else if (held.size() > 1)
+		{
+			Messages.EventBatch.Builder batch = Messages.EventBatch.newBuilder();
+			for (Messages.Message message : held)
+			{
+				batch.addEvents(message.getEvent());
+			}
+			put(Messages.Message.newBuilder().setBatch(batch).build());
+		}
+		held.clear();
+	}
+
+	@Override
+	public void setCapabilities(Collection<Lobby.Capability> capabilities)
+	{
+		batching = capabilities.contains(Lobby.Capability.EVENT_BATCH);
+	}
+
 	@Override
 	public void shutDown()
 	{
@@ -0,0 +1,203 @@
+package connection;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import intergroup.Messages;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message paired with its varint-delimited wire encoding. The encoding is
+ * computed at most once, however many connections the frame is written to, so
+ * a broadcast costs one serialisation rather than one per recipient. The same
+ * goes for the frame's compressed form.
+ *
+ * @author 140001596
+ */
+public class MessageFrame
+{
+	private final Messages.Message message;
+	private final List<MessageFrame> parts;
+	private byte[] encoded;
+	private MessageFrame deflated;
+
+	public MessageFrame(Messages.Message message)
+	{
+		this(message, null, null);
+	}
+
+	private MessageFrame(Messages.Message message, List<MessageFrame> parts, byte[] encoded)
+	{
+		this.message = message;
+		this.parts = parts;
+		this.encoded = encoded;
+	}
+
+	/**
+	 * Groups frames which each carry a single event into one batch frame. The
+	 * batch's encoding is put together from the parts' encodings, so events
+	 * which were broadcast are still only serialised once.
+	 *
+	 * @param frames the event frames, in the order they were sent
+	 * @return a frame carrying an event batch
+	 */
+	public static MessageFrame batch(List<MessageFrame> frames)
+	{
+		Messages.EventBatch.Builder batch = Messages.EventBatch.newBuilder();
+		for (MessageFrame frame : frames)
+		{
+			batch.addEvents(frame.getMessage().getEvent());
+		}
+
+		return new MessageFrame(Messages.Message.newBuilder().setBatch(batch).build(), new ArrayList<>(frames), null);
+	}
+
+	public Messages.Message getMessage()
+	{
+		return message;
+	}
+
+	/**
+	 * Retrieves the shared encoding, serialising the message on first use.
+	 * Callers must not modify the returned array.
+	 *
+	 * @return the message with its varint length prefix
+	 * @throws IOException
+	 */
+	public synchronized byte[] getEncoded() throws IOException
+	{
+		if (encoded == null && parts != null)
+		{
+			encoded = compose();
+		}
+		else if (encoded == null)
+		{
+			encoded = encode(message);
+		}
+
+		return encoded;
+	}
+
+	/**
+	 * Retrieves the compressed form of this frame, compressing it on first
+	 * use. The compressed frame still reports the original message, but its
+	 * encoding is a message carrying the deflated bytes.
+	 *
+	 * @return the compressed frame, or this frame if compression would not
+	 *         make it any smaller
+	 * @throws IOException
+	 */
+	public synchronized MessageFrame deflated() throws IOException
+	{
+		if (deflated == null)
+		{
+			byte[] plain = getEncoded();
+			int offset = prefixLength(plain);
+			byte[] wire = encode(Messages.Message.newBuilder()
+					.setDeflated(ByteString.copyFrom(Compression.deflate(plain, offset, plain.length - offset)))
+					.build());
+
+			deflated = wire.length < plain.length ? new MessageFrame(message, null, wire) : this;
+		}
+
+		return deflated;
+	}
+
+	/**
+	 * Serialises the message behind a varint length prefix
+	 *
+	 * @param message the message to serialise
+	 * @return the encoded frame
+	 * @throws IOException
+	 */
+	private static byte[] encode(Messages.Message message) throws IOException
+	{
+		int size = message.getSerializedSize();
+		byte[] frame = new byte[CodedOutputStream.computeUInt32SizeNoTag(size) + size];
+		CodedOutputStream out = CodedOutputStream.newInstance(frame);
+		out.writeUInt32NoTag(size);
+		message.writeTo(out);
+		out.checkNoSpaceLeft();
+
+		return frame;
+	}
+
+	/**
+	 * Encodes a batch from its parts. A message carrying one event holds it in
+	 * a length-delimited field, just as an event batch holds each of its
+	 * events, so each part's bytes are copied across with only the field tag
+	 * changed. If any part is encoded as anything other than a message with
+	 * just its event, the batch is serialised as usual instead.
+	 *
+	 * @return the batch with its varint length prefix
+	 * @throws IOException
+	 */
+	private byte[] compose() throws IOException
+	{
+		int eventTag = CodedOutputStream.computeTagSize(Messages.Message.EVENT_FIELD_NUMBER);
+		int batchTag = CodedOutputStream.computeTagSize(Messages.EventBatch.EVENTS_FIELD_NUMBER);
+
+		int body = 0;
+		for (MessageFrame part : parts)
+		{
+			if (!isLoneEvent(part)) return encode(message);
+
+			byte[] bytes = part.getEncoded();
+			body += batchTag + bytes.length - prefixLength(bytes) - eventTag;
+		}
+
+		int size = CodedOutputStream.computeTagSize(Messages.Message.BATCH_FIELD_NUMBER)
+				+ CodedOutputStream.computeUInt32SizeNoTag(body) + body;
+		byte[] frame = new byte[CodedOutputStream.computeUInt32SizeNoTag(size) + size];
+		CodedOutputStream out = CodedOutputStream.newInstance(frame);
+		out.writeUInt32NoTag(size);
+		out.writeTag(Messages.Message.BATCH_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+		out.writeUInt32NoTag(body);
+		for (MessageFrame part : parts)
+		{
+			// Keep the event's length and bytes, but not the length prefix or
+			// the event's tag
+			byte[] bytes = part.getEncoded();
+			int offset = prefixLength(bytes) + eventTag;
+			out.writeTag(Messages.EventBatch.EVENTS_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+			out.writeRawBytes(bytes, offset, bytes.length - offset);
+		}
+		out.checkNoSpaceLeft();
+
+		return frame;
+	}
+
+	/**
+	 * @param part a part of a batch
+	 * @return whether its encoding is the plain message, which holds its event
+	 *         and nothing else
+	 * @throws IOException
+	 */
+	private static boolean isLoneEvent(MessageFrame part) throws IOException
+	{
+		Messages.Message msg = part.getMessage();
+		if (msg.getTypeCase() != Messages.Message.TypeCase.EVENT) return false;
+
+		int size = msg.getSerializedSize();
+		byte[] bytes = part.getEncoded();
+		return size == CodedOutputStream.computeMessageSize(Messages.Message.EVENT_FIELD_NUMBER, msg.getEvent())
+				&& bytes.length - prefixLength(bytes) == size;
+	}
+
+	/**
+	 * @param encoded an encoded frame
+	 * @return the number of bytes taken by its varint length prefix
+	 */
+	private static int prefixLength(byte[] encoded)
+	{
+		int n = 0;
+		while (encoded[n] < 0)
+		{
+			n++;
+		}
+		return n + 1;
+	}
+}
@@ -0,0 +1,305 @@
+package connection;
+
+import intergroup.Messages;
+import intergroup.lobby.Lobby;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Class representing a non-blocking connection with a remote client. Incoming
+ * messages are read by a {@link ConnectionSelector} and pushed to this
+ * connection's listener, and outgoing messages are queued and written by the
+ * selector once the socket can take them. The queue is bounded, so a stalled
+ * client can never block the game loop. Frames are written with gathering
+ * writes, and a corked connection holds them back until it is flushed, so a
+ * burst of events costs a single write. Clients which can take event batches
+ * receive such a burst as one batch frame, and large frames are compressed for
+ * clients which can inflate them.
+ *
+ * @author 140001596
+ */
+public class NioClientConnection implements IClientConnection
+{
+	private final SocketChannel channel;
+	private final ConnectionSelector selector;
+	private final FrameDecoder decoder;
+	private final OutboundQueue outbound;
+	private volatile ConnectionListener listener;
+	private volatile boolean open, closing;
+	private SelectionKey key;
+	private boolean corked, batching, deflating;
+	private final List<MessageFrame> held;
+	private final QueuedFrame[] writing;
+	private final ByteBuffer[] buffers;
+	private int first, count;
+	private static final int MAX_GATHER = 64;
+
+	NioClientConnection(SocketChannel channel, ConnectionSelector selector)
+	{
+		this.channel = channel;
+		this.selector = selector;
+		decoder = new FrameDecoder();
+		outbound = new OutboundQueue();
+		writing = new QueuedFrame[MAX_GATHER];
+		buffers = new ByteBuffer[MAX_GATHER];
+		held = new ArrayList<>();
+		open = true;
+	}
+
+	@Override
+	public void sendMessageToClient(Messages.Message message) throws Exception
+	{
+		sendMessageToClient(new MessageFrame(message));
+	}
+
+	/**
+	 * Queues the frame's shared encoding. Each connection wraps the same bytes
+	 * in its own buffer, so the frame is never serialised again. If the queue
+	 * overflows and cannot make room, the client is disconnected.
+	 */
+	@Override
+	public void sendMessageToClient(MessageFrame frame) throws Exception
+	{
+		if (!open) throw new IOException("Connection closed");
+
+		// Events are held back to be sent as one batch when flushed
+		if (corked && batching && frame.getMessage().getTypeCase().equals(Messages.Message.TypeCase.EVENT))
+		{
+			held.add(frame);
+			return;
+		}
+
+		// Anything else must not overtake the events held back
+		release();
+		queue(frame);
+		if (!corked) selector.requestWrite(this);
+	}
+
+	/**
+	 * Queues the events held back so far, as one batch if there are several
+	 *
+	 * @throws IOException if the queue overflowed
+	 */
+	private void release() throws IOException
+	{
+		try
+		{
+			if (held.size() == 1)
+			{
+				queue(held.get(0));
+			}
+			else if (held.size() > 1)
+			{
+				queue(MessageFrame.batch(held));
+			}
+		}
+		finally
+		{
+			held.clear();
+		}
+	}
+
+	/**
+	 * Adds the frame to the outbound queue
+	 *
+	 * @param frame the frame to write
+	 * @throws IOException if the queue overflowed, in which case the
+	 *             connection has been closed
+	 */
+	private void queue(MessageFrame frame) throws IOException
+	{
+		if (deflating && frame.getEncoded().length > Compression.THRESHOLD)
+		{
+			frame = frame.deflated();
+		}
+
+		if (!outbound.offer(frame))
+		{
+			closed();
+			throw new IOException("Outbound queue overflowed");
+		}
+	}
+
+	@Override
+	public void cork()
+	{
+		corked = true;
+	}
+
+	@Override
+	public void flush()
+	{
+		corked = false;
+		try
+		{
+			release();
+		}
+		catch (IOException e)
+		{
+			// The connection has been closed
+			return;
+		}
+
+		if (open && outbound.size() > 0)
+		{
+			selector.requestWrite(this);
+		}
+	}
+
+	@Override
+	public void setCapabilities(Collection<Lobby.Capability> capabilities)
+	{
+		batching = capabilities.contains(Lobby.Capability.EVENT_BATCH);
+		deflating = capabilities.contains(Lobby.Capability.DEFLATE);
+	}
+
+	@Override
+	public void shutDown()
+	{
+		open = false;
+		try
+		{
+			channel.close();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Closes the connection once everything queued so far has been written
+	 */
+	public void shutDownWhenFlushed()
+	{
+		closing = true;
+		selector.requestWrite(this);
+	}
+
+	/**
+	 * Reads what is available from the socket and hands every complete message
+	 * to the listener. Called on the selector thread.
+	 *
+	 * @return false if the remote end has closed the connection
+	 * @throws IOException
+	 */
+	boolean read() throws IOException
+	{
+		int read;
+		while ((read = decoder.read(channel)) > 0)
+		{
+			Messages.Message msg;
+			while ((msg = decoder.next()) != null)
+			{
+				listener.messageReceived(this, msg);
+			}
+		}
+
+		return read >= 0;
+	}
+
+	/**
+	 * Writes as much of the outbound queue as the socket will accept, gathering
+	 * many frames into each write. Called on the selector thread.
+	 *
+	 * @return true if the queue was emptied
+	 * @throws IOException
+	 */
+	boolean write() throws IOException
+	{
+		while (count > 0 || refill())
+		{
+			outbound.wrote(channel.write(buffers, first, count));
+
+			// Retire the frames which were completely written
+			while (count > 0 && !buffers[first].hasRemaining())
+			{
+				outbound.written(writing[first]);
+				writing[first] = null;
+				buffers[first++] = null;
+				count--;
+			}
+			if (count > 0) return false;
+		}
+
+		if (closing)
+		{
+			shutDown();
+		}
+		return true;
+	}
+
+	/**
+	 * Takes the next batch of frames to write from the queue
+	 *
+	 * @return false if the queue was empty
+	 */
+	private boolean refill()
+	{
+		first = 0;
+		count = outbound.drainTo(writing, MAX_GATHER);
+		for (int i = 0; i < count; i++)
+		{
+			buffers[i] = writing[i].buffer;
+		}
+		return count > 0;
+	}
+
+	/**
+	 * Marks the connection as lost, and tells the listener unless it was shut
+	 * down on purpose
+	 */
+	void closed()
+	{
+		if (open)
+		{
+			shutDown();
+			listener.connectionClosed(this);
+		}
+	}
+
+	public void setListener(ConnectionListener listener)
+	{
+		this.listener = listener;
+	}
+
+	public ConnectionListener getListener()
+	{
+		return listener;
+	}
+
+	/**
+	 * @return the queue of frames waiting to be written, to configure its
+	 *         capacity and overflow policy or read its stats
+	 */
+	public OutboundQueue getOutboundQueue()
+	{
+		return outbound;
+	}
+
+	public boolean isOpen()
+	{
+		return open;
+	}
+
+	SocketChannel getChannel()
+	{
+		return channel;
+	}
+
+	SelectionKey getKey()
+	{
+		return key;
+	}
+
+	void setKey(SelectionKey key)
+	{
+		this.key = key;
+	}
+}
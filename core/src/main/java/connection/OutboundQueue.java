@@ -0,0 +1,181 @@
+package connection;
+
+import intergroup.Events;
+import intergroup.Messages;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Bounded queue of frames waiting to be written to one socket. The game loop
+ * adds frames without ever blocking, and the connection's I/O thread drains
+ * them. When the queue is full, the {@link OverflowPolicy} decides what gives.
+ *
+ * @author 140001596
+ */
+public class OutboundQueue
+{
+	private final ArrayDeque<QueuedFrame> frames;
+	private final ConnectionStats stats;
+	private int capacity;
+	private OverflowPolicy policy;
+	static final int DEFAULT_CAPACITY = Integer.getInteger("catan.queue.capacity", 256);
+	static final OverflowPolicy DEFAULT_POLICY = OverflowPolicy
+			.valueOf(System.getProperty("catan.queue.policy", OverflowPolicy.COALESCE.name()));
+
+	public OutboundQueue()
+	{
+		frames = new ArrayDeque<>();
+		stats = new ConnectionStats();
+		capacity = DEFAULT_CAPACITY;
+		policy = DEFAULT_POLICY;
+	}
+
+	/**
+	 * Adds the frame, applying the overflow policy if the queue is full
+	 *
+	 * @param frame the frame to write
+	 * @return false if the queue overflowed and the client must be
+	 *         disconnected
+	 * @throws IOException
+	 */
+	synchronized boolean offer(MessageFrame frame) throws IOException
+	{
+		if (frames.size() >= capacity)
+		{
+			// Each policy falls back on the ones after it
+			if (policy == OverflowPolicy.COALESCE && removeSuperseded(frame))
+			{
+				// The frame takes the place of the one it supersedes
+			}
+			else if (policy == OverflowPolicy.DISCONNECT)
+			{
+				return false;
+			}
+			else if (isChat(frame))
+			{
+				stats.dropped();
+				return true;
+			}
+			else if (!removeChat())
+			{
+				return false;
+			}
+		}
+
+		frames.add(new QueuedFrame(frame));
+		stats.queued(frames.size());
+		return true;
+	}
+
+	/**
+	 * Moves up to max frames into the given array, to be written together
+	 *
+	 * @param into the array to fill from the start
+	 * @param max the most frames to take
+	 * @return the number of frames taken
+	 */
+	synchronized int drainTo(QueuedFrame[] into, int max)
+	{
+		int n = 0;
+		while (n < max && !frames.isEmpty())
+		{
+			into[n++] = frames.poll();
+		}
+		return n;
+	}
+
+	/**
+	 * Records one write to the socket
+	 *
+	 * @param bytes the number of bytes it wrote
+	 */
+	void wrote(long bytes)
+	{
+		stats.wrote(bytes);
+	}
+
+	/**
+	 * Records that a frame taken from this queue has been completely written
+	 *
+	 * @param written the frame
+	 */
+	synchronized void written(QueuedFrame written)
+	{
+		stats.written(System.nanoTime() - written.queuedAt, frames.size());
+	}
+
+	/**
+	 * Removes a queued frame which the new one makes redundant
+	 *
+	 * @param frame the frame about to be queued
+	 * @return true if a frame was removed
+	 */
+	private boolean removeSuperseded(MessageFrame frame)
+	{
+		Events.Event.TypeCase type = eventType(frame);
+		if (type != Events.Event.TypeCase.ALLRESOURCES && type != Events.Event.TypeCase.GAMEINFO) return false;
+
+		for (Iterator<QueuedFrame> it = frames.iterator(); it.hasNext();)
+		{
+			if (eventType(it.next().frame) == type)
+			{
+				it.remove();
+				stats.coalesced();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the oldest queued chat message
+	 *
+	 * @return true if a frame was removed
+	 */
+	private boolean removeChat()
+	{
+		for (Iterator<QueuedFrame> it = frames.iterator(); it.hasNext();)
+		{
+			if (isChat(it.next().frame))
+			{
+				it.remove();
+				stats.dropped();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isChat(MessageFrame frame)
+	{
+		return eventType(frame) == Events.Event.TypeCase.CHATMESSAGE;
+	}
+
+	private Events.Event.TypeCase eventType(MessageFrame frame)
+	{
+		Messages.Message msg = frame.getMessage();
+		return msg.getTypeCase() == Messages.Message.TypeCase.EVENT ? msg.getEvent().getTypeCase() : null;
+	}
+
+	public synchronized int size()
+	{
+		return frames.size();
+	}
+
+	public ConnectionStats getStats()
+	{
+		return stats;
+	}
+
+	public synchronized void setCapacity(int capacity)
+	{
+		this.capacity = capacity;
+	}
+
+	public synchronized void setPolicy(OverflowPolicy policy)
+	{
+		this.policy = policy;
+	}
+}
@@ -0,0 +1,26 @@
+package connection;
+
+/**
+ * What a connection does when its outbound queue is full. Each policy falls
+ * back on the ones after it when it cannot make room.
+ *
+ * @author 140001596
+ */
+public enum OverflowPolicy
+{
+	/**
+	 * Replace a queued snapshot which the new frame supersedes, such as an
+	 * older ALLRESOURCES or GAMEINFO event
+	 */
+	COALESCE,
+
+	/**
+	 * Drop chat messages, which the game can do without
+	 */
+	DROP_CHAT,
+
+	/**
+	 * Disconnect the client, so the server replaces it with an AI
+	 */
+	DISCONNECT
+}
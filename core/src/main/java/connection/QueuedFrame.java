@@ -0,0 +1,24 @@
+package connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A frame waiting in a connection's outbound queue, with its own read position
+ * over the frame's shared encoding
+ *
+ * @author 140001596
+ */
+class QueuedFrame
+{
+	final MessageFrame frame;
+	final ByteBuffer buffer;
+	final long queuedAt;
+
+	QueuedFrame(MessageFrame frame) throws IOException
+	{
+		this.frame = frame;
+		buffer = ByteBuffer.wrap(frame.getEncoded());
+		queuedAt = System.nanoTime();
+	}
+}
@@ -3,37 +3,92 @@ package connection;
 import com.badlogic.gdx.Gdx;
 import intergroup.Messages;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
 
 /**
- * Class representing a remote connection with a client
+ * Class representing a remote connection with a client. Both directions are
+ * buffered: a burst of events is read with one read call, and requests are
+ * only written out when the connection is flushed.
  * 
  * @author 140001596
  */
 public class RemoteServerConnection implements IServerConnection
 {
 	private Socket conn;
+	private InputStream in;
+	private OutputStream out;
+	private String host;
+	private int port;
 
 	public void connect(String host, int port) throws IOException
 	{
+		this.host = host;
+		this.port = port;
 		conn = new Socket(host, port);
+		conn.setTcpNoDelay(true);
+		in = new BufferedInputStream(conn.getInputStream());
+		out = new BufferedOutputStream(conn.getOutputStream());
 	}
 
+	/**
+	 * Reads the next message, inflating it if it arrived compressed
+	 */
 	@Override
 	public Messages.Message getMessageFromServer() throws Exception
 	{
-		if (conn != null) { return Messages.Message.parseDelimitedFrom(conn.getInputStream()); }
+		if (conn != null)
+		{
+			Messages.Message msg = Messages.Message.parseDelimitedFrom(in);
+			if (msg != null && msg.getTypeCase().equals(Messages.Message.TypeCase.DEFLATED))
+			{
+				msg = Compression.inflate(msg.getDeflated());
+			}
+			return msg;
+		}
 
 		return null;
 	}
 
+	/**
+	 * Buffers the message until the connection is flushed
+	 */
 	@Override
 	public void sendMessageToServer(Messages.Message message) throws Exception
 	{
 		if (conn != null)
 		{
-			message.writeDelimitedTo(conn.getOutputStream());
+			message.writeDelimitedTo(out);
+		}
+	}
+
+	@Override
+	public void flush() throws Exception
+	{
+		if (conn != null)
+		{
+			out.flush();
+		}
+	}
+
+	@Override
+	public boolean reconnect()
+	{
+		if (host == null) return false;
+
+		shutDown();
+		try
+		{
+			connect(host, port);
+			return true;
+		}
+		catch (IOException e)
+		{
+			return false;
 		}
 	}
 
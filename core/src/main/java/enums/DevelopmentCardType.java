@@ -2,11 +2,10 @@ package enums;
 
 import exceptions.BankLimitException;
 import game.Bank;
+import game.ResourceBag;
 import intergroup.board.Board;
 import intergroup.board.Board.PlayableDevCard;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Random;
 
 public enum DevelopmentCardType
@@ -21,6 +20,11 @@ public enum DevelopmentCardType
 	RoadBuilding, // Build two new roads
 	Monopoly; // Every player must give over all resources of a particular type
 
+	/**
+	 * What a card costs, for checks which would otherwise build a new cost
+	 * each time. It cannot be changed.
+	 */
+	public static final ResourceBag CARD_COST = getCardCost().frozen();
 	private static final Random rand;
 
 	static
@@ -131,9 +135,9 @@ public enum DevelopmentCardType
 	/**
 	 * @return a map containing the total cost for all resources
 	 */
-	public static Map<ResourceType, Integer> getCardCost()
+	public static ResourceBag getCardCost()
 	{
-		Map<ResourceType, Integer> resources = new HashMap<>();
+		ResourceBag resources = new ResourceBag();
 
 		resources.put(ResourceType.Ore, 1);
 		resources.put(ResourceType.Grain, 1);
@@ -143,6 +147,19 @@ public enum DevelopmentCardType
 	}
 
 	public static DevelopmentCardType chooseRandom(Bank bank) throws BankLimitException
+	{
+		return chooseRandom(bank, rand);
+	}
+
+	/**
+	 * Draws a development card from the bank
+	 *
+	 * @param bank the bank to draw from
+	 * @param random the source of the draw
+	 * @return the card drawn
+	 * @throws BankLimitException if the bank has no cards left
+	 */
+	public static DevelopmentCardType chooseRandom(Bank bank, Random random) throws BankLimitException
 	{
 		DevelopmentCardType type = null;
 		if (bank.getNumAvailableDevCards() == 0) { throw new BankLimitException("Not enough dev cards left"); }
@@ -150,7 +167,7 @@ public enum DevelopmentCardType
 		// Randomly choose a development card to allocate
 		while (type == null || bank.getAvailableDevCards().get(type) == 0)
 		{
-			type = DevelopmentCardType.values()[rand.nextInt(DevelopmentCardType.values().length)];
+			type = DevelopmentCardType.values()[random.nextInt(DevelopmentCardType.values().length)];
 		}
 
 		// Eliminate from bank
@@ -3,5 +3,5 @@ package enums;
 public enum Difficulty
 {
 	// Placeholder names, can be changed or removed later
-	VERYEASY, EASY
+	VERYEASY, EASY, HARD
 }
@@ -151,6 +151,15 @@ public enum ResourceType
 	 */
 	public static ResourceType random()
 	{
-		return ResourceType.values()[rand.nextInt(ResourceType.values().length)];
+		return random(rand);
+	}
+
+	/**
+	 * @param random the source of the draw
+	 * @return a random resource type
+	 */
+	public static ResourceType random(Random random)
+	{
+		return ResourceType.values()[random.nextInt(ResourceType.values().length)];
 	}
 }
@@ -5,6 +5,7 @@ import enums.DevelopmentCardType;
 import enums.ResourceType;
 import exceptions.BankLimitException;
 
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -15,15 +16,17 @@ import java.util.Map;
  */
 public class Bank
 {
-	private final Map<ResourceType, Integer> availableResources;
+	public static final int RESOURCES_PER_TYPE = 19; // Adds up to 95 total resource cards
+	private final ResourceBag availableResources;
 	private final Map<DevelopmentCardType, Integer> availableDevCards;
 	private final Map<Colour, Integer> availableCities;
 	private final Map<Colour, Integer> availableSettlements;
 	private final Map<Colour, Integer> availableRoads;
+	private int unknownDevCardsTaken;
 
 	public Bank()
 	{
-		availableResources = new HashMap<>();
+		availableResources = new ResourceBag();
 		availableDevCards = new HashMap<>();
 		availableSettlements = new HashMap<>();
 		availableCities = new HashMap<>();
@@ -33,7 +36,6 @@ public class Bank
 
 	private void setUpAvailability()
 	{
-		int resourceAmount = 19; // Adds up to 95 total resource cards
 		int cityAmount = 4, roadAmount = 15, settlementAmount = 5;
 
 		// For each resource type
@@ -41,7 +43,7 @@ public class Bank
 		{
 			if (r.equals(ResourceType.Generic)) continue;
 
-			availableResources.put(r, resourceAmount);
+			availableResources.put(r, RESOURCES_PER_TYPE);
 		}
 
 		// For each player
@@ -118,8 +120,20 @@ public class Bank
 		this.availableSettlements.put(c, availableSettlements);
 	}
 
+	/**
+	 * Takes a dev card out of the bank
+	 *
+	 * @param type the card's type, or null if it is not known which card was
+	 *            taken, as when another player buys one
+	 */
 	public void subtractAvailableDevCards(DevelopmentCardType type)
 	{
+		if (type == null)
+		{
+			unknownDevCardsTaken++;
+			return;
+		}
+
 		int existing = availableDevCards.getOrDefault(type, 0);
 		availableDevCards.put(type, existing - 1);
 	}
@@ -136,6 +150,12 @@ public class Bank
 	 */
 	public void grantResources(Map<ResourceType, Integer> grant)
 	{
+		if (grant instanceof ResourceBag)
+		{
+			availableResources.add((ResourceBag) grant);
+			return;
+		}
+
 		for (ResourceType r : grant.keySet())
 		{
 			availableResources.put(r, availableResources.get(r) + grant.get(r));
@@ -149,6 +169,16 @@ public class Bank
 	 */
 	public void spendResources(Map<ResourceType, Integer> spend) throws BankLimitException
 	{
+		if (spend instanceof ResourceBag)
+		{
+			ResourceBag bag = (ResourceBag) spend;
+			ResourceType r = availableResources.findShortfall(bag);
+			if (r != null) throw new BankLimitException(String.format("Out of Resource: %s", r));
+
+			availableResources.subtract(bag);
+			return;
+		}
+
 		// Check enough resources
 		for (ResourceType r : spend.keySet())
 		{
@@ -175,9 +205,7 @@ public class Bank
 
 	public int getNumAvailableResources()
 	{
-		return availableResources.get(ResourceType.Brick) + availableResources.get(ResourceType.Grain)
-				+ availableResources.get(ResourceType.Ore) + availableResources.get(ResourceType.Lumber)
-				+ availableResources.get(ResourceType.Wool);
+		return availableResources.total();
 	}
 
 	public int getNumAvailableDevCards()
@@ -187,7 +215,7 @@ public class Bank
 		{
 			sum += availableDevCards.getOrDefault(type, 0);
 		}
-		return sum;
+		return sum - unknownDevCardsTaken;
 	}
 
 	/**
@@ -197,6 +225,8 @@ public class Bank
 	 */
 	public boolean canAfford(Map<ResourceType, Integer> cost)
 	{
+		if (cost instanceof ResourceBag) return availableResources.covers((ResourceBag) cost);
+
 		// Check if the player can afford this before initiating the purchase
 		for (ResourceType r : cost.keySet())
 		{
@@ -205,4 +235,32 @@ public class Bank
 
 		return true;
 	}
+
+	/**
+	 * Writes what the bank has left into a game snapshot
+	 *
+	 * @param buf the buffer to write to
+	 */
+	public void writeTo(ByteBuffer buf)
+	{
+		SnapshotIO.writeCounts(buf, availableResources, ResourceType.values());
+		SnapshotIO.writeCounts(buf, availableDevCards, DevelopmentCardType.values());
+		SnapshotIO.writeCounts(buf, availableCities, Colour.values());
+		SnapshotIO.writeCounts(buf, availableSettlements, Colour.values());
+		SnapshotIO.writeCounts(buf, availableRoads, Colour.values());
+	}
+
+	/**
+	 * Replaces what the bank has left with what was written into a snapshot
+	 *
+	 * @param buf the buffer to read from
+	 */
+	public void readFrom(ByteBuffer buf)
+	{
+		SnapshotIO.readCounts(buf, availableResources, ResourceType.values());
+		SnapshotIO.readCounts(buf, availableDevCards, DevelopmentCardType.values());
+		SnapshotIO.readCounts(buf, availableCities, Colour.values());
+		SnapshotIO.readCounts(buf, availableSettlements, Colour.values());
+		SnapshotIO.readCounts(buf, availableRoads, Colour.values());
+	}
 }
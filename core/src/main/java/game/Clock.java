@@ -0,0 +1,39 @@
+package game;
+
+/**
+ * The source of time for everything which waits, polls or times out, so that
+ * it can all be run in simulated time as well as real time. Components ask
+ * their clock rather than the system, and are handed the clock to use by
+ * whoever creates them.
+ *
+ * @author 140001596
+ */
+public interface Clock
+{
+	/**
+	 * The real clock, used unless another is given
+	 */
+	Clock SYSTEM = new SystemClock();
+
+	/**
+	 * @return the current time in milliseconds
+	 */
+	long currentTimeMillis();
+
+	/**
+	 * Waits for the given length of time to pass
+	 *
+	 * @param millis the time to wait for, in milliseconds
+	 * @throws InterruptedException if the waiting thread was interrupted
+	 */
+	void sleep(long millis) throws InterruptedException;
+
+	/**
+	 * Runs the given task once the given length of time has passed. The
+	 * caller does not wait for it.
+	 *
+	 * @param task the task to run
+	 * @param delay the time until it runs, in milliseconds
+	 */
+	void schedule(Runnable task, long delay);
+}
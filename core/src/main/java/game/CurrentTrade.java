@@ -12,13 +12,19 @@ public class CurrentTrade
 {
 	private final Board.Player instigator;
 	private final Trade.WithPlayer trade;
-	private long time = System.currentTimeMillis();
+	private long time;
 	private static final int EXPIRY = 30 * 1000; // 30 seconds
 
-	public CurrentTrade(Trade.WithPlayer trade, Board.Player instigator)
+	/**
+	 * @param trade the trade
+	 * @param instigator the player who offered it
+	 * @param time the time at which it was offered, in milliseconds
+	 */
+	public CurrentTrade(Trade.WithPlayer trade, Board.Player instigator, long time)
 	{
 		this.instigator = instigator;
 		this.trade = trade;
+		this.time = time;
 	}
 
 	public Trade.WithPlayer getTrade()
@@ -36,9 +42,13 @@ public class CurrentTrade
 		this.time = time;
 	}
 
-	public boolean isExpired()
+	/**
+	 * @param now the current time, in milliseconds
+	 * @return whether the trade has gone unanswered for too long
+	 */
+	public boolean isExpired(long now)
 	{
-		long diff = System.currentTimeMillis() - time;
+		long diff = now - time;
 		return diff > EXPIRY;
 	}
 
@@ -3,18 +3,18 @@ package game;
 import enums.Colour;
 import enums.DevelopmentCardType;
 import enums.ResourceType;
-import game.build.Building;
-import game.build.City;
 import game.build.Road;
 import game.players.Player;
 import grid.Edge;
 import grid.Hex;
 import grid.HexGrid;
 import grid.Node;
+import grid.Port;
 import intergroup.board.Board;
 import intergroup.lobby.Lobby;
 import intergroup.resource.Resource;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -38,9 +38,18 @@ public abstract class Game
 	private static final int MIN_ARMY_SIZE = 3;
 
 	protected Game()
+	{
+		this(true);
+	}
+
+	/**
+	 * @param makeBoard whether to lay out a new board, rather than leave an
+	 *            empty one to be read from a snapshot
+	 */
+	protected Game(boolean makeBoard)
 	{
 		bank = new Bank();
-		grid = new HexGrid(true);
+		grid = new HexGrid(makeBoard);
 		players = new HashMap<>();
 		idsToColours = new HashMap<>();
 	}
@@ -55,27 +64,20 @@ public abstract class Game
 	public Map<ResourceType, Integer> getNewResources(int dice, Colour c)
 	{
 		int resourceLimit = 7;
-		Player player = players.get(c);
-		Map<ResourceType, Integer> grant = new HashMap<>();
+		Map<ResourceType, Integer> grant = new ResourceBag();
 
 		// If 7, check that no one is above the resource limit
 		if (dice == resourceLimit) { return grant; }
 
-		// for each of this player's settlements
-		for (Building building : player.getSettlements().values())
+		// Each hex with this chit knows what the player's buildings around it
+		// collect, and several hexes of the same resource add up
+		for (Hex hex : grid.getHexesWithChit(dice))
 		{
-			int amount = building instanceof City ? 2 : 1;
-			List<Hex> hexes = building.getNode().getHexes();
+			int amount = hex.getYield(c);
+			if (amount == 0 || hex.hasRobber()) continue;
 
-			// for each hex on this settlement
-			for (Hex hex : hexes)
-			{
-				// If the hex's chit is equal to the dice roll
-				if (hex.getChit() == dice && !hex.hasRobber())
-				{
-					grant.put(hex.getResource(), amount);
-				}
-			}
+			ResourceType r = hex.getResource();
+			grant.put(r, grant.getOrDefault(r, 0) + amount);
 		}
 		return grant;
 	}
@@ -127,16 +129,16 @@ public abstract class Game
 	 * @param resources the resources received from the network
 	 * @return a map of resources to number
 	 */
-	public Map<ResourceType, Integer> processResources(Resource.Counts resources)
+	public ResourceBag processResources(Resource.Counts resources)
 	{
-		Map<ResourceType, Integer> ret = new HashMap<>();
+		ResourceBag ret = new ResourceBag();
 
 		// Add all resources with amounts
-		if (resources.getBrick() > 0) ret.put(ResourceType.Brick, resources.getBrick());
-		if (resources.getLumber() > 0) ret.put(ResourceType.Lumber, resources.getLumber());
-		if (resources.getGrain() > 0) ret.put(ResourceType.Grain, resources.getGrain());
-		if (resources.getOre() > 0) ret.put(ResourceType.Ore, resources.getOre());
-		if (resources.getWool() > 0) ret.put(ResourceType.Wool, resources.getWool());
+		if (resources.getBrick() > 0) ret.set(ResourceType.Brick, resources.getBrick());
+		if (resources.getLumber() > 0) ret.set(ResourceType.Lumber, resources.getLumber());
+		if (resources.getGrain() > 0) ret.set(ResourceType.Grain, resources.getGrain());
+		if (resources.getOre() > 0) ret.set(ResourceType.Ore, resources.getOre());
+		if (resources.getWool() > 0) ret.set(ResourceType.Wool, resources.getWool());
 
 		return ret;
 	}
@@ -149,6 +151,8 @@ public abstract class Game
 	 */
 	public Resource.Counts processResources(Map<ResourceType, Integer> map)
 	{
+		if (map instanceof ResourceBag) return ((ResourceBag) map).toProto();
+
 		Resource.Counts.Builder resources = Resource.Counts.newBuilder();
 		resources.setGrain(map.getOrDefault(ResourceType.Grain, 0));
 		resources.setBrick(map.getOrDefault(ResourceType.Brick, 0));
@@ -185,8 +189,9 @@ public abstract class Game
 			else if (length == max) cols.add(c);
 		}
 
-		// Remove longest road victory points if necessary
-		if (longestRoad >= MIN_ROAD_LENGTH)
+		// Remove longest road victory points if necessary. No one holds it
+		// after a tie for a broken road.
+		if (longestRoad >= MIN_ROAD_LENGTH && playerWithLongestRoad != null)
 		{
 			// If the player no longer has longest road
 			if (max < MIN_ROAD_LENGTH || !cols.contains(playerWithLongestRoad.getColour()))
@@ -227,32 +232,24 @@ public abstract class Game
 	 */
 	protected void checkIfRoadBroken(Node node)
 	{
-		// Check all combinations of edges to check if a road chain was broken
-		for (int i = 0; i < node.getEdges().size(); i++)
-		{
-			boolean broken = false;
-			for (int j = 0; j < node.getEdges().size(); j++)
-			{
-				Edge e = node.getEdges().get(i), other = node.getEdges().get(j);
-				Road r = e.getRoad(), otherR = other.getRoad();
-
-				if (e.equals(other)) continue;
+		Colour owner = node.getBuilding().getPlayerColour();
+		boolean broken = false;
 
-				// If this settlement is between two roads of the same colour
-				if (r != null && otherR != null && r.getPlayerColour().equals(otherR.getPlayerColour()))
-				{
-					// retrieve owner of roads and break the road chain
-					players.get(e.getRoad().getPlayerColour()).breakRoad(e, other);
-					broken = true;
-					break;
-				}
-			}
-			if (broken)
+		// Only the owners of roads which meet at this node can have had a chain
+		// broken by it
+		for (Edge e : node.getEdges())
+		{
+			Road r = e.getRoad();
+			if (r != null && !r.getPlayerColour().equals(owner))
 			{
-				checkLongestRoad(broken);
-				break;
+				broken |= players.get(r.getPlayerColour()).breakRoad(node);
 			}
 		}
+
+		if (broken)
+		{
+			checkLongestRoad(broken);
+		}
 	}
 
 	/**
@@ -292,6 +289,29 @@ public abstract class Game
 		setCurrentPlayer(getPlayer(Board.Player.Id.PLAYER_1).getColour());
 	}
 
+	/**
+	 * Retrieve the port objects referred to by the proto
+	 * 
+	 * @param protos the port protos
+	 */
+	protected List<Port> processPorts(List<Board.Harbour> protos)
+	{
+		List<Port> ports = new ArrayList<>();
+
+		// Add ports
+		for (Board.Harbour harbour : protos)
+		{
+			Board.Edge e = harbour.getLocation();
+			Board.Point p1 = e.getA(), p2 = e.getB();
+			Port port = new Port(grid.getNode(p1.getX(), p1.getY()), grid.getNode(p2.getX(), p2.getY()));
+			port.setExchangeType(ResourceType.fromProto(harbour.getResource()));
+
+			ports.add(port);
+		}
+
+		return ports;
+	}
+
 	/**
 	 * @return the grid
 	 */
@@ -378,4 +398,39 @@ public abstract class Game
 	{
 		return bank;
 	}
+
+	/**
+	 * Writes the board, the bank and the state of play into a game snapshot.
+	 * Subclasses write their players after these.
+	 *
+	 * @param buf the buffer to write to
+	 */
+	protected void writeTo(ByteBuffer buf)
+	{
+		grid.writeTo(buf);
+		bank.writeTo(buf);
+		SnapshotIO.writeEnum(buf, currentPlayer);
+		SnapshotIO.writeEnum(buf, playerWithLongestRoad);
+		SnapshotIO.writeEnum(buf, playerWithLargestArmy);
+		buf.put((byte) current).put((byte) numPlayers).put((byte) longestRoad).put((byte) largestArmy);
+	}
+
+	/**
+	 * Replaces the board, the bank and the state of play with what was written
+	 * into a snapshot
+	 *
+	 * @param buf the buffer to read from
+	 */
+	protected void readFrom(ByteBuffer buf)
+	{
+		grid = HexGrid.readFrom(buf);
+		bank.readFrom(buf);
+		currentPlayer = SnapshotIO.readEnum(buf, Colour.values());
+		playerWithLongestRoad = SnapshotIO.readEnum(buf, Colour.values());
+		playerWithLargestArmy = SnapshotIO.readEnum(buf, Colour.values());
+		current = buf.get();
+		numPlayers = buf.get();
+		longestRoad = buf.get();
+		largestArmy = buf.get();
+	}
 }
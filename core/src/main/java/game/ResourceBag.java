@@ -0,0 +1,310 @@
+package game;
+
+import enums.ResourceType;
+import intergroup.resource.Resource;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A count of each type of resource, packed into a single long so that
+ * checking whether one bag covers another, adding and taking away are each a
+ * couple of arithmetic operations rather than a loop over a map of boxed
+ * integers.
+ *
+ * Each resource type has a ten bit lane, of which the top bit is kept clear
+ * as a guard. Setting every guard bit before subtracting one bag from another
+ * means no lane can borrow from its neighbour, and a guard bit left clear
+ * afterwards marks a lane which did not have enough.
+ *
+ * A bag is also a map, so that it can be used wherever resources were held in
+ * a map before. Like those maps, it tells a type with no count apart from a
+ * type with a count of zero.
+ *
+ * @author 140001596
+ */
+public class ResourceBag extends AbstractMap<ResourceType, Integer>
+{
+	private static final ResourceType[] TYPES = ResourceType.values();
+	private static final int BITS = 10;
+	private static final long LANE = (1L << BITS) - 1;
+	private static final int MAX = (1 << (BITS - 1)) - 1;
+	private static final long GUARDS = guards();
+	private final boolean mutable;
+	private long counts;
+	private int present;
+
+	public ResourceBag()
+	{
+		mutable = true;
+	}
+
+	/**
+	 * @param other the counts to start with
+	 */
+	public ResourceBag(Map<ResourceType, Integer> other)
+	{
+		this(other, true);
+	}
+
+	private ResourceBag(Map<ResourceType, Integer> other, boolean mutable)
+	{
+		this.mutable = mutable;
+		if (other instanceof ResourceBag)
+		{
+			counts = ((ResourceBag) other).counts;
+			present = ((ResourceBag) other).present;
+			return;
+		}
+
+		for (Entry<ResourceType, Integer> e : other.entrySet())
+		{
+			store(e.getKey(), e.getValue());
+		}
+	}
+
+	/**
+	 * @param counts the counts of each type of resource
+	 * @return a bag holding a count, possibly zero, for each of the five
+	 *         resources
+	 */
+	public static ResourceBag fromProto(Resource.Counts counts)
+	{
+		ResourceBag bag = new ResourceBag();
+		bag.set(ResourceType.Brick, counts.getBrick());
+		bag.set(ResourceType.Lumber, counts.getLumber());
+		bag.set(ResourceType.Grain, counts.getGrain());
+		bag.set(ResourceType.Ore, counts.getOre());
+		bag.set(ResourceType.Wool, counts.getWool());
+		return bag;
+	}
+
+	/**
+	 * @return a copy of this bag which cannot be changed
+	 */
+	public ResourceBag frozen()
+	{
+		return new ResourceBag(this, false);
+	}
+
+	/**
+	 * @param type the type of resource
+	 * @return how many of it there are, which is zero if it has no count
+	 */
+	public int count(ResourceType type)
+	{
+		return (int) (counts >>> shift(type) & LANE);
+	}
+
+	/**
+	 * Sets the count of a type of resource
+	 *
+	 * @param type the type of resource
+	 * @param count its count
+	 */
+	public void set(ResourceType type, int count)
+	{
+		checkMutable();
+		store(type, count);
+	}
+
+	private void store(ResourceType type, int count)
+	{
+		if (count < 0 || count > MAX)
+		{
+			throw new IllegalArgumentException(String.format("%d %s is out of range", count, type));
+		}
+
+		int shift = shift(type);
+		counts = counts & ~(LANE << shift) | (long) count << shift;
+		present |= 1 << type.ordinal();
+	}
+
+	/**
+	 * @param cost the resources needed
+	 * @return whether this bag holds at least as many of each resource
+	 */
+	public boolean covers(ResourceBag cost)
+	{
+		return ((counts | GUARDS) - cost.counts & GUARDS) == GUARDS;
+	}
+
+	/**
+	 * Adds the other bag's resources to this one's
+	 *
+	 * @param other the resources to add
+	 */
+	public void add(ResourceBag other)
+	{
+		checkMutable();
+		long sum = counts + other.counts;
+		if ((sum & GUARDS) != 0) throw new IllegalStateException("Too many resources to count");
+
+		counts = sum;
+		present |= other.present;
+	}
+
+	/**
+	 * Takes the other bag's resources away from this one's
+	 *
+	 * @param other the resources to take away
+	 */
+	public void subtract(ResourceBag other)
+	{
+		checkMutable();
+		if (!covers(other)) throw new IllegalStateException("Not enough resources to take away");
+
+		counts -= other.counts;
+		present |= other.present;
+	}
+
+	/**
+	 * @return the total number of resources in the bag
+	 */
+	public int total()
+	{
+		int total = 0;
+		for (long c = counts; c != 0; c >>>= BITS)
+		{
+			total += c & LANE;
+		}
+		return total;
+	}
+
+	/**
+	 * @param cost the resources needed
+	 * @return the first type of resource this bag has too few of, or null if
+	 *         it covers the cost
+	 */
+	public ResourceType findShortfall(ResourceBag cost)
+	{
+		for (ResourceType type : TYPES)
+		{
+			if (count(type) < cost.count(type)) return type;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the counts as a protobuf
+	 */
+	public Resource.Counts toProto()
+	{
+		return Resource.Counts.newBuilder().setBrick(count(ResourceType.Brick))
+				.setLumber(count(ResourceType.Lumber)).setGrain(count(ResourceType.Grain))
+				.setOre(count(ResourceType.Ore)).setWool(count(ResourceType.Wool)).build();
+	}
+
+	@Override
+	public Integer get(Object key)
+	{
+		return containsKey(key) ? count((ResourceType) key) : null;
+	}
+
+	@Override
+	public Integer getOrDefault(Object key, Integer defaultValue)
+	{
+		return containsKey(key) ? count((ResourceType) key) : defaultValue;
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return key instanceof ResourceType && (present & 1 << ((ResourceType) key).ordinal()) != 0;
+	}
+
+	@Override
+	public Integer put(ResourceType key, Integer value)
+	{
+		Integer old = get(key);
+		set(key, value);
+		return old;
+	}
+
+	@Override
+	public Integer remove(Object key)
+	{
+		checkMutable();
+		Integer old = get(key);
+		if (old != null)
+		{
+			ResourceType type = (ResourceType) key;
+			counts &= ~(LANE << shift(type));
+			present &= ~(1 << type.ordinal());
+		}
+		return old;
+	}
+
+	@Override
+	public void clear()
+	{
+		checkMutable();
+		counts = 0;
+		present = 0;
+	}
+
+	@Override
+	public int size()
+	{
+		return Integer.bitCount(present);
+	}
+
+	@Override
+	public Set<Entry<ResourceType, Integer>> entrySet()
+	{
+		return new AbstractSet<Entry<ResourceType, Integer>>()
+		{
+			@Override
+			public Iterator<Entry<ResourceType, Integer>> iterator()
+			{
+				return new ResourceBagIterator(ResourceBag.this, present);
+			}
+
+			@Override
+			public int size()
+			{
+				return ResourceBag.this.size();
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o instanceof ResourceBag)
+		{
+			ResourceBag other = (ResourceBag) o;
+			return counts == other.counts && present == other.present;
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return super.hashCode();
+	}
+
+	private void checkMutable()
+	{
+		if (!mutable) throw new UnsupportedOperationException("This bag cannot be changed");
+	}
+
+	private static int shift(ResourceType type)
+	{
+		return type.ordinal() * BITS;
+	}
+
+	private static long guards()
+	{
+		long guards = 0;
+		for (ResourceType type : TYPES)
+		{
+			guards |= 1L << (shift(type) + BITS - 1);
+		}
+		return guards;
+	}
+}
@@ -0,0 +1,57 @@
+package game;
+
+import enums.ResourceType;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the counts in a {@link ResourceBag}, in the order of the
+ * resource types
+ *
+ * @author 140001596
+ */
+class ResourceBagIterator implements Iterator<Map.Entry<ResourceType, Integer>>
+{
+	private static final ResourceType[] TYPES = ResourceType.values();
+	private final ResourceBag bag;
+	private int remaining;
+	private ResourceType last;
+
+	/**
+	 * @param bag the bag
+	 * @param present a bit for each type of resource the bag has a count for
+	 */
+	ResourceBagIterator(ResourceBag bag, int present)
+	{
+		this.bag = bag;
+		remaining = present;
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		return remaining != 0;
+	}
+
+	@Override
+	public Map.Entry<ResourceType, Integer> next()
+	{
+		if (remaining == 0) throw new NoSuchElementException();
+
+		last = TYPES[Integer.numberOfTrailingZeros(remaining)];
+		remaining &= remaining - 1;
+		return new AbstractMap.SimpleImmutableEntry<>(last, bag.count(last));
+	}
+
+	@Override
+	public void remove()
+	{
+		if (last == null) throw new IllegalStateException();
+
+		bag.remove(last);
+		last = null;
+	}
+}
@@ -0,0 +1,37 @@
+package game;
+
+/**
+ * A task waiting on a {@link VirtualClock}. Tasks due at the same time run in
+ * the order they were scheduled.
+ *
+ * @author 140001596
+ */
+class ScheduledTask implements Comparable<ScheduledTask>
+{
+	private final long due, order;
+	private final Runnable task;
+
+	ScheduledTask(long due, long order, Runnable task)
+	{
+		this.due = due;
+		this.order = order;
+		this.task = task;
+	}
+
+	long getDue()
+	{
+		return due;
+	}
+
+	Runnable getTask()
+	{
+		return task;
+	}
+
+	@Override
+	public int compareTo(ScheduledTask other)
+	{
+		int cmp = Long.compare(due, other.due);
+		return cmp != 0 ? cmp : Long.compare(order, other.order);
+	}
+}
@@ -0,0 +1,115 @@
+package game;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Helpers shared by the classes which write themselves into a game snapshot.
+ * Snapshots are written field by field straight into a buffer, so these cover
+ * the shapes which come up repeatedly: counts keyed by an enum, strings and
+ * coordinates.
+ *
+ * @author 140001596
+ */
+public final class SnapshotIO
+{
+	private static final short ABSENT = Short.MIN_VALUE;
+
+	private SnapshotIO()
+	{}
+
+	/**
+	 * Writes one count per key, in the order of the keys. Keys missing from
+	 * the map are written as absent rather than zero, as some rules tell the
+	 * two apart.
+	 *
+	 * @param buf the buffer to write to
+	 * @param map the counts
+	 * @param keys every possible key
+	 */
+	public static <K> void writeCounts(ByteBuffer buf, Map<K, Integer> map, K[] keys)
+	{
+		for (K key : keys)
+		{
+			Integer count = map.get(key);
+			buf.putShort(count == null ? ABSENT : count.shortValue());
+		}
+	}
+
+	/**
+	 * Reads counts written by {@link #writeCounts(ByteBuffer, Map, Object[])}
+	 * into the given map, replacing what it held
+	 *
+	 * @param buf the buffer to read from
+	 * @param map the map to fill
+	 * @param keys every possible key, in the order they were written
+	 */
+	public static <K> void readCounts(ByteBuffer buf, Map<K, Integer> map, K[] keys)
+	{
+		map.clear();
+		for (K key : keys)
+		{
+			short count = buf.getShort();
+			if (count != ABSENT)
+			{
+				map.put(key, (int) count);
+			}
+		}
+	}
+
+	/**
+	 * Writes a string, which may be null, as its length and UTF-8 bytes
+	 *
+	 * @param buf the buffer to write to
+	 * @param s the string
+	 */
+	public static void writeString(ByteBuffer buf, String s)
+	{
+		if (s == null)
+		{
+			buf.putShort((short) -1);
+			return;
+		}
+
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		buf.putShort((short) bytes.length);
+		buf.put(bytes);
+	}
+
+	/**
+	 * @param buf the buffer to read from
+	 * @return the string written by {@link #writeString(ByteBuffer, String)}
+	 */
+	public static String readString(ByteBuffer buf)
+	{
+		short length = buf.getShort();
+		if (length < 0) return null;
+
+		byte[] bytes = new byte[length];
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes an enum constant, which may be null, as its ordinal
+	 *
+	 * @param buf the buffer to write to
+	 * @param e the constant
+	 */
+	public static void writeEnum(ByteBuffer buf, Enum<?> e)
+	{
+		buf.put((byte) (e == null ? -1 : e.ordinal()));
+	}
+
+	/**
+	 * @param buf the buffer to read from
+	 * @param values the enum's constants
+	 * @return the constant written by {@link #writeEnum(ByteBuffer, Enum)}
+	 */
+	public static <E> E readEnum(ByteBuffer buf, E[] values)
+	{
+		byte ordinal = buf.get();
+		return ordinal < 0 ? null : values[ordinal];
+	}
+}
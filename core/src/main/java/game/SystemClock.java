@@ -0,0 +1,48 @@
+package game;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The real clock. Scheduled tasks share one background thread, which is only
+ * started once something is scheduled.
+ *
+ * @author 140001596
+ */
+class SystemClock implements Clock
+{
+	private ScheduledExecutorService scheduler;
+
+	@Override
+	public long currentTimeMillis()
+	{
+		return System.currentTimeMillis();
+	}
+
+	@Override
+	public void sleep(long millis) throws InterruptedException
+	{
+		Thread.sleep(millis);
+	}
+
+	@Override
+	public void schedule(Runnable task, long delay)
+	{
+		getScheduler().schedule(task, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private synchronized ScheduledExecutorService getScheduler()
+	{
+		if (scheduler == null)
+		{
+			scheduler = Executors.newSingleThreadScheduledExecutor(r ->
+			{
+				Thread t = new Thread(r, "Clock");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return scheduler;
+	}
+}
@@ -0,0 +1,132 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A clock whose time only moves when it is told to. Sleeping returns at once,
+ * moving the clock on by the time slept, and scheduled tasks run on whichever
+ * thread moves the clock past the time they are due. Games therefore play out
+ * just as they would in real time, but as fast as the machine allows.
+ *
+ * When several threads sleep at once, the clock only moves on as far as the
+ * earliest time one of them is due to wake, and waits for that thread to wake
+ * before moving further, so a short sleep is never overtaken by a long one.
+ *
+ * @author 140001596
+ */
+public class VirtualClock implements Clock
+{
+	private final PriorityQueue<ScheduledTask> tasks;
+	private final PriorityQueue<Long> wakeups; // When each sleeping thread is due
+	private long now, scheduled;
+
+	public VirtualClock()
+	{
+		tasks = new PriorityQueue<>();
+		wakeups = new PriorityQueue<>();
+	}
+
+	@Override
+	public synchronized long currentTimeMillis()
+	{
+		return now;
+	}
+
+	/**
+	 * Moves the clock on by the given time and returns without really
+	 * sleeping. If other threads are sleeping too, the clock stops at each
+	 * earlier time one of them is due, and this thread waits for them to
+	 * wake before it moves the clock on again.
+	 */
+	@Override
+	public void sleep(long millis) throws InterruptedException
+	{
+		if (Thread.interrupted()) throw new InterruptedException();
+
+		Long due;
+		synchronized (this)
+		{
+			due = now + millis;
+			wakeups.add(due);
+		}
+		try
+		{
+			while (true)
+			{
+				long next;
+				synchronized (this)
+				{
+					if (now >= due) break;
+
+					// Another thread is due, but has not woken yet
+					next = wakeups.peek();
+					if (next <= now)
+					{
+						wait();
+						continue;
+					}
+					if (!tasks.isEmpty()) next = Math.min(next, tasks.peek().getDue());
+				}
+				advanceTo(next);
+			}
+		}
+		finally
+		{
+			synchronized (this)
+			{
+				wakeups.remove(due);
+				notifyAll();
+			}
+		}
+		Thread.yield();
+	}
+
+	@Override
+	public synchronized void schedule(Runnable task, long delay)
+	{
+		tasks.add(new ScheduledTask(now + delay, scheduled++, task));
+	}
+
+	/**
+	 * Moves the clock on, running every task which falls due on the way
+	 *
+	 * @param millis the time to move on by, in milliseconds
+	 */
+	public void advance(long millis)
+	{
+		long time;
+		synchronized (this)
+		{
+			time = now + millis;
+		}
+		advanceTo(time);
+	}
+
+	/**
+	 * Moves the clock on to the given time, unless it is already past it, and
+	 * wakes any sleeping threads which are then due
+	 *
+	 * @param time the time to move to, in milliseconds
+	 */
+	private void advanceTo(long time)
+	{
+		List<Runnable> due = new ArrayList<>();
+		synchronized (this)
+		{
+			now = Math.max(now, time);
+			notifyAll();
+			while (!tasks.isEmpty() && tasks.peek().getDue() <= now)
+			{
+				due.add(tasks.poll().getTask());
+			}
+		}
+
+		// Tasks run outside the lock, as they may use the clock themselves
+		for (Runnable task : due)
+		{
+			task.run();
+		}
+	}
+}
@@ -46,4 +46,10 @@ public abstract class Building
 		return playerColour;
 	}
 
+	/**
+	 * @return how many resources this building collects from each adjacent
+	 *         hex whose chit is rolled
+	 */
+	public abstract int getYield();
+
 }
@@ -2,9 +2,9 @@ package game.build;
 
 import enums.Colour;
 import enums.ResourceType;
+import game.ResourceBag;
 import grid.Node;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -22,12 +22,18 @@ public class City extends Building
 	private City()
 	{}
 
+	/**
+	 * What a city costs, for checks which would otherwise build a new cost
+	 * each time. It cannot be changed.
+	 */
+	public static final ResourceBag COST = new City().getCost().frozen();
+
 	/**
 	 * @return a map containing the total cost for all resources
 	 */
-	public Map<ResourceType, Integer> getCost()
+	public ResourceBag getCost()
 	{
-		Map<ResourceType, Integer> resources = new HashMap<>();
+		ResourceBag resources = new ResourceBag();
 
 		resources.put(ResourceType.Grain, 2);
 		resources.put(ResourceType.Ore, 3);
@@ -35,8 +41,14 @@ public class City extends Building
 		return resources;
 	}
 
+	@Override
+	public int getYield()
+	{
+		return 2;
+	}
+
 	public static Map<ResourceType, Integer> getCityCost()
 	{
-		return new City().getCost();
+		return new ResourceBag(COST);
 	}
 }
@@ -3,10 +3,10 @@ package game.build;
 import intergroup.board.Board;
 import enums.Colour;
 import enums.ResourceType;
+import game.ResourceBag;
 import grid.Edge;
 import grid.Node;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -28,12 +28,18 @@ public class Road
 	private Road()
 	{}
 
+	/**
+	 * What a road costs, for checks which would otherwise build a new cost
+	 * each time. It cannot be changed.
+	 */
+	public static final ResourceBag COST = new Road().getCost().frozen();
+
 	/**
 	 * @return a map containing the total cost for all resources
 	 */
-	public Map<ResourceType, Integer> getCost()
+	public ResourceBag getCost()
 	{
-		Map<ResourceType, Integer> resources = new HashMap<>();
+		ResourceBag resources = new ResourceBag();
 
 		resources.put(ResourceType.Brick, 1);
 		resources.put(ResourceType.Lumber, 1);
@@ -43,7 +49,7 @@ public class Road
 
 	public static Map<ResourceType, Integer> getRoadCost()
 	{
-		return new Road().getCost();
+		return new ResourceBag(COST);
 	}
 
 	/**
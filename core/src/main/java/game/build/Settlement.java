@@ -2,10 +2,9 @@ package game.build;
 
 import enums.Colour;
 import enums.ResourceType;
-import grid.Edge;
+import game.ResourceBag;
 import grid.Node;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -23,12 +22,18 @@ public class Settlement extends Building
 	private Settlement()
 	{}
 
+	/**
+	 * What a settlement costs, for checks which would otherwise build a new cost
+	 * each time. It cannot be changed.
+	 */
+	public static final ResourceBag COST = new Settlement().getCost().frozen();
+
 	/**
 	 * @return a map containing the total cost for all resources
 	 */
-	public Map<ResourceType, Integer> getCost()
+	public ResourceBag getCost()
 	{
-		Map<ResourceType, Integer> resources = new HashMap<>();
+		ResourceBag resources = new ResourceBag();
 
 		resources.put(ResourceType.Brick, 1);
 		resources.put(ResourceType.Lumber, 1);
@@ -45,23 +50,17 @@ public class Settlement extends Building
 	 */
 	public boolean isNearSettlement()
 	{
-		// Check all paths from this node
-		for (Edge e : node.getEdges())
-		{
-			// Get other node on this edge, check it and all its paths
-			Node other = e.getX().equals(node) ? e.getY() : e.getX();
-
-			// if the opposite end has a settlement, return true
-			if (other.getBuilding() != null) return true;
-
-		}
+		return node.isNearBuilding();
+	}
 
-		// Not near any settlements
-		return false;
+	@Override
+	public int getYield()
+	{
+		return 1;
 	}
 
 	public static Map<ResourceType, Integer> getSettlementCost()
 	{
-		return new Settlement().getCost();
+		return new ResourceBag(COST);
 	}
 }
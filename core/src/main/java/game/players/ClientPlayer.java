@@ -8,9 +8,6 @@ import game.Bank;
 import game.build.Road;
 import grid.Edge;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class ClientPlayer extends Player
 {
 	public ClientPlayer(Colour colour, String username)
@@ -27,7 +24,6 @@ public class ClientPlayer extends Player
 	public Road addRoad(Edge edge, boolean me, Bank bank)
 			throws RoadExistsException, CannotBuildRoadException, CannotAffordException
 	{
-		List<Integer> listsAddedTo = new ArrayList<>();
 		Road r = new Road(edge, colour);
 
 		// Road already here. Cannot build
@@ -37,23 +33,10 @@ public class ClientPlayer extends Player
 		// afford it
 		if (canBuildRoad(edge, bank) || !me)
 		{
-			if (me && expectedRoads == 0 && getRoads().size() >= 2) spendResources(Road.getRoadCost(), bank);
+			if (me && expectedRoads == 0 && roads.size() >= 2) spendResources(Road.COST, bank);
 			if (expectedRoads > 0) expectedRoads--;
 			edge.setRoad(r);
-
-			// Find out where this road is connected
-			checkRoadsAndAdd(r, listsAddedTo);
-
-			// If not connected to any other roads
-			if (listsAddedTo.size() == 0)
-			{
-				List<Road> newList = new ArrayList<>();
-				newList.add(r);
-				roads.add(newList);
-			}
-
-			// merge lists if necessary
-			else if (listsAddedTo.size() >= 1) mergeRoads(r, listsAddedTo);
+			roads.add(r);
 
 			return r;
 		}
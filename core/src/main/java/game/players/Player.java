@@ -6,18 +6,23 @@ import enums.ResourceType;
 import exceptions.BankLimitException;
 import exceptions.CannotAffordException;
 import game.Bank;
+import game.ResourceBag;
+import game.SnapshotIO;
 import game.build.Building;
 import game.build.City;
 import game.build.Road;
 import game.build.Settlement;
 import grid.Edge;
+import grid.HexGrid;
 import grid.Node;
 import intergroup.board.Board;
 import intergroup.lobby.Lobby;
 import intergroup.resource.Resource;
 
 import java.awt.*;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,8 +36,8 @@ public abstract class Player
 {
 	private int vp; // Victory points
 	Colour colour;
-	Map<ResourceType, Integer> resources;
-	final List<List<Road>> roads;
+	final ResourceBag resources;
+	final RoadNetwork roads;
 	final HashMap<Point, Building> settlements;
 	private boolean hasLongestRoad;
 	Map<DevelopmentCardType, Integer> cards;
@@ -42,7 +47,7 @@ public abstract class Player
 	private String userName;
 	final Map<DevelopmentCardType, Integer> recentBoughtCards;
 
-	private static final int VP_THRESHOLD = 10;
+	public static final int VP_THRESHOLD = 10;
 	private static final int MIN_SETTLEMENTS = 2;
 	int expectedRoads;
 	private int expectedResources;
@@ -50,10 +55,10 @@ public abstract class Player
 	Player(Colour colour, String userName)
 	{
 		this.colour = colour;
-		roads = new ArrayList<>();
+		roads = new RoadNetwork();
 		recentBoughtCards = new HashMap<>();
 		settlements = new HashMap<>();
-		resources = new HashMap<>();
+		resources = new ResourceBag();
 		cards = new HashMap<>();
 		playedDevCards = new HashMap<>();
 		this.userName = userName;
@@ -67,206 +72,25 @@ public abstract class Player
 	}
 
 	/**
-	 * @return the length of this player's longest road
+	 * @return the length of this player's longest road, which is the longest
+	 *         trail along their roads that neither uses a road twice nor passes
+	 *         a foreign settlement
 	 */
 	public int calcRoadLength()
 	{
-		int longest = 0;
-		for (List<Road> list : roads)
-		{
-			if (list.size() > longest) longest = list.size();
-		}
-
-		return longest;
+		return roads.longest();
 	}
 
 	/**
-	 * Checks the new road against all other lists of connected roads.
+	 * Splits any of this player's road chains which pass through the given
+	 * node, now that another player has settled there
 	 * 
-	 * If it is connected to one of the connected lists, then it is added and
-	 * all the members' of that list are updated to reflect the new chain length
-	 * 
-	 * @param r the new road
-	 * @param listsAddedTo the list which records if more than one list was
-	 *            added to (i.e. this new road connects two previously separate
-	 *            ones)
-	 * @return boolean dictating whether or not this method was successful
+	 * @param node the node of the foreign settlement
+	 * @return whether a road chain was broken
 	 */
-	boolean checkRoadsAndAdd(Road r, List<Integer> listsAddedTo)
+	public boolean breakRoad(Node node)
 	{
-		boolean isConnected, valid = false;
-		int index = 0;
-
-		// Check if this road is adjacent to any others
-		for (List<Road> list : roads)
-		{
-			isConnected = false;
-			for (Road road : list)
-			{
-				Edge e = r.getEdge(), e2 = road.getEdge();
-				if (r.isConnected(road))
-				{
-					// Find if the joined node has a settlement on it
-					Node joinedNode = e.getX().equals(e2.getX()) || e.getX().equals(e2.getY()) ? e.getX() : e.getY();
-					Building building = joinedNode.getBuilding();
-
-					// If there is a settlement and it is not foreign, then the
-					// join is not broken
-					if ((building == null) || building.getPlayerColour().equals(r.getPlayerColour()))
-					{
-						isConnected = true;
-						listsAddedTo.add(index);
-					}
-					break;
-				}
-			}
-
-			// Update list
-			if (isConnected)
-			{
-				valid = true;
-			}
-			index++;
-		}
-
-		return valid;
-	}
-
-	/**
-	 * Finds the road chain these two edges belong to, and breaks it into two
-	 * 
-	 * @param e the first edge
-	 * @param other the other edge
-	 */
-	public void breakRoad(Edge e, Edge other)
-	{
-		List<Road> newList1 = new ArrayList<>();
-		List<Road> newList2 = new ArrayList<>();
-		boolean isConnected = false;
-		int index = 0;
-
-		// For each road chain
-		for (List<Road> subList : roads)
-		{
-			// For each road in the chain
-			for (Road road : subList)
-			{
-				// Divide up subList
-				if (e.getRoad().isConnected(road) || other.getRoad().isConnected(road))
-				{
-					isConnected = true;
-					break;
-				}
-			}
-			index++;
-			if (isConnected)
-			{
-				List<List<Road>> lists = segmentRoads(subList, e, other);
-				newList1 = lists.get(0);
-				newList2 = lists.get(1);
-				break;
-			}
-		}
-
-		// Remove old list and add two new ones
-		roads.remove(index - 1);
-		roads.add(newList1);
-		roads.add(newList2);
-	}
-
-	private List<List<Road>> segmentRoads(List<Road> sublist, Edge e, Edge other)
-	{
-		List<Road> newList1 = new ArrayList<>();
-		List<Road> newList2 = new ArrayList<>();
-		List<Road> skipped = new ArrayList<>();
-		Road eRoad = e.getRoad(), otherRoad = other.getRoad();
-		newList1.add(eRoad);
-		newList2.add(otherRoad);
-
-		// For each road in the chain
-		for (Road road : sublist)
-		{
-			if (newList1.contains(road) || newList2.contains(road)) continue;
-
-			// Divide up subList
-			if (e.getRoad().isConnected(road))
-			{
-				newList1.add(road);
-			}
-			else if (other.getRoad().isConnected(road))
-			{
-				newList2.add(road);
-			}
-			else
-				skipped.add(road);
-		}
-
-		// Loop until all roads sorted
-		while (newList1.size() + newList2.size() != sublist.size())
-		{
-			// For each skipped road
-			for (Road road : skipped)
-			{
-				if (newList1.contains(road) || newList2.contains(road)) continue;
-
-				// Check if connected to any road in first list
-				boolean added = false;
-				for (Road r1 : newList1)
-				{
-					if (road.isConnected(r1))
-					{
-						newList1.add(road);
-						added = true;
-						break;
-					}
-				}
-				if (added) continue;
-
-				// Check if connected to any road in second list
-				for (Road r2 : newList2)
-				{
-					if (road.isConnected(r2))
-					{
-						newList2.add(road);
-						break;
-					}
-				}
-			}
-		}
-
-		List<List<Road>> newList = new ArrayList<>();
-		newList.add(newList1);
-		newList.add(newList2);
-		return newList;
-	}
-
-	/**
-	 * Merges two roads together if a road was recently built which connects to
-	 * previously separate ones
-	 * 
-	 * @param r the new road
-	 * @param listsAddedTo the number of lists (of adjacent roads) it was added
-	 *            to
-	 */
-	void mergeRoads(Road r, List<Integer> listsAddedTo)
-	{
-		if (listsAddedTo.size() > 0)
-		{
-			// Add road to first added road chain.
-			roads.get(listsAddedTo.get(0)).add(r);
-		}
-
-		// Cascade all road chains back to the first road chain (since it has
-		// the new road added)
-		for (int i = listsAddedTo.size() - 1; i >= 1; i--)
-		{
-			List<Road> last = roads.get(listsAddedTo.get(i - 1));
-			List<Road> current = roads.get(listsAddedTo.get(i));
-
-			// Add all elements
-			last.addAll(current);
-			roads.remove(last);
-		}
+		return roads.split(node);
 	}
 
 	/**
@@ -274,12 +98,7 @@ public abstract class Player
 	 */
 	public int getNumResources()
 	{
-		int numResources = 0;
-		for (Integer i : resources.values())
-		{
-			numResources += i;
-		}
-		return numResources;
+		return resources.total();
 	}
 
 	/**
@@ -310,6 +129,8 @@ public abstract class Player
 	 */
 	public boolean canAfford(Map<ResourceType, Integer> cost)
 	{
+		if (cost instanceof ResourceBag) return resources.covers((ResourceBag) cost);
+
 		// Check if the player can afford this before initiating the purchase
 		for (ResourceType r : cost.keySet())
 		{
@@ -328,52 +149,46 @@ public abstract class Player
 	 */
 	public boolean canBuildRoad(Edge edge, Bank bank)
 	{
-		List<Integer> listsAddedTo = new ArrayList<>();
-		Road r = new Road(edge, colour);
+		return isRoadSite(edge) && canAffordRoad(bank);
+	}
+
+	/**
+	 * Checks to see if a road could go on the given edge, leaving aside
+	 * whether the player can pay for it
+	 * 
+	 * @param edge the desired road location
+	 * @return if the desired location is valid for a road
+	 */
+	public boolean isRoadSite(Edge edge)
+	{
 		Building b = null;
 
 		// Road already here. Cannot build
 		if (edge.getRoad() != null) return false;
 
 		// Find out where this road is connected
-		boolean valid = checkRoadsAndAdd(r, listsAddedTo);
-		if (r.getEdge().getX().getBuilding() != null
-				&& r.getEdge().getX().getBuilding().getPlayerColour().equals(colour))
+		boolean valid = edge.isConnected(colour);
+		if (edge.getX().getBuilding() != null && edge.getX().getBuilding().getPlayerColour().equals(colour))
 		{
-			b = r.getEdge().getX().getBuilding();
+			b = edge.getX().getBuilding();
 		}
-		else if (r.getEdge().getY().getBuilding() != null
-				&& r.getEdge().getY().getBuilding().getPlayerColour().equals(colour))
+		else if (edge.getY().getBuilding() != null && edge.getY().getBuilding().getPlayerColour().equals(colour))
 		{
-			b = r.getEdge().getY().getBuilding();
+			b = edge.getY().getBuilding();
 		}
 
 		// Does b already have a road and is it the initial phase?
-		boolean val = true;
-		if (getRoads().size() < 2)
-		{
-			for (Edge e : edge.getX().getEdges())
-			{
-				if (e.getRoad() != null)
-				{
-					val = false;
-				}
-			}
-			for (Edge e : edge.getY().getEdges())
-			{
-				if (e.getRoad() != null)
-				{
-					val = false;
-				}
-			}
-		}
+		if (roads.size() < 2 && edge.touchesRoad()) return false;
 
-		// Check the location is valid for building and that the player can
-		// afford it
-		return val && bank.getAvailableRoads(colour) > 0
-				&& ((getRoads().size() < 2 || canAfford(Road.getRoadCost()) || expectedRoads > 0)
-						&& (b != null || valid));
+		return b != null || valid;
+	}
 
+	/**
+	 * @return whether the player has a road left to build and can pay for it
+	 */
+	public boolean canAffordRoad(Bank bank)
+	{
+		return bank.getAvailableRoads(colour) > 0 && (roads.size() < 2 || canAfford(Road.COST) || expectedRoads > 0);
 	}
 
 	/**
@@ -384,15 +199,32 @@ public abstract class Player
 	 */
 	public boolean canBuildSettlement(Node node, Bank bank)
 	{
-		Point p = new Point(node.getX(), node.getY());
-		Settlement s = new Settlement(node, colour);
+		return isSettlementSite(node) && canAffordSettlement(bank);
+	}
 
-		return bank.getAvailableSettlements(colour) > 0
-				&& (canAfford(Settlement.getSettlementCost()) || getSettlements().size() < MIN_SETTLEMENTS)
-				&& !settlements.containsKey(p) && node.getBuilding() == null && !s.isNearSettlement()
+	/**
+	 * Checks to see if a settlement could go on the given node, leaving aside
+	 * whether the player can pay for it
+	 * 
+	 * @param node the desired settlement location
+	 * @return if the desired location is valid for a settlement
+	 */
+	public boolean isSettlementSite(Node node)
+	{
+		return node.getBuilding() == null && !node.isNearBuilding()
 				&& (node.isNearRoad(colour) || getSettlements().size() < MIN_SETTLEMENTS);
 	}
 
+	/**
+	 * @return whether the player has a settlement left to build and can pay
+	 *         for it
+	 */
+	public boolean canAffordSettlement(Bank bank)
+	{
+		return bank.getAvailableSettlements(colour) > 0
+				&& (canAfford(Settlement.COST) || getSettlements().size() < MIN_SETTLEMENTS);
+	}
+
 	/**
 	 * Checks to see if the player can build a city
 	 * 
@@ -401,10 +233,32 @@ public abstract class Player
 	 */
 	public boolean canBuildCity(Node node, Bank bank)
 	{
-		Point p = new Point(node.getX(), node.getY());
+		return isCitySite(node) && canAffordCity(bank);
+	}
+
+	/**
+	 * @param node the desired city location
+	 * @return whether the player has a settlement there to upgrade
+	 */
+	public boolean isCitySite(Node node)
+	{
+		return node.getBuilding() instanceof Settlement && node.getBuilding().getPlayerColour().equals(colour);
+	}
 
-		return bank.getAvailableCities(colour) > 0 && canAfford(City.getCityCost()) && settlements.containsKey(p)
-				&& settlements.get(p) instanceof Settlement;
+	/**
+	 * @return whether the player has a city left to build and can pay for it
+	 */
+	public boolean canAffordCity(Bank bank)
+	{
+		return bank.getAvailableCities(colour) > 0 && canAfford(City.COST);
+	}
+
+	/**
+	 * @return the number of roads the player has built
+	 */
+	public int getNumRoads()
+	{
+		return roads.size();
 	}
 
 	/**
@@ -415,6 +269,11 @@ public abstract class Player
 	public void grantResources(Map<ResourceType, Integer> newResources, Bank bank) throws BankLimitException
 	{
 		bank.spendResources(newResources);
+		if (newResources instanceof ResourceBag)
+		{
+			resources.add((ResourceBag) newResources);
+			return;
+		}
 
 		// Add each new resource and its amount to the player's resource bank
 		for (ResourceType r : newResources.keySet())
@@ -434,14 +293,7 @@ public abstract class Player
 	 */
 	public void grantResources(Resource.Counts count, Bank bank) throws BankLimitException
 	{
-		Map<ResourceType, Integer> newResources = new HashMap<>();
-		newResources.put(ResourceType.Brick, count.getBrick());
-		newResources.put(ResourceType.Wool, count.getWool());
-		newResources.put(ResourceType.Ore, count.getOre());
-		newResources.put(ResourceType.Grain, count.getGrain());
-		newResources.put(ResourceType.Lumber, count.getLumber());
-
-		grantResources(newResources, bank);
+		grantResources(ResourceBag.fromProto(count), bank);
 	}
 
 	/**
@@ -454,14 +306,7 @@ public abstract class Player
 	 */
 	public void spendResources(Resource.Counts count, Bank bank) throws CannotAffordException
 	{
-		Map<ResourceType, Integer> cost = new HashMap<>();
-		cost.put(ResourceType.Brick, count.getBrick());
-		cost.put(ResourceType.Wool, count.getWool());
-		cost.put(ResourceType.Ore, count.getOre());
-		cost.put(ResourceType.Grain, count.getGrain());
-		cost.put(ResourceType.Lumber, count.getLumber());
-
-		spendResources(cost, bank);
+		spendResources(ResourceBag.fromProto(count), bank);
 	}
 
 	/**
@@ -475,6 +320,12 @@ public abstract class Player
 	public void spendResources(Map<ResourceType, Integer> cost, Bank bank) throws CannotAffordException
 	{
 		if (!canAfford(cost)) throw new CannotAffordException(resources, cost);
+		if (cost instanceof ResourceBag)
+		{
+			resources.subtract((ResourceBag) cost);
+			bank.grantResources(cost);
+			return;
+		}
 
 		// Subtract each resource and its amount from the player's resource bank
 		for (ResourceType r : cost.keySet())
@@ -562,12 +413,7 @@ public abstract class Player
 	 */
 	public List<Road> getRoads()
 	{
-		List<Road> total = new ArrayList<>();
-
-		for (List<Road> list : roads)
-			total.addAll(list);
-
-		return total;
+		return roads.getRoads();
 	}
 
 	/**
@@ -590,7 +436,7 @@ public abstract class Player
 
 	public int getNumOfRoadChains()
 	{
-		return roads.size();
+		return roads.getChains().size();
 	}
 
 	/**
@@ -699,12 +545,18 @@ public abstract class Player
 		this.userName = userName;
 	}
 
+	/**
+	 * Zeroes every one of the player's resources. The given map is not
+	 * looked at, as the resources are then granted separately.
+	 *
+	 * @param resources unused
+	 */
 	public void setResources(Map<ResourceType, Integer> resources)
 	{
-		this.resources = resources;
-		for(ResourceType r : ResourceType.values())
+		this.resources.clear();
+		for (ResourceType r : ResourceType.values())
 		{
-			this.resources.put(r, 0);
+			this.resources.set(r, 0);
 		}
 	}
 
@@ -737,4 +589,101 @@ public abstract class Player
 	{
 		expectedResources--;
 	}
+
+	/**
+	 * Writes the player into a game snapshot: who they are, their hand, their
+	 * buildings and their road chains
+	 *
+	 * @param buf the buffer to write to
+	 */
+	public void writeTo(ByteBuffer buf)
+	{
+		SnapshotIO.writeEnum(buf, colour);
+		SnapshotIO.writeString(buf, userName);
+		SnapshotIO.writeEnum(buf, id);
+		buf.put((byte) vp).put((byte) armySize).put((byte) expectedRoads).put((byte) expectedResources);
+		buf.put((byte) (hasLongestRoad ? 1 : 0));
+		SnapshotIO.writeCounts(buf, resources, ResourceType.values());
+		SnapshotIO.writeCounts(buf, cards, DevelopmentCardType.values());
+		SnapshotIO.writeCounts(buf, playedDevCards, DevelopmentCardType.values());
+		SnapshotIO.writeCounts(buf, recentBoughtCards, DevelopmentCardType.values());
+
+		// In order of their coordinates, so the same player is always written
+		// the same way
+		List<Building> buildings = new ArrayList<>(settlements.values());
+		buildings.sort(Comparator.comparingInt((Building b) -> b.getNode().getX())
+				.thenComparingInt(b -> b.getNode().getY()));
+
+		buf.put((byte) buildings.size());
+		for (Building b : buildings)
+		{
+			buf.put((byte) b.getNode().getX()).put((byte) b.getNode().getY());
+			buf.put((byte) (b instanceof City ? 1 : 0));
+		}
+
+		buf.put((byte) roads.getChains().size());
+		for (RoadChain chain : roads.getChains())
+		{
+			buf.put((byte) chain.roads.size());
+			for (Road road : chain.roads)
+			{
+				Edge e = road.getEdge();
+				buf.put((byte) e.getX().getX()).put((byte) e.getX().getY());
+				buf.put((byte) e.getY().getX()).put((byte) e.getY().getY());
+			}
+		}
+	}
+
+	/**
+	 * Restores what {@link #writeTo(ByteBuffer)} wrote after the player's
+	 * colour and name, placing their buildings and roads on the given board
+	 *
+	 * @param buf the buffer to read from
+	 * @param grid the restored board
+	 */
+	protected void readFrom(ByteBuffer buf, HexGrid grid)
+	{
+		id = SnapshotIO.readEnum(buf, Board.Player.Id.values());
+		int vp = buf.get();
+		armySize = buf.get();
+		expectedRoads = buf.get();
+		expectedResources = buf.get();
+		hasLongestRoad = buf.get() != 0;
+		SnapshotIO.readCounts(buf, resources, ResourceType.values());
+		SnapshotIO.readCounts(buf, cards, DevelopmentCardType.values());
+		SnapshotIO.readCounts(buf, playedDevCards, DevelopmentCardType.values());
+		SnapshotIO.readCounts(buf, recentBoughtCards, DevelopmentCardType.values());
+
+		int numSettlements = buf.get();
+		for (int i = 0; i < numSettlements; i++)
+		{
+			int x = buf.get(), y = buf.get();
+			Node node = grid.getNode(x, y);
+			addSettlement(buf.get() == 1 ? new City(node, colour) : new Settlement(node, colour));
+		}
+		this.vp = vp;
+
+		// Chains which share a road share the same object, and the road is
+		// only kept in the first of them
+		roads.clear();
+		int numChains = buf.get();
+		for (int i = 0; i < numChains; i++)
+		{
+			int length = buf.get();
+			List<Road> chain = new ArrayList<>(length);
+			for (int j = 0; j < length; j++)
+			{
+				int x1 = buf.get(), y1 = buf.get(), x2 = buf.get(), y2 = buf.get();
+				Edge edge = grid.getNode(x1, y1).findEdge(grid.getNode(x2, y2));
+				Road road = edge.getRoad();
+				if (road == null)
+				{
+					road = new Road(edge, colour);
+					edge.setRoad(road);
+				}
+				chain.add(road);
+			}
+			roads.restore(chain);
+		}
+	}
 }
@@ -0,0 +1,66 @@
+package game.players;
+
+import game.build.Road;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A group of a player's roads which can all be travelled between without
+ * passing a foreign settlement, along with the length of the longest trail
+ * through them once it is known
+ *
+ * @author 140001596
+ */
+class RoadChain
+{
+	final List<Road> roads;
+	private int longest = -1;
+
+	RoadChain()
+	{
+		roads = new ArrayList<>();
+	}
+
+	/**
+	 * @param road the road to add to the chain
+	 */
+	void add(Road road)
+	{
+		roads.add(road);
+		longest = -1;
+	}
+
+	/**
+	 * @param other the chain whose roads are being added to this one
+	 */
+	void addAll(RoadChain other)
+	{
+		roads.addAll(other.roads);
+		longest = -1;
+	}
+
+	/**
+	 * @return whether the longest trail must be searched for again
+	 */
+	boolean isStale()
+	{
+		return longest < 0;
+	}
+
+	/**
+	 * @return the length of the longest trail through the chain
+	 */
+	int getLongest()
+	{
+		return longest;
+	}
+
+	/**
+	 * @param longest the length of the longest trail through the chain
+	 */
+	void setLongest(int longest)
+	{
+		this.longest = longest;
+	}
+}
@@ -0,0 +1,285 @@
+package game.players;
+
+import enums.Colour;
+import game.build.Building;
+import game.build.Road;
+import grid.Edge;
+import grid.Node;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The roads a player has built, as a graph whose vertices are the board's
+ * nodes and whose edges are the roads. Each road is given an id in the order
+ * it was built, and belongs to one {@link RoadChain}.
+ *
+ * Adding a road only looks at the roads either side of it, and a foreign
+ * settlement only splits the chains which meet at its node. The longest trail
+ * through a chain is searched for only when the chain has changed since it
+ * was last asked for.
+ *
+ * @author 140001596
+ */
+class RoadNetwork
+{
+	private final List<Road> roads;
+	private final List<RoadChain> chainOf;
+	private final List<RoadChain> chains;
+	private final Map<Edge, Integer> ids;
+
+	RoadNetwork()
+	{
+		roads = new ArrayList<>();
+		chainOf = new ArrayList<>();
+		chains = new ArrayList<>();
+		ids = new IdentityHashMap<>();
+	}
+
+	/**
+	 * @return the number of roads
+	 */
+	int size()
+	{
+		return roads.size();
+	}
+
+	/**
+	 * @return every road, in the order they were built
+	 */
+	List<Road> getRoads()
+	{
+		return new ArrayList<>(roads);
+	}
+
+	/**
+	 * @return the chains the roads are split into
+	 */
+	List<RoadChain> getChains()
+	{
+		return chains;
+	}
+
+	/**
+	 * Adds the road, joining it to the chains it meets and joining those
+	 * chains together
+	 *
+	 * @param road the new road
+	 */
+	void add(Road road)
+	{
+		Edge edge = road.getEdge();
+		RoadChain chain = null;
+
+		for (Node node : new Node[] { edge.getX(), edge.getY() })
+		{
+			if (isBlocked(node, road.getPlayerColour())) continue;
+
+			for (Edge e : node.getEdges())
+			{
+				Integer id = ids.get(e);
+				if (id == null) continue;
+
+				RoadChain other = chainOf.get(id);
+				if (chain == null)
+					chain = other;
+				else if (chain != other) chain = merge(chain, other);
+			}
+		}
+
+		if (chain == null)
+		{
+			chain = new RoadChain();
+			chains.add(chain);
+		}
+		ids.put(edge, roads.size());
+		roads.add(road);
+		chainOf.add(chain);
+		chain.add(road);
+	}
+
+	/**
+	 * Adds a chain exactly as it was saved, without checking how its roads
+	 * meet. Roads which were saved in an earlier chain as well are skipped.
+	 *
+	 * @param saved the roads of the chain
+	 */
+	void restore(List<Road> saved)
+	{
+		RoadChain chain = new RoadChain();
+		chains.add(chain);
+		for (Road road : saved)
+		{
+			if (ids.containsKey(road.getEdge())) continue;
+
+			ids.put(road.getEdge(), roads.size());
+			roads.add(road);
+			chainOf.add(chain);
+			chain.add(road);
+		}
+	}
+
+	/**
+	 * Removes every road
+	 */
+	void clear()
+	{
+		roads.clear();
+		chainOf.clear();
+		chains.clear();
+		ids.clear();
+	}
+
+	/**
+	 * Splits whichever chains pass through the node, now that a foreign
+	 * settlement stands on it. Even a chain which is still joined up the other
+	 * way round may have lost its longest trail.
+	 *
+	 * @param node the node of the new settlement
+	 * @return whether any chain passed through the node
+	 */
+	boolean split(Node node)
+	{
+		List<RoadChain> seen = new ArrayList<>(), affected = new ArrayList<>();
+		for (Edge e : node.getEdges())
+		{
+			Integer id = ids.get(e);
+			if (id == null) continue;
+
+			RoadChain chain = chainOf.get(id);
+			if (!seen.contains(chain))
+				seen.add(chain);
+			else if (!affected.contains(chain)) affected.add(chain);
+		}
+
+		for (RoadChain chain : affected)
+		{
+			regroup(chain);
+		}
+		return !affected.isEmpty();
+	}
+
+	/**
+	 * @return the length of the longest trail through any chain
+	 */
+	int longest()
+	{
+		int longest = 0;
+		for (RoadChain chain : chains)
+		{
+			if (chain.isStale()) chain.setLongest(findLongest(chain));
+			longest = Math.max(longest, chain.getLongest());
+		}
+		return longest;
+	}
+
+	/**
+	 * Moves the roads of the smaller chain into the larger one
+	 *
+	 * @return the chain which is left
+	 */
+	private RoadChain merge(RoadChain a, RoadChain b)
+	{
+		RoadChain into = a.roads.size() >= b.roads.size() ? a : b, from = into == a ? b : a;
+		for (Road road : from.roads)
+		{
+			chainOf.set(ids.get(road.getEdge()), into);
+		}
+		into.addAll(from);
+		chains.remove(from);
+		return into;
+	}
+
+	/**
+	 * Replaces the chain with one chain for each group of its roads which are
+	 * still joined up
+	 */
+	private void regroup(RoadChain chain)
+	{
+		chains.remove(chain);
+		Deque<Road> toVisit = new ArrayDeque<>();
+
+		for (Road start : chain.roads)
+		{
+			if (chainOf.get(ids.get(start.getEdge())) != chain) continue;
+
+			RoadChain part = new RoadChain();
+			chains.add(part);
+			chainOf.set(ids.get(start.getEdge()), part);
+			toVisit.push(start);
+
+			while (!toVisit.isEmpty())
+			{
+				Road road = toVisit.pop();
+				part.add(road);
+
+				for (Node node : new Node[] { road.getEdge().getX(), road.getEdge().getY() })
+				{
+					if (isBlocked(node, road.getPlayerColour())) continue;
+
+					for (Edge e : node.getEdges())
+					{
+						Integer id = ids.get(e);
+						if (id == null || chainOf.get(id) != chain) continue;
+
+						chainOf.set(id, part);
+						toVisit.push(roads.get(id));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Searches every trail through the chain which starts at one of its
+	 * nodes, stopping early if one uses every road
+	 */
+	private int findLongest(RoadChain chain)
+	{
+		boolean[] used = new boolean[roads.size()];
+		int bound = chain.roads.size(), longest = 0;
+
+		for (Road road : chain.roads)
+		{
+			Colour colour = road.getPlayerColour();
+			longest = Math.max(longest, findLongest(road.getEdge().getX(), colour, chain, used, 0, bound));
+			longest = Math.max(longest, findLongest(road.getEdge().getY(), colour, chain, used, 0, bound));
+			if (longest == bound) break;
+		}
+		return longest;
+	}
+
+	/**
+	 * @return the length of the longest trail which carries on from the node
+	 *         without reusing a road
+	 */
+	private int findLongest(Node node, Colour colour, RoadChain chain, boolean[] used, int length, int bound)
+	{
+		// A trail can end at a foreign settlement, but not pass through it
+		if (length > 0 && isBlocked(node, colour)) return length;
+
+		int longest = length;
+		for (Edge e : node.getEdges())
+		{
+			Integer id = ids.get(e);
+			if (id == null || used[id] || chainOf.get(id) != chain) continue;
+
+			Node next = e.getX().equals(node) ? e.getY() : e.getX();
+			used[id] = true;
+			longest = Math.max(longest, findLongest(next, colour, chain, used, length + 1, bound));
+			used[id] = false;
+			if (longest == bound) break;
+		}
+		return longest;
+	}
+
+	private static boolean isBlocked(Node node, Colour colour)
+	{
+		Building b = node.getBuilding();
+		return b != null && !b.getPlayerColour().equals(colour);
+	}
+}
@@ -5,16 +5,19 @@ import enums.DevelopmentCardType;
 import enums.ResourceType;
 import exceptions.*;
 import game.Bank;
+import game.SnapshotIO;
+import game.build.Building;
 import game.build.City;
 import game.build.Road;
 import game.build.Settlement;
 import grid.Edge;
+import grid.HexGrid;
 import grid.Node;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * Class representing a player from across the network
@@ -41,7 +44,6 @@ public class ServerPlayer extends Player
 	public int buildRoad(Edge edge, Bank bank)
 			throws CannotAffordException, CannotBuildRoadException, RoadExistsException
 	{
-		List<Integer> listsAddedTo = new ArrayList<>();
 		Road r = new Road(edge, colour);
 
 		// Road already here. Cannot build
@@ -51,27 +53,14 @@ public class ServerPlayer extends Player
 		// afford it
 		if (canBuildRoad(edge, bank))
 		{
-			if (getRoads().size() >= 2 && expectedRoads == 0) spendResources(r.getCost(), bank);
+			if (roads.size() >= 2 && expectedRoads == 0) spendResources(Road.COST, bank);
 			if (expectedRoads > 0) expectedRoads--;
 			edge.setRoad(r);
-
-			// Find out where this road is connected
-			checkRoadsAndAdd(r, listsAddedTo);
-
-			// If not connected to any other roads
-			if (listsAddedTo.size() == 0)
-			{
-				List<Road> newList = new ArrayList<>();
-				newList.add(r);
-				roads.add(newList);
-			}
-
-			// merge lists if necessary
-			else if (listsAddedTo.size() >= 1) mergeRoads(r, listsAddedTo);
+			roads.add(r);
 		}
-		else if (!canAfford(Road.getRoadCost()))
+		else if (!canAfford(Road.COST))
 		{
-			throw new CannotAffordException(resources, Road.getRoadCost());
+			throw new CannotAffordException(resources, Road.COST);
 		}
 		else
 			throw new CannotBuildRoadException(r);
@@ -95,14 +84,14 @@ public class ServerPlayer extends Player
 		// If valid placement, attempt to spend the required resources
 		if (canBuildSettlement(node, bank))
 		{
-			if (settlements.size() >= 2) spendResources(s.getCost(), bank);
+			if (settlements.size() >= 2) spendResources(Settlement.COST, bank);
 			if (settlements.size() == 1) settlementForInitialResources = s;
 			addSettlement(s);
 		}
 
-		else if (!canAfford(Settlement.getSettlementCost()))
+		else if (!canAfford(Settlement.COST))
 		{
-			throw new CannotAffordException(resources, Settlement.getSettlementCost());
+			throw new CannotAffordException(resources, Settlement.COST);
 		}
 
 		// Check if empty
@@ -125,12 +114,30 @@ public class ServerPlayer extends Player
 	public DevelopmentCardType buyDevelopmentCard(Bank bank) throws CannotAffordException, BankLimitException
 	{
 		// Try to buy a development card
-		spendResources(DevelopmentCardType.getCardCost(), bank);
+		spendResources(DevelopmentCardType.CARD_COST, bank);
 		DevelopmentCardType card = DevelopmentCardType.chooseRandom(bank);
 		addDevelopmentCard(DevelopmentCardType.toProto(card));
 		return card;
 	}
 
+	/**
+	 * Attempts to purchase a development card for this player, drawing it with
+	 * the given source of randomness
+	 *
+	 * @param bank the bank to buy from
+	 * @param random the source of the draw
+	 * @return the bought development card
+	 * @throws CannotAffordException
+	 */
+	public DevelopmentCardType buyDevelopmentCard(Bank bank, Random random)
+			throws CannotAffordException, BankLimitException
+	{
+		spendResources(DevelopmentCardType.CARD_COST, bank);
+		DevelopmentCardType card = DevelopmentCardType.chooseRandom(bank, random);
+		addDevelopmentCard(DevelopmentCardType.toProto(card));
+		return card;
+	}
+
 	/**
 	 * Attempts to purchase a development card for this player
 	 * 
@@ -141,7 +148,7 @@ public class ServerPlayer extends Player
 	public DevelopmentCardType buyDevelopmentCard(DevelopmentCardType card, Bank bank) throws CannotAffordException
 	{
 		// Try to buy a development card
-		spendResources(DevelopmentCardType.getCardCost(), bank);
+		spendResources(DevelopmentCardType.CARD_COST, bank);
 		bank.getAvailableDevCards().put(card, bank.getAvailableDevCards().get(card) - 1);
 		addDevelopmentCard(DevelopmentCardType.toProto(card));
 
@@ -181,7 +188,7 @@ public class ServerPlayer extends Player
 		{
 			// Otherwise build city
 			City c = new City(node, colour);
-			spendResources(c.getCost(), bank);
+			spendResources(City.COST, bank);
 			addSettlement(c);
 		}
 		else if (node.getBuilding() == null)
@@ -189,7 +196,7 @@ public class ServerPlayer extends Player
 			throw new CannotUpgradeException(node.getX(), node.getY());
 		}
 		else if (!canAfford(
-				City.getCityCost())) { throw new CannotAffordException(getResources(), City.getCityCost()); }
+				City.COST)) { throw new CannotAffordException(getResources(), City.COST); }
 	}
 
 	/**
@@ -224,4 +231,46 @@ public class ServerPlayer extends Player
 	{
 		return settlementForInitialResources;
 	}
+
+	@Override
+	public void writeTo(ByteBuffer buf)
+	{
+		super.writeTo(buf);
+
+		Node node = settlementForInitialResources == null ? null : settlementForInitialResources.getNode();
+		buf.put((byte) (node == null ? 0 : 1));
+		if (node != null)
+		{
+			buf.put((byte) node.getX()).put((byte) node.getY());
+		}
+	}
+
+	@Override
+	protected void readFrom(ByteBuffer buf, HexGrid grid)
+	{
+		super.readFrom(buf, grid);
+
+		if (buf.get() == 1)
+		{
+			int x = buf.get(), y = buf.get();
+			Node node = grid.getNode(x, y);
+			Building b = node.getBuilding();
+			settlementForInitialResources = b instanceof Settlement ? (Settlement) b : new Settlement(node, colour);
+		}
+	}
+
+	/**
+	 * Restores a player written into a game snapshot
+	 *
+	 * @param buf the buffer to read from
+	 * @param grid the restored board
+	 * @return the player, with their buildings and roads placed on the board
+	 */
+	public static ServerPlayer restore(ByteBuffer buf, HexGrid grid)
+	{
+		Colour colour = SnapshotIO.readEnum(buf, Colour.values());
+		ServerPlayer player = new ServerPlayer(colour, SnapshotIO.readString(buf));
+		player.readFrom(buf, grid);
+		return player;
+	}
 }
\ No newline at end of file
@@ -7,5 +7,8 @@ package grid;
  */
 public interface BoardElement
 {
-
+	/**
+	 * @return the id the board's topology gives this element
+	 */
+	int getId();
 }
@@ -0,0 +1,23 @@
+package grid;
+
+/**
+ * Told whenever something is built on, or taken off, a board
+ *
+ * @author 140001596
+ */
+public interface BoardListener
+{
+	/**
+	 * Called when the building on a node changes
+	 *
+	 * @param node the id of the node
+	 */
+	void buildingChanged(int node);
+
+	/**
+	 * Called when the road on an edge changes
+	 *
+	 * @param edge the id of the edge
+	 */
+	void roadChanged(int edge);
+}
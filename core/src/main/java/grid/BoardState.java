@@ -0,0 +1,327 @@
+package grid;
+
+import enums.Colour;
+import enums.ResourceType;
+import game.build.Building;
+import game.build.City;
+import game.build.Road;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What is on one game's board, kept as small arrays indexed by the ids of a
+ * shared {@link BoardTopology}: each hex's resource and chit, where the robber
+ * is, and who has built on each node and edge.
+ *
+ * Who has built where is also kept as bit masks over the node and edge ids,
+ * one for each colour and one for everyone, so that the placement rules are
+ * a few bitwise operations against the topology's masks.
+ *
+ * A hex's resource, chit and robber are only kept here. The board's nodes
+ * and edges write through to this whenever they change, so it always agrees
+ * with them. It also keeps, for each player, how far every node is from the
+ * nearest node they have built a road or building on. Building only ever
+ * brings nodes closer, so this is updated from the topology's distances
+ * rather than searched for again.
+ *
+ * @author 140001596
+ */
+public final class BoardState
+{
+	public static final int NOTHING_OWNED = Byte.MAX_VALUE;
+	private static final Colour[] COLOURS = Colour.values();
+	private static final ResourceType[] RESOURCES = ResourceType.values();
+	private static final int CITY = 0x10, OWNER = 0x0F;
+	private final BoardTopology topology;
+	private final byte[] resources, chits; // By hex
+	private final byte[] buildings; // By node, the owner's colour + 1, and whether it is a city
+	private final byte[] roads; // By edge, the owner's colour + 1
+	private final byte[][] reach; // By colour, then node
+	private final long[] buildingMasks; // By colour
+	private final long[] roadMasks; // EDGE_WORDS for each colour
+	private long allBuildings;
+	private final long[] allRoads;
+	private int robber;
+	private final List<BoardListener> listeners;
+
+	BoardState(BoardTopology topology)
+	{
+		this.topology = topology;
+		resources = new byte[topology.getNumHexes()];
+		chits = new byte[topology.getNumHexes()];
+		buildings = new byte[topology.getNumNodes()];
+		roads = new byte[topology.getNumEdges()];
+		reach = new byte[COLOURS.length][topology.getNumNodes()];
+		robber = BoardTopology.NONE;
+		listeners = new ArrayList<>(1);
+		buildingMasks = new long[COLOURS.length];
+		roadMasks = new long[COLOURS.length * BoardTopology.EDGE_WORDS];
+		allRoads = new long[BoardTopology.EDGE_WORDS];
+		for (byte[] distances : reach)
+		{
+			Arrays.fill(distances, (byte) NOTHING_OWNED);
+		}
+	}
+
+	/**
+	 * @return the shape of the board the ids refer to
+	 */
+	public BoardTopology getTopology()
+	{
+		return topology;
+	}
+
+	/**
+	 * @param hex the id of a hex
+	 * @return the resource it produces
+	 */
+	public ResourceType getResource(int hex)
+	{
+		return RESOURCES[resources[hex]];
+	}
+
+	/**
+	 * @param hex the id of a hex
+	 * @return its chit
+	 */
+	public int getChit(int hex)
+	{
+		return chits[hex];
+	}
+
+	/**
+	 * @return the id of the hex with the robber, or NONE
+	 */
+	public int getRobber()
+	{
+		return robber;
+	}
+
+	/**
+	 * @param node the id of a node
+	 * @return the colour of the player who has built there, or null
+	 */
+	public Colour getBuildingOwner(int node)
+	{
+		int b = buildings[node] & OWNER;
+		return b == 0 ? null : COLOURS[b - 1];
+	}
+
+	/**
+	 * @param node the id of a node
+	 * @return whether there is a city there
+	 */
+	public boolean isCity(int node)
+	{
+		return (buildings[node] & CITY) != 0;
+	}
+
+	/**
+	 * @param edge the id of an edge
+	 * @return the colour of the player whose road is there, or null
+	 */
+	public Colour getRoadOwner(int edge)
+	{
+		return roads[edge] == 0 ? null : COLOURS[roads[edge] - 1];
+	}
+
+	/**
+	 * @param colour a player's colour
+	 * @param node the id of a node
+	 * @return the fewest edges between the node and one the player has built
+	 *         a road or building on, or NOTHING_OWNED
+	 */
+	public int getDistanceToOwned(Colour colour, int node)
+	{
+		return reach[colour.ordinal()][node];
+	}
+
+	/**
+	 * @param colour a player's colour
+	 * @param edge the id of an edge
+	 * @return the fewest edges between either end of the edge and a node the
+	 *         player has built a road or building on, or NOTHING_OWNED
+	 */
+	public int getEdgeDistanceToOwned(Colour colour, int edge)
+	{
+		int[] ends = topology.getEdgeNodes(edge);
+		return Math.min(getDistanceToOwned(colour, ends[0]), getDistanceToOwned(colour, ends[1]));
+	}
+
+	/**
+	 * @param node the id of a node
+	 * @return whether there is a building on any node one edge away
+	 */
+	public boolean isNearBuilding(int node)
+	{
+		return (allBuildings & topology.getNodeNeighbours(node)) != 0;
+	}
+
+	/**
+	 * @param colour a player's colour
+	 * @param node the id of a node
+	 * @return whether the player has a road on any edge which meets it
+	 */
+	public boolean isNearRoad(Colour colour, int node)
+	{
+		int base = colour.ordinal() * BoardTopology.EDGE_WORDS;
+		for (int w = 0; w < BoardTopology.EDGE_WORDS; w++)
+		{
+			if ((roadMasks[base + w] & topology.getNodeEdgeMask(node, w)) != 0) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param edge the id of an edge
+	 * @return whether anyone has a road on the edge or on one which meets it
+	 */
+	public boolean touchesRoad(int edge)
+	{
+		int[] ends = topology.getEdgeNodes(edge);
+		for (int w = 0; w < BoardTopology.EDGE_WORDS; w++)
+		{
+			long around = topology.getNodeEdgeMask(ends[0], w) | topology.getNodeEdgeMask(ends[1], w);
+			if ((allRoads[w] & around) != 0) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param colour a player's colour
+	 * @param edge the id of an edge
+	 * @return whether one of the player's roads meets the edge at a node
+	 *         without someone else's building on it
+	 */
+	public boolean isConnected(Colour colour, int edge)
+	{
+		for (int node : topology.getEdgeNodes(edge))
+		{
+			if (!isBlocked(colour, node) && isNearRoad(colour, node)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param colour a player's colour
+	 * @param node the id of a node
+	 * @return whether someone else has a building on the node
+	 */
+	public boolean isBlocked(Colour colour, int node)
+	{
+		return ((allBuildings & ~buildingMasks[colour.ordinal()]) >>> node & 1) != 0;
+	}
+
+	/**
+	 * @param listener a listener to tell about changes to buildings and roads
+	 */
+	public void addListener(BoardListener listener)
+	{
+		listeners.add(listener);
+	}
+
+	/**
+	 * @param listener the listener to stop telling about changes
+	 */
+	public void removeListener(BoardListener listener)
+	{
+		listeners.remove(listener);
+	}
+
+	void setResource(int hex, ResourceType resource)
+	{
+		resources[hex] = (byte) resource.ordinal();
+	}
+
+	void setChit(int hex, int chit)
+	{
+		chits[hex] = (byte) chit;
+	}
+
+	void setRobber(int hex, boolean hasRobber)
+	{
+		if (hasRobber)
+			robber = hex;
+		else if (robber == hex) robber = BoardTopology.NONE;
+	}
+
+	void setBuilding(int node, Building building)
+	{
+		int old = buildings[node] & OWNER;
+		int b = building == null ? 0 : building.getPlayerColour().ordinal() + 1;
+		buildings[node] = (byte) (building instanceof City ? b | CITY : b);
+		if (old != 0) buildingMasks[old - 1] &= ~(1L << node);
+		if (b != 0) buildingMasks[b - 1] |= 1L << node;
+		allBuildings = b != 0 ? allBuildings | 1L << node : allBuildings & ~(1L << node);
+
+		if (old != 0 && old != b) measure(old - 1);
+		if (b != 0) bringCloser(b - 1, node);
+		for (int i = 0; i < listeners.size(); i++)
+		{
+			listeners.get(i).buildingChanged(node);
+		}
+	}
+
+	void setRoad(int edge, Road road)
+	{
+		int old = roads[edge];
+		roads[edge] = (byte) (road == null ? 0 : road.getPlayerColour().ordinal() + 1);
+		int w = edge / Long.SIZE;
+		long bit = 1L << (edge % Long.SIZE);
+		if (old != 0) roadMasks[(old - 1) * BoardTopology.EDGE_WORDS + w] &= ~bit;
+		if (road != null) roadMasks[(roads[edge] - 1) * BoardTopology.EDGE_WORDS + w] |= bit;
+		allRoads[w] = road != null ? allRoads[w] | bit : allRoads[w] & ~bit;
+
+		if (old != 0 && old != roads[edge]) measure(old - 1);
+		if (road != null)
+		{
+			for (int node : topology.getEdgeNodes(edge))
+			{
+				bringCloser(roads[edge] - 1, node);
+			}
+		}
+		for (int i = 0; i < listeners.size(); i++)
+		{
+			listeners.get(i).roadChanged(edge);
+		}
+	}
+
+	/**
+	 * Brings every node at least as close to the player as the given node
+	 */
+	private void bringCloser(int colour, int node)
+	{
+		byte[] distances = reach[colour];
+		if (distances[node] == 0) return;
+
+		for (int n = 0; n < distances.length; n++)
+		{
+			int d = topology.getNodeDistance(node, n);
+			if (d < distances[n]) distances[n] = (byte) d;
+		}
+	}
+
+	/**
+	 * Works out a player's distances again from scratch, when they have lost
+	 * something they had built
+	 */
+	private void measure(int colour)
+	{
+		Arrays.fill(reach[colour], (byte) NOTHING_OWNED);
+		for (int n = 0; n < buildings.length; n++)
+		{
+			if ((buildings[n] & OWNER) == colour + 1) bringCloser(colour, n);
+		}
+		for (int e = 0; e < roads.length; e++)
+		{
+			if (roads[e] != colour + 1) continue;
+
+			for (int node : topology.getEdgeNodes(e))
+			{
+				bringCloser(colour, node);
+			}
+		}
+	}
+}
@@ -0,0 +1,428 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * The shape of the board: which coordinates hold hexes and which hold nodes,
+ * and which of them are next to one another. Hexes, nodes and edges are each
+ * given a dense id, in order of their coordinates, so that finding an element
+ * from its coordinates or finding its neighbours is an array lookup rather
+ * than hashing a newly made point.
+ *
+ * Each node's neighbouring nodes, and the edges which meet at it, are also
+ * kept as bit masks over the ids, so that {@link BoardState} can check the
+ * rules about what may be built next to what with a few bitwise operations.
+ * A node mask fits in one long, and an edge mask takes EDGE_WORDS longs.
+ *
+ * The shortest distance between every pair of nodes, and every pair of edges,
+ * is worked out up front, so asking for one is a lookup rather than a walk
+ * across the board.
+ *
+ * Nothing here depends on what is on the board, and nothing changes once it
+ * is built. The arrays handed out must not be changed either.
+ *
+ * @author 140001596
+ */
+public final class BoardTopology
+{
+	public static final int NONE = -1;
+	public static final int EDGE_WORDS = 2;
+	private static final int[][] OFFSETS = { { -1, -1 }, { -1, 0 }, { 0, -1 }, { 0, 1 }, { 1, 0 }, { 1, 1 } };
+	private final int size, width;
+	private final int[] hexAt, nodeAt; // Ids by cell
+	private final int[] hexX, hexY, nodeX, nodeY;
+	private final int[][] nodeEdges, nodeHexes, hexNodes, edgeNodes;
+	private final byte[] nodeDistances, edgeDistances; // Row by row, one row per id
+	private final long[] nodeNeighbours; // By node
+	private final long[] nodeEdgeMasks; // EDGE_WORDS for each node
+
+	/**
+	 * @param size the largest coordinate, either way, on the board
+	 */
+	BoardTopology(int size)
+	{
+		this.size = size;
+		width = 2 * size + 1;
+		hexAt = new int[width * width];
+		nodeAt = new int[width * width];
+		Arrays.fill(hexAt, NONE);
+		Arrays.fill(nodeAt, NONE);
+
+		// Number the hexes and nodes column by column
+		int[] hx = new int[hexAt.length], hy = new int[hexAt.length];
+		int[] nx = new int[nodeAt.length], ny = new int[nodeAt.length];
+		int numHexes = 0, numNodes = 0;
+		for (int x = -size; x <= size; x++)
+		{
+			for (int y = -size; y <= size; y++)
+			{
+				if (!inBoundries(x, y)) continue;
+
+				if (isHex(x, y))
+				{
+					hx[numHexes] = x;
+					hy[numHexes] = y;
+					hexAt[cell(x, y)] = numHexes++;
+				}
+				else
+				{
+					nx[numNodes] = x;
+					ny[numNodes] = y;
+					nodeAt[cell(x, y)] = numNodes++;
+				}
+			}
+		}
+		hexX = Arrays.copyOf(hx, numHexes);
+		hexY = Arrays.copyOf(hy, numHexes);
+		nodeX = Arrays.copyOf(nx, numNodes);
+		nodeY = Arrays.copyOf(ny, numNodes);
+
+		nodeEdges = new int[numNodes][];
+		nodeHexes = new int[numNodes][];
+		hexNodes = new int[numHexes][];
+		edgeNodes = link(numNodes);
+		if (numNodes > Long.SIZE || edgeNodes.length > EDGE_WORDS * Long.SIZE)
+		{
+			throw new IllegalArgumentException(String.format("A board of size %d is too big for its masks", size));
+		}
+
+		nodeNeighbours = new long[numNodes];
+		nodeEdgeMasks = new long[numNodes * EDGE_WORDS];
+		for (int n = 0; n < numNodes; n++)
+		{
+			for (int e : nodeEdges[n])
+			{
+				int other = edgeNodes[e][0] == n ? edgeNodes[e][1] : edgeNodes[e][0];
+				nodeNeighbours[n] |= 1L << other;
+				nodeEdgeMasks[n * EDGE_WORDS + e / Long.SIZE] |= 1L << (e % Long.SIZE);
+			}
+		}
+		nodeDistances = measureNodes();
+		edgeDistances = measureEdges();
+	}
+
+	/**
+	 * Finds each node's neighbours, making an edge the first time a pair of
+	 * nodes is seen. An edge's first node is the one with the lower sum of
+	 * coordinates, and each node's edges and hexes are listed in the order of
+	 * the offsets to their neighbours.
+	 *
+	 * @return the nodes of each edge
+	 */
+	private int[][] link(int numNodes)
+	{
+		int[][] ends = new int[numNodes * 3][];
+		int[] edgeCount = new int[numNodes], hexCount = new int[hexX.length];
+		int numEdges = 0;
+
+		for (int n = 0; n < numNodes; n++)
+		{
+			nodeEdges[n] = new int[3];
+			nodeHexes[n] = new int[3];
+		}
+		for (int h = 0; h < hexX.length; h++)
+		{
+			hexNodes[h] = new int[OFFSETS.length];
+		}
+
+		for (int n = 0; n < numNodes; n++)
+		{
+			int hexes = 0;
+			for (int[] offset : OFFSETS)
+			{
+				int x = nodeX[n] + offset[0], y = nodeY[n] + offset[1];
+				int other = nodeAt(x, y), hex = hexAt(x, y);
+
+				if (hex != NONE)
+				{
+					nodeHexes[n][hexes++] = hex;
+					hexNodes[hex][hexCount[hex]++] = n;
+				}
+				else if (other > n)
+				{
+					boolean first = nodeX[n] + nodeY[n] < x + y;
+					ends[numEdges] = first ? new int[] { n, other } : new int[] { other, n };
+					nodeEdges[n][edgeCount[n]++] = numEdges++;
+				}
+				else if (other != NONE)
+				{
+					// Made when the other node was linked
+					for (int i = 0; i < edgeCount[other]; i++)
+					{
+						int e = nodeEdges[other][i];
+						if (ends[e][0] == n || ends[e][1] == n) nodeEdges[n][edgeCount[n]++] = e;
+					}
+				}
+			}
+			nodeHexes[n] = Arrays.copyOf(nodeHexes[n], hexes);
+		}
+
+		for (int n = 0; n < numNodes; n++)
+		{
+			nodeEdges[n] = Arrays.copyOf(nodeEdges[n], edgeCount[n]);
+		}
+		for (int h = 0; h < hexX.length; h++)
+		{
+			hexNodes[h] = Arrays.copyOf(hexNodes[h], hexCount[h]);
+		}
+		return Arrays.copyOf(ends, numEdges);
+	}
+
+	/**
+	 * Searches outwards from every node in turn
+	 *
+	 * @return the number of edges along the shortest path between each pair
+	 *         of nodes
+	 */
+	private byte[] measureNodes()
+	{
+		int numNodes = nodeX.length;
+		byte[] distances = new byte[numNodes * numNodes];
+		int[] queue = new int[numNodes];
+
+		for (int source = 0; source < numNodes; source++)
+		{
+			int row = source * numNodes, head = 0, tail = 0;
+			Arrays.fill(distances, row, row + numNodes, (byte) NONE);
+			distances[row + source] = 0;
+			queue[tail++] = source;
+
+			while (head < tail)
+			{
+				int n = queue[head++];
+				for (int e : nodeEdges[n])
+				{
+					int next = edgeNodes[e][0] == n ? edgeNodes[e][1] : edgeNodes[e][0];
+					if (distances[row + next] != NONE) continue;
+
+					distances[row + next] = (byte) (distances[row + n] + 1);
+					queue[tail++] = next;
+				}
+			}
+		}
+		return distances;
+	}
+
+	/**
+	 * @return the fewest edges which must be crossed to get from each edge to
+	 *         each other, which is zero if they meet
+	 */
+	private byte[] measureEdges()
+	{
+		int numEdges = edgeNodes.length;
+		byte[] distances = new byte[numEdges * numEdges];
+
+		for (int a = 0; a < numEdges; a++)
+		{
+			for (int b = 0; b < numEdges; b++)
+			{
+				int shortest = Integer.MAX_VALUE;
+				for (int from : edgeNodes[a])
+				{
+					for (int to : edgeNodes[b])
+					{
+						shortest = Math.min(shortest, getNodeDistance(from, to));
+					}
+				}
+				distances[a * numEdges + b] = (byte) shortest;
+			}
+		}
+		return distances;
+	}
+
+	/**
+	 * @return the number of hexes
+	 */
+	public int getNumHexes()
+	{
+		return hexX.length;
+	}
+
+	/**
+	 * @return the number of nodes
+	 */
+	public int getNumNodes()
+	{
+		return nodeX.length;
+	}
+
+	/**
+	 * @return the number of edges
+	 */
+	public int getNumEdges()
+	{
+		return edgeNodes.length;
+	}
+
+	/**
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @return the id of the hex at the coordinates, or NONE
+	 */
+	public int hexAt(int x, int y)
+	{
+		return onGrid(x, y) ? hexAt[cell(x, y)] : NONE;
+	}
+
+	/**
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @return the id of the node at the coordinates, or NONE
+	 */
+	public int nodeAt(int x, int y)
+	{
+		return onGrid(x, y) ? nodeAt[cell(x, y)] : NONE;
+	}
+
+	/**
+	 * @param a the id of one node
+	 * @param b the id of the other
+	 * @return the id of the edge between them, or NONE if they are not
+	 *         neighbours
+	 */
+	public int edgeBetween(int a, int b)
+	{
+		for (int e : nodeEdges[a])
+		{
+			if (edgeNodes[e][0] == b || edgeNodes[e][1] == b) return e;
+		}
+		return NONE;
+	}
+
+	/**
+	 * @param node the id of a node
+	 * @return a mask of the ids of the nodes one edge away
+	 */
+	public long getNodeNeighbours(int node)
+	{
+		return nodeNeighbours[node];
+	}
+
+	/**
+	 * @param node the id of a node
+	 * @param word which EDGE_WORDS long of the mask
+	 * @return that part of the mask of the ids of the edges which meet at it
+	 */
+	public long getNodeEdgeMask(int node, int word)
+	{
+		return nodeEdgeMasks[node * EDGE_WORDS + word];
+	}
+
+	/**
+	 * @param a the id of one node
+	 * @param b the id of the other
+	 * @return the number of edges along the shortest path between them
+	 */
+	public int getNodeDistance(int a, int b)
+	{
+		return nodeDistances[a * nodeX.length + b];
+	}
+
+	/**
+	 * @param a the id of one edge
+	 * @param b the id of the other
+	 * @return the fewest edges which must be crossed to get from one to the
+	 *         other, which is zero if they meet
+	 */
+	public int getEdgeDistance(int a, int b)
+	{
+		return edgeDistances[a * edgeNodes.length + b];
+	}
+
+	/**
+	 * @param hex the id of a hex
+	 * @return its x coordinate
+	 */
+	public int getHexX(int hex)
+	{
+		return hexX[hex];
+	}
+
+	/**
+	 * @param hex the id of a hex
+	 * @return its y coordinate
+	 */
+	public int getHexY(int hex)
+	{
+		return hexY[hex];
+	}
+
+	/**
+	 * @param node the id of a node
+	 * @return its x coordinate
+	 */
+	public int getNodeX(int node)
+	{
+		return nodeX[node];
+	}
+
+	/**
+	 * @param node the id of a node
+	 * @return its y coordinate
+	 */
+	public int getNodeY(int node)
+	{
+		return nodeY[node];
+	}
+
+	/**
+	 * @param node the id of a node
+	 * @return the ids of the two or three edges which meet at it
+	 */
+	public int[] getNodeEdges(int node)
+	{
+		return nodeEdges[node];
+	}
+
+	/**
+	 * @param node the id of a node
+	 * @return the ids of the one to three hexes it touches
+	 */
+	public int[] getNodeHexes(int node)
+	{
+		return nodeHexes[node];
+	}
+
+	/**
+	 * @param hex the id of a hex
+	 * @return the ids of the six nodes around it
+	 */
+	public int[] getHexNodes(int hex)
+	{
+		return hexNodes[hex];
+	}
+
+	/**
+	 * @param edge the id of an edge
+	 * @return the ids of its two nodes, the one with the lower sum of
+	 *         coordinates first
+	 */
+	public int[] getEdgeNodes(int edge)
+	{
+		return edgeNodes[edge];
+	}
+
+	private int cell(int x, int y)
+	{
+		return (x + size) * width + y + size;
+	}
+
+	private boolean onGrid(int x, int y)
+	{
+		return Math.abs(x) <= size && Math.abs(y) <= size;
+	}
+
+	/**
+	 * Condition for whether or not the coordinate is a hex. Every other
+	 * coordinate inside the boundaries is a node.
+	 */
+	private static boolean isHex(int x, int y)
+	{
+		return Math.abs(x + y) % 3 == 0 || x + y == 0;
+	}
+
+	private static boolean inBoundries(int x, int y)
+	{
+		return y - 2 * x <= 8 && 2 * y - x <= 8 && x + y <= 8 && y - 2 * x >= -8 && 2 * y - x >= -8 && x + y >= -8;
+	}
+}
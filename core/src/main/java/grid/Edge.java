@@ -1,6 +1,8 @@
 package grid;
 
 import com.badlogic.gdx.math.Vector3;
+import enums.Colour;
+import game.build.Building;
 import game.build.Road;
 import intergroup.board.Board;
 
@@ -15,6 +17,8 @@ public class Edge implements BoardElement
 {
 	private Node x, y; // way of uniquely describing an edge
 	private Road road;
+	private int id = BoardTopology.NONE;
+	private BoardState state;
 
 	Edge(Node x, Node y)
 	{
@@ -30,6 +34,9 @@ public class Edge implements BoardElement
 	 */
 	public int distance(Edge other)
 	{
+		// Edges on the same board can look it up
+		if (state != null && state == other.state) return state.getTopology().getEdgeDistance(id, other.id) + 1;
+
 		Node goal = null, start = null;
 		Node otherX = other.getX();
 		Node otherY = other.getY();
@@ -226,6 +233,73 @@ public class Edge implements BoardElement
 		this.y = y;
 	}
 
+	/**
+	 * @return the id the board's topology gives this edge
+	 */
+	@Override
+	public int getId()
+	{
+		return id;
+	}
+
+	/**
+	 * @return whether anyone has a road on this edge or one which meets it
+	 */
+	public boolean touchesRoad()
+	{
+		if (state != null) return state.touchesRoad(id);
+
+		for (Node node : new Node[] { x, y })
+		{
+			for (Edge e : node.getEdges())
+			{
+				if (e.getRoad() != null) return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param colour a player's colour
+	 * @return whether one of the player's roads meets this edge at a node
+	 *         without someone else's building on it
+	 */
+	public boolean isConnected(Colour colour)
+	{
+		if (state != null) return state.isConnected(colour, id);
+
+		for (Node node : new Node[] { x, y })
+		{
+			Building b = node.getBuilding();
+			if ((b == null || b.getPlayerColour().equals(colour)) && node.isNearRoad(colour)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Places this edge on a board, so that roads built on it are written
+	 * through to the board's state
+	 *
+	 * @param id the id the board's topology gives this edge
+	 * @param state the board's state
+	 */
+	void attach(int id, BoardState state)
+	{
+		this.id = id;
+		this.state = state;
+		if (state != null) state.setRoad(id, road);
+	}
+
+	/**
+	 * Places this edge where the other was
+	 *
+	 * @param other the edge this one is replacing
+	 */
+	void replace(Edge other)
+	{
+		attach(other.id, other.state);
+	}
+
 	/**
 	 * @return the road
 	 */
@@ -240,6 +314,7 @@ public class Edge implements BoardElement
 	public void setRoad(Road road)
 	{
 		this.road = road;
+		if (state != null) state.setRoad(id, road);
 	}
 
 	/**
@@ -6,6 +6,8 @@ import com.badlogic.gdx.math.Vector3;
 public abstract class GridElement implements BoardElement
 {
 	private int x, y; // coordinates
+	private int id = BoardTopology.NONE;
+	BoardState state; // The board this element writes through to, once it is on one
 
 	GridElement(int x, int y)
 	{
@@ -45,6 +47,28 @@ public abstract class GridElement implements BoardElement
 		this.y = y;
 	}
 
+	/**
+	 * @return the id the board's topology gives this element
+	 */
+	@Override
+	public int getId()
+	{
+		return id;
+	}
+
+	/**
+	 * Places this element on a board, so that its changes are written through
+	 * to the board's state
+	 *
+	 * @param id the id the board's topology gives this element
+	 * @param state the board's state
+	 */
+	void attach(int id, BoardState state)
+	{
+		this.id = id;
+		this.state = state;
+	}
+
 	public Vector2 get2DPos()
 	{
 		return new Vector2((float) x, (float) ((2 * (float) y - (float) x) / Math.sqrt(3)));
@@ -1,8 +1,8 @@
 package grid;
 
 import intergroup.board.Board;
+import enums.Colour;
 import enums.ResourceType;
-import intergroup.terrain.Terrain;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,17 +14,22 @@ import java.util.List;
  */
 public class Hex extends GridElement
 {
-	private Terrain.Kind terrain;
-	private ResourceType resource;
-	private int diceRoll;
-	private boolean hasRobber;
 	private final List<Node> nodes;
+	private final int[] yields;
 
-	public Hex(int x, int y)
+	/**
+	 * Makes a hex on a board, which keeps its resource, chit and robber
+	 *
+	 * @param id the id the board's topology gives the hex
+	 * @param state the board's state
+	 */
+	Hex(int x, int y, int id, BoardState state)
 	{
 		super(x, y);
-		resource = ResourceType.Generic;
 		nodes = new ArrayList<>();
+		yields = new int[Colour.values().length];
+		attach(id, state);
+		setResource(ResourceType.Generic);
 	}
 
 	/**
@@ -32,7 +37,7 @@ public class Hex extends GridElement
 	 */
 	public ResourceType getResource()
 	{
-		return resource;
+		return state.getResource(getId());
 	}
 
 	/**
@@ -40,8 +45,7 @@ public class Hex extends GridElement
 	 */
 	public void setResource(ResourceType resource)
 	{
-		this.resource = resource;
-		terrain = ResourceType.getTerrainFromResource(resource);
+		state.setResource(getId(), resource);
 	}
 
 	/**
@@ -49,7 +53,7 @@ public class Hex extends GridElement
 	 */
 	public int getChit()
 	{
-		return diceRoll;
+		return state.getChit(getId());
 	}
 
 	/**
@@ -57,17 +61,17 @@ public class Hex extends GridElement
 	 */
 	public void setDiceRoll(int diceRoll)
 	{
-		this.diceRoll = diceRoll;
+		state.setChit(getId(), diceRoll);
 	}
 
 	public boolean hasRobber()
 	{
-		return hasRobber;
+		return state.getRobber() == getId();
 	}
 
 	public void toggleRobber()
 	{
-		hasRobber = !hasRobber;
+		state.setRobber(getId(), !hasRobber());
 	}
 
 	public List<Node> getNodes()
@@ -80,6 +84,28 @@ public class Hex extends GridElement
 		nodes.add(node);
 	}
 
+	/**
+	 * @param colour a player's colour
+	 * @return how many of this hex's resource the player's buildings around it
+	 *         collect when its chit is rolled, leaving aside the robber
+	 */
+	public int getYield(Colour colour)
+	{
+		return yields[colour.ordinal()];
+	}
+
+	/**
+	 * Updates the yield of a player when one of their buildings around this
+	 * hex is placed or replaced
+	 *
+	 * @param colour the player's colour
+	 * @param amount the change in how much they collect
+	 */
+	void addYield(Colour colour, int amount)
+	{
+		yields[colour.ordinal()] += amount;
+	}
+
 	/**
 	 * @return a version of this object compatible with protobufs.
 	 */
@@ -91,33 +117,13 @@ public class Hex extends GridElement
 		coords.setY(getY());
 
 		Board.Hex.Builder hexBuilder = Board.Hex.newBuilder();
-		hexBuilder.setNumberToken(diceRoll);
-		hexBuilder.setTerrain(terrain);
+		hexBuilder.setNumberToken(getChit());
+		hexBuilder.setTerrain(ResourceType.getTerrainFromResource(getResource()));
 		hexBuilder.setLocation(coords.build());
 
 		return hexBuilder.build();
 	}
 
-	/**
-	 * Converts the hex proto back into an internal, usable representation
-	 * 
-	 * @param h the protobuf hex
-	 */
-	public static Hex fromProto(Board.Hex h)
-	{
-		// Extract information and set up object
-		Board.Point p = h.getLocation();
-		int x = p.getX(), y = p.getY();
-		Hex hex = new Hex(x, y);
-
-		// Set remaining fields
-		hex.setDiceRoll(h.getNumberToken());
-		hex.terrain = h.getTerrain();
-		hex.setResource(ResourceType.getResourceFromTerrain(hex.terrain));
-
-		return hex;
-	}
-
 	@Override
 	public boolean equals(Object o)
 	{
@@ -126,7 +132,7 @@ public class Hex extends GridElement
 		Hex h = (Hex) o;
 
 		// Ensure properties are the same
-		if (!(h.hasRobber == hasRobber)) { return false; }
+		if (!(h.hasRobber() == hasRobber())) { return false; }
 		if (!(h.getChit() == getChit())) { return false; }
 		if (!(h.getResource() == getResource())) { return false; }
 
@@ -142,6 +148,6 @@ public class Hex extends GridElement
 
 	public void toggleHasRobber()
 	{
-		hasRobber = !hasRobber;
+		toggleRobber();
 	}
 }
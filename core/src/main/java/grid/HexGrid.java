@@ -2,11 +2,12 @@ package grid;
 
 import intergroup.board.Board;
 import enums.ResourceType;
+import game.SnapshotIO;
 
 import java.awt.*;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.List;
-import java.util.stream.Stream;
 
 /**
  * Class describing the hex board
@@ -19,8 +20,16 @@ public class HexGrid
 	public final List<Edge> edges; // All edges
 	public List<Port> ports; // All ports
 	public final Hashtable<Point, Node> nodes; // All nodes
+	private final List<List<Hex>> hexesByChit;
+	private final BoardTopology topology;
+	private final BoardState state;
+	private final Hex[] hexesById;
+	private final Node[] nodesById;
+	private final Edge[] edgesById;
 	private Hex hexWithRobber;
 	private static final int SIZE_OF_GRID = 5;
+	private static final int MAX_CHIT = 12;
+	private static final BoardTopology TOPOLOGY = new BoardTopology(SIZE_OF_GRID); // Shared by every board
 
 	public HexGrid(boolean b)
 	{
@@ -29,6 +38,12 @@ public class HexGrid
 
 		edges = new ArrayList<>();
 		ports = new ArrayList<>();
+		hexesByChit = new ArrayList<>();
+		topology = TOPOLOGY;
+		state = new BoardState(topology);
+		hexesById = new Hex[topology.getNumHexes()];
+		nodesById = new Node[topology.getNumNodes()];
+		edgesById = new Edge[topology.getNumEdges()];
 
 		if (b) initGrid();
 	}
@@ -41,70 +56,66 @@ public class HexGrid
 		Map<Integer, Integer> chitsAvailable = getChitsAvailable();
 		Map<ResourceType, Integer> resourcesAvailable = getResourcesAvailable();
 
-		// for each column
-		for (int x = -SIZE_OF_GRID; x <= SIZE_OF_GRID; x++)
+		for (int h = 0; h < hexesById.length; h++)
 		{
-			// for each row
-			for (int y = -SIZE_OF_GRID; y <= SIZE_OF_GRID; y++)
-			{
-				// If in boundaries
-				if (inBoundries(x, y))
-				{
+			Hex hex = addHex(topology.getHexX(h), topology.getHexY(h));
 
-					// Condition for whether or not the coordinate is a hex.
-					if (Math.abs(x + y) % 3 == 0 || x + y == 0) // TODO make
-																// more generic.
-																// NO magic
-																// number
-					{
-						Hex hex = new Hex(x, y);
-
-						allocateResource(hex, chitsAvailable, resourcesAvailable);
-						grid.put(new Point(x, y), hex);
-					}
-
-					// Condition for whether or not the coordinate is a node
-					else
-						nodes.put(new Point(x, y), new Node(x, y));
-				}
-			}
+			allocateResource(hex, chitsAvailable, resourcesAvailable);
 		}
+		addNodes();
 		setUpReferences();
 		makePorts();
 	}
 
 	/**
-	 * Finds all 3 neighbouring hexes and the two neighbouring nodes to this
-	 * node.
-	 * 
-	 * This is used for initially setting up the board and all the different
-	 * object's coorelations with one another.
-	 * 
-	 * @param node the node
-	 * @return a list of neighbouring elements
+	 * Makes a hex at the coordinates, if they are ones the board has room for
+	 *
+	 * @return the hex, or null if there is no room for it
 	 */
-	private List<GridElement> getNeighbours(Node node)
+	private Hex addHex(int x, int y)
 	{
-		List<GridElement> neighbours = new LinkedList<>();
+		int id = topology.hexAt(x, y);
+		if (id == BoardTopology.NONE) return null;
 
-		// Find all 6 neighbours
-		for (int i = -1; i <= 1; i++)
-		{
-			for (int j = -1; j <= 1; j++)
-			{
-				if (i == 0 && j == 0) continue;
-				if (i == -1 && j == 1) continue;
-				if (i == 1 && j == -1) continue;
+		Hex hex = new Hex(x, y, id, state);
+		grid.put(new Point(x, y), hex);
+		hexesById[id] = hex;
+		return hex;
+	}
 
-				Point p = new Point(node.getX() + i, node.getY() + j);
+	/**
+	 * Makes a hex with the given resource and chit, and puts the robber on
+	 * it if it is a desert
+	 */
+	private void placeHex(int x, int y, ResourceType resource, int chit)
+	{
+		Hex h = addHex(x, y);
+		if (h == null) return;
 
-				if (nodes.containsKey(p)) neighbours.add(nodes.get(p));
+		h.setResource(resource);
+		h.setDiceRoll(chit);
 
-				if (grid.containsKey(p)) neighbours.add(grid.get(p));
-			}
+		// Set default robber
+		if (resource.equals(ResourceType.Generic)
+				&& (hexWithRobber == null || hexWithRobber.getResource().equals(ResourceType.Generic)))
+		{
+			h.toggleHasRobber();
+			hexWithRobber = h;
 		}
+	}
 
-		return neighbours;
+	/**
+	 * Makes a node at every coordinate the topology has one
+	 */
+	private void addNodes()
+	{
+		for (int n = 0; n < nodesById.length; n++)
+		{
+			Node node = new Node(topology.getNodeX(n), topology.getNodeY(n));
+			node.attach(n, state);
+			nodesById[n] = node;
+			nodes.put(new Point(node.getX(), node.getY()), node);
+		}
 	}
 
 	/**
@@ -113,42 +124,64 @@ public class HexGrid
 	 */
 	private void setUpReferences()
 	{
-		// for each node
+		// Wired up in the same order the nodes are looked through elsewhere,
+		// so each node lists its edges and hexes as it always has
 		for (Node node : nodes.values())
 		{
-			List<Hex> adjacentHexes = new LinkedList<>();
-			List<GridElement> neighbours = getNeighbours(node);
-
-			// Create both edges AND find the adjacent hexes
-			for (GridElement neighbour : neighbours)
+			for (int e : topology.getNodeEdges(node.getId()))
 			{
-				// If neighbour is a node, create an edge
-				if (neighbour instanceof Node)
-				{
-					Edge e = Edge.makeEdge(node, (Node) neighbour, edges);
-					if (e != null)
-					{
-						e.getX().addEdge(e);
-						e.getY().addEdge(e);
-					}
-				}
+				if (edgesById[e] != null) continue;
 
-				// Otherwise add to this node's list of adjacent hexes.
-				// Although inefficient just now, it will make future algorithms
-				// a lot simpler.
-				else
-				{
-					adjacentHexes.add((Hex) neighbour);
-				}
+				int[] ends = topology.getEdgeNodes(e);
+				Edge edge = new Edge(nodesById[ends[0]], nodesById[ends[1]]);
+				edge.attach(e, state);
+				edgesById[e] = edge;
+				edges.add(edge);
+
+				edge.getX().addEdge(edge);
+				edge.getY().addEdge(edge);
 			}
 
-			node.setAdjacentHexes(adjacentHexes);
-			for (Hex hex : adjacentHexes)
+			List<Hex> adjacentHexes = new ArrayList<>(3);
+			for (int h : topology.getNodeHexes(node.getId()))
 			{
+				Hex hex = hexesById[h];
+				if (hex == null) continue;
+
+				adjacentHexes.add(hex);
 				hex.addNode(node);
 			}
+			node.setAdjacentHexes(adjacentHexes);
 		}
 
+		indexChits();
+	}
+
+	/**
+	 * Groups the hexes by their chit, so that a dice roll only looks at the
+	 * hexes which produce
+	 */
+	private void indexChits()
+	{
+		hexesByChit.clear();
+		for (int chit = 0; chit <= MAX_CHIT; chit++)
+		{
+			hexesByChit.add(new ArrayList<>(2));
+		}
+
+		for (Hex hex : grid.values())
+		{
+			if (hex.getChit() > 0 && hex.getChit() <= MAX_CHIT) hexesByChit.get(hex.getChit()).add(hex);
+		}
+	}
+
+	/**
+	 * @param chit the dice roll
+	 * @return the hexes with the given chit
+	 */
+	public List<Hex> getHexesWithChit(int chit)
+	{
+		return chit > 0 && chit < hexesByChit.size() ? hexesByChit.get(chit) : Collections.emptyList();
 	}
 
 	/**
@@ -168,6 +201,10 @@ public class HexGrid
 		portLocations.add(getEdge(new Point(-4, 0), new Point(-3, 1)));
 
 		ports = Port.makePorts(edges, portLocations);
+		for (Port port : ports)
+		{
+			edgesById[port.getId()] = port;
+		}
 	}
 
 	/**
@@ -292,8 +329,8 @@ public class HexGrid
 	 */
 	public Hex getHex(int x, int y)
 	{
-		Point p = new Point(x, y);
-		return grid.getOrDefault(p, null);
+		int id = topology.hexAt(x, y);
+		return id == BoardTopology.NONE ? null : hexesById[id];
 	}
 
 	/**
@@ -305,8 +342,52 @@ public class HexGrid
 	 */
 	public Node getNode(int x, int y)
 	{
-		Point p = new Point(x, y);
-		return nodes.getOrDefault(p, null);
+		int id = topology.nodeAt(x, y);
+		return id == BoardTopology.NONE ? null : nodesById[id];
+	}
+
+	/**
+	 * @return the shape of this board, which gives every hex, node and edge
+	 *         its id
+	 */
+	public BoardTopology getTopology()
+	{
+		return topology;
+	}
+
+	/**
+	 * @return what is on this board, by the ids of its topology
+	 */
+	public BoardState getState()
+	{
+		return state;
+	}
+
+	/**
+	 * @param id the id of a hex
+	 * @return the hex
+	 */
+	public Hex getHexById(int id)
+	{
+		return hexesById[id];
+	}
+
+	/**
+	 * @param id the id of a node
+	 * @return the node
+	 */
+	public Node getNodeById(int id)
+	{
+		return nodesById[id];
+	}
+
+	/**
+	 * @param id the id of an edge
+	 * @return the edge, or the port which replaced it
+	 */
+	public Edge getEdgeById(int id)
+	{
+		return edgesById[id];
 	}
 
 	/**
@@ -363,11 +444,7 @@ public class HexGrid
 	 */
 	public Edge getEdge(Board.Point p1, Board.Point p2)
 	{
-		// Find nodes and edges
-		Node n1 = getNode(p1.getX(), p1.getY());
-		Node n2 = getNode(p2.getX(), p2.getY());
-
-		return n1.findEdge(n2);
+		return getEdge(p1.getX(), p1.getY(), p2.getX(), p2.getY());
 	}
 
 	/**
@@ -379,46 +456,39 @@ public class HexGrid
 	 */
 	private Edge getEdge(Point p1, Point p2)
 	{
-		// Find nodes and edges
-		Node n1 = getNode((int) p1.getX(), (int) p1.getY());
-		Node n2 = getNode((int) p2.getX(), (int) p2.getY());
-
-		return n1.findEdge(n2);
+		return getEdge(p1.x, p1.y, p2.x, p2.y);
 	}
 
-	public void setNodesAndHexes(List<Hex> hexes)
+	/**
+	 * Finds the edge between the nodes at the two coordinates
+	 *
+	 * @return the edge, or null if there is no edge between them
+	 */
+	private Edge getEdge(int x1, int y1, int x2, int y2)
 	{
-		// Add hexes
-		for (Hex h : hexes)
-		{
-			this.grid.put(new Point(h.getX(), h.getY()), h);
+		int n1 = topology.nodeAt(x1, y1), n2 = topology.nodeAt(x2, y2);
+		if (n1 == BoardTopology.NONE || n2 == BoardTopology.NONE) return null;
 
-			// Set default robber
-			if (h.getResource().equals(ResourceType.Generic)
-					&& (hexWithRobber == null || hexWithRobber.getResource().equals(ResourceType.Generic)))
-			{
-				h.toggleHasRobber();
-				hexWithRobber = h;
-			}
-		}
+		int e = topology.edgeBetween(n1, n2);
+		return e == BoardTopology.NONE ? null : edgesById[e];
+	}
 
-		// for each column
-		for (int x = -SIZE_OF_GRID; x <= SIZE_OF_GRID; x++)
+	/**
+	 * Lays out the board's hexes from their protos, and makes its nodes and
+	 * edges around them
+	 *
+	 * @param hexes the protobuf hexes
+	 */
+	public void setNodesAndHexes(List<Board.Hex> hexes)
+	{
+		// Add hexes
+		for (Board.Hex h : hexes)
 		{
-			// for each row
-			for (int y = -SIZE_OF_GRID; y <= SIZE_OF_GRID; y++)
-			{
-				if (inBoundries(x, y))
-				{
-					// Condition for whether or not the coordinate is a node.
-					if (Math.abs(x + y) % 3 != 0 && x + y != 0)
-					{
-						nodes.put(new Point(x, y), new Node(x, y));
-					}
-				}
-			}
+			Board.Point p = h.getLocation();
+			placeHex(p.getX(), p.getY(), ResourceType.getResourceFromTerrain(h.getTerrain()), h.getNumberToken());
 		}
 
+		addNodes();
 		setUpReferences();
 	}
 
@@ -453,6 +523,8 @@ public class HexGrid
 			{
 				if (e.equals(p))
 				{
+					p.replace(e);
+					edgesById[e.getId()] = p;
 					e.getX().removeEdge(e);
 					e.getY().removeEdge(e);
 					edges.remove(e);
@@ -467,9 +539,75 @@ public class HexGrid
 
 	}
 
-	private boolean inBoundries(int x, int y)
+	/**
+	 * Writes the board into a game snapshot: each hex's resource and chit, the
+	 * robber's location and each port's location and exchange. Everything
+	 * else follows from those. Hexes are written in order of their
+	 * coordinates, so that the same board is always written the same way.
+	 *
+	 * @param buf the buffer to write to
+	 */
+	public void writeTo(ByteBuffer buf)
 	{
-		Boolean terms[] = { y - 2 * x <= 8, 2 * y - x <= 8, x + y <= 8, y - 2 * x >= -8, 2 * y - x >= -8, x + y >= -8 };
-		return Stream.of(terms).reduce(true, (a, b) -> a && b);
+		List<Hex> hexes = getHexesAsList();
+		hexes.sort(Comparator.comparingInt(Hex::getX).thenComparingInt(Hex::getY));
+
+		buf.put((byte) hexes.size());
+		for (Hex hex : hexes)
+		{
+			buf.put((byte) hex.getX()).put((byte) hex.getY());
+			SnapshotIO.writeEnum(buf, hex.getResource());
+			buf.put((byte) hex.getChit());
+		}
+		buf.put((byte) hexWithRobber.getX()).put((byte) hexWithRobber.getY());
+
+		buf.put((byte) ports.size());
+		for (Port port : ports)
+		{
+			buf.put((byte) port.getX().getX()).put((byte) port.getX().getY());
+			buf.put((byte) port.getY().getX()).put((byte) port.getY().getY());
+			SnapshotIO.writeEnum(buf, port.getExchangeType());
+		}
+	}
+
+	/**
+	 * Rebuilds a board written by {@link #writeTo(ByteBuffer)}
+	 *
+	 * @param buf the buffer to read from
+	 * @return the board, without any buildings or roads
+	 */
+	public static HexGrid readFrom(ByteBuffer buf)
+	{
+		HexGrid board = new HexGrid(false);
+
+		int numHexes = buf.get();
+		for (int i = 0; i < numHexes; i++)
+		{
+			int x = buf.get(), y = buf.get();
+			board.placeHex(x, y, SnapshotIO.readEnum(buf, ResourceType.values()), buf.get());
+		}
+		board.addNodes();
+		board.setUpReferences();
+
+		// The robber starts on the desert, so may need moving
+		int robberX = buf.get(), robberY = buf.get();
+		Hex robber = board.getHex(robberX, robberY);
+		if (robber != board.hexWithRobber)
+		{
+			board.swapRobbers(robber);
+		}
+
+		int numPorts = buf.get();
+		List<Port> ports = new ArrayList<>(numPorts);
+		for (int i = 0; i < numPorts; i++)
+		{
+			int x1 = buf.get(), y1 = buf.get(), x2 = buf.get(), y2 = buf.get();
+			Port port = new Port(board.getNode(x1, y1), board.getNode(x2, y2));
+			port.setExchangeType(SnapshotIO.readEnum(buf, ResourceType.values()));
+			ports.add(port);
+		}
+		board.setPorts(ports);
+
+		return board;
 	}
 }
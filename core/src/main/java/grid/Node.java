@@ -5,6 +5,7 @@ import enums.Colour;
 import game.build.Building;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -134,7 +135,22 @@ public class Node extends GridElement
 	 */
 	public void setBuilding(Building building)
 	{
+		// Keep the adjacent hexes' yields up to date, so a dice roll need not
+		// look for the buildings around them
+		for (Hex hex : hexes != null ? hexes : Collections.<Hex> emptyList())
+		{
+			if (this.building != null) hex.addYield(this.building.getPlayerColour(), -this.building.getYield());
+			if (building != null) hex.addYield(building.getPlayerColour(), building.getYield());
+		}
 		this.building = building;
+		if (state != null) state.setBuilding(getId(), building);
+	}
+
+	@Override
+	void attach(int id, BoardState state)
+	{
+		super.attach(id, state);
+		state.setBuilding(id, building);
 	}
 
 	/**
@@ -144,6 +160,19 @@ public class Node extends GridElement
 	 */
 	public Edge findEdge(Node n2)
 	{
+		// On the same board, the topology knows which edge it is
+		if (state != null && n2.state == state)
+		{
+			int id = state.getTopology().edgeBetween(getId(), n2.getId());
+			if (id == BoardTopology.NONE) return null;
+
+			for (Edge e : edges)
+			{
+				if (e.getId() == id) return e;
+			}
+			return null;
+		}
+
 		for (Edge e : edges)
 		{
 			if (e.getX().equals(n2) || e.getY().equals(n2)) return e;
@@ -167,12 +196,30 @@ public class Node extends GridElement
 		return coords.build();
 	}
 
+	/**
+	 * @return whether there is a building at the other end of any of this
+	 *         node's edges
+	 */
+	public boolean isNearBuilding()
+	{
+		if (state != null) return state.isNearBuilding(getId());
+
+		for (Edge e : edges)
+		{
+			Node other = e.getX().equals(this) ? e.getY() : e.getX();
+			if (other.getBuilding() != null) return true;
+		}
+		return false;
+	}
+
 	/**
 	 * @return if one of the adjacent edges has a road
 	 * @param colour
 	 */
 	public boolean isNearRoad(Colour colour)
 	{
+		if (state != null) return state.isNearRoad(colour, getId());
+
 		for (Edge e : edges)
 		{
 			if (e.getRoad() != null && e.getRoad().getPlayerColour().equals(colour)) return true;
@@ -67,6 +67,7 @@ public class Port extends Edge
 			Port p = makePort(e.getX(), e.getY(), availablePorts);
 			if (p != null)
 			{
+				p.replace(e);
 				e.getX().removeEdge(e);
 				e.getY().removeEdge(e);
 				edges.remove(e);
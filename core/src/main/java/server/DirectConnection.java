@@ -0,0 +1,66 @@
+package server;
+
+import connection.IClientConnection;
+import connection.IServerConnection;
+import enums.Colour;
+import intergroup.Messages;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Both ends of a connection between a room and a player stepped on the room's
+ * own thread. Messages to the player wait in a plain queue until it is next
+ * stepped, and its moves go straight into the room's queue of moves, so
+ * nothing is encoded, copied between threads or waited on, and there is
+ * nothing for the room to poll.
+ *
+ * @author 140001596
+ */
+class DirectConnection implements IClientConnection, IServerConnection
+{
+	private final Server server;
+	private final Colour colour;
+	private final Queue<Messages.Message> toClient;
+
+	DirectConnection(Server server, Colour colour)
+	{
+		this.server = server;
+		this.colour = colour;
+		toClient = new ArrayDeque<>();
+	}
+
+	@Override
+	public void sendMessageToClient(Messages.Message message)
+	{
+		toClient.add(message);
+	}
+
+	/**
+	 * @return the next message for the player, or null if there are none
+	 */
+	@Override
+	public Messages.Message getMessageFromServer()
+	{
+		return toClient.poll();
+	}
+
+	@Override
+	public void sendMessageToServer(Messages.Message message)
+	{
+		server.addMessageToProcess(new ReceivedMessage(colour, message));
+	}
+
+	/**
+	 * Messages are never held back in either direction
+	 */
+	@Override
+	public void flush()
+	{}
+
+	@Override
+	public void shutDown()
+	{
+		toClient.clear();
+	}
+}
@@ -0,0 +1,112 @@
+package server;
+
+import connection.MessageFrame;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The recent events sent to one player's seat, kept so that a client which
+ * loses its connection can resume its session and be sent only the events it
+ * missed. Events are numbered by their position in the seat's stream, and the
+ * most recent ones are kept in a ring buffer of shared frames.
+ *
+ * @author 140001596
+ */
+class EventLog
+{
+	private static final SecureRandom RANDOM = new SecureRandom();
+	static final int DEFAULT_CAPACITY = Integer.getInteger("catan.resume.buffer", 512);
+	private final String token;
+	private final MessageFrame[] ring;
+	private long sequence, first;
+
+	EventLog()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity the number of events to keep
+	 */
+	EventLog(int capacity)
+	{
+		this(new BigInteger(128, RANDOM).toString(36), capacity);
+	}
+
+	/**
+	 * Restores a session which was granted before the server restarted
+	 *
+	 * @param token the session's token
+	 */
+	EventLog(String token)
+	{
+		this(token, DEFAULT_CAPACITY);
+	}
+
+	private EventLog(String token, int capacity)
+	{
+		this.token = token;
+		ring = new MessageFrame[capacity];
+	}
+
+	/**
+	 * Appends an event sent to this seat
+	 *
+	 * @param frame the frame carrying the event
+	 */
+	synchronized void record(MessageFrame frame)
+	{
+		ring[(int) (sequence % ring.length)] = frame;
+		sequence++;
+	}
+
+	/**
+	 * Retrieves the events a client missed
+	 *
+	 * @param seen the number of events the client has applied
+	 * @return the events after those, oldest first, or null if some of them
+	 *         are no longer kept
+	 */
+	synchronized List<MessageFrame> since(long seen)
+	{
+		if (seen < first || seen > sequence || sequence - seen > ring.length) return null;
+
+		List<MessageFrame> missed = new ArrayList<>((int) (sequence - seen));
+		for (long i = seen; i < sequence; i++)
+		{
+			missed.add(ring[(int) (i % ring.length)]);
+		}
+		return missed;
+	}
+
+	/**
+	 * Carries on the log from where it was when a checkpoint was taken. None
+	 * of the events before then are kept.
+	 *
+	 * @param sequence the number of events the seat had been sent
+	 */
+	synchronized void restart(long sequence)
+	{
+		this.sequence = sequence;
+		first = sequence;
+	}
+
+	/**
+	 * @return the number of events sent to this seat so far
+	 */
+	synchronized long getSequence()
+	{
+		return sequence;
+	}
+
+	/**
+	 * @return the secret which a client presents to resume this seat
+	 */
+	String getToken()
+	{
+		return token;
+	}
+}
@@ -0,0 +1,323 @@
+package server;
+
+import com.badlogic.gdx.Gdx;
+import connection.ConnectionListener;
+import connection.ConnectionSelector;
+import connection.NioClientConnection;
+import intergroup.Events;
+import intergroup.Messages.Message;
+import intergroup.Requests;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hosts many independent games in a single process. Connections are accepted
+ * on one port and routed to a game room by the game id carried in their join
+ * lobby request. Each room is a {@link Server} running its own game loop on its
+ * own thread, while all sockets are serviced by a small, fixed pool of
+ * {@link ConnectionSelector} I/O threads. If the catan.journal.dir property
+ * names a directory, each room keeps a {@link Journal} there, and rooms whose
+ * games were cut short by the process dying are rebuilt when the host starts.
+ *
+ * No more than catan.host.rooms rooms are open at once, and a room which has
+ * not filled catan.host.idle milliseconds after it opened is closed, so that
+ * join requests for made-up games cannot use up the host's threads.
+ *
+ * @author 140001596
+ */
+public class GameHost implements Runnable, ConnectionListener
+{
+	private final Map<Integer, Server> rooms;
+	private final int port;
+	private final ConnectionSelector[] selectors;
+	private ServerSocketChannel serverSocket;
+	private volatile boolean active;
+	private final int maxRooms;
+	private final long idle;
+	private static final int PORT = 7000;
+	private static final int MAX_ROOMS = Integer.getInteger("catan.host.rooms", 1000);
+	private static final long ROOM_IDLE = Long.getLong("catan.host.idle", 300000);
+
+	public GameHost(int port)
+	{
+		this(port, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+	}
+
+	/**
+	 * @param port the port to accept connections on
+	 * @param ioThreads the number of I/O threads to spread the sockets over
+	 */
+	public GameHost(int port, int ioThreads)
+	{
+		this(port, ioThreads, MAX_ROOMS, ROOM_IDLE);
+	}
+
+	/**
+	 * @param port the port to accept connections on
+	 * @param ioThreads the number of I/O threads to spread the sockets over
+	 * @param maxRooms the most rooms open at once
+	 * @param idle how long a room may wait to fill before it is closed, in
+	 *            milliseconds
+	 */
+	GameHost(int port, int ioThreads, int maxRooms, long idle)
+	{
+		this.port = port;
+		this.maxRooms = maxRooms;
+		this.idle = idle;
+		rooms = new HashMap<>();
+		selectors = new ConnectionSelector[ioThreads];
+	}
+
+	public GameHost()
+	{
+		this(PORT);
+	}
+
+	@Override
+	public void run()
+	{
+		active = true;
+		try
+		{
+			for (int i = 0; i < selectors.length; i++)
+			{
+				selectors[i] = new ConnectionSelector();
+				new Thread(selectors[i], String.format("I/O %d", i)).start();
+			}
+			recoverRooms();
+
+			serverSocket = ServerSocketChannel.open();
+			serverSocket.bind(new InetSocketAddress(port));
+			log("Host Setup", String.format("Host started on port %d with %d I/O threads. Waiting for clients...",
+					port, selectors.length));
+
+			// Spread sockets over the I/O threads. The host listens to each one
+			// until its join request says which room it belongs to
+			for (int next = 0; active; next = (next + 1) % selectors.length)
+			{
+				SocketChannel socket = serverSocket.accept();
+				NioClientConnection conn = selectors[next].wrap(socket);
+				conn.setListener(this);
+				selectors[next].register(conn);
+			}
+		}
+		catch (IOException e)
+		{
+			if (active)
+			{
+				e.printStackTrace();
+				log("Host Setup", "Error accepting connections");
+			}
+		}
+
+		shutDown();
+	}
+
+	public static void main(String[] args)
+	{
+		GameHost host = new GameHost(args.length > 0 ? Integer.parseInt(args[0]) : PORT);
+		new Thread(host).start();
+	}
+
+	/**
+	 * Receives the first message from a new connection, which must be a join
+	 * lobby request, and routes the connection to the room named by its game
+	 * id, creating the room if needed. The room then becomes the connection's
+	 * listener. A returning player presents their session token instead, to
+	 * take back their seat.
+	 *
+	 * @param conn the newly accepted connection
+	 * @param msg the first message it sent
+	 */
+	@Override
+	public void messageReceived(NioClientConnection conn, Message msg)
+	{
+		// The first message must say which game to join
+		if (!msg.getTypeCase().equals(Message.TypeCase.REQUEST)
+				|| !msg.getRequest().getBodyCase().equals(Requests.Request.BodyCase.JOINLOBBY))
+		{
+			reject(conn, "Expected a join lobby request.");
+			return;
+		}
+
+		// Only a new player may open a room
+		int gameId = msg.getRequest().getJoinLobby().getGameId();
+		Server room = getRoom(gameId, msg.getRequest().getJoinLobby().getSessionToken().isEmpty());
+		if (room == null || !room.addConnection(conn, msg))
+		{
+			reject(conn, String.format("Game %d is full, the host has no room for it, or the session has expired.",
+					gameId));
+		}
+	}
+
+	@Override
+	public void connectionClosed(NioClientConnection conn)
+	{
+		// Nothing to clean up before the connection has joined a room
+	}
+
+	/**
+	 * Sends an error to the given connection and closes it
+	 *
+	 * @param conn the connection to reject
+	 * @param reason the description to send
+	 */
+	private void reject(NioClientConnection conn, String reason)
+	{
+		try
+		{
+			conn.sendMessageToClient(Message.newBuilder().setEvent(Events.Event.newBuilder()
+					.setError(Events.Event.Error.newBuilder().setDescription(reason).build()).build()).build());
+		}
+		catch (Exception ignored)
+		{}
+		conn.shutDownWhenFlushed();
+	}
+
+	/**
+	 * Retrieves the room with the given id, optionally starting a new one if
+	 * there is no such room yet and the host has room for it. A new room is
+	 * closed if it has not filled once the idle time has passed.
+	 *
+	 * @param gameId the room's id
+	 * @param create whether to start the room if needed
+	 * @return the room, or null if there is none
+	 */
+	synchronized Server getRoom(int gameId, boolean create)
+	{
+		Server room = rooms.get(gameId);
+		if (room != null || !create) return room;
+
+		if (rooms.size() >= maxRooms)
+		{
+			log("Host Setup", String.format("Refused to open room %d. Rooms: %d", gameId, rooms.size()));
+			return null;
+		}
+
+		Server opened = new Server(this, gameId);
+		rooms.put(gameId, opened);
+		new Thread(opened, String.format("Room %d", gameId)).start();
+		opened.getClock().schedule(() -> closeIfUnfilled(gameId, opened), idle);
+		log("Host Setup", String.format("Opened room %d. Rooms: %d", gameId, rooms.size()));
+
+		return opened;
+	}
+
+	/**
+	 * Closes a room which is still waiting for players. It removes itself once
+	 * its thread has finished.
+	 *
+	 * @param gameId the room's id
+	 * @param room the room
+	 */
+	private void closeIfUnfilled(int gameId, Server room)
+	{
+		if (room.terminateIfUnfilled())
+		{
+			log("Host Shutdown", String.format("Closing room %d, which did not fill in time", gameId));
+		}
+	}
+
+	/**
+	 * Rebuilds the rooms which left journals behind, so that their players can
+	 * resume their seats
+	 */
+	private void recoverRooms()
+	{
+		for (int gameId : Journal.findJournals())
+		{
+			try
+			{
+				Server room = Server.recover(this, gameId);
+				synchronized (this)
+				{
+					rooms.put(gameId, room);
+				}
+				new Thread(room, String.format("Room %d", gameId)).start();
+				log("Host Setup", String.format("Recovered room %d from its journal", gameId));
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+				log("Host Setup", String.format("Could not recover room %d", gameId));
+			}
+		}
+	}
+
+	/**
+	 * Removes a room once its game is over, so that its id can be reused
+	 *
+	 * @param gameId the room's id
+	 * @param room the room which finished
+	 */
+	synchronized void roomFinished(int gameId, Server room)
+	{
+		if (rooms.get(gameId) == room)
+		{
+			rooms.remove(gameId);
+			log("Host Shutdown", String.format("Closed room %d. Rooms: %d", gameId, rooms.size()));
+		}
+	}
+
+	/**
+	 * Stops accepting connections and terminates every room
+	 */
+	public void shutDown()
+	{
+		active = false;
+		try
+		{
+			if (serverSocket != null) serverSocket.close();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+		for (ConnectionSelector selector : selectors)
+		{
+			if (selector != null) selector.shutDown();
+		}
+
+		// Copy, as finishing rooms remove themselves from the map
+		List<Server> open;
+		synchronized (this)
+		{
+			open = new ArrayList<>(rooms.values());
+		}
+		for (Server room : open)
+		{
+			room.terminate();
+		}
+	}
+
+	/**
+	 * @return the number of rooms currently open
+	 */
+	public synchronized int getNumRooms()
+	{
+		return rooms.size();
+	}
+
+	/**
+	 * Logs the message
+	 *
+	 * @param tag the tag (for Gdx)
+	 * @param msg the msg to log
+	 */
+	public void log(String tag, String msg)
+	{
+		if (Gdx.app == null)
+		{
+			System.out.println(tag + ": " + msg);
+		}
+		else
+			Gdx.app.log(tag, msg);
+	}
+}
@@ -0,0 +1,69 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A compact binary snapshot of everything a room's game needs to carry on from
+ * where it was taken: the board, the bank, the players and their hands, and
+ * the moves the server expects next. Each part writes its own fields straight
+ * into the buffer, so nothing is built up in between, and restoring reads them
+ * back in the same order.
+ *
+ * A snapshot starts with a magic number and a format version, so that one
+ * written in an older format is refused rather than misread.
+ *
+ * @author 140001596
+ */
+class GameSnapshot
+{
+	static final int MAGIC = 0x43415441; // "CATA"
+	static final short VERSION = 1;
+	static final int MAX_SIZE = 16 * 1024;
+
+	private GameSnapshot()
+	{}
+
+	/**
+	 * Writes the game and the state of its message processor into the buffer,
+	 * from its current position
+	 *
+	 * @param game the game
+	 * @param msgProc the game's message processor
+	 * @param buf the buffer to write to, with at least {@link #MAX_SIZE} bytes
+	 *            remaining
+	 */
+	static void write(ServerGame game, MessageProcessor msgProc, ByteBuffer buf)
+	{
+		buf.putInt(MAGIC).putShort(VERSION);
+		game.writeTo(buf);
+		msgProc.writeTo(buf);
+	}
+
+	/**
+	 * Replaces the game and the state of its message processor with a snapshot
+	 *
+	 * @param buf the buffer to read from, positioned at the snapshot
+	 * @param game the game to restore into
+	 * @param msgProc the game's message processor
+	 * @throws IOException if the buffer does not hold a snapshot this version
+	 *             can read
+	 */
+	static void read(ByteBuffer buf, ServerGame game, MessageProcessor msgProc) throws IOException
+	{
+		if (buf.remaining() < 6 || buf.getInt() != MAGIC) throw new IOException("Not a game snapshot");
+
+		short version = buf.getShort();
+		if (version != VERSION) throw new IOException(String.format("Unsupported snapshot version %d", version));
+
+		try
+		{
+			game.readFrom(buf);
+			msgProc.readFrom(buf);
+		}
+		catch (RuntimeException e)
+		{
+			throw new IOException("Corrupt game snapshot", e);
+		}
+	}
+}
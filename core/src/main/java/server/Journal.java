@@ -0,0 +1,365 @@
+package server;
+
+import com.google.protobuf.CodedOutputStream;
+import enums.Colour;
+import intergroup.Messages.Message;
+import intergroup.lobby.Lobby;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only, memory-mapped journal of everything a room needs to rebuild
+ * its game after the process dies: the board, the sessions granted to seats,
+ * and every move processed along with the random draws it made. Every so often
+ * a checkpoint of the whole game is written too, so that rebuilding it only
+ * means replaying the moves made since. Appending only
+ * copies the record into the mapped file, so it never waits on the disk.
+ * Records reach the file when the process exits, even abnormally, and a
+ * background thread forces them to the disk in groups every few milliseconds
+ * so that they also survive the machine going down.
+ *
+ * Each record is its length and a CRC32 checksum followed by its payload. A
+ * zero length marks the end, and reading stops at the first record which does
+ * not check out, as it was torn by a crash while being written.
+ *
+ * @author 140001596
+ */
+class Journal implements Runnable
+{
+	static final String DIRECTORY = System.getProperty("catan.journal.dir");
+	private static final int CHUNK = Integer.getInteger("catan.journal.chunk", 1 << 20);
+	private static final long INTERVAL = Long.getLong("catan.journal.interval", 20);
+	private static final Pattern NAME = Pattern.compile("room-(\\d+)\\.journal");
+	private static final int HEADER = 8;
+	private final File file;
+	private final FileChannel channel;
+	private final Queue<MappedByteBuffer> retired;
+	private final CRC32 crc;
+	private final Thread flusher;
+	private volatile MappedByteBuffer buffer;
+	private volatile boolean dirty, open;
+	private long base;
+
+	/**
+	 * Opens the journal, reading back the records it already holds
+	 *
+	 * @param file the journal's file
+	 * @param entries the list to add the existing records to
+	 * @throws IOException
+	 */
+	private Journal(File file, List<JournalEntry> entries) throws IOException
+	{
+		this.file = file;
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE);
+		retired = new ConcurrentLinkedQueue<>();
+		crc = new CRC32();
+
+		base = read(entries);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, base, CHUNK);
+		open = true;
+
+		flusher = new Thread(this, String.format("Journal %s", file.getName()));
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/**
+	 * Starts a new, empty journal for the given room, replacing any old one
+	 *
+	 * @param gameId the room's id
+	 * @return the journal
+	 * @throws IOException
+	 */
+	static Journal create(int gameId) throws IOException
+	{
+		return create(getFile(gameId));
+	}
+
+	/**
+	 * Starts a new, empty journal in the given file, replacing any old one
+	 *
+	 * @param file the journal's file
+	 * @return the journal
+	 * @throws IOException
+	 */
+	static Journal create(File file) throws IOException
+	{
+		Files.deleteIfExists(file.toPath());
+		return new Journal(file, new ArrayList<>());
+	}
+
+	/**
+	 * Opens the given room's existing journal so that more records can be
+	 * appended after those already in it
+	 *
+	 * @param gameId the room's id
+	 * @param entries the list to add the existing records to
+	 * @return the journal
+	 * @throws IOException
+	 */
+	static Journal open(int gameId, List<JournalEntry> entries) throws IOException
+	{
+		return open(getFile(gameId), entries);
+	}
+
+	/**
+	 * Opens the journal in the given file so that more records can be appended
+	 * after those already in it
+	 *
+	 * @param file the journal's file
+	 * @param entries the list to add the existing records to
+	 * @return the journal
+	 * @throws IOException
+	 */
+	static Journal open(File file, List<JournalEntry> entries) throws IOException
+	{
+		return new Journal(file, entries);
+	}
+
+	/**
+	 * @return the ids of the rooms which left journals behind, or none if
+	 *         journalling is off
+	 */
+	static List<Integer> findJournals()
+	{
+		List<Integer> ids = new ArrayList<>();
+		File[] files = DIRECTORY == null ? null : new File(DIRECTORY).listFiles();
+		if (files == null) return ids;
+
+		for (File f : files)
+		{
+			Matcher m = NAME.matcher(f.getName());
+			if (m.matches())
+			{
+				ids.add(Integer.parseInt(m.group(1)));
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * @param gameId a room's id
+	 * @return the file the room keeps its journal in
+	 */
+	static File getFile(int gameId)
+	{
+		return new File(DIRECTORY, String.format("room-%d.journal", gameId));
+	}
+
+	/**
+	 * Reads every intact record in the file, and clears whatever follows them
+	 *
+	 * @param entries the list to add the records to
+	 * @return the offset just after the last intact record
+	 * @throws IOException
+	 */
+	private long read(List<JournalEntry> entries) throws IOException
+	{
+		long size = channel.size();
+		if (size == 0) return 0;
+
+		MappedByteBuffer existing = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		while (existing.remaining() >= HEADER)
+		{
+			int start = existing.position(), length = existing.getInt(start), checksum = existing.getInt(start + 4);
+			if (length <= 0 || length > existing.remaining() - HEADER) break;
+
+			ByteBuffer payload = existing.duplicate();
+			payload.position(start + HEADER).limit(start + HEADER + length);
+			crc.reset();
+			crc.update(payload.duplicate());
+			if ((int) crc.getValue() != checksum) break;
+
+			entries.add(new JournalEntry(payload.get(), payload));
+			existing.position(start + HEADER + length);
+		}
+
+		// A torn record must not be mistaken for part of a later one
+		int end = existing.position();
+		while (existing.hasRemaining())
+		{
+			existing.put((byte) 0);
+		}
+		existing.force();
+		return end;
+	}
+
+	/**
+	 * Records the board the game is played on
+	 *
+	 * @param setup the board's hexes and harbours
+	 * @throws IOException
+	 */
+	void writeBoard(Lobby.GameSetup setup) throws IOException
+	{
+		byte[] payload = new byte[1 + setup.getSerializedSize()];
+		payload[0] = JournalEntry.BOARD;
+		setup.writeTo(CodedOutputStream.newInstance(payload, 1, payload.length - 1));
+		append(payload);
+	}
+
+	/**
+	 * Records the session granted to a seat
+	 *
+	 * @param colour the seat's colour
+	 * @param token the session's token
+	 * @throws IOException
+	 */
+	void writeSession(Colour colour, String token) throws IOException
+	{
+		byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+		append(ByteBuffer.allocate(2 + bytes.length).put(JournalEntry.SESSION).put((byte) colour.ordinal()).put(bytes)
+				.array());
+	}
+
+	/**
+	 * Records a move processed from a seat
+	 *
+	 * @param colour the seat's colour
+	 * @param draws the random draws made while processing the move
+	 * @param msg the move
+	 * @throws IOException
+	 */
+	void writeMove(Colour colour, int[] draws, Message msg) throws IOException
+	{
+		int offset = 4 + 4 * draws.length;
+		ByteBuffer payload = ByteBuffer.allocate(offset + msg.getSerializedSize());
+		payload.put(JournalEntry.MOVE).put((byte) colour.ordinal()).putShort((short) draws.length);
+		for (int draw : draws)
+		{
+			payload.putInt(draw);
+		}
+		msg.writeTo(CodedOutputStream.newInstance(payload.array(), offset, payload.capacity() - offset));
+		append(payload.array());
+	}
+
+	/**
+	 * Records a checkpoint of the whole game
+	 *
+	 * @param sequences the number of events sent to each seat so far, by
+	 *            colour
+	 * @param snapshot the game snapshot, from its position to its limit
+	 * @throws IOException
+	 */
+	void writeCheckpoint(long[] sequences, ByteBuffer snapshot) throws IOException
+	{
+		ByteBuffer payload = ByteBuffer.allocate(1 + 8 * sequences.length + snapshot.remaining());
+		payload.put(JournalEntry.CHECKPOINT);
+		for (long sequence : sequences)
+		{
+			payload.putLong(sequence);
+		}
+		payload.put(snapshot);
+		append(payload.array());
+	}
+
+	/**
+	 * Copies the record into the mapped file, mapping the next chunk of the
+	 * file if this one is full. The chunk which filled up is forced to the
+	 * disk by the background thread.
+	 *
+	 * @param payload the record's type followed by its contents
+	 * @throws IOException
+	 */
+	private void append(byte[] payload) throws IOException
+	{
+		if (buffer.remaining() < HEADER + payload.length)
+		{
+			base += buffer.position();
+			retired.add(buffer);
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, base, Math.max(CHUNK, HEADER + payload.length));
+		}
+
+		crc.reset();
+		crc.update(payload);
+		int start = buffer.position();
+		buffer.putInt(start + 4, (int) crc.getValue());
+		buffer.position(start + HEADER);
+		buffer.put(payload);
+
+		// The length goes in last, as it is what makes the record visible
+		buffer.putInt(start, payload.length);
+		dirty = true;
+	}
+
+	/**
+	 * Forces whatever has been appended to the disk every few milliseconds, so
+	 * that many records share the cost of each force
+	 */
+	@Override
+	public void run()
+	{
+		while (open)
+		{
+			try
+			{
+				Thread.sleep(INTERVAL);
+			}
+			catch (InterruptedException e)
+			{
+				break;
+			}
+			force();
+		}
+		force();
+	}
+
+	private void force()
+	{
+		MappedByteBuffer full;
+		while ((full = retired.poll()) != null)
+		{
+			full.force();
+		}
+		if (dirty)
+		{
+			dirty = false;
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Forces everything to the disk and closes the journal
+	 */
+	void close()
+	{
+		open = false;
+		flusher.interrupt();
+		try
+		{
+			flusher.join();
+			channel.close();
+		}
+		catch (InterruptedException | IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Closes and removes the journal, once its game no longer needs recovering
+	 */
+	void delete()
+	{
+		close();
+		if (!file.delete())
+		{
+			file.deleteOnExit();
+		}
+	}
+}
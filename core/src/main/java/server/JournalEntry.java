@@ -0,0 +1,102 @@
+package server;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import enums.Colour;
+import intergroup.Messages.Message;
+import intergroup.lobby.Lobby;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One record read back from a room's {@link Journal}: the board the game is
+ * played on, a session granted to a seat, a move processed from a seat along
+ * with the random draws it made, or a checkpoint of the whole game along with
+ * how many events each seat had been sent.
+ *
+ * @author 140001596
+ */
+class JournalEntry
+{
+	static final byte BOARD = 1, SESSION = 2, MOVE = 3, CHECKPOINT = 4;
+	private final byte type;
+	private final Colour colour;
+	private final int[] draws;
+	private final long[] sequences;
+	private final byte[] body;
+
+	/**
+	 * Decodes a record's payload
+	 *
+	 * @param payload the payload, positioned after the record type
+	 * @param type the record type
+	 */
+	JournalEntry(byte type, ByteBuffer payload)
+	{
+		this.type = type;
+		colour = type == SESSION || type == MOVE ? Colour.values()[payload.get()] : null;
+		draws = new int[type == MOVE ? payload.getShort() & 0xFFFF : 0];
+		for (int i = 0; i < draws.length; i++)
+		{
+			draws[i] = payload.getInt();
+		}
+		sequences = new long[type == CHECKPOINT ? Colour.values().length : 0];
+		for (int i = 0; i < sequences.length; i++)
+		{
+			sequences[i] = payload.getLong();
+		}
+		body = new byte[payload.remaining()];
+		payload.get(body);
+	}
+
+	byte getType()
+	{
+		return type;
+	}
+
+	Colour getColour()
+	{
+		return colour;
+	}
+
+	/**
+	 * @return the random draws the move made, oldest first
+	 */
+	int[] getDraws()
+	{
+		return draws;
+	}
+
+	/**
+	 * @param colour a seat's colour
+	 * @return the number of events the seat had been sent when the checkpoint
+	 *         was taken
+	 */
+	long getSequence(Colour colour)
+	{
+		return sequences[colour.ordinal()];
+	}
+
+	/**
+	 * @return the checkpoint's game snapshot
+	 */
+	ByteBuffer getSnapshot()
+	{
+		return ByteBuffer.wrap(body);
+	}
+
+	Lobby.GameSetup getBoard() throws InvalidProtocolBufferException
+	{
+		return Lobby.GameSetup.parseFrom(body);
+	}
+
+	String getToken()
+	{
+		return new String(body, StandardCharsets.UTF_8);
+	}
+
+	Message getMessage() throws InvalidProtocolBufferException
+	{
+		return Message.parseFrom(body);
+	}
+}
@@ -1,21 +1,27 @@
 package server;
 
+import connection.ConnectionListener;
 import connection.IClientConnection;
+import connection.IPolledClientConnection;
+import connection.MessageFrame;
+import connection.NioClientConnection;
 import enums.Colour;
 import intergroup.Messages.Message;
 
 import java.io.IOException;
 
 /**
- * Class which simply listens to a socket. The successfully received message is
- * added to a ConcurrentLinkedQueue. Created by 140001596.
+ * Class which links a connection to the server. Polled connections are
+ * polled by running this as a thread, while non-blocking connections push
+ * their messages to it from an I/O thread. Either way, the successfully
+ * received message is added to the server's queue. Created by 140001596.
  */
-class ListenerThread implements Runnable
+class ListenerThread implements Runnable, ConnectionListener
 {
 	private IClientConnection conn;
 	private final Colour colour;
 	private final Server server;
-	private boolean active;
+	private volatile boolean active;
 
 	public ListenerThread(IClientConnection conn, Colour c, Server server)
 	{
@@ -33,7 +39,7 @@ class ListenerThread implements Runnable
 		try
 		{
 			receiveMoves();
-			Thread.sleep(1000);
+			server.getClock().sleep(1000);
 		}
 		catch (Exception e)
 		{
@@ -54,28 +60,48 @@ class ListenerThread implements Runnable
 		// Receive and process moves until the end one is received
 		while (active)
 		{
-			if (conn == null)
+			if (!(conn instanceof IPolledClientConnection))
 			{
 				break;
 			}
 
-			// Parse message and add to queue
-			Message msg = conn.getMessageFromClient();
-			server.addMessageToProcess(new ReceivedMessage(colour, msg));
+			// Parse message and add to queue, unless this was shut down while
+			// waiting
+			Message msg = ((IPolledClientConnection) conn).getMessageFromClient();
+			if (active)
+			{
+				server.addMessageToProcess(new ReceivedMessage(colour, msg));
+			}
 		}
 	}
 
+	@Override
+	public void messageReceived(NioClientConnection conn, Message msg)
+	{
+		server.addMessageToProcess(new ReceivedMessage(colour, msg));
+	}
+
+	/**
+	 * Queues an empty message, so that the server replaces the lost player in
+	 * its own thread
+	 */
+	@Override
+	public void connectionClosed(NioClientConnection conn)
+	{
+		server.addMessageToProcess(new ReceivedMessage(colour, null));
+	}
+
 	/**
 	 * Sends the message out to the client
 	 * 
-	 * @param msg the message
+	 * @param frame the message, which may be shared with other players
 	 * @throws IOException
 	 */
-	public void sendMessage(Message msg) throws Exception
+	public void sendMessage(MessageFrame frame) throws Exception
 	{
 		if (conn != null)
 		{
-			conn.sendMessageToClient(msg);
+			conn.sendMessageToClient(frame);
 		}
 	}
 
@@ -85,7 +111,10 @@ class ListenerThread implements Runnable
 	public void shutDown()
 	{
 		active = false;
-		conn.shutDown();
+		if (conn != null)
+		{
+			conn.shutDown();
+		}
 	}
 
 	public Colour getColour()
@@ -15,6 +15,7 @@ import game.players.Player;
 public class LocalServer extends Server
 {
 	private final Player localPlayer;
+	private static final long PACING = 500;
 
 	public LocalServer(LocalClientConnection connection, int numAis, Difficulty diff)
 	{
@@ -23,6 +24,7 @@ public class LocalServer extends Server
 		Colour c = joinGame(connection);
 		localPlayer = game.getPlayer(c);
 		addAIs(numAis, diff);
+		setPacing(Long.getLong("catan.pacing", PACING));
 	}
 
 	private LocalServer()
@@ -58,6 +60,7 @@ public class LocalServer extends Server
 
 			LocalAIClientOnServer ai = new LocalAIClientOnServer(diff);
 			LocalClientConnection conn = ai.getConn().getConn();
+			ai.setClock(getClock());
 			Thread t = new Thread(ai);
 			t.start();
 			Colour c = joinGame(conn);
@@ -82,11 +85,7 @@ public class LocalServer extends Server
 		catch (GameFullException ignored)
 		{}
 
-		ListenerThread l = new ListenerThread(connection, c, this);
-		connections.put(c, l);
-		Thread t = new Thread(l);
-		t.start();
-		threads.put(c, t);
+		attach(c, new ListenerThread(connection, c, this));
 		log("Server Setup", String.format("Player %d connected", numConnections));
 		numConnections++;
 
@@ -11,7 +11,7 @@ public class Logger
 {
 	public void logReceivedMessage(Message msg)
 	{
-		if (msg == null) return;
+		if (msg == null || Gdx.app == null) return;
 
 		String str = String.format("RECEIVED: Message of type %s.%n", msg.getTypeCase().name());
 
@@ -28,6 +28,6 @@ public class Logger
 			break;
 		}
 
-		if (Gdx.app != null) Gdx.app.log("Server", str);
+		Gdx.app.log("Server", str);
 	}
 }
@@ -15,6 +15,7 @@ import intergroup.lobby.Lobby;
 import intergroup.trade.Trade;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -59,8 +60,16 @@ class MessageProcessor
 	public Events.Event processMessage() throws Exception
 	{
 		ReceivedMessage receivedMessage = movesToProcess.take();
+
+		// Message without a sender, only used to wake the server
+		if (receivedMessage.getCol() == null)
+		{
+			lastMessage = null;
+			return null;
+		}
+
 		lastMessage = receivedMessage;
-		if (receivedMessage == null || receivedMessage.getMsg() == null) { return null; }
+		if (receivedMessage.getMsg() == null) { return null; }
 
 		Messages.Message msg = receivedMessage.getMsg();
 		Colour col = receivedMessage.getCol();
@@ -127,6 +136,7 @@ class MessageProcessor
 				break;
 			case JOINLOBBY:
 				ev.setLobbyUpdate(game.joinGame(request.getJoinLobby(), colour));
+				server.negotiate(colour, request.getJoinLobby());
 				break;
 			case MOVEROBBER:
 				game.moveRobber(request.getMoveRobber());
@@ -198,7 +208,7 @@ class MessageProcessor
 				break;
 			case SUBMITTRADERESPONSE:
 				if (currentTrade != null && request.getSubmitTradeResponse().equals(Trade.Response.ACCEPT)
-						&& !currentTrade.isExpired())
+						&& !currentTrade.isExpired(server.getClock().currentTimeMillis()))
 				{
 					try
 					{
@@ -214,7 +224,7 @@ class MessageProcessor
 					currentTrade = null;
 				}
 				else if (currentTrade != null && (request.getSubmitTradeResponse().equals(Trade.Response.REJECT)
-						|| !currentTrade.isExpired()))
+						|| !currentTrade.isExpired(server.getClock().currentTimeMillis())))
 				{
 					currentTrade = null;
 					ev.setPlayerTradeRejected(EmptyOuterClass.Empty.getDefaultInstance());
@@ -380,7 +390,7 @@ class MessageProcessor
 		{
 		// Simply forward the message
 		case PLAYER:
-			currentTrade = new CurrentTrade(request.getPlayer(), instigator);
+			currentTrade = new CurrentTrade(request.getPlayer(), instigator, server.getClock().currentTimeMillis());
 			server.forwardTradeOffer(request.getPlayer(), instigator);
 			return null;
 
@@ -499,6 +509,22 @@ class MessageProcessor
 		}
 	}
 
+	/**
+	 * @return whether more moves are already waiting to be processed
+	 */
+	public boolean hasMovesToProcess()
+	{
+		return !movesToProcess.isEmpty();
+	}
+
+	/**
+	 * Wakes the server if it is blocked waiting for the next move
+	 */
+	public void wakeUp()
+	{
+		addMoveToProcess(new ReceivedMessage(null, null));
+	}
+
 	public void setGame(ServerGame game)
 	{
 		this.game = game;
@@ -513,4 +539,72 @@ class MessageProcessor
 	{
 		return currentTrade;
 	}
+
+	/**
+	 * Writes the moves each player is expected to make, and the trade and
+	 * card in progress, into a game snapshot
+	 *
+	 * @param buf the buffer to write to
+	 */
+	void writeTo(ByteBuffer buf)
+	{
+		for (Colour c : Colour.values())
+		{
+			List<Requests.Request.BodyCase> expected = expectedMoves.get(c);
+			buf.put((byte) expected.size());
+			for (Requests.Request.BodyCase type : expected)
+			{
+				buf.put((byte) type.getNumber());
+			}
+		}
+		buf.put((byte) ((monopoly ? 1 : 0) | (initialPhase ? 2 : 0)));
+
+		buf.put((byte) (currentTrade == null ? 0 : 1));
+		if (currentTrade != null)
+		{
+			Board.Player instigator = currentTrade.getInstigator();
+			buf.put((byte) (instigator == null ? -1 : instigator.getIdValue()));
+			buf.putLong(currentTrade.getTime());
+
+			byte[] trade = currentTrade.getTrade().toByteArray();
+			buf.putShort((short) trade.length);
+			buf.put(trade);
+		}
+	}
+
+	/**
+	 * Replaces the expected moves and the trade and card in progress with
+	 * what was written into a snapshot
+	 *
+	 * @param buf the buffer to read from
+	 * @throws IOException if the trade could not be decoded
+	 */
+	void readFrom(ByteBuffer buf) throws IOException
+	{
+		for (Colour c : Colour.values())
+		{
+			List<Requests.Request.BodyCase> expected = expectedMoves.get(c);
+			expected.clear();
+			int size = buf.get();
+			for (int i = 0; i < size; i++)
+			{
+				expected.add(Requests.Request.BodyCase.forNumber(buf.get()));
+			}
+		}
+		byte flags = buf.get();
+		monopoly = (flags & 1) != 0;
+		initialPhase = (flags & 2) != 0;
+
+		currentTrade = null;
+		if (buf.get() == 1)
+		{
+			int id = buf.get();
+			Board.Player instigator = id < 0 ? null : Board.Player.newBuilder().setIdValue(id).build();
+			long time = buf.getLong();
+
+			byte[] trade = new byte[buf.getShort()];
+			buf.get(trade);
+			currentTrade = new CurrentTrade(Trade.WithPlayer.parseFrom(trade), instigator, time);
+		}
+	}
 }
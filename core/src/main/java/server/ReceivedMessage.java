@@ -10,11 +10,13 @@ public class ReceivedMessage
 {
 	private final Colour col;
 	private final Messages.Message msg;
+	private final long receivedAt;
 
 	public ReceivedMessage(Colour col, Messages.Message msg)
 	{
 		this.col = col;
 		this.msg = msg;
+		receivedAt = System.nanoTime();
 	}
 
 	public Messages.Message getMsg()
@@ -26,4 +28,12 @@ public class ReceivedMessage
 	{
 		return col;
 	}
+
+	/**
+	 * @return the System.nanoTime() at which the message arrived
+	 */
+	public long getReceivedAt()
+	{
+		return receivedAt;
+	}
 }
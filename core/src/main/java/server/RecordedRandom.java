@@ -0,0 +1,67 @@
+package server;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A source of randomness whose draws are remembered, so that they can be
+ * written to a room's journal and fed back in the same order when the game is
+ * rebuilt. Every draw made by a {@link Random} goes through {@link #next(int)},
+ * so recording there captures dice rolls, card draws and steals alike.
+ *
+ * @author 140001596
+ */
+class RecordedRandom extends Random
+{
+	private final Random source;
+	private int[] drawn, replay;
+	private int numDrawn, numReplay, replayed;
+
+	RecordedRandom()
+	{
+		source = new Random();
+		drawn = new int[8];
+		replay = new int[0];
+	}
+
+	@Override
+	protected int next(int bits)
+	{
+		// Draws from the journal come first, then fresh ones
+		int value = replayed < numReplay ? replay[replayed++] : source.nextInt() >>> (32 - bits);
+
+		if (numDrawn == drawn.length)
+		{
+			drawn = Arrays.copyOf(drawn, drawn.length * 2);
+		}
+		drawn[numDrawn++] = value;
+		return value;
+	}
+
+	/**
+	 * Retrieves the draws made since this was last called, and forgets them
+	 *
+	 * @return the draws, oldest first
+	 */
+	int[] takeDraws()
+	{
+		int[] draws = Arrays.copyOf(drawn, numDrawn);
+		numDrawn = 0;
+		return draws;
+	}
+
+	/**
+	 * Queues draws to be returned before any fresh ones
+	 *
+	 * @param draws the draws which were recorded, oldest first
+	 */
+	void replay(int[] draws)
+	{
+		if (numReplay + draws.length > replay.length)
+		{
+			replay = Arrays.copyOf(replay, Math.max(replay.length * 2, numReplay + draws.length));
+		}
+		System.arraycopy(draws, 0, replay, numReplay, draws.length);
+		numReplay += draws.length;
+	}
+}
@@ -0,0 +1,30 @@
+package server;
+
+import intergroup.lobby.Lobby;
+
+/**
+ * A returning client waiting for the room to hand its seat back
+ *
+ * @author 140001596
+ */
+class Resumption
+{
+	private final ListenerThread listener;
+	private final Lobby.Join join;
+
+	Resumption(ListenerThread listener, Lobby.Join join)
+	{
+		this.listener = listener;
+		this.join = join;
+	}
+
+	public ListenerThread getListener()
+	{
+		return listener;
+	}
+
+	public Lobby.Join getJoin()
+	{
+		return join;
+	}
+}
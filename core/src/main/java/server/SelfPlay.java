@@ -0,0 +1,43 @@
+package server;
+
+import enums.Difficulty;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Plays AIs against each other as fast as the machine allows, with games
+ * spread across every core, and reports how quickly they were played, how
+ * long they lasted and how often each difficulty won. The seats of each game
+ * are filled from the given difficulties in turn, starting one seat further
+ * along each game, so every difficulty plays from every seat equally often.
+ *
+ * Usage: SelfPlay [games] [difficulty...]
+ *
+ * @author 140001596
+ */
+public class SelfPlay
+{
+	static final int SEATS = 4;
+
+	public static void main(String[] args)
+	{
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		Difficulty[] difficulties = Difficulty.values();
+		if (args.length > 1)
+		{
+			difficulties = new Difficulty[args.length - 1];
+			for (int i = 1; i < args.length; i++)
+			{
+				difficulties[i - 1] = Difficulty.valueOf(args[i].toUpperCase());
+			}
+		}
+
+		ForkJoinPool pool = new ForkJoinPool();
+		long start = System.nanoTime();
+		SelfPlayStats stats = pool.invoke(new SelfPlayTask(difficulties, 0, games));
+		long elapsed = System.nanoTime() - start;
+
+		System.out.printf("Using %d threads%n", pool.getParallelism());
+		System.out.print(stats.report(elapsed));
+	}
+}
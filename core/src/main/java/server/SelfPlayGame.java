@@ -0,0 +1,166 @@
+package server;
+
+import AI.SimulatedAIClient;
+import enums.Colour;
+import enums.Difficulty;
+import exceptions.GameFullException;
+import game.players.Player;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A room in which AIs play each other on the room's own thread. Whenever the
+ * room would wait for a move, each AI processes the events sent to it and
+ * makes its move, so a whole game is played by calling {@link #run()} with no
+ * other threads, sockets or sleeps involved.
+ *
+ * A game is abandoned if a whole round passes without anyone moving, even
+ * after waking the AIs which were waiting on a reply, if an AI keeps making
+ * moves which are rejected, or if it goes on for far longer than any real
+ * game.
+ *
+ * @author 140001596
+ */
+class SelfPlayGame extends Server
+{
+	private final List<SimulatedAIClient> players;
+	private final Difficulty[] difficulties;
+	private int moves, rounds;
+	private boolean failed;
+	private static final int MAX_ROUNDS = Integer.getInteger("catan.selfplay.rounds", 20000);
+	private static final int MAX_REJECTIONS = 50;
+
+	/**
+	 * @param difficulties the difficulty of the AI in each seat, in the order
+	 *            the seats are taken
+	 * @throws GameFullException if there are more seats than the game has
+	 */
+	SelfPlayGame(Difficulty[] difficulties) throws GameFullException
+	{
+		this(difficulties, null);
+	}
+
+	/**
+	 * @param difficulties the difficulty of the AI in each seat, in the order
+	 *            the seats are taken
+	 * @param journal the file to journal the game to, or null if the game is
+	 *            not journalled
+	 * @throws GameFullException if there are more seats than the game has
+	 */
+	SelfPlayGame(Difficulty[] difficulties, File journal) throws GameFullException
+	{
+		super(null, 0, journal);
+		this.difficulties = difficulties;
+		players = new ArrayList<>(difficulties.length);
+		for (Difficulty d : difficulties)
+		{
+			Colour c = game.joinGame();
+			DirectConnection conn = new DirectConnection(this, c);
+			connections.put(c, new ListenerThread(conn, c, this));
+			players.add(new SimulatedAIClient(d, conn));
+			numConnections++;
+		}
+	}
+
+	/**
+	 * Steps every AI until at least one of them has moved
+	 */
+	@Override
+	protected void idle()
+	{
+		if (++rounds > MAX_ROUNDS)
+		{
+			terminate();
+			return;
+		}
+
+		try
+		{
+			if (stepPlayers()) return;
+
+			// Someone may be waiting on a reply which will never come
+			for (SimulatedAIClient p : players)
+			{
+				p.wake();
+			}
+			if (stepPlayers()) return;
+		}
+		catch (Exception e)
+		{
+			e.printStackTrace();
+			failed = true;
+		}
+		terminate();
+	}
+
+	/**
+	 * @return whether any of the AIs moved, and none of them is stuck making
+	 *         moves which are rejected
+	 * @throws Exception
+	 */
+	private boolean stepPlayers() throws Exception
+	{
+		boolean moved = false;
+		for (SimulatedAIClient p : players)
+		{
+			moved |= p.step();
+			if (p.getRejections() > MAX_REJECTIONS) return false;
+		}
+		return moved;
+	}
+
+	@Override
+	public void addMessageToProcess(ReceivedMessage msg)
+	{
+		moves++;
+		super.addMessageToProcess(msg);
+	}
+
+	/**
+	 * @return the seat of the player who won, or -1 if no one did
+	 */
+	int getWinner()
+	{
+		for (int i = 0; i < difficulties.length; i++)
+		{
+			Player p = game.getPlayer(Colour.values()[i]);
+			if (p.hasWon()) return i;
+		}
+		return -1;
+	}
+
+	Difficulty[] getDifficulties()
+	{
+		return difficulties;
+	}
+
+	/**
+	 * @return the number of moves the AIs sent
+	 */
+	int getMoves()
+	{
+		return moves;
+	}
+
+	/**
+	 * @return the number of turns which ended
+	 */
+	int getTurns()
+	{
+		return players.get(0).getTurns();
+	}
+
+	boolean isFailed()
+	{
+		return failed;
+	}
+
+	/**
+	 * Nothing is worth printing at the rate games are played
+	 */
+	@Override
+	public void log(String tag, String msg)
+	{}
+}
@@ -0,0 +1,102 @@
+package server;
+
+import enums.Difficulty;
+
+/**
+ * Totals over a number of self-play games, which can be merged with the
+ * totals from other games
+ *
+ * @author 140001596
+ */
+class SelfPlayStats
+{
+	private final long[] seats, wins;
+	private long games, finished, stalled, failed, moves, turns;
+
+	SelfPlayStats()
+	{
+		seats = new long[Difficulty.values().length];
+		wins = new long[Difficulty.values().length];
+	}
+
+	/**
+	 * Adds the outcome of a game which has been played
+	 *
+	 * @param game the game
+	 */
+	void add(SelfPlayGame game)
+	{
+		games++;
+		Difficulty[] difficulties = game.getDifficulties();
+		int winner = game.getWinner();
+		if (game.isFailed())
+		{
+			failed++;
+		}
+		else if (winner < 0)
+		{
+			stalled++;
+		}
+		else
+		{
+			finished++;
+			for (Difficulty d : difficulties)
+			{
+				seats[d.ordinal()]++;
+			}
+			wins[difficulties[winner].ordinal()]++;
+			moves += game.getMoves();
+			turns += game.getTurns();
+		}
+	}
+
+	/**
+	 * Adds the totals of other games to these
+	 *
+	 * @param other the totals to add
+	 * @return these totals
+	 */
+	SelfPlayStats merge(SelfPlayStats other)
+	{
+		for (int i = 0; i < seats.length; i++)
+		{
+			seats[i] += other.seats[i];
+			wins[i] += other.wins[i];
+		}
+		games += other.games;
+		finished += other.finished;
+		stalled += other.stalled;
+		failed += other.failed;
+		moves += other.moves;
+		turns += other.turns;
+		return this;
+	}
+
+	/**
+	 * @param nanos how long the games took to play
+	 * @return a summary of the games
+	 */
+	String report(long nanos)
+	{
+		StringBuilder sb = new StringBuilder();
+		double seconds = nanos / 1e9;
+		sb.append(String.format("Played %d games in %.2fs (%.1f games/s): %d finished, %d stalled, %d failed%n", games,
+				seconds, games / seconds, finished, stalled, failed));
+		if (finished > 0)
+		{
+			sb.append(String.format("Finished games took %.1f turns and %.1f moves on average%n",
+					(double) turns / finished, (double) moves / finished));
+		}
+
+		// A difficulty as strong as its opponents wins one seat in four
+		for (Difficulty d : Difficulty.values())
+		{
+			long played = seats[d.ordinal()];
+			if (played == 0) continue;
+
+			sb.append(String.format("%-8s won %d of %d seats (%.1f%%)%n", d.name(), wins[d.ordinal()], played,
+					100.0 * wins[d.ordinal()] / played));
+		}
+		return sb.toString();
+	}
+}
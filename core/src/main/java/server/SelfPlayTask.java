@@ -0,0 +1,79 @@
+package server;
+
+import enums.Difficulty;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays a range of self-play games, splitting the range in half until each
+ * half is small enough to play on one thread. Games are independent, so the
+ * halves are left to the pool to balance between its threads.
+ *
+ * @author 140001596
+ */
+class SelfPlayTask extends RecursiveTask<SelfPlayStats>
+{
+	private final Difficulty[] difficulties;
+	private final int from, to;
+	private static final int THRESHOLD = 4;
+
+	/**
+	 * @param difficulties the difficulties to seat, rotated by one seat from
+	 *            each game to the next
+	 * @param from the index of the first game to play
+	 * @param to the index after the last game to play
+	 */
+	SelfPlayTask(Difficulty[] difficulties, int from, int to)
+	{
+		this.difficulties = difficulties;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	protected SelfPlayStats compute()
+	{
+		if (to - from > THRESHOLD)
+		{
+			int mid = (from + to) >>> 1;
+			SelfPlayTask left = new SelfPlayTask(difficulties, from, mid);
+			left.fork();
+			SelfPlayStats right = new SelfPlayTask(difficulties, mid, to).compute();
+			return right.merge(left.join());
+		}
+
+		SelfPlayStats stats = new SelfPlayStats();
+		for (int i = from; i < to; i++)
+		{
+			stats.add(play(i));
+		}
+		return stats;
+	}
+
+	/**
+	 * Plays a game to the end
+	 *
+	 * @param index the index of the game
+	 * @return the game
+	 */
+	private SelfPlayGame play(int index)
+	{
+		Difficulty[] seats = new Difficulty[SelfPlay.SEATS];
+		for (int i = 0; i < seats.length; i++)
+		{
+			seats[i] = difficulties[(index + i) % difficulties.length];
+		}
+
+		try
+		{
+			SelfPlayGame game = new SelfPlayGame(seats);
+			game.run();
+			return game;
+		}
+		catch (Exception e)
+		{
+			// Seats never outnumber the players a game has
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -3,12 +3,18 @@ package server;
 import AI.AIClient;
 import AI.LocalAIClientOnServer;
 import com.badlogic.gdx.Gdx;
+import connection.Compression;
+import connection.ConnectionSelector;
+import connection.IClientConnection;
+import connection.IPolledClientConnection;
 import connection.LocalClientConnection;
-import connection.RemoteClientConnection;
+import connection.MessageFrame;
+import connection.NioClientConnection;
 import enums.Colour;
 import enums.ResourceType;
 import exceptions.BankLimitException;
 import exceptions.GameFullException;
+import game.Clock;
 import game.CurrentTrade;
 import game.Game;
 import game.players.Player;
@@ -25,80 +31,353 @@ import intergroup.lobby.Lobby;
 import intergroup.resource.Resource;
 import intergroup.trade.Trade;
 
+import java.io.File;
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Semaphore;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class Server implements Runnable
 {
 	private final MessageProcessor msgProc;
 	ServerGame game;
 	int numConnections;
-	final Map<Colour, ListenerThread> connections;
+	final Map<Colour, ListenerThread> connections; // Added to on I/O threads, while the room iterates it
 	final Map<Colour, Thread> aiThreads;
 	final Map<Colour, Thread> threads;
 	final Map<Colour, AIClient> ais;
+	private final Map<Colour, EventLog> logs;
+	private final Queue<Resumption> resumes;
 	private static final int PORT = 7000;
-	private boolean active;
-	private final Semaphore lock;
+	private volatile boolean active;
+	private long pacing, movesProcessed, totalLatency, maxLatency;
+	private int unflushed;
+	private static final int MAX_UNFLUSHED = 8;
+	private final GameHost host;
+	private final int gameId;
+	private ConnectionSelector selector;
+	private final RecordedRandom random;
+	private Journal journal;
+	private int replaying;
+	private long graceDeadline;
+	private boolean restored, playing, abandoned;
+	private int sinceCheckpoint;
+	private ByteBuffer snapshot;
+	private volatile Clock clock = Clock.SYSTEM;
+	private static final long RESUME_GRACE = Long.getLong("catan.resume.grace", 60000);
+	private static final int CHECKPOINT_INTERVAL = Integer.getInteger("catan.journal.checkpoint", 100);
 
 	public Server()
 	{
+		this(null, 0);
+	}
+
+	/**
+	 * Creates a server which runs one room of the given host. Rather than
+	 * listening for players itself, the room is handed the connections which
+	 * asked to join it.
+	 *
+	 * @param host the host which routes connections to this room
+	 * @param gameId the id of this room
+	 */
+	Server(GameHost host, int gameId)
+	{
+		this(host, gameId, host != null && Journal.DIRECTORY != null ? Journal.getFile(gameId) : null);
+	}
+
+	/**
+	 * Creates a room which journals its game to the given file, so that the
+	 * game can be rebuilt by {@link #recover(GameHost, int, File)}
+	 *
+	 * @param host the host which routes connections to this room, if any
+	 * @param gameId the id of this room
+	 * @param journal the file to journal the game to, or null if the game is
+	 *            not journalled
+	 */
+	Server(GameHost host, int gameId, File journal)
+	{
+		this(host, gameId, journal != null ? new RecordedRandom() : null);
+		if (journal != null)
+		{
+			startJournal(journal);
+		}
+	}
+
+	/**
+	 * @param host the host which routes connections to this room
+	 * @param gameId the id of this room
+	 * @param random the source of randomness to record in the journal, or
+	 *            null if the game is not journalled
+	 */
+	private Server(GameHost host, int gameId, RecordedRandom random)
+	{
+		this.host = host;
+		this.gameId = gameId;
+		this.random = random;
 		ais = new HashMap<>();
 		aiThreads = new HashMap<>();
 		threads = new HashMap<>();
-		game = new ServerGame();
+		game = random != null ? new ServerGame(random) : new ServerGame();
 		Game.NUM_PLAYERS = 4;
 
 		// Set up
 		msgProc = new MessageProcessor(game, this);
-		connections = new HashMap<>();
-		lock = new Semaphore(1);
+		connections = new ConcurrentHashMap<>();
+		logs = new HashMap<>();
+		resumes = new ConcurrentLinkedQueue<>();
+		pacing = Long.getLong("catan.pacing", 0);
 	}
 
-	public void run()
+	/**
+	 * Rebuilds a room of the given host from the journal it left behind. The
+	 * game is restored from the last checkpoint, if there is one, and the
+	 * journalled moves since are queued to be processed again, with the same
+	 * random draws, before anything else the room receives. No one is connected
+	 * while they are replayed, but the events each seat would have been sent
+	 * are kept, so that returning players can resume their sessions.
+	 *
+	 * @param host the host which routes connections to this room
+	 * @param gameId the id of the room
+	 * @return the room, ready to run
+	 * @throws IOException if the journal could not be read
+	 */
+	static Server recover(GameHost host, int gameId) throws IOException
+	{
+		return recover(host, gameId, Journal.getFile(gameId));
+	}
+
+	/**
+	 * Rebuilds a room from the journal in the given file
+	 *
+	 * @param host the host which routes connections to this room, if any
+	 * @param gameId the id of the room
+	 * @param file the journal's file
+	 * @return the room, ready to run
+	 * @throws IOException if the journal could not be read
+	 */
+	static Server recover(GameHost host, int gameId, File file) throws IOException
 	{
+		Server room = new Server(host, gameId, new RecordedRandom());
+		List<JournalEntry> entries = new ArrayList<>();
+		room.journal = Journal.open(file, entries);
 		try
 		{
-			active = true;
-			getPlayers();
-			game.chooseFirstPlayer();
-			waitForJoinLobby();
-			broadcastBoard();
-			getInitialSettlementsAndRoads();
-			allocateInitialResources();
+			room.replay(entries);
+		}
+		catch (IOException e)
+		{
+			room.journal.close();
+			throw e;
+		}
 
-			log("\n\nServer Start", "All players Connected. Beginning play.\n");
-			while (active && !game.isOver())
+		return room;
+	}
+
+	/**
+	 * Queues the journalled moves to be processed again
+	 *
+	 * @param entries the records read from the journal
+	 * @throws IOException if the journal is inconsistent
+	 */
+	private void replay(List<JournalEntry> entries) throws IOException
+	{
+		// Only the moves after the last checkpoint need replaying
+		int checkpoint = -1;
+		for (int i = 0; i < entries.size(); i++)
+		{
+			if (entries.get(i).getType() == JournalEntry.CHECKPOINT) checkpoint = i;
+		}
+
+		for (int i = 0; i < entries.size(); i++)
+		{
+			JournalEntry entry = entries.get(i);
+			Colour c = entry.getColour();
+			switch (entry.getType())
 			{
-				try
+			case JournalEntry.BOARD:
+				if (checkpoint < 0) game.restoreBoard(entry.getBoard());
+				break;
+
+			case JournalEntry.SESSION:
+				logs.put(c, new EventLog(entry.getToken()));
+				break;
+
+			case JournalEntry.CHECKPOINT:
+				if (i == checkpoint) restore(entry);
+				break;
+
+			case JournalEntry.MOVE:
+				if (i < checkpoint) break;
+
+				// Seats were taken in the order their first moves arrived
+				if (!connections.containsKey(c))
 				{
-					lock.acquire();
 					try
 					{
-						// Read moves from queue and log
-						processMessage();
+						if (!game.joinGame().equals(c)) throw new IOException("Seats were taken out of order");
 					}
-					finally
+					catch (GameFullException e)
 					{
-						lock.release();
+						throw new IOException("Too many seats were taken");
 					}
-					sleep();
+					connections.put(c, new ListenerThread(null, c, this));
+					numConnections++;
 				}
-				catch (InterruptedException e)
+
+				random.replay(entry.getDraws());
+				addMessageToProcess(new ReceivedMessage(c, entry.getMessage()));
+				replaying++;
+				break;
+			}
+		}
+		log("Server Setup", String.format("Replaying %d moves from the journal", replaying));
+	}
+
+	/**
+	 * Restores the game from a checkpoint and seats its players. Each seat's
+	 * event log carries on from where it was, but the events before then are
+	 * lost, so a player who missed any of them is sent the whole game state
+	 * when they resume.
+	 *
+	 * @param entry the checkpoint
+	 * @throws IOException if the snapshot could not be read
+	 */
+	private void restore(JournalEntry entry) throws IOException
+	{
+		GameSnapshot.read(entry.getSnapshot(), game, msgProc);
+		for (Colour c : game.getPlayers().keySet())
+		{
+			connections.put(c, new ListenerThread(null, c, this));
+			numConnections++;
+			if (logs.containsKey(c))
+			{
+				logs.get(c).restart(entry.getSequence(c));
+			}
+		}
+		restored = true;
+		log("Server Setup", "Restored the game from its last checkpoint");
+	}
+
+	/**
+	 * Journals a checkpoint of the game every so often, once play has begun, so
+	 * that recovering it only means replaying the moves made since. Called
+	 * after each move's events have been sent.
+	 */
+	private void checkpoint()
+	{
+		if (!playing || replaying > 0 || journal == null || ++sinceCheckpoint < CHECKPOINT_INTERVAL) return;
+		sinceCheckpoint = 0;
+
+		long[] sequences = new long[Colour.values().length];
+		for (Colour c : Colour.values())
+		{
+			sequences[c.ordinal()] = logs.containsKey(c) ? logs.get(c).getSequence() : -1;
+		}
+
+		if (snapshot == null)
+		{
+			snapshot = ByteBuffer.allocate(GameSnapshot.MAX_SIZE);
+		}
+		snapshot.clear();
+		writeSnapshot(snapshot);
+		snapshot.flip();
+
+		try
+		{
+			journal.writeCheckpoint(sequences, snapshot);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			stopJournal();
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the game and the moves expected of each player
+	 *
+	 * @param buffer the buffer to write to, with at least
+	 *            {@link GameSnapshot#MAX_SIZE} bytes remaining
+	 */
+	void writeSnapshot(ByteBuffer buffer)
+	{
+		GameSnapshot.write(game, msgProc, buffer);
+	}
+
+	/**
+	 * Starts a new journal for this room, beginning with its board
+	 *
+	 * @param file the journal's file
+	 */
+	private void startJournal(File file)
+	{
+		try
+		{
+			journal = Journal.create(file);
+			journal.writeBoard(game.getGameSettings(null));
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			stopJournal();
+		}
+	}
+
+	/**
+	 * Gives up on journalling after it failed, rather than failing the game
+	 */
+	private void stopJournal()
+	{
+		log("Server Error", "Could not write to the journal. The game will not be recoverable.");
+		if (journal != null)
+		{
+			journal.close();
+			journal = null;
+		}
+	}
+
+	public void run()
+	{
+		try
+		{
+			active = true;
+			if (!restored)
+			{
+				getPlayers();
+				if (active)
 				{
-					e.printStackTrace();
+					game.chooseFirstPlayer();
+					waitForJoinLobby();
+					broadcastBoard();
+					getInitialSettlementsAndRoads();
+					if (active) allocateInitialResources();
 				}
 			}
+			else if (replaying == 0)
+			{
+				recovered();
+			}
+			playing = true;
+
+			log("\n\nServer Start", "All players Connected. Beginning play.\n");
+			while (active && !game.isOver())
+			{
+				// Blocks until the next move arrives
+				processMessage();
+			}
 
 			if (active)
 			{
 				sendEvents(Event.newBuilder().setGameWon(msgProc.getGameWon()).build());
+				flush();
 			}
 		}
 		catch (IOException e)
@@ -117,27 +396,37 @@ public class Server implements Runnable
 		t.start();
 	}
 
+	/**
+	 * Stops the server, waking it if it is waiting for players or moves
+	 */
 	public void terminate()
 	{
-		try
+		active = false;
+		msgProc.wakeUp();
+
+		// Wake the room if it is still waiting for players
+		synchronized (connections)
 		{
-			lock.acquire();
-			try
-			{
-				if (active)
-				{
-					active = false;
-				}
-			}
-			finally
-			{
-				lock.release();
-			}
+			connections.notifyAll();
 		}
-		catch (InterruptedException e)
+	}
+
+	/**
+	 * Stops the room if it is still waiting for players. Players who join
+	 * afterwards are turned away.
+	 *
+	 * @return whether the room was stopped
+	 */
+	boolean terminateIfUnfilled()
+	{
+		synchronized (connections)
 		{
-			e.printStackTrace();
+			if (numConnections >= Game.NUM_PLAYERS) return false;
+
+			abandoned = true;
 		}
+		terminate();
+		return true;
 	}
 
 	/**
@@ -146,18 +435,32 @@ public class Server implements Runnable
 	private void shutDown()
 	{
 		log("Shutdown Server", "Shutting down.");
+		if (movesProcessed > 0)
+		{
+			log("Shutdown Server",
+					String.format("Processed %d moves. Latency from arrival to events sent: mean %.3fms, max %.3fms",
+							movesProcessed, totalLatency / 1e6 / movesProcessed, maxLatency / 1e6));
+		}
 		int i = 1;
 
 		// Shut down all individual connections
 		for (Colour c : connections.keySet())
 		{
 			log("Shutdown Server", String.format("Thread %d / %d shutdown.", i++, connections.size()));
+			if (connections.get(c).getConnection() instanceof NioClientConnection)
+			{
+				NioClientConnection conn = (NioClientConnection) connections.get(c).getConnection();
+				log("Shutdown Server", String.format("%s: %s", c, conn.getOutboundQueue().getStats()));
+			}
 			try
 			{
 				// Instruct ListenerThread to terminate, then wait
-				threads.get(c).interrupt();
 				connections.get(c).shutDown();
-				threads.get(c).join();
+				if (threads.containsKey(c))
+				{
+					threads.get(c).interrupt();
+					threads.get(c).join();
+				}
 
 				// Instruct AI thread to terminate, then wait
 				if (ais.containsKey(c) && aiThreads.containsKey(c))
@@ -172,6 +475,24 @@ public class Server implements Runnable
 				e.printStackTrace();
 			}
 		}
+		if (selector != null)
+		{
+			selector.shutDown();
+		}
+
+		// A game which is over needs no recovering
+		if (journal != null)
+		{
+			if (game.isOver())
+				journal.delete();
+			else
+				journal.close();
+		}
+
+		if (host != null)
+		{
+			host.roomFinished(gameId, this);
+		}
 	}
 
 	/**
@@ -182,23 +503,329 @@ public class Server implements Runnable
 	public void processMessage()
 	{
 		Event ev = null;
+
+		// Hold back everything sent in response to this move
+		cork();
 		try
 		{
-			ev = msgProc.processMessage();
+			ev = process();
 		}
 		catch (Exception e)
 		{
 			e.printStackTrace();
 		}
 
-		if ((ev == null || !ev.isInitialized()) && msgProc.getLastMessage() != null)
+		ReceivedMessage received = msgProc.getLastMessage();
+		if ((ev == null || !ev.isInitialized()) && received != null)
 		{
-			replacePlayerWithAI(msgProc.getLastMessage().getCol());
+			replacePlayerWithAI(received.getCol());
 		}
 		else
 		{
 			sendEvents(ev);
 		}
+		if (received != null && received.getMsg() != null)
+		{
+			checkpoint();
+		}
+
+		// Returning players wake the room to take back their seats, once the
+		// game has caught up with where they left it
+		if (replaying == 0)
+		{
+			resumeSessions();
+			replaceAbsentPlayers();
+		}
+
+		// Write the events out in one go. If more moves have already arrived,
+		// such as the GETRESOURCES following a ROLLDICE, their events join the
+		// same write, provided that doesn't hold back more than a few moves
+		if (!msgProc.hasMovesToProcess() || ++unflushed >= MAX_UNFLUSHED || pacing > 0)
+		{
+			flush();
+			unflushed = 0;
+		}
+
+		if (ev != null && received != null)
+		{
+			recordLatency(received);
+			pace(received.getCol());
+		}
+	}
+
+	/**
+	 * Enables the protocol extensions the given player asked for when joining.
+	 * A host also grants the player a session, so that they can resume their
+	 * seat if their connection drops.
+	 *
+	 * @param col the player's colour
+	 * @param join their join request
+	 */
+	void negotiate(Colour col, Lobby.Join join)
+	{
+		ListenerThread l = connections.get(col);
+		if (l == null || l.getConnection() == null) return;
+
+		// A seat keeps the session it was first granted
+		l.getConnection().setCapabilities(Compression.getCapabilities(join));
+		if (host != null && join.getCapabilitiesList().contains(Lobby.Capability.SESSION_RESUME)
+				&& !logs.containsKey(col))
+		{
+			EventLog eventLog = new EventLog();
+			synchronized (connections)
+			{
+				logs.put(col, eventLog);
+			}
+			sendSession(col, eventLog.getSequence());
+
+			try
+			{
+				if (journal != null) journal.writeSession(col, eventLog.getToken());
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+				stopJournal();
+			}
+		}
+	}
+
+	/**
+	 * Processes the next move, and journals it along with the random draws it
+	 * made. Moves which are being replayed from the journal are already in it.
+	 *
+	 * @return the event resulting from the move
+	 * @throws Exception
+	 */
+	private Event process() throws Exception
+	{
+		if (!msgProc.hasMovesToProcess())
+		{
+			idle();
+		}
+		Event ev = msgProc.processMessage();
+		ReceivedMessage received = msgProc.getLastMessage();
+		if (random == null || received == null || received.getMsg() == null) return ev;
+
+		int[] draws = random.takeDraws();
+		if (replaying > 0)
+		{
+			if (--replaying == 0) recovered();
+		}
+		else if (journal != null)
+		{
+			try
+			{
+				journal.writeMove(received.getCol(), draws, received.getMsg());
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+				stopJournal();
+			}
+		}
+
+		return ev;
+	}
+
+	/**
+	 * Called whenever the room is about to wait for the next move. Rooms which
+	 * make their players' moves themselves do so here.
+	 */
+	protected void idle()
+	{}
+
+	/**
+	 * Called once the journalled moves have been replayed. Seats without a
+	 * session cannot be resumed, so are given to AIs straight away. The others
+	 * are held for their players for a while.
+	 */
+	private void recovered()
+	{
+		log("Server Setup", "Caught up with the journal. Waiting for players to resume their seats.");
+		for (Colour c : connections.keySet())
+		{
+			if (connections.get(c).getConnection() == null && !logs.containsKey(c))
+			{
+				replacePlayer(c);
+			}
+		}
+
+		// Wake the room when the players' time is up, in case nothing else does
+		graceDeadline = clock.currentTimeMillis() + RESUME_GRACE;
+		clock.schedule(msgProc::wakeUp, RESUME_GRACE);
+	}
+
+	/**
+	 * Gives the seats which are still empty after a recovery to AIs, once
+	 * their players have had long enough to resume them
+	 */
+	private void replaceAbsentPlayers()
+	{
+		if (graceDeadline == 0 || clock.currentTimeMillis() < graceDeadline) return;
+
+		graceDeadline = 0;
+		for (Colour c : connections.keySet())
+		{
+			if (connections.get(c).getConnection() == null)
+			{
+				replacePlayer(c);
+			}
+		}
+	}
+
+	/**
+	 * Tells the player their session token, and where in their stream of
+	 * events the following events start
+	 *
+	 * @param col the player's colour
+	 * @param sequence the number of events before the following ones
+	 */
+	private void sendSession(Colour col, long sequence)
+	{
+		Lobby.Session session = Lobby.Session.newBuilder().setToken(logs.get(col).getToken()).setSequence(sequence)
+				.build();
+		sendMessage(Message.newBuilder().setSession(session).build(), col);
+	}
+
+	/**
+	 * Hands seats back to the players who have reconnected, sending each of
+	 * them the events they missed. If too many events were missed to replay,
+	 * the player is sent the whole game state instead.
+	 */
+	private void resumeSessions()
+	{
+		Resumption r;
+		while ((r = resumes.poll()) != null)
+		{
+			ListenerThread l = r.getListener();
+			Colour c = l.getColour();
+			EventLog eventLog = logs.get(c);
+			try
+			{
+				retire(c);
+			}
+			catch (InterruptedException e)
+			{
+				e.printStackTrace();
+			}
+
+			attach(c, l);
+			l.getConnection().setCapabilities(Compression.getCapabilities(r.getJoin()));
+			l.getConnection().cork();
+
+			List<MessageFrame> missed = eventLog.since(r.getJoin().getLastSequence());
+			if (missed != null)
+			{
+				sendSession(c, r.getJoin().getLastSequence());
+				try
+				{
+					for (MessageFrame frame : missed)
+					{
+						l.sendMessage(frame);
+					}
+				}
+				catch (Exception e)
+				{
+					replacePlayerWithAI(c);
+					continue;
+				}
+			}
+			else
+			{
+				sendSession(c, eventLog.getSequence());
+				sendGameInfo(c);
+			}
+			l.getConnection().flush();
+
+			log("Server Setup", String.format("Player %s resumed their session. %s", game.getPlayer(c).getId().name(),
+					missed != null ? String.format("Replayed %d events", missed.size()) : "Sent the game state"));
+		}
+	}
+
+	/**
+	 * Disconnects whoever holds the given seat, whether that is a stale
+	 * connection or an AI standing in
+	 *
+	 * @param c the seat's colour
+	 * @throws InterruptedException
+	 */
+	private void retire(Colour c) throws InterruptedException
+	{
+		if (connections.containsKey(c))
+		{
+			connections.get(c).shutDown();
+		}
+		if (threads.containsKey(c))
+		{
+			Thread t = threads.remove(c);
+			t.interrupt();
+			t.join();
+		}
+		if (ais.containsKey(c))
+		{
+			ais.remove(c).shutDown();
+			Thread t = aiThreads.remove(c);
+			t.interrupt();
+			t.join();
+		}
+	}
+
+	/**
+	 * Holds back messages to every player until {@link #flush()}
+	 */
+	private void cork()
+	{
+		for (ListenerThread l : connections.values())
+		{
+			if (l.getConnection() != null) l.getConnection().cork();
+		}
+	}
+
+	/**
+	 * Writes out everything held back for every player since
+	 * {@link #cork()}
+	 */
+	private void flush()
+	{
+		for (ListenerThread l : connections.values())
+		{
+			if (l.getConnection() != null) l.getConnection().flush();
+		}
+	}
+
+	/**
+	 * Records how long the given move took from arriving at the server to its
+	 * events being sent out
+	 *
+	 * @param received the move which was just processed
+	 */
+	private void recordLatency(ReceivedMessage received)
+	{
+		long latency = System.nanoTime() - received.getReceivedAt();
+		totalLatency += latency;
+		maxLatency = Math.max(maxLatency, latency);
+		movesProcessed++;
+	}
+
+	/**
+	 * Optionally holds the game after an AI's move so that human players can
+	 * follow what happened. Games without humans never wait.
+	 *
+	 * @param col the player who made the last move
+	 */
+	private void pace(Colour col)
+	{
+		if (pacing <= 0 || !ais.containsKey(col) || ais.size() == connections.size()) return;
+
+		try
+		{
+			clock.sleep(pacing);
+		}
+		catch (InterruptedException e)
+		{
+			e.printStackTrace();
+		}
 	}
 
 	/**
@@ -278,14 +905,15 @@ public class Server implements Runnable
 	}
 
 	/**
-	 * Serialises and Broadcasts the event to each connected player
+	 * Serialises and Broadcasts the event to each connected player. Each
+	 * variant of the event is built and serialised once, and the same frame is
+	 * written to every player who sees that variant.
 	 * 
 	 * @throws IOException
 	 */
 	private void broadcastEvent(Event ev)
 	{
-		Message.Builder msg = Message.newBuilder();
-		msg.setEvent(ev);
+		MessageFrame frame = new MessageFrame(Message.newBuilder().setEvent(ev).build());
 		List<Colour> sent = new ArrayList<>(2);
 
 		// Modify event before sending to other players
@@ -294,25 +922,26 @@ public class Server implements Runnable
 		{
 			// Send original to player
 			sent.add(game.getPlayer(ev.getInstigator().getId()).getColour());
-			sendMessage(msg.build(), sent.get(0));
+			sendMessage(frame, sent.get(0));
 
 			// Obscure important info from other players
+			Event obscured;
 			if (ev.getTypeCase().equals(Event.TypeCase.RESOURCESTOLEN))
 			{
 				// Send to victim player and then obscure
 				sent.add(game.getPlayer(ev.getResourceStolen().getVictim().getId()).getColour());
-				sendMessage(msg.build(), sent.get(1));
-				msg.setEvent(
-						ev.toBuilder()
-								.setResourceStolen(
-										ev.getResourceStolen().toBuilder().setResource(Resource.Kind.GENERIC).build())
-								.build());
+				sendMessage(frame, sent.get(1));
+				obscured = ev.toBuilder()
+						.setResourceStolen(
+								ev.getResourceStolen().toBuilder().setResource(Resource.Kind.GENERIC).build())
+						.build();
 			}
 			else
-				msg.setEvent(ev.toBuilder()
+				obscured = ev.toBuilder()
 						.setDevCardBought(
 								Board.DevCard.newBuilder().setUnknown(Board.Empty.getDefaultInstance()).build())
-						.build());
+						.build();
+			frame = new MessageFrame(Message.newBuilder().setEvent(obscured).build());
 		}
 
 		// For each player
@@ -326,7 +955,7 @@ public class Server implements Runnable
 
 			if (connections.containsKey(c))
 			{
-				sendMessage(msg.build(), c);
+				sendMessage(frame, c);
 			}
 		}
 	}
@@ -345,15 +974,25 @@ public class Server implements Runnable
 			return;
 		}
 
-		ServerSocket serverSocket = new ServerSocket(PORT);
+		// Players are routed to this room by the host
+		if (host != null)
+		{
+			awaitPlayers();
+			return;
+		}
+
+		ServerSocketChannel serverSocket = ServerSocketChannel.open();
+		serverSocket.bind(new InetSocketAddress(PORT));
+		selector = new ConnectionSelector();
+		new Thread(selector).start();
 
 		log("Server Setup",
-				String.format("Server started. Waiting for client(s)...%s\n", serverSocket.getInetAddress()));
+				String.format("Server started. Waiting for client(s)...%s\n", serverSocket.getLocalAddress()));
 
 		// Loop until all players found
 		while (active && numConnections < Game.NUM_PLAYERS)
 		{
-			Socket connection = serverSocket.accept();
+			SocketChannel connection = serverSocket.accept();
 
 			Colour c = null;
 			try
@@ -362,20 +1001,139 @@ public class Server implements Runnable
 			}
 			catch (GameFullException ignored)
 			{}
-			ListenerThread l = new ListenerThread(new RemoteClientConnection(connection), c, this);
-			connections.put(c, l);
-			Thread t = new Thread(l);
-			t.start();
-			threads.put(c, t);
+			NioClientConnection conn = selector.wrap(connection);
+			attach(c, new ListenerThread(conn, c, this));
+			selector.register(conn);
 			log("Server Setup", String.format("Player %d connected", numConnections));
 			numConnections++;
 		}
+		serverSocket.close();
+
 		if (active && numConnections == Game.NUM_PLAYERS)
 		{
 			log("Server Setup", "All Players connected. Starting game...\n");
 		}
 	}
 
+	/**
+	 * Blocks until the host has handed this room enough players to begin
+	 */
+	private void awaitPlayers()
+	{
+		synchronized (connections)
+		{
+			while (active && numConnections < Game.NUM_PLAYERS)
+			{
+				try
+				{
+					connections.wait();
+				}
+				catch (InterruptedException e)
+				{
+					e.printStackTrace();
+					return;
+				}
+			}
+		}
+
+		if (active)
+		{
+			log("Server Setup", "All Players connected. Starting game...\n");
+		}
+	}
+
+	/**
+	 * Adds a connection routed to this room by the host. The join lobby request
+	 * which was used for routing is queued so it is processed as normal.
+	 *
+	 * @param conn the new connection
+	 * @param join the join lobby request the connection sent
+	 * @return false if this room is already full, or was closed before it
+	 *         filled
+	 */
+	boolean addConnection(IClientConnection conn, Message join)
+	{
+		Lobby.Join request = join.getRequest().getJoinLobby();
+		if (!request.getSessionToken().isEmpty()) return resume(conn, request);
+
+		synchronized (connections)
+		{
+			if (abandoned) return false;
+
+			Colour c;
+			try
+			{
+				c = game.joinGame();
+			}
+			catch (GameFullException e)
+			{
+				return false;
+			}
+
+			attach(c, new ListenerThread(conn, c, this));
+			log("Server Setup", String.format("Player %d connected", numConnections));
+			numConnections++;
+
+			addMessageToProcess(new ReceivedMessage(c, join));
+			connections.notifyAll();
+			return true;
+		}
+	}
+
+	/**
+	 * Queues a returning player to take back their seat, which the room does
+	 * on its own thread. Messages from the new connection are handled once
+	 * the seat is theirs.
+	 *
+	 * @param conn the new connection
+	 * @param join the join lobby request, with the player's session token
+	 * @return false if there is no such session
+	 */
+	private boolean resume(IClientConnection conn, Lobby.Join join)
+	{
+		synchronized (connections)
+		{
+			for (Map.Entry<Colour, EventLog> entry : logs.entrySet())
+			{
+				if (entry.getValue().getToken().equals(join.getSessionToken()))
+				{
+					ListenerThread l = new ListenerThread(conn, entry.getKey(), this);
+					resumes.add(new Resumption(l, join));
+					msgProc.wakeUp();
+					if (conn instanceof NioClientConnection)
+					{
+						((NioClientConnection) conn).setListener(l);
+					}
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Links the player's connection to this server. Non-blocking connections
+	 * push their messages to the listener, while polled ones are polled by
+	 * running it as a thread.
+	 *
+	 * @param c the colour of the player
+	 * @param l the listener for the player's connection
+	 */
+	void attach(Colour c, ListenerThread l)
+	{
+		connections.put(c, l);
+		if (l.getConnection() instanceof NioClientConnection)
+		{
+			((NioClientConnection) l.getConnection()).setListener(l);
+		}
+		else if (l.getConnection() instanceof IPolledClientConnection)
+		{
+			Thread t = new Thread(l);
+			t.start();
+			threads.put(c, t);
+		}
+	}
+
 	/**
 	 * Blocks until all players have sent a join lobby request
 	 */
@@ -390,17 +1148,19 @@ public class Server implements Runnable
 		{
 			try
 			{
-				Event ev = msgProc.processMessage();
+				Event ev = process();
 				if ((ev == null || !ev.isInitialized()) && msgProc.getLastMessage() != null)
 				{
 					replacePlayerWithAI(msgProc.getLastMessage().getCol());
 					continue;
 				}
 
+				if (ev == null) continue;
+
+				MessageFrame frame = new MessageFrame(Message.newBuilder().setEvent(ev).build());
 				for (Colour c : connections.keySet())
 				{
-					if (!getExpectedMoves(c).contains(Request.BodyCase.JOINLOBBY) && ev != null)
-						sendMessage(Message.newBuilder().setEvent(ev).build(), c);
+					if (!getExpectedMoves(c).contains(Request.BodyCase.JOINLOBBY)) sendMessage(frame, c);
 				}
 			}
 			catch (Exception e)
@@ -412,14 +1172,6 @@ public class Server implements Runnable
 		if (active)
 		{
 			log("Server play", "All players connected\n\n");
-			try
-			{
-				Thread.sleep(1000);
-			}
-			catch (InterruptedException e)
-			{
-				e.printStackTrace();
-			}
 		}
 	}
 
@@ -527,7 +1279,6 @@ public class Server implements Runnable
 			game.setCurrentPlayer(c);
 
 			processMessage();
-			sleep();
 		}
 
 		// Loop until player sends valid new road
@@ -535,7 +1286,6 @@ public class Server implements Runnable
 		while (active && p.getRoads().size() == oldRoadAmount)
 		{
 			processMessage();
-			sleep();
 		}
 	}
 
@@ -549,26 +1299,15 @@ public class Server implements Runnable
 		// Replace connection with a new ai
 		LocalAIClientOnServer ai = new LocalAIClientOnServer();
 		LocalClientConnection conn = ai.getConn().getConn();
+		ai.setClock(clock);
 		ais.put(c, ai);
 
-		ListenerThread l = new ListenerThread(conn, c, this);
-		connections.put(c, l);
-		Thread t = new Thread(l);
-		t.start();
-		threads.put(c, t);
+		attach(c, new ListenerThread(conn, c, this));
 
-		t = new Thread(ai);
+		Thread t = new Thread(ai);
 		t.start();
 		aiThreads.put(c, t);
-		try
-		{
-			Thread.sleep(300);
-			sendGameInfo(c);
-		}
-		catch (InterruptedException e)
-		{
-			e.printStackTrace();
-		}
+		sendGameInfo(c);
 
 		log("Server Error",
 				String.format("Replaced Player %s with an ai due to error", game.getPlayer(c).getId().name()));
@@ -592,13 +1331,16 @@ public class Server implements Runnable
 	 */
 	private void replacePlayerWithAI(Colour col)
 	{
-		if (connections.containsKey(col) && connections.get(col).getConnection() instanceof RemoteClientConnection)
+		if (connections.containsKey(col) && connections.get(col).getConnection() instanceof NioClientConnection)
 		{
 			try
 			{
-				// Instruct ListenerThread to shutdown and wait until it joins
+				// Shut down the connection, waiting for any ListenerThread
 				connections.get(col).shutDown();
-				threads.get(col).join();
+				if (threads.containsKey(col))
+				{
+					threads.remove(col).join();
+				}
 
 				replacePlayer(col);
 			}
@@ -618,6 +1360,11 @@ public class Server implements Runnable
 	 */
 	public void log(String tag, String msg)
 	{
+		if (host != null)
+		{
+			tag = String.format("Room %d %s", gameId, tag);
+		}
+
 		if (Gdx.app == null)
 		{
 			System.out.println(tag + ": " + msg);
@@ -664,12 +1411,33 @@ public class Server implements Runnable
 	 * @param col
 	 */
 	private void sendMessage(Message msg, Colour col)
+	{
+		sendMessage(new MessageFrame(msg), col);
+	}
+
+	/**
+	 * Sends the frame out to the client
+	 *
+	 * @param frame the message, which may be shared with other players
+	 * @param col
+	 */
+	private void sendMessage(MessageFrame frame, Colour col)
 	{
 		if (col != null)
 		{
 			try
 			{
-				connections.get(col).sendMessage(msg);
+				// Keep the player's events in case they need to resume. Snapshots
+				// of the game state are addressed to one connection, so are not
+				// part of the seat's stream
+				EventLog eventLog = logs.get(col);
+				if (eventLog != null && frame.getMessage().getTypeCase().equals(Message.TypeCase.EVENT)
+						&& !frame.getMessage().getEvent().getTypeCase().equals(Event.TypeCase.GAMEINFO))
+				{
+					eventLog.record(frame);
+				}
+
+				connections.get(col).sendMessage(frame);
 			}
 			catch (Exception e)
 			{
@@ -696,6 +1464,28 @@ public class Server implements Runnable
 		msgProc.addMoveToProcess(msg);
 	}
 
+	/**
+	 * @return the clock the room and its AIs wait on
+	 */
+	public Clock getClock()
+	{
+		return clock;
+	}
+
+	/**
+	 * Sets the clock the room waits on, and hands it to the room's AIs
+	 *
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock)
+	{
+		this.clock = clock;
+		for (AIClient ai : ais.values())
+		{
+			ai.setClock(clock);
+		}
+	}
+
 	public void setGame(ServerGame game)
 	{
 		this.game = game;
@@ -707,16 +1497,15 @@ public class Server implements Runnable
 		return msgProc.getExpectedMoves(colour);
 	}
 
-	private void sleep()
+	/**
+	 * Sets how long to hold the game after each AI move when humans are
+	 * playing. Zero, the default, never waits.
+	 *
+	 * @param millis the delay in milliseconds
+	 */
+	public void setPacing(long millis)
 	{
-		try
-		{
-			Thread.sleep(1000);
-		}
-		catch (InterruptedException e)
-		{
-			e.printStackTrace();
-		}
+		pacing = millis;
 	}
 
 	public CurrentTrade getCurrentTrade()
@@ -5,6 +5,7 @@ import enums.DevelopmentCardType;
 import enums.ResourceType;
 import exceptions.*;
 import game.Game;
+import game.ResourceBag;
 import game.build.Building;
 import game.build.City;
 import game.build.Road;
@@ -13,6 +14,7 @@ import game.players.Player;
 import game.players.ServerPlayer;
 import grid.Edge;
 import grid.Hex;
+import grid.HexGrid;
 import grid.Node;
 import grid.Port;
 import intergroup.EmptyOuterClass;
@@ -23,16 +25,111 @@ import intergroup.lobby.Lobby;
 import intergroup.resource.Resource;
 import intergroup.trade.Trade;
 
+import java.nio.ByteBuffer;
 import java.util.*;
 
 public class ServerGame extends Game
 {
-	private final Random dice;
+	private final Random random;
+	private static final ThreadLocal<ByteBuffer> FORK_BUFFER = ThreadLocal
+			.withInitial(() -> ByteBuffer.allocate(GameSnapshot.MAX_SIZE));
 
 	public ServerGame()
 	{
-		super();
-		dice = new Random();
+		this(new Random());
+	}
+
+	/**
+	 * @param random the source of the dice rolls, development card draws and
+	 *            stolen resources
+	 */
+	public ServerGame(Random random)
+	{
+		this(random, true);
+	}
+
+	/**
+	 * @param random the source of the dice rolls, development card draws and
+	 *            stolen resources
+	 * @param makeBoard whether to lay out a new board, rather than leave it to
+	 *            be read from a snapshot
+	 */
+	private ServerGame(Random random, boolean makeBoard)
+	{
+		super(makeBoard);
+		this.random = random;
+	}
+
+	/**
+	 * Replaces the board with the one described by the given setup, so that a
+	 * game can be rebuilt on the board it was played on
+	 *
+	 * @param setup the board's hexes and harbours
+	 */
+	public void restoreBoard(Lobby.GameSetup setup)
+	{
+		grid = new HexGrid(false);
+		grid.setNodesAndHexes(setup.getHexesList());
+		grid.setPorts(processPorts(setup.getHarboursList()));
+	}
+
+	/**
+	 * Makes a copy of the game which can be played on without changing this
+	 * one, and which shares nothing with it but the board's topology. The
+	 * copy is made by writing the game into a snapshot and reading it back.
+	 *
+	 * @param random the source of the copy's dice rolls, development card
+	 *            draws and stolen resources
+	 * @return the copy
+	 */
+	public ServerGame fork(Random random)
+	{
+		ByteBuffer buf = FORK_BUFFER.get();
+		buf.clear();
+		writeTo(buf);
+		buf.flip();
+
+		ServerGame copy = new ServerGame(random, false);
+		copy.readFrom(buf);
+		return copy;
+	}
+
+	/**
+	 * Writes the whole game into a snapshot, players last
+	 *
+	 * @param buf the buffer to write to
+	 */
+	@Override
+	public void writeTo(ByteBuffer buf)
+	{
+		super.writeTo(buf);
+		buf.put((byte) players.size());
+		for (Colour c : Colour.values())
+		{
+			if (players.containsKey(c))
+			{
+				players.get(c).writeTo(buf);
+			}
+		}
+	}
+
+	/**
+	 * Replaces the whole game with what was written into a snapshot
+	 *
+	 * @param buf the buffer to read from
+	 */
+	@Override
+	public void readFrom(ByteBuffer buf)
+	{
+		super.readFrom(buf);
+		players.clear();
+		idsToColours.clear();
+
+		int numPlayers = buf.get();
+		for (int i = 0; i < numPlayers; i++)
+		{
+			addPlayer(ServerPlayer.restore(buf, grid));
+		}
 	}
 
 	/**
@@ -215,26 +312,22 @@ public class ServerGame extends Game
 		Colour recipientColour = getPlayer(trade.getOther().getId()).getColour();
 		ServerPlayer recipient = (ServerPlayer) players.get(recipientColour);
 		Player offerer = getPlayer(instigator.getId());
-		int offerAmount = 0, wantAmount = 0;
-		for (ResourceType r : ResourceType.values())
-		{
-			offerAmount += processResources(offer).getOrDefault(r, 0);
-			wantAmount += processResources(request).getOrDefault(r, 0);
-		}
+		ResourceBag offered = processResources(offer);
+		ResourceBag wanted = processResources(request);
 
 		// Both players need to be able to afford the trade, and both need to be
 		// non-zero
-		if (offerAmount == 0 || wantAmount == 0 || !offerer.canAfford(processResources(offer)) || !recipient.canAfford(
-				processResources(request))) { throw new IllegalTradeException(offerer.getColour(), recipientColour); }
+		if (offered.total() == 0 || wanted.total() == 0 || !offerer.canAfford(offered) || !recipient
+				.canAfford(wanted)) { throw new IllegalTradeException(offerer.getColour(), recipientColour); }
 
 		try
 		{
 			// Exchange resources
-			offerer.spendResources(offer, bank);
-			offerer.grantResources(request, bank);
+			offerer.spendResources(offered, bank);
+			offerer.grantResources(wanted, bank);
 
-			recipient.grantResources(offer, bank);
-			recipient.spendResources(request, bank);
+			recipient.grantResources(offered, bank);
+			recipient.spendResources(wanted, bank);
 		}
 		catch (CannotAffordException | BankLimitException e)
 		{
@@ -377,7 +470,7 @@ public class ServerGame extends Game
 		if (bank.getNumAvailableDevCards() == 0) { throw new BankLimitException("No more dev cards available"); }
 
 		// Try to buy card
-		DevelopmentCardType card = ((ServerPlayer) p).buyDevelopmentCard(bank);
+		DevelopmentCardType card = ((ServerPlayer) p).buyDevelopmentCard(bank, random);
 		return DevelopmentCardType.toProto(card);
 	}
 
@@ -421,7 +514,7 @@ public class ServerGame extends Game
 		// Randomly choose resource that the player has
 		while (r == ResourceType.Generic || other.getResources().get(r) == 0)
 		{
-			r = ResourceType.random();
+			r = ResourceType.random(random);
 		}
 
 		return takeResource(id, r);
@@ -461,7 +554,7 @@ public class ServerGame extends Game
 	public void chooseResources(Resource.Kind r1) throws BankLimitException
 	{
 		// Set up grant
-		Map<ResourceType, Integer> grant = new HashMap<>();
+		Map<ResourceType, Integer> grant = new ResourceBag();
 		grant.put(ResourceType.fromProto(r1), 1);
 		players.get(currentPlayer).grantResources(grant, bank);
 
@@ -481,7 +574,7 @@ public class ServerGame extends Game
 	public Board.MultiSteal playMonopolyCard(Resource.Kind r)
 	{
 		Board.MultiSteal.Builder multiSteal = Board.MultiSteal.newBuilder();
-		Map<ResourceType, Integer> grant = new HashMap<>();
+		Map<ResourceType, Integer> grant = new ResourceBag();
 		ResourceType type = ResourceType.fromProto(r);
 
 		// for each player
@@ -657,7 +750,7 @@ public class ServerGame extends Game
 	public Board.Roll generateDiceRoll()
 	{
 		Board.Roll.Builder roll = Board.Roll.newBuilder();
-		roll.setA(dice.nextInt(6) + 1).setB(dice.nextInt(6) + 1);
+		roll.setA(random.nextInt(6) + 1).setB(random.nextInt(6) + 1);
 
 		Map<Colour, Map<ResourceType, Integer>> playerResources = allocateResources(roll.getA() + roll.getB());
 
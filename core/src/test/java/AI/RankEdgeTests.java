@@ -0,0 +1,46 @@
+package AI;
+
+import grid.Edge;
+import grid.Node;
+import org.junit.Test;
+import tests.ClientTestHelper;
+
+import static org.junit.Assert.*;
+
+public class RankEdgeTests extends ClientTestHelper
+{
+	@Test
+	public void rankTest()
+	{
+		Edge e1 = n.getEdges().get(0);
+		Node n1 = e1.getX().equals(n) ? e1.getY() : e1.getX();
+		processSettlementEvent(n, clientPlayer.getColour());
+
+		// A road from the settlement leads to nothing which could be built on
+		// straight away, but there are sites further on
+		Node end = null;
+		Edge next = null;
+		for (Edge e : n1.getEdges())
+		{
+			Node other = e.getX().equals(n1) ? e.getY() : e.getX();
+			if (!e.equals(e1) && !other.isNearBuilding() && other.getBuilding() == null)
+			{
+				next = e;
+				end = other;
+			}
+		}
+		assertNotNull(next);
+		RankEdge first = new RankEdge(e1, clientGame);
+		first.rank(clientPlayer);
+		assertTrue(first.getRanking() > 0);
+
+		// Once the road is built, the next road reaches the site at its end, so
+		// counts at least that site's rank in full
+		processRoadEvent(e1, clientPlayer.getColour());
+		RankEdge second = new RankEdge(next, clientGame);
+		second.rank(clientPlayer);
+		RankNode site = new RankNode(end, clientPlayer);
+		site.rank(false);
+		assertTrue(second.getRanking() >= site.getRanking());
+	}
+}
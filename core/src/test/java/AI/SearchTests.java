@@ -0,0 +1,212 @@
+package AI;
+
+import client.Turn;
+import enums.Colour;
+import enums.ResourceType;
+import exceptions.BankLimitException;
+import game.Bank;
+import game.build.Road;
+import game.players.ClientPlayer;
+import game.players.Player;
+import grid.Edge;
+import grid.Node;
+import intergroup.Requests;
+import intergroup.board.Board;
+import org.junit.Before;
+import org.junit.Test;
+import server.ServerGame;
+import tests.ClientTestHelper;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SearchTests extends ClientTestHelper
+{
+	private static final int HAND = 5;
+	private Player p2;
+	private Determinizer determinizer;
+
+	@Before
+	public void setUp()
+	{
+		p2 = new ClientPlayer(Colour.RED, "");
+		p2.setId(Board.Player.Id.PLAYER_2);
+		clientGame.addPlayer(p2);
+
+		// Two settlements and a road each, away from each other
+		Node other = clientGame.getGrid().nodes.get(new Point(-1, 0));
+		Node far = clientGame.getGrid().getNodeById(clientGame.getGrid().getTopology().getNumNodes() - 1);
+		Node far2 = clientGame.getGrid().getNodeById(clientGame.getGrid().getTopology().getNumNodes() - 8);
+		processSettlementEvent(n, clientPlayer.getColour());
+		processSettlementEvent(other, clientPlayer.getColour());
+		processSettlementEvent(far, p2.getColour());
+		processSettlementEvent(far2, p2.getColour());
+		processRoadEvent(n.getEdges().get(0), clientPlayer.getColour());
+		processRoadEvent(other.getEdges().get(0), clientPlayer.getColour());
+		processRoadEvent(far.getEdges().get(0), p2.getColour());
+		processRoadEvent(far2.getEdges().get(0), p2.getColour());
+
+		// The opponent has cards this player cannot see
+		clientGame.giveResources(HAND, p2.getColour());
+		processBoughtDevCard(Board.DevCard.newBuilder().setPlayableDevCard(Board.PlayableDevCard.KNIGHT).build(),
+				p2.getColour());
+
+		clientGame.setCurrentPlayer(clientPlayer.getColour());
+		determinizer = new Determinizer(clientGame);
+	}
+
+	@Test
+	public void dealTest()
+	{
+		ServerGame copy = determinizer.copy(new Random(0));
+		int cards = -1;
+		for (int seed = 0; seed < 50; seed++)
+		{
+			ServerGame game = determinizer.deal(copy, new Random(seed));
+			Player own = game.getPlayer(clientPlayer.getColour()), other = game.getPlayer(p2.getColour());
+
+			// The hands which are known are kept, and the others are their
+			// known sizes
+			assertEquals(clientPlayer.getResources(), own.getResources());
+			assertEquals(clientGame.getPlayerResources(p2.getColour()), other.getNumResources());
+			assertEquals(clientGame.getBoughtDevCards().get(p2.getColour()).intValue(), count(other));
+
+			// Every resource is somewhere, and so is every card which was dealt
+			// from
+			Bank bank = game.getBank();
+			for (ResourceType r : ResourceType.values())
+			{
+				if (r == ResourceType.Generic) continue;
+
+				int total = bank.getAvailableResources().get(r) + own.getResources().getOrDefault(r, 0)
+						+ other.getResources().getOrDefault(r, 0);
+				assertEquals(Bank.RESOURCES_PER_TYPE, total);
+			}
+			int dealt = bank.getNumAvailableDevCards() + count(other);
+			assertTrue(cards < 0 || cards == dealt);
+			cards = dealt;
+		}
+
+		// The copy is left as it was
+		assertEquals(0, copy.getPlayer(p2.getColour()).getNumResources());
+	}
+
+	@Test
+	public void drawTest()
+	{
+		Map<ResourceType, Integer> pool = new EnumMap<>(ResourceType.class);
+		assertNull(Determinizer.draw(pool, new Random(0)));
+
+		// Only what there is some of is drawn, in proportion
+		pool.put(ResourceType.Brick, 0);
+		pool.put(ResourceType.Ore, -2);
+		pool.put(ResourceType.Wool, 1);
+		pool.put(ResourceType.Grain, 3);
+		Map<ResourceType, Integer> drawn = new HashMap<>();
+		Random random = new Random(0);
+		for (int i = 0; i < 4000; i++)
+		{
+			drawn.merge(Determinizer.draw(pool, random), 1, Integer::sum);
+		}
+		assertEquals(2, drawn.size());
+		assertEquals(3, drawn.get(ResourceType.Grain) / (double) drawn.get(ResourceType.Wool), 0.5);
+	}
+
+	@Test
+	public void rolloutTest() throws BankLimitException
+	{
+		// Given everything left in the bank before each play, this player is
+		// never held up for want of resources, so playing on ends the game
+		// with them the winner
+		ServerGame game = determinizer.deal(determinizer.copy(new Random(0)), new Random(0));
+		Player own = game.getPlayer(clientPlayer.getColour()), other = game.getPlayer(p2.getColour());
+		Rollout rollout = new Rollout(game, new Random(1), new Random(2));
+		for (int i = 0; i < 100 && !game.isOver(); i++)
+		{
+			own.grantResources(new HashMap<>(game.getBank().getAvailableResources()), game.getBank());
+			rollout.play();
+		}
+		assertTrue(game.isOver());
+		assertTrue(own.hasWon());
+		assertEquals(1, rollout.score(own.getColour()), 0);
+		assertEquals(0, rollout.score(other.getColour()), 0);
+
+		// Nothing more is played once it is over
+		int vp = own.getVp(), otherVp = other.getVp();
+		rollout.play();
+		assertEquals(vp, own.getVp());
+		assertEquals(otherVp, other.getVp());
+	}
+
+	@Test
+	public void searchTest()
+	{
+		List<Turn> moves = new ArrayList<>();
+		moves.add(new Turn(Requests.Request.BodyCase.ENDTURN));
+		for (Edge e : clientGame.getGrid().edges)
+		{
+			if (clientPlayer.isRoadSite(e))
+			{
+				Turn turn = new Turn(Requests.Request.BodyCase.BUILDROAD);
+				turn.setChosenEdge(e);
+				moves.add(turn);
+			}
+		}
+		assertTrue(moves.size() > 2);
+		grant(Road.getRoadCost());
+
+		// Stops at the iteration limit, well before the deadline, having grown
+		// the tree past the moves now and into the turns after them
+		ThinkingScheduler scheduler = new ThinkingScheduler(60000, 1);
+		try (ThinkingScheduler.Slice slice = scheduler.begin(ThinkingScheduler.Phase.MIDGAME))
+		{
+			TreeSearch search = new TreeSearch(determinizer, moves);
+			assertTrue(moves.contains(search.search(slice, 3 * moves.size())));
+			assertEquals(3 * moves.size(), search.getIterations());
+			assertTrue(search.getSize() > moves.size());
+			assertTrue(search.getSize() <= search.getIterations());
+		}
+
+		// Stops at the deadline, well before the iteration limit
+		scheduler = new ThinkingScheduler(100, 1);
+		try (ThinkingScheduler.Slice slice = scheduler.begin(ThinkingScheduler.Phase.MIDGAME))
+		{
+			TreeSearch search = new TreeSearch(determinizer, moves);
+			Turn best = search.search(slice, Integer.MAX_VALUE);
+			long late = System.nanoTime() - slice.getDeadline();
+
+			assertTrue(best == null || moves.contains(best));
+			assertTrue(late < 1000000000L);
+		}
+	}
+
+	private int count(Player p)
+	{
+		int count = 0;
+		for (int n : p.getDevelopmentCards().values())
+		{
+			count += n;
+		}
+		return count;
+	}
+
+	private void grant(Map<ResourceType, Integer> cost)
+	{
+		try
+		{
+			clientPlayer.grantResources(cost, clientGame.getBank());
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException(e);
+		}
+		determinizer = new Determinizer(clientGame);
+	}
+}
@@ -0,0 +1,145 @@
+package AI;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ThinkingSchedulerTests
+{
+	private static final long MILLI = 1000000L;
+
+	@Test
+	public void sliceLengthTest()
+	{
+		ThinkingScheduler scheduler = new ThinkingScheduler(100, 2);
+
+		// Alone, a decision gets the phase's length and every thread
+		for (ThinkingScheduler.Phase phase : ThinkingScheduler.Phase.values())
+		{
+			double weight = phase == ThinkingScheduler.Phase.OPENING ? 0.5
+					: phase == ThinkingScheduler.Phase.MIDGAME ? 1 : 2;
+			long before = System.nanoTime();
+			try (ThinkingScheduler.Slice slice = scheduler.begin(phase))
+			{
+				assertLength(slice, before, (long) (100 * weight * MILLI));
+				assertEquals(2, slice.getThreads());
+				assertFalse(slice.isOver());
+			}
+		}
+
+		// Once there are more decisions than threads, each is cut short by its
+		// share, and gets no more than one thread
+		ThinkingScheduler.Slice first = scheduler.begin(ThinkingScheduler.Phase.MIDGAME);
+		long before = System.nanoTime();
+		ThinkingScheduler.Slice second = scheduler.begin(ThinkingScheduler.Phase.MIDGAME);
+		assertLength(second, before, 100 * MILLI);
+		before = System.nanoTime();
+		ThinkingScheduler.Slice third = scheduler.begin(ThinkingScheduler.Phase.MIDGAME);
+		assertLength(third, before, (long) (100 * (2 / 3.0) * MILLI));
+
+		first.close();
+		before = System.nanoTime();
+		try (ThinkingScheduler.Slice fourth = scheduler.begin(ThinkingScheduler.Phase.ENDGAME))
+		{
+			assertLength(fourth, before, (long) (100 * 2.0 * (2 / 3.0) * MILLI));
+			assertEquals(1, fourth.getThreads());
+		}
+		second.close();
+		third.close();
+	}
+
+	@Test
+	public void emptySliceTest()
+	{
+		ThinkingScheduler scheduler = new ThinkingScheduler(50, 1);
+
+		// With every thread taken, a decision waits out its slice, which is
+		// halved as it shares the thread, and is given none, so it must answer
+		// at once
+		ThinkingScheduler.Slice held = scheduler.begin(ThinkingScheduler.Phase.MIDGAME);
+		long before = System.nanoTime();
+		ThinkingScheduler.Slice empty = scheduler.begin(ThinkingScheduler.Phase.MIDGAME);
+		assertLength(empty, before, 25 * MILLI);
+		assertTrue(System.nanoTime() >= empty.getDeadline());
+		assertEquals(0, empty.getThreads());
+		assertTrue(empty.isOver());
+
+		// Closing it gives back nothing, and closing twice changes nothing
+		empty.close();
+		empty.close();
+		held.close();
+		held.close();
+		try (ThinkingScheduler.Slice slice = scheduler.begin(ThinkingScheduler.Phase.MIDGAME))
+		{
+			assertEquals(1, slice.getThreads());
+		}
+
+		// A slice with no length is over before it starts, and there is always
+		// at least one thread
+		scheduler = new ThinkingScheduler(0, 0);
+		assertEquals(1, scheduler.getThreads());
+		try (ThinkingScheduler.Slice slice = scheduler.begin(ThinkingScheduler.Phase.ENDGAME))
+		{
+			assertTrue(slice.isOver());
+		}
+	}
+
+	@Test
+	public void fairnessTest() throws InterruptedException
+	{
+		// Decisions get the thread in the order they asked for it, and one
+		// which asks as it is given back waits its turn
+		ThinkingScheduler scheduler = new ThinkingScheduler(60000, 1);
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+		ThinkingScheduler.Slice held = scheduler.begin(ThinkingScheduler.Phase.MIDGAME);
+
+		List<Thread> waiting = new ArrayList<>();
+		for (int i = 0; i < 3; i++)
+		{
+			String name = "waiting " + i;
+			Thread t = new Thread(() -> {
+				try (ThinkingScheduler.Slice slice = scheduler.begin(ThinkingScheduler.Phase.MIDGAME))
+				{
+					order.add(slice.getThreads() > 0 ? name : "none");
+				}
+			});
+			t.start();
+			while (t.getState() != Thread.State.TIMED_WAITING)
+			{
+				Thread.yield();
+			}
+			waiting.add(t);
+		}
+
+		held.close();
+		try (ThinkingScheduler.Slice slice = scheduler.begin(ThinkingScheduler.Phase.MIDGAME))
+		{
+			order.add(slice.getThreads() > 0 ? "late" : "none");
+		}
+		for (Thread t : waiting)
+		{
+			t.join();
+		}
+
+		assertEquals(4, order.size());
+		assertEquals("late", order.get(3));
+		for (int i = 0; i < 3; i++)
+		{
+			assertEquals("waiting " + i, order.get(i));
+		}
+	}
+
+	/**
+	 * Asserts the slice, asked for at the given time, lasts the given length
+	 */
+	private void assertLength(ThinkingScheduler.Slice slice, long before, long length)
+	{
+		long after = System.nanoTime();
+		assertTrue(slice.getDeadline() - before >= length);
+		assertTrue(slice.getDeadline() - after <= length);
+	}
+}
@@ -0,0 +1,99 @@
+package connection;
+
+import com.google.protobuf.ByteString;
+import enums.Colour;
+import game.players.ServerPlayer;
+import intergroup.Events;
+import intergroup.Messages;
+import intergroup.board.Board;
+import intergroup.lobby.Lobby;
+import org.junit.Before;
+import org.junit.Test;
+import server.ServerGame;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+public class CompressionTests
+{
+	private Messages.Message gameInfo;
+
+	@Before
+	public void setUp()
+	{
+		ServerGame game = new ServerGame();
+		ServerPlayer p = new ServerPlayer(Colour.BLUE, "");
+		p.setId(Board.Player.Id.PLAYER_1);
+		game.addPlayer(p);
+		gameInfo = Messages.Message.newBuilder()
+				.setEvent(Events.Event.newBuilder().setGameInfo(game.getGameInfo(Colour.BLUE))).build();
+	}
+
+	@Test
+	public void roundTripTest() throws Exception
+	{
+		byte[] plain = gameInfo.toByteArray();
+		byte[] deflated = Compression.deflate(plain, 0, plain.length);
+
+		assertTrue(deflated.length < plain.length);
+		assertEquals(gameInfo, Compression.inflate(ByteString.copyFrom(deflated)));
+	}
+
+	@Test
+	public void roundTripOffsetTest() throws Exception
+	{
+		// Only the given range of the buffer is compressed
+		byte[] plain = gameInfo.toByteArray();
+		byte[] padded = new byte[plain.length + 20];
+		Arrays.fill(padded, (byte) 0x7F);
+		System.arraycopy(plain, 0, padded, 10, plain.length);
+
+		byte[] deflated = Compression.deflate(padded, 10, plain.length);
+		assertEquals(gameInfo, Compression.inflate(ByteString.copyFrom(deflated)));
+	}
+
+	@Test(expected = IOException.class)
+	public void otherDictionaryTest() throws Exception
+	{
+		// A frame compressed with another build's dictionary is turned down
+		// rather than inflated into garbage
+		byte[] plain = gameInfo.toByteArray();
+		byte[] dictionary = Compression.getDictionary().clone();
+		dictionary[dictionary.length / 2] ^= 1;
+
+		Deflater deflater = new Deflater();
+		deflater.setDictionary(dictionary);
+		deflater.setInput(plain);
+		deflater.finish();
+		byte[] out = new byte[plain.length * 2];
+		int size = deflater.deflate(out);
+		deflater.end();
+
+		Compression.inflate(ByteString.copyFrom(out, 0, size));
+	}
+
+	@Test
+	public void matchingDictionaryTest()
+	{
+		Lobby.Join join = Lobby.Join.newBuilder().addCapabilities(Lobby.Capability.EVENT_BATCH)
+				.addCapabilities(Lobby.Capability.DEFLATE).setDictionaryId(Compression.getDictionaryId()).build();
+
+		assertEquals(join.getCapabilitiesList(), Compression.getCapabilities(join));
+	}
+
+	@Test
+	public void mismatchedDictionaryTest()
+	{
+		// Other capabilities are kept, but nothing is compressed for a client
+		// whose dictionary differs, or which did not say which it has
+		Lobby.Join.Builder join = Lobby.Join.newBuilder().addCapabilities(Lobby.Capability.EVENT_BATCH)
+				.addCapabilities(Lobby.Capability.DEFLATE);
+
+		assertEquals(Arrays.asList(Lobby.Capability.EVENT_BATCH), Compression.getCapabilities(join.build()));
+		join.setDictionaryId(Compression.getDictionaryId() + 1);
+		assertEquals(Arrays.asList(Lobby.Capability.EVENT_BATCH), Compression.getCapabilities(join.build()));
+	}
+}
@@ -0,0 +1,103 @@
+package connection;
+
+import intergroup.Messages;
+import intergroup.Requests;
+import intergroup.lobby.Lobby;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ConnectionSelectorTests
+{
+	private ServerSocketChannel server;
+	private ConnectionSelector selector;
+	private BlockingQueue<String> received, closed;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress("localhost", 0));
+		selector = new ConnectionSelector();
+		Thread t = new Thread(selector, "Selector");
+		t.setDaemon(true);
+		t.start();
+		received = new LinkedBlockingQueue<>();
+		closed = new LinkedBlockingQueue<>();
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		selector.shutDown();
+		server.close();
+	}
+
+	@Test
+	public void listenerThrowsTest() throws Exception
+	{
+		// One connection's listener throws on every message
+		Socket bad = connect("bad", true), good = connect("good", false);
+		send(bad);
+		assertEquals("bad", closed.poll(5, TimeUnit.SECONDS));
+		InputStream in = bad.getInputStream();
+		bad.setSoTimeout(5000);
+		assertEquals(-1, in.read());
+
+		// Only that connection is closed, and the others are still serviced
+		send(good);
+		assertEquals("good", received.poll(5, TimeUnit.SECONDS));
+		assertTrue(closed.isEmpty());
+
+		bad.close();
+		good.close();
+	}
+
+	/**
+	 * Connects a socket, and registers the server's end with the selector
+	 *
+	 * @param name the name the listener reports the connection by
+	 * @param throwing whether the listener throws on each message
+	 * @return the client's end
+	 */
+	private Socket connect(String name, boolean throwing) throws Exception
+	{
+		Socket socket = new Socket("localhost", server.socket().getLocalPort());
+		NioClientConnection conn = selector.wrap(server.accept());
+		conn.setListener(new ConnectionListener()
+		{
+			@Override
+			public void messageReceived(NioClientConnection conn, Messages.Message msg)
+			{
+				if (throwing) throw new IllegalStateException("Listener failed");
+				received.add(name);
+			}
+
+			@Override
+			public void connectionClosed(NioClientConnection conn)
+			{
+				closed.add(name);
+			}
+		});
+		selector.register(conn);
+		return socket;
+	}
+
+	private void send(Socket socket) throws Exception
+	{
+		Messages.Message.newBuilder()
+				.setRequest(Requests.Request.newBuilder().setJoinLobby(Lobby.Join.newBuilder().setUsername("p")))
+				.build().writeDelimitedTo(socket.getOutputStream());
+		socket.getOutputStream().flush();
+	}
+}
@@ -0,0 +1,185 @@
+package connection;
+
+import intergroup.EmptyOuterClass;
+import intergroup.Events;
+import intergroup.Messages;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OutboundQueueTests
+{
+	private OutboundQueue queue;
+	private ConnectionStats stats;
+
+	@Before
+	public void setUp()
+	{
+		queue = new OutboundQueue();
+		queue.setCapacity(2);
+		stats = queue.getStats();
+	}
+
+	@Test
+	public void belowCapacityTest() throws Exception
+	{
+		// Every policy queues everything until the queue is full
+		queue.setPolicy(OverflowPolicy.DISCONNECT);
+		assertTrue(queue.offer(chat()));
+		assertTrue(queue.offer(turnEnded()));
+		assertEquals(2, queue.size());
+		assertEquals(0, stats.getFramesDropped());
+	}
+
+	@Test
+	public void disconnectTest() throws Exception
+	{
+		queue.setPolicy(OverflowPolicy.DISCONNECT);
+		queue.offer(chat());
+		queue.offer(allResources());
+
+		// Not even chat or a superseded snapshot makes room
+		assertFalse(queue.offer(allResources()));
+		assertFalse(queue.offer(chat()));
+		assertEquals(2, queue.size());
+	}
+
+	@Test
+	public void dropChatTest() throws Exception
+	{
+		queue.setPolicy(OverflowPolicy.DROP_CHAT);
+		queue.offer(chat());
+		queue.offer(turnEnded());
+
+		// Queued chat makes way for a game event
+		assertTrue(queue.offer(rolled()));
+		assertEquals(2, queue.size());
+		assertEquals(1, stats.getFramesDropped());
+		assertEquals(Events.Event.TypeCase.TURNENDED, drain()[0].frame.getMessage().getEvent().getTypeCase());
+
+		// New chat is dropped rather than queued
+		queue.offer(turnEnded());
+		queue.offer(rolled());
+		assertTrue(queue.offer(chat()));
+		assertEquals(2, queue.size());
+		assertEquals(2, stats.getFramesDropped());
+
+		// With no chat to drop, the client is disconnected
+		assertFalse(queue.offer(turnEnded()));
+	}
+
+	@Test
+	public void dropChatDoesNotCoalesceTest() throws Exception
+	{
+		queue.setPolicy(OverflowPolicy.DROP_CHAT);
+		queue.offer(allResources());
+		queue.offer(turnEnded());
+
+		assertFalse(queue.offer(allResources()));
+		assertEquals(0, stats.getFramesCoalesced());
+	}
+
+	@Test
+	public void coalesceTest() throws Exception
+	{
+		queue.setPolicy(OverflowPolicy.COALESCE);
+		queue.offer(allResources());
+		queue.offer(turnEnded());
+
+		// The older snapshot is replaced, and the new one goes to the back
+		assertTrue(queue.offer(allResources()));
+		assertEquals(2, queue.size());
+		assertEquals(1, stats.getFramesCoalesced());
+		QueuedFrame[] drained = drain();
+		assertEquals(Events.Event.TypeCase.TURNENDED, drained[0].frame.getMessage().getEvent().getTypeCase());
+		assertEquals(Events.Event.TypeCase.ALLRESOURCES, drained[1].frame.getMessage().getEvent().getTypeCase());
+	}
+
+	@Test
+	public void coalesceFallsBackTest() throws Exception
+	{
+		queue.setPolicy(OverflowPolicy.COALESCE);
+		queue.offer(chat());
+		queue.offer(turnEnded());
+
+		// Nothing is superseded, so chat is dropped instead
+		assertTrue(queue.offer(rolled()));
+		assertEquals(0, stats.getFramesCoalesced());
+		assertEquals(1, stats.getFramesDropped());
+
+		// And then the client is disconnected
+		assertFalse(queue.offer(rolled()));
+	}
+
+	@Test
+	public void statsTest() throws Exception
+	{
+		queue.setCapacity(10);
+		queue.offer(turnEnded());
+		queue.offer(rolled());
+		queue.offer(chat());
+		assertEquals(3, stats.getQueueDepth());
+		assertEquals(3, stats.getMaxQueueDepth());
+
+		// One write carries two frames
+		QueuedFrame[] into = new QueuedFrame[2];
+		assertEquals(2, queue.drainTo(into, 2));
+		long bytes = into[0].buffer.remaining() + into[1].buffer.remaining();
+		queue.wrote(bytes);
+		queue.written(into[0]);
+		queue.written(into[1]);
+
+		assertEquals(1, stats.getQueueDepth());
+		assertEquals(3, stats.getMaxQueueDepth());
+		assertEquals(2, stats.getFramesWritten());
+		assertEquals(1, stats.getWriteCalls());
+		assertEquals(bytes, stats.getBytesWritten());
+		assertTrue(stats.getMeanWriteLatency() >= 0);
+		assertTrue(stats.getMaxWriteLatency() >= stats.getMeanWriteLatency());
+	}
+
+	@Test
+	public void latencyTest()
+	{
+		ConnectionStats s = new ConnectionStats();
+		assertEquals(0, s.getMeanWriteLatency(), 0);
+
+		s.written(1000000, 0);
+		s.written(3000000, 0);
+		assertEquals(2, s.getMeanWriteLatency(), 1e-9);
+		assertEquals(3, s.getMaxWriteLatency(), 1e-9);
+	}
+
+	private QueuedFrame[] drain()
+	{
+		QueuedFrame[] into = new QueuedFrame[queue.size()];
+		queue.drainTo(into, into.length);
+		return into;
+	}
+
+	private MessageFrame chat()
+	{
+		return event(Events.Event.newBuilder().setChatMessage("hello"));
+	}
+
+	private MessageFrame turnEnded()
+	{
+		return event(Events.Event.newBuilder().setTurnEnded(EmptyOuterClass.Empty.getDefaultInstance()));
+	}
+
+	private MessageFrame rolled()
+	{
+		return event(Events.Event.newBuilder().setRolled(intergroup.board.Board.Roll.getDefaultInstance()));
+	}
+
+	private MessageFrame allResources()
+	{
+		return event(Events.Event.newBuilder().setAllResources(Events.Resources.getDefaultInstance()));
+	}
+
+	private MessageFrame event(Events.Event.Builder ev)
+	{
+		return new MessageFrame(Messages.Message.newBuilder().setEvent(ev).build());
+	}
+}
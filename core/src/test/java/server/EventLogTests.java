@@ -0,0 +1,101 @@
+package server;
+
+import connection.MessageFrame;
+import intergroup.Events;
+import intergroup.Messages;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EventLogTests
+{
+	private EventLog eventLog;
+
+	@Before
+	public void setUp()
+	{
+		eventLog = new EventLog(4);
+	}
+
+	@Test
+	public void replayTest()
+	{
+		MessageFrame[] frames = record(3);
+
+		List<MessageFrame> missed = eventLog.since(1);
+		assertEquals(2, missed.size());
+		assertSame(frames[1], missed.get(0));
+		assertSame(frames[2], missed.get(1));
+		assertTrue(eventLog.since(3).isEmpty());
+	}
+
+	@Test
+	public void wrappedReplayTest()
+	{
+		// The ring has wrapped round, but the events missed are all still kept
+		MessageFrame[] frames = record(10);
+
+		List<MessageFrame> missed = eventLog.since(6);
+		assertEquals(4, missed.size());
+		for (int i = 0; i < 4; i++)
+		{
+			assertSame(frames[6 + i], missed.get(i));
+		}
+	}
+
+	@Test
+	public void gapTooLargeTest()
+	{
+		record(10);
+
+		// The oldest events missed have been overwritten
+		assertNull(eventLog.since(5));
+		assertNull(eventLog.since(0));
+	}
+
+	@Test
+	public void aheadOfLogTest()
+	{
+		// A client cannot have applied events which were never sent
+		record(2);
+		assertNull(eventLog.since(3));
+	}
+
+	@Test
+	public void restartTest()
+	{
+		// After a recovery, events from before the checkpoint are gone even
+		// though the ring has room for them
+		eventLog.restart(100);
+		MessageFrame[] frames = record(2);
+
+		assertEquals(102, eventLog.getSequence());
+		assertNull(eventLog.since(99));
+		List<MessageFrame> missed = eventLog.since(100);
+		assertEquals(2, missed.size());
+		assertSame(frames[0], missed.get(0));
+	}
+
+	@Test
+	public void tokenTest()
+	{
+		// Every session gets its own token, which survives a restart
+		assertNotEquals(eventLog.getToken(), new EventLog(4).getToken());
+		assertEquals("token", new EventLog("token").getToken());
+	}
+
+	private MessageFrame[] record(int n)
+	{
+		MessageFrame[] frames = new MessageFrame[n];
+		for (int i = 0; i < n; i++)
+		{
+			frames[i] = new MessageFrame(Messages.Message.newBuilder()
+					.setEvent(Events.Event.newBuilder().setChatMessage(String.valueOf(i))).build());
+			eventLog.record(frames[i]);
+		}
+		return frames;
+	}
+}
@@ -0,0 +1,98 @@
+package server;
+
+import connection.IClientConnection;
+import intergroup.Messages.Message;
+import intergroup.Requests;
+import intergroup.lobby.Lobby;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GameHostTests
+{
+	private static final long IDLE = 200;
+	private GameHost host;
+
+	@After
+	public void tearDown()
+	{
+		host.shutDown();
+	}
+
+	@Test
+	public void roomCapTest() throws Exception
+	{
+		host = new GameHost(0, 1, 2, 60000);
+		assertNotNull(host.getRoom(1, true));
+		assertNotNull(host.getRoom(2, true));
+
+		// Rooms already open can still be found, but no more are opened
+		assertNull(host.getRoom(3, true));
+		assertNotNull(host.getRoom(1, true));
+		assertEquals(2, host.getNumRooms());
+	}
+
+	@Test
+	public void unfilledRoomTest() throws Exception
+	{
+		host = new GameHost(0, 1, 2, IDLE);
+		Server room = host.getRoom(1, true);
+		assertTrue(room.addConnection(new ClosingConnection(), join()));
+
+		// The room closes once it has waited too long, and then turns players
+		// away
+		awaitRooms(0);
+		assertFalse(room.addConnection(new ClosingConnection(), join()));
+		assertNotSame(room, host.getRoom(1, true));
+	}
+
+	@Test
+	public void filledRoomTest() throws Exception
+	{
+		host = new GameHost(0, 1, 2, IDLE);
+		Server room = host.getRoom(1, true);
+		for (int i = 0; i < 4; i++)
+		{
+			assertTrue(room.addConnection(new ClosingConnection(), join()));
+		}
+
+		// A full room is left to play
+		Thread.sleep(IDLE * 3);
+		assertFalse(room.terminateIfUnfilled());
+		assertSame(room, host.getRoom(1, false));
+	}
+
+	/**
+	 * Waits for the host to have the given number of rooms open
+	 */
+	private void awaitRooms(int rooms) throws InterruptedException
+	{
+		for (int i = 0; i < 100 && host.getNumRooms() != rooms; i++)
+		{
+			Thread.sleep(IDLE / 2);
+		}
+		assertEquals(rooms, host.getNumRooms());
+	}
+
+	private Message join()
+	{
+		return Message.newBuilder()
+				.setRequest(Requests.Request.newBuilder().setJoinLobby(Lobby.Join.newBuilder().setUsername("Player")))
+				.build();
+	}
+
+	/**
+	 * A connection which drops everything sent to it
+	 */
+	private static class ClosingConnection implements IClientConnection
+	{
+		@Override
+		public void sendMessageToClient(Message message)
+		{}
+
+		@Override
+		public void shutDown()
+		{}
+	}
+}
@@ -0,0 +1,240 @@
+package server;
+
+import enums.Colour;
+import enums.DevelopmentCardType;
+import game.players.ServerPlayer;
+import intergroup.EmptyOuterClass;
+import intergroup.Messages.Message;
+import intergroup.Requests;
+import intergroup.board.Board;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JournalTests
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private File file;
+	private Journal journal;
+	private RecordedRandom random;
+	private ServerGame game;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		file = folder.newFile("room-0.journal");
+		journal = Journal.create(file);
+
+		random = new RecordedRandom();
+		game = new ServerGame(random);
+		ServerPlayer p = new ServerPlayer(Colour.BLUE, "");
+		p.setId(Board.Player.Id.PLAYER_1);
+		game.addPlayer(p);
+		game.setCurrentPlayer(Colour.BLUE);
+		p.grantResources(DevelopmentCardType.getCardCost(), game.getBank());
+	}
+
+	@After
+	public void tearDown()
+	{
+		if (journal != null) journal.close();
+	}
+
+	@Test
+	public void readBackTest() throws Exception
+	{
+		journal.writeBoard(game.getGameSettings(null));
+		journal.writeSession(Colour.RED, "token");
+		random.takeDraws();
+
+		// A dice roll and a development card draw, with the draws they made
+		Board.Roll roll = game.generateDiceRoll();
+		int[] dice = random.takeDraws();
+		journal.writeMove(Colour.BLUE, dice, rollDice());
+		Board.DevCard card = game.buyDevelopmentCard();
+		int[] cardDraws = random.takeDraws();
+		journal.writeMove(Colour.BLUE, cardDraws, buyDevCard());
+		assertEquals(2, dice.length);
+		assertTrue(cardDraws.length > 0);
+
+		List<JournalEntry> entries = reopen();
+		assertEquals(4, entries.size());
+		assertEquals(JournalEntry.BOARD, entries.get(0).getType());
+		assertEquals(game.getGameSettings(null), entries.get(0).getBoard());
+		assertEquals(JournalEntry.SESSION, entries.get(1).getType());
+		assertEquals(Colour.RED, entries.get(1).getColour());
+		assertEquals("token", entries.get(1).getToken());
+
+		JournalEntry rolled = entries.get(2), bought = entries.get(3);
+		assertEquals(JournalEntry.MOVE, rolled.getType());
+		assertEquals(Colour.BLUE, rolled.getColour());
+		assertArrayEquals(dice, rolled.getDraws());
+		assertEquals(rollDice(), rolled.getMessage());
+		assertArrayEquals(cardDraws, bought.getDraws());
+		assertEquals(buyDevCard(), bought.getMessage());
+
+		// Fed back in, the draws give the same roll
+		RecordedRandom replayed = new RecordedRandom();
+		replayed.replay(rolled.getDraws());
+		assertEquals(roll.getA(), replayed.nextInt(6) + 1);
+		assertEquals(roll.getB(), replayed.nextInt(6) + 1);
+		assertArrayEquals(dice, replayed.takeDraws());
+		assertNotNull(card);
+	}
+
+	@Test
+	public void checkpointTest() throws Exception
+	{
+		long[] sequences = { 3, -1, 7, 0 };
+		ByteBuffer snapshot = ByteBuffer.allocate(GameSnapshot.MAX_SIZE);
+		GameSnapshot.write(game, new MessageProcessor(game, null), snapshot);
+		snapshot.flip();
+		byte[] written = Arrays.copyOfRange(snapshot.array(), 0, snapshot.limit());
+		journal.writeCheckpoint(sequences, snapshot);
+
+		List<JournalEntry> entries = reopen();
+		assertEquals(1, entries.size());
+		JournalEntry checkpoint = entries.get(0);
+		assertEquals(JournalEntry.CHECKPOINT, checkpoint.getType());
+		for (Colour c : Colour.values())
+		{
+			assertEquals(sequences[c.ordinal()], checkpoint.getSequence(c));
+		}
+		assertArrayEquals(written, checkpoint.getSnapshot().array());
+	}
+
+	@Test
+	public void appendAfterReopenTest() throws Exception
+	{
+		journal.writeSession(Colour.BLUE, "first");
+		reopen();
+		journal.writeSession(Colour.RED, "second");
+
+		List<JournalEntry> entries = reopen();
+		assertEquals(2, entries.size());
+		assertEquals("first", entries.get(0).getToken());
+		assertEquals("second", entries.get(1).getToken());
+	}
+
+	@Test
+	public void corruptRecordTest() throws Exception
+	{
+		journal.writeMove(Colour.BLUE, new int[] { 1, 2 }, rollDice());
+		journal.writeMove(Colour.BLUE, new int[] { 3 }, buyDevCard());
+		journal.writeMove(Colour.BLUE, new int[0], endTurn());
+		journal.close();
+		journal = null;
+
+		// Flip a bit in the last record's payload
+		long last = offsetOf(2);
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.seek(last + 10);
+			int b = raf.read();
+			raf.seek(last + 10);
+			raf.write(b ^ 1);
+		}
+
+		List<JournalEntry> entries = reopen();
+		assertEquals(2, entries.size());
+		assertEquals(buyDevCard(), entries.get(1).getMessage());
+		assertZeroedFrom(last);
+	}
+
+	@Test
+	public void truncatedRecordTest() throws Exception
+	{
+		journal.writeMove(Colour.BLUE, new int[] { 1, 2 }, rollDice());
+		journal.writeMove(Colour.BLUE, new int[] { 3 }, buyDevCard());
+		journal.writeSession(Colour.RED, "a token long enough to be cut short");
+		journal.close();
+		journal = null;
+
+		// The process died part way through writing the last record
+		long last = offsetOf(2);
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.setLength(last + 12);
+		}
+
+		List<JournalEntry> entries = reopen();
+		assertEquals(2, entries.size());
+		assertZeroedFrom(last);
+
+		// Records appended now follow the last intact one
+		journal.writeSession(Colour.RED, "token");
+		entries = reopen();
+		assertEquals(3, entries.size());
+		assertEquals("token", entries.get(2).getToken());
+	}
+
+	/**
+	 * Closes the journal and opens it again
+	 *
+	 * @return the records read back
+	 */
+	private List<JournalEntry> reopen() throws IOException
+	{
+		if (journal != null) journal.close();
+		List<JournalEntry> entries = new ArrayList<>();
+		journal = Journal.open(file, entries);
+		return entries;
+	}
+
+	/**
+	 * @return the offset in the file of the record with the given index
+	 */
+	private long offsetOf(int index) throws IOException
+	{
+		ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		int offset = 0;
+		for (int i = 0; i < index; i++)
+		{
+			offset += 8 + bytes.getInt(offset);
+		}
+		return offset;
+	}
+
+	private void assertZeroedFrom(long offset) throws IOException
+	{
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		for (long i = offset; i < bytes.length; i++)
+		{
+			assertEquals(0, bytes[(int) i]);
+		}
+	}
+
+	private Message rollDice()
+	{
+		return request(Requests.Request.newBuilder().setRollDice(EmptyOuterClass.Empty.getDefaultInstance()));
+	}
+
+	private Message buyDevCard()
+	{
+		return request(Requests.Request.newBuilder().setBuyDevCard(EmptyOuterClass.Empty.getDefaultInstance()));
+	}
+
+	private Message endTurn()
+	{
+		return request(Requests.Request.newBuilder().setEndTurn(EmptyOuterClass.Empty.getDefaultInstance()));
+	}
+
+	private Message request(Requests.Request.Builder request)
+	{
+		return Message.newBuilder().setRequest(request).build();
+	}
+}
@@ -0,0 +1,119 @@
+package server;
+
+import enums.Colour;
+import enums.Difficulty;
+import game.VirtualClock;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RecoveryTests
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private static final int MOVES = 250;
+	private static final int ATTEMPTS = 5;
+
+	@Test
+	public void recoverFromCheckpointTest() throws Exception
+	{
+		// Play until the game is cut off part way through, with a checkpoint
+		// and moves after it in the journal. Games which end early, or which
+		// the AIs cannot finish setting up, are played again. Both rooms keep
+		// virtual time, so that trades are stamped alike.
+		File file = folder.newFile("room-0.journal");
+		InterruptedGame original = null;
+		int movesAfter = 0;
+		for (int i = 0; i < ATTEMPTS && movesAfter == 0; i++)
+		{
+			original = new InterruptedGame(file);
+			original.setClock(new VirtualClock());
+			try
+			{
+				original.run();
+			}
+			catch (RuntimeException e)
+			{
+				continue;
+			}
+			movesAfter = movesAfterCheckpoint(file);
+		}
+		assertTrue("No game reached a checkpoint", movesAfter > 0);
+
+		Server room = Server.recover(null, 0, file);
+		room.setClock(new VirtualClock());
+		for (int i = 0; i < movesAfter; i++)
+		{
+			room.processMessage();
+		}
+
+		assertArrayEquals(snapshot(original), snapshot(room));
+	}
+
+	/**
+	 * Reads the journal, and gives each seat a session so that the rebuilt
+	 * room holds the seats for their players rather than seating AIs
+	 *
+	 * @return the number of moves after the last checkpoint, or none if there
+	 *         is no checkpoint
+	 */
+	private int movesAfterCheckpoint(File file) throws Exception
+	{
+		List<JournalEntry> entries = new ArrayList<>();
+		Journal journal = Journal.open(file, entries);
+		for (Colour c : Colour.values())
+		{
+			journal.writeSession(c, c.name());
+		}
+		journal.close();
+
+		int moves = 0;
+		boolean checkpoint = false;
+		for (JournalEntry entry : entries)
+		{
+			if (entry.getType() == JournalEntry.CHECKPOINT)
+			{
+				checkpoint = true;
+				moves = 0;
+			}
+			else if (entry.getType() == JournalEntry.MOVE) moves++;
+		}
+		return checkpoint ? moves : 0;
+	}
+
+	private byte[] snapshot(Server room)
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(GameSnapshot.MAX_SIZE);
+		room.writeSnapshot(buffer);
+		buffer.flip();
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * A journalled self-play game which stops as if the process died once the
+	 * AIs have sent enough moves
+	 */
+	private static class InterruptedGame extends SelfPlayGame
+	{
+		InterruptedGame(File journal) throws Exception
+		{
+			super(new Difficulty[] { Difficulty.EASY, Difficulty.EASY, Difficulty.EASY, Difficulty.EASY }, journal);
+		}
+
+		@Override
+		public void addMessageToProcess(ReceivedMessage msg)
+		{
+			super.addMessageToProcess(msg);
+			if (getMoves() == MOVES) terminate();
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package server;
+
+import connection.IClientConnection;
+import enums.Colour;
+import intergroup.Events;
+import intergroup.Messages.Message;
+import intergroup.Requests;
+import intergroup.lobby.Lobby;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SessionResumeTests
+{
+	private Server server;
+	private RecordingConnection first;
+	private String token;
+
+	@Before
+	public void setUp()
+	{
+		server = new Server(new GameHost(), 0);
+		first = new RecordingConnection();
+		assertTrue(server.addConnection(first, join("", 0)));
+		server.getExpectedMoves(Colour.BLUE).add(Requests.Request.BodyCase.JOINLOBBY);
+		server.processMessage();
+
+		// The session is granted before the lobby update, which is the first
+		// event of the seat's stream
+		Lobby.Session session = first.received.get(0).getSession();
+		assertEquals(0, session.getSequence());
+		assertTrue(first.received.get(1).getEvent().getTypeCase().equals(Events.Event.TypeCase.LOBBYUPDATE));
+		token = session.getToken();
+		assertFalse(token.isEmpty());
+	}
+
+	@Test
+	public void replayMissedEventsTest()
+	{
+		chat(3);
+
+		// The client had applied the lobby update and the first chat message
+		RecordingConnection second = new RecordingConnection();
+		assertTrue(server.addConnection(second, join(token, 2)));
+		server.processMessage();
+
+		assertTrue(first.closed);
+		assertEquals(3, second.received.size());
+		assertEquals(2, second.received.get(0).getSession().getSequence());
+		assertEquals("1", second.received.get(1).getEvent().getChatMessage());
+		assertEquals("2", second.received.get(2).getEvent().getChatMessage());
+
+		// Later events reach the new connection
+		chat(1);
+		assertEquals("0", second.received.get(3).getEvent().getChatMessage());
+	}
+
+	@Test
+	public void nothingMissedTest()
+	{
+		chat(2);
+
+		RecordingConnection second = new RecordingConnection();
+		assertTrue(server.addConnection(second, join(token, 3)));
+		server.processMessage();
+
+		assertEquals(1, second.received.size());
+		assertEquals(3, second.received.get(0).getSession().getSequence());
+	}
+
+	@Test
+	public void gameInfoFallbackTest()
+	{
+		// Too many events were missed for the ring buffer to replay
+		chat(EventLog.DEFAULT_CAPACITY + 1);
+
+		RecordingConnection second = new RecordingConnection();
+		assertTrue(server.addConnection(second, join(token, 1)));
+		server.processMessage();
+
+		assertEquals(2, second.received.size());
+		assertEquals(EventLog.DEFAULT_CAPACITY + 2, second.received.get(0).getSession().getSequence());
+		assertTrue(second.received.get(1).getEvent().getTypeCase().equals(Events.Event.TypeCase.GAMEINFO));
+	}
+
+	@Test
+	public void aheadOfStreamTest()
+	{
+		// A client claiming events the seat was never sent is resynchronised
+		// with the whole game state
+		RecordingConnection second = new RecordingConnection();
+		assertTrue(server.addConnection(second, join(token, 50)));
+		server.processMessage();
+
+		assertEquals(1, second.received.get(0).getSession().getSequence());
+		assertTrue(second.received.get(1).getEvent().getTypeCase().equals(Events.Event.TypeCase.GAMEINFO));
+	}
+
+	@Test
+	public void badTokenTest()
+	{
+		RecordingConnection second = new RecordingConnection();
+		assertFalse(server.addConnection(second, join(token + "0", 1)));
+		assertTrue(second.received.isEmpty());
+		assertFalse(first.closed);
+	}
+
+	@Test
+	public void otherRoomTokenTest()
+	{
+		// A token granted by a room which has since gone is no longer valid,
+		// even in a room with the same id
+		Server other = new Server(new GameHost(), 0);
+		RecordingConnection second = new RecordingConnection();
+		assertFalse(other.addConnection(second, join(token, 1)));
+		assertTrue(second.received.isEmpty());
+	}
+
+	/**
+	 * Has the first player send the given number of chat messages, numbered
+	 * from 0
+	 */
+	private void chat(int n)
+	{
+		for (int i = 0; i < n; i++)
+		{
+			Message msg = Message.newBuilder()
+					.setRequest(Requests.Request.newBuilder().setChatMessage(String.valueOf(i))).build();
+			server.addMessageToProcess(new ReceivedMessage(Colour.BLUE, msg));
+			server.processMessage();
+		}
+	}
+
+	private Message join(String token, long sequence)
+	{
+		return Message.newBuilder()
+				.setRequest(Requests.Request.newBuilder().setJoinLobby(Lobby.Join.newBuilder().setUsername("Player")
+						.addCapabilities(Lobby.Capability.SESSION_RESUME).setSessionToken(token)
+						.setLastSequence(sequence)))
+				.build();
+	}
+
+	/**
+	 * A connection which keeps everything sent to the client
+	 */
+	private static class RecordingConnection implements IClientConnection
+	{
+		private final List<Message> received = new ArrayList<>();
+		private boolean closed;
+
+		@Override
+		public void sendMessageToClient(Message message)
+		{
+			received.add(message);
+		}
+
+		@Override
+		public void shutDown()
+		{
+			closed = true;
+		}
+	}
+}
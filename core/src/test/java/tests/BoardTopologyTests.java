@@ -0,0 +1,196 @@
+package tests;
+
+import enums.Colour;
+import enums.ResourceType;
+import game.build.City;
+import game.build.Road;
+import game.build.Settlement;
+import grid.BoardState;
+import grid.BoardTopology;
+import grid.Edge;
+import grid.Hex;
+import grid.HexGrid;
+import grid.Node;
+import grid.Port;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BoardTopologyTests
+{
+	private HexGrid grid;
+	private BoardTopology topology;
+
+	@Before
+	public void setUp()
+	{
+		grid = new HexGrid(true);
+		topology = grid.getTopology();
+	}
+
+	@Test
+	public void sizeTest()
+	{
+		assertEquals(19, topology.getNumHexes());
+		assertEquals(54, topology.getNumNodes());
+		assertEquals(72, topology.getNumEdges());
+		assertEquals(grid.edges.size(), topology.getNumEdges());
+	}
+
+	@Test
+	public void lookupTest()
+	{
+		for (Node node : grid.getNodesAsList())
+		{
+			assertSame(node, grid.getNode(node.getX(), node.getY()));
+			assertSame(node, grid.getNodeById(node.getId()));
+			assertEquals(node.getHexes().size(), topology.getNodeHexes(node.getId()).length);
+
+			// Every edge at the node is the one found between its nodes
+			for (Edge e : node.getEdges())
+			{
+				int id = topology.edgeBetween(e.getX().getId(), e.getY().getId());
+				assertEquals(e.getId(), id);
+				assertSame(e, grid.getEdgeById(id));
+				assertSame(e, grid.getEdge(e.getX().toProto(), e.getY().toProto()));
+				assertSame(e, e.getX().findEdge(e.getY()));
+				assertSame(e, e.getY().findEdge(e.getX()));
+			}
+		}
+
+		for (Hex hex : grid.getHexesAsList())
+		{
+			assertSame(hex, grid.getHex(hex.getX(), hex.getY()));
+			assertEquals(6, topology.getHexNodes(hex.getId()).length);
+		}
+
+		// Off the board
+		assertNull(grid.getNode(5, 5));
+		assertNull(grid.getHex(-9, 0));
+	}
+
+	@Test
+	public void portTest()
+	{
+		for (Port port : grid.getPortsAsList())
+		{
+			assertSame(port, grid.getEdgeById(port.getId()));
+			assertTrue(port.getX().getEdges().contains(port));
+		}
+	}
+
+	@Test
+	public void sharedTest()
+	{
+		assertSame(topology, new HexGrid(false).getTopology());
+	}
+
+	@Test
+	public void stateTest()
+	{
+		BoardState state = grid.getState();
+		Hex robber = grid.getHexWithRobber();
+		assertEquals(robber.getId(), state.getRobber());
+		assertEquals(ResourceType.Generic, state.getResource(robber.getId()));
+
+		// Moving the robber
+		Hex other = grid.getHexById((robber.getId() + 1) % topology.getNumHexes());
+		grid.swapRobbers(other);
+		assertEquals(other.getId(), state.getRobber());
+		assertEquals(other.getChit(), state.getChit(other.getId()));
+
+		// Building on a node and edge
+		Node node = grid.getNodeById(0);
+		Edge edge = node.getEdges().get(0);
+		assertNull(state.getBuildingOwner(node.getId()));
+		node.setBuilding(new Settlement(node, Colour.RED));
+		edge.setRoad(new Road(edge, Colour.RED));
+		assertEquals(Colour.RED, state.getBuildingOwner(node.getId()));
+		assertFalse(state.isCity(node.getId()));
+		assertEquals(Colour.RED, state.getRoadOwner(edge.getId()));
+
+		node.setBuilding(new City(node, Colour.RED));
+		assertTrue(state.isCity(node.getId()));
+	}
+
+	@Test
+	public void distanceTest()
+	{
+		for (Edge e : grid.edges)
+		{
+			int x = e.getX().getId(), y = e.getY().getId();
+			assertEquals(1, topology.getNodeDistance(x, y));
+			assertEquals(0, topology.getEdgeDistance(e.getId(), e.getId()));
+			assertEquals(1, e.distance(e));
+
+			for (Edge other : e.getX().getEdges())
+			{
+				assertEquals(0, topology.getEdgeDistance(e.getId(), other.getId()));
+			}
+		}
+
+		// Two edges along, as there are no triangles on the board
+		Node n = grid.getNodeById(0);
+		Edge e1 = n.getEdges().get(0);
+		Node n1 = e1.getX().equals(n) ? e1.getY() : e1.getX();
+		Edge e2 = n1.getEdges().get(0).equals(e1) ? n1.getEdges().get(1) : n1.getEdges().get(0);
+		Node n2 = e2.getX().equals(n1) ? e2.getY() : e2.getX();
+		assertEquals(2, topology.getNodeDistance(n.getId(), n2.getId()));
+		assertEquals(2, topology.getNodeDistance(n2.getId(), n.getId()));
+	}
+
+	@Test
+	public void distanceToOwnedTest()
+	{
+		BoardState state = grid.getState();
+		Node node = grid.getNodeById(0);
+		Edge edge = node.getEdges().get(0);
+		Node far = edge.getX().equals(node) ? edge.getY() : edge.getX();
+		assertEquals(BoardState.NOTHING_OWNED, state.getDistanceToOwned(Colour.BLUE, far.getId()));
+
+		node.setBuilding(new Settlement(node, Colour.BLUE));
+		assertEquals(0, state.getDistanceToOwned(Colour.BLUE, node.getId()));
+		assertEquals(1, state.getDistanceToOwned(Colour.BLUE, far.getId()));
+		assertEquals(0, state.getEdgeDistanceToOwned(Colour.BLUE, edge.getId()));
+		assertEquals(BoardState.NOTHING_OWNED, state.getDistanceToOwned(Colour.RED, far.getId()));
+
+		// A road brings its far end in
+		edge.setRoad(new Road(edge, Colour.BLUE));
+		assertEquals(0, state.getDistanceToOwned(Colour.BLUE, far.getId()));
+
+		// Losing the settlement leaves the road
+		node.setBuilding(null);
+		assertEquals(0, state.getDistanceToOwned(Colour.BLUE, far.getId()));
+		edge.setRoad(null);
+		assertEquals(BoardState.NOTHING_OWNED, state.getDistanceToOwned(Colour.BLUE, node.getId()));
+	}
+
+	@Test
+	public void maskTest()
+	{
+		BoardState state = grid.getState();
+		Node node = grid.getNodeById(0);
+		Edge edge = node.getEdges().get(0);
+		Node other = edge.getX().equals(node) ? edge.getY() : edge.getX();
+		Edge next = other.getEdges().get(0).equals(edge) ? other.getEdges().get(1) : other.getEdges().get(0);
+
+		node.setBuilding(new Settlement(node, Colour.RED));
+		assertTrue(other.isNearBuilding());
+		assertFalse(node.isNearBuilding());
+		assertTrue(state.isBlocked(Colour.BLUE, node.getId()));
+		assertFalse(state.isBlocked(Colour.RED, node.getId()));
+
+		// A road is connected through its own colour's buildings, not others'
+		edge.setRoad(new Road(edge, Colour.BLUE));
+		assertTrue(next.touchesRoad());
+		assertTrue(next.isConnected(Colour.BLUE));
+		assertFalse(next.isConnected(Colour.RED));
+		assertTrue(other.isNearRoad(Colour.BLUE));
+		assertFalse(node.getEdges().get(node.getEdges().size() - 1).isConnected(Colour.BLUE));
+
+		edge.setRoad(null);
+		assertFalse(next.touchesRoad());
+		assertFalse(other.isNearRoad(Colour.BLUE));
+	}
+}
@@ -0,0 +1,142 @@
+package tests;
+
+import AI.LocalAIClientOnServer;
+import client.Client;
+import client.Turn;
+import enums.Colour;
+import exceptions.BankLimitException;
+import game.Bank;
+import game.build.City;
+import game.build.Road;
+import game.build.Settlement;
+import game.players.ClientPlayer;
+import game.players.Player;
+import grid.Edge;
+import grid.Node;
+import intergroup.board.Board;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class BuildSitesTests extends ClientTestHelper
+{
+	private Client client;
+	private Player p2;
+
+	@Before
+	public void setUp()
+	{
+		// A client in the middle of its turn, with no particular move expected
+		client = new LocalAIClientOnServer();
+		client.setGame(clientGame);
+		client.getTurn().getExpectedMoves().clear();
+
+		p2 = new ClientPlayer(Colour.RED, "");
+		p2.setId(Board.Player.Id.PLAYER_2);
+		clientGame.addPlayer(p2);
+	}
+
+	@Test
+	public void buildSitesTest() throws BankLimitException
+	{
+		Player p = clientPlayer;
+		Edge e1 = n.getEdges().get(0);
+		Node n1 = e1.getX().equals(n) ? e1.getY() : e1.getX();
+		Edge e2 = n1.getEdges().get(0).equals(e1) ? n1.getEdges().get(1) : n1.getEdges().get(0);
+		Node n2 = e2.getX().equals(n1) ? e2.getY() : e2.getX();
+		Edge e3 = n2.getEdges().get(0).equals(e2) ? n2.getEdges().get(1) : n2.getEdges().get(0);
+		Node other = clientGame.getGrid().nodes.get(new Point(-1, 0));
+
+		// Nothing built yet
+		assertMatchesScan();
+
+		// The first two settlements, which need no road
+		processSettlementEvent(n, p.getColour());
+		assertMatchesScan();
+		processSettlementEvent(other, p.getColour());
+		assertMatchesScan();
+
+		// The first two roads, then roads which must join on
+		processRoadEvent(other.getEdges().get(0), p.getColour());
+		assertMatchesScan();
+		processRoadEvent(e1, p.getColour());
+		assertMatchesScan();
+		processRoadEvent(e2, p.getColour());
+		assertMatchesScan();
+		processRoadEvent(e3, p.getColour());
+		assertMatchesScan();
+
+		// Upgrading a settlement
+		processCityEvent(n, p.getColour());
+		assertMatchesScan();
+
+		// An opponent's settlement breaks the road, and their road takes a site
+		processSettlementEvent(n2, p2.getColour());
+		assertMatchesScan();
+		Edge e4 = null;
+		for (Edge e : n2.getEdges())
+		{
+			if (!e.equals(e2) && !e.equals(e3)) e4 = e;
+		}
+		processRoadEvent(e4, p2.getColour());
+		assertMatchesScan();
+	}
+
+	/**
+	 * Gives the player enough to build anything, and asserts the building
+	 * moves offered are those a full scan of the board finds. Sites are
+	 * compared by id.
+	 */
+	private void assertMatchesScan() throws BankLimitException
+	{
+		Player p = clientPlayer;
+		Bank bank = clientGame.getBank();
+		afford(Settlement.getSettlementCost());
+		afford(City.getCityCost());
+		afford(Road.getRoadCost());
+		clientGame.setCurrentPlayer(p.getColour());
+
+		Set<Integer> settlements = new HashSet<>(), cities = new HashSet<>(), roads = new HashSet<>();
+		for (Turn turn : client.getMoveProcessor().getPossibleMoves())
+		{
+			switch (turn.getChosenMove())
+			{
+			case BUILDSETTLEMENT:
+				assertTrue(settlements.add(turn.getChosenNode().getId()));
+				break;
+			case BUILDCITY:
+				assertTrue(cities.add(turn.getChosenNode().getId()));
+				break;
+			case BUILDROAD:
+				assertTrue(roads.add(turn.getChosenEdge().getId()));
+				break;
+			}
+		}
+
+		Set<Integer> settlementSites = new HashSet<>(), citySites = new HashSet<>(), roadSites = new HashSet<>();
+		for (Node node : clientGame.getGrid().getNodesAsList())
+		{
+			if (p.canBuildSettlement(node, bank)) settlementSites.add(node.getId());
+			if (p.canBuildCity(node, bank)) citySites.add(node.getId());
+		}
+		for (Edge edge : clientGame.getGrid().edges)
+		{
+			if (p.canBuildRoad(edge, bank)) roadSites.add(edge.getId());
+		}
+
+		assertEquals(settlementSites, settlements);
+		assertEquals(citySites, cities);
+		assertEquals(roadSites, roads);
+	}
+
+	private void afford(Map<enums.ResourceType, Integer> cost) throws BankLimitException
+	{
+		if (!clientPlayer.canAfford(cost)) clientPlayer.grantResources(cost, clientGame.getBank());
+	}
+}
@@ -153,8 +153,10 @@ public class ClientProcessTests extends ClientTestHelper
 		// For roads 3 and 4
 		processSettlementEvent(n6, p.getColour());
 
-		// Build road 1
+		// Build road 1, and the sixth road next to settlement 2, as the two
+		// initial roads may not touch another road
 		processRoadEvent(e1, p.getColour());
+		processRoadEvent(e6, p.getColour());
 
 		// Build second road chained onto the first
 		processRoadEvent(e2, p.getColour());
@@ -165,9 +167,6 @@ public class ClientProcessTests extends ClientTestHelper
 		// Build foreign settlement
 		processSettlementEvent(n3, p2.getColour());
 
-		// Build sixth road next to settlement 2
-		processRoadEvent(e6, p.getColour());
-
 		// Build fifth road chained onto the sixth
 		processRoadEvent(e5, p.getColour());
 
@@ -206,7 +205,11 @@ public class ClientProcessTests extends ClientTestHelper
 		// Need a settlement before you can build a road.
 		processSettlementEvent(n, p.getColour());
 
-		// Build road 1
+		// Make the initial roads away from each other, from a second
+		// settlement elsewhere and from the first
+		Node other = clientGame.getGrid().nodes.get(new Point(-1, 0));
+		processSettlementEvent(other, p.getColour());
+		processRoadEvent(other.getEdges().get(0), p.getColour());
 		processRoadEvent(e1, p.getColour());
 
 		// Build second road chained onto the first.
@@ -218,14 +221,16 @@ public class ClientProcessTests extends ClientTestHelper
 		// Build foreign settlement in between second and third road.
 		processSettlementEvent(n2, p2.getColour());
 
-		// Assert previous road chain of length three was broken.
+		// Assert previous road chain of length three was broken, leaving it
+		// in two beside the separate road.
 		assertEquals(2, p.calcRoadLength());
-		assertEquals(2, p.getNumOfRoadChains());
+		assertEquals(3, p.getNumOfRoadChains());
 	}
 
 	/**
 	 * Builds roads around a single node, and another somewhere else. This test
-	 * asserts the player has 4 roads but that the length of its longest is 3.
+	 * asserts the player has 4 roads but that the length of its longest is 2,
+	 * as a trail can only take two of the three roads around the node.
 	 * 
 	 * @throws CannotBuildRoadException
 	 * @throws RoadExistsException
@@ -254,9 +259,9 @@ public class ClientProcessTests extends ClientTestHelper
 		}
 
 		// Ensure four were built but that this player's longest road count
-		// is only 3
+		// is only 2
 		assertEquals(4, p.getRoads().size());
-		assertEquals(3, p.calcRoadLength());
+		assertEquals(2, p.calcRoadLength());
 	}
 
 	@Test
@@ -384,8 +389,10 @@ public class ClientProcessTests extends ClientTestHelper
 		// For roads 3 and 4
 		processSettlementEvent(n6, p.getColour());
 
-		// Build road 1
+		// Build road 1, and the sixth road next to settlement 2, as the two
+		// initial roads may not touch another road
 		processRoadEvent(e1, p.getColour());
+		processRoadEvent(e6, p.getColour());
 
 		// Build second road chained onto the first
 		processRoadEvent(e2, p.getColour());
@@ -393,12 +400,11 @@ public class ClientProcessTests extends ClientTestHelper
 		// Build third road chained onto the second
 		processRoadEvent(e3, p.getColour());
 
-		// Build fourth road chained onto the fifth.
-		processRoadEvent(e4, p.getColour());
-
 		// Build fifth road chained onto the sixth
 		processRoadEvent(e5, p.getColour());
-		processRoadEvent(e6, p.getColour());
+
+		// Build fourth road joining the two chains
+		processRoadEvent(e4, p.getColour());
 
 		// Assert longest road
 		assertEquals(6, p.calcRoadLength());
@@ -537,6 +543,22 @@ public class ClientProcessTests extends ClientTestHelper
 		assertTrue(clientGame.getBoughtDevCards().get(clientPlayer.getColour()) == 1);
 	}
 
+	@Test
+	public void otherBoughtDevCardTest()
+	{
+		Player p2 = new ClientPlayer(Colour.RED, "");
+		p2.setId(Board.Player.Id.PLAYER_2);
+		clientGame.addPlayer(p2);
+		int available = clientGame.getBank().getNumAvailableDevCards();
+
+		// Which card another player bought is hidden, but it still leaves the
+		// bank
+		processBoughtDevCard(Board.DevCard.newBuilder().setUnknown(Board.Empty.getDefaultInstance()).build(),
+				p2.getColour());
+		assertEquals(1, (int) clientGame.getBoughtDevCards().get(p2.getColour()));
+		assertEquals(available - 1, clientGame.getBank().getNumAvailableDevCards());
+	}
+
 	@Test
 	public void diceAndResourceTest()
 	{
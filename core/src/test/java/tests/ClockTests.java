@@ -0,0 +1,82 @@
+package tests;
+
+import game.VirtualClock;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ClockTests
+{
+	@Test
+	public void sleepAdvancesTest() throws InterruptedException
+	{
+		VirtualClock clock = new VirtualClock();
+		long start = System.currentTimeMillis();
+
+		// An hour passes at once
+		clock.sleep(60 * 60 * 1000);
+		assertEquals(60 * 60 * 1000, clock.currentTimeMillis());
+		assertTrue(System.currentTimeMillis() - start < 1000);
+	}
+
+	@Test
+	public void scheduleTest() throws InterruptedException
+	{
+		VirtualClock clock = new VirtualClock();
+		List<Integer> ran = new ArrayList<>();
+		clock.schedule(() -> ran.add(2), 200);
+		clock.schedule(() -> ran.add(1), 100);
+		clock.schedule(() -> ran.add(3), 200);
+
+		// Nothing runs until it is due, and then in order
+		clock.advance(99);
+		assertTrue(ran.isEmpty());
+		clock.sleep(50);
+		assertEquals(1, ran.size());
+		clock.advance(1000);
+		assertEquals(3, ran.size());
+		assertEquals(Integer.valueOf(1), ran.get(0));
+		assertEquals(Integer.valueOf(2), ran.get(1));
+		assertEquals(Integer.valueOf(3), ran.get(2));
+	}
+
+	@Test
+	public void shortSleepNotOvertakenTest() throws Exception
+	{
+		VirtualClock clock = new VirtualClock();
+		long[] woke = new long[1];
+		Thread other = new Thread(() ->
+		{
+			try
+			{
+				clock.sleep(1000);
+				woke[0] = clock.currentTimeMillis();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		// Part way through this thread's sleep, another thread starts a longer
+		// one. The clock stops when this thread is due, and waits for it to
+		// wake, rather than jumping to when the other thread is due.
+		clock.schedule(() ->
+		{
+			other.start();
+			while (other.isAlive() && other.getState() != Thread.State.WAITING)
+			{
+				Thread.yield();
+			}
+			assertEquals(10, clock.currentTimeMillis());
+		}, 5);
+		clock.sleep(10);
+		other.join();
+
+		assertEquals(1005, woke[0]);
+		assertEquals(1005, clock.currentTimeMillis());
+	}
+}
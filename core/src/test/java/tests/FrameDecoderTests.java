@@ -0,0 +1,203 @@
+package tests;
+
+import connection.FrameDecoder;
+import intergroup.Messages;
+import intergroup.Requests;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+
+public class FrameDecoderTests
+{
+	private FrameDecoder decoder;
+	private ChunkedChannel channel;
+
+	@Before
+	public void setUp()
+	{
+		decoder = new FrameDecoder();
+		channel = new ChunkedChannel();
+	}
+
+	@Test
+	public void splitFrameTest() throws Exception
+	{
+		Messages.Message msg = chat(5000);
+		byte[] frame = frame(msg);
+
+		// Deliver the frame one byte, then a few bytes, at a time, splitting
+		// the length prefix as well as the body
+		int pos = 0;
+		for (int size = 1; pos < frame.length; size = size * 3)
+		{
+			int len = Math.min(size, frame.length - pos);
+			assertNull(decoder.next());
+			channel.add(Arrays.copyOfRange(frame, pos, pos + len));
+			readAll();
+			pos += len;
+		}
+
+		assertEquals(msg, decoder.next());
+		assertNull(decoder.next());
+	}
+
+	@Test
+	public void coalescedFramesTest() throws Exception
+	{
+		Messages.Message first = chat(10), second = chat(300), third = chat(1);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(frame(first));
+		out.write(frame(second));
+		out.write(frame(third));
+
+		// All three frames arrive in a single read
+		channel.add(out.toByteArray());
+		decoder.read(channel);
+
+		assertEquals(first, decoder.next());
+		assertEquals(second, decoder.next());
+		assertEquals(third, decoder.next());
+		assertNull(decoder.next());
+	}
+
+	@Test
+	public void partialSecondFrameTest() throws Exception
+	{
+		Messages.Message first = chat(20), second = chat(20);
+		byte[] a = frame(first), b = frame(second);
+		byte[] both = new byte[a.length + b.length];
+		System.arraycopy(a, 0, both, 0, a.length);
+		System.arraycopy(b, 0, both, a.length, b.length);
+
+		// The first read ends part way through the second frame
+		int cut = a.length + 3;
+		channel.add(Arrays.copyOfRange(both, 0, cut));
+		decoder.read(channel);
+		assertEquals(first, decoder.next());
+		assertNull(decoder.next());
+
+		channel.add(Arrays.copyOfRange(both, cut, both.length));
+		decoder.read(channel);
+		assertEquals(second, decoder.next());
+	}
+
+	@Test(expected = IOException.class)
+	public void oversizeFrameTest() throws Exception
+	{
+		// Only the length prefix is needed for the frame to be turned down
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writeVarint(out, (1 << 20) + 1);
+		channel.add(out.toByteArray());
+		decoder.read(channel);
+
+		decoder.next();
+	}
+
+	@Test
+	public void largestFrameTest() throws Exception
+	{
+		// A frame far larger than the decoder starts out with is still read
+		Messages.Message msg = chat(1 << 19);
+		channel.add(frame(msg));
+		readAll();
+
+		assertEquals(msg, decoder.next());
+	}
+
+	@Test
+	public void endOfStreamTest() throws Exception
+	{
+		assertEquals(-1, decoder.read(channel));
+		assertNull(decoder.next());
+	}
+
+	/**
+	 * Reads until everything handed to the channel has been taken, which may
+	 * need several reads while the decoder's buffer grows
+	 */
+	private void readAll() throws IOException
+	{
+		while (channel.hasMore())
+		{
+			decoder.read(channel);
+		}
+	}
+
+	private Messages.Message chat(int length)
+	{
+		char[] text = new char[length];
+		Arrays.fill(text, 'a');
+		return Messages.Message.newBuilder()
+				.setRequest(Requests.Request.newBuilder().setChatMessage(new String(text)).build()).build();
+	}
+
+	private byte[] frame(Messages.Message msg) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		msg.writeDelimitedTo(out);
+		return out.toByteArray();
+	}
+
+	private void writeVarint(ByteArrayOutputStream out, int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	/**
+	 * A channel which hands out each chunk it is given in separate reads, as
+	 * much of it as fits
+	 */
+	private static class ChunkedChannel implements ReadableByteChannel
+	{
+		private final Queue<ByteBuffer> chunks = new ArrayDeque<>();
+
+		void add(byte[] chunk)
+		{
+			chunks.add(ByteBuffer.wrap(chunk));
+		}
+
+		boolean hasMore()
+		{
+			return !chunks.isEmpty();
+		}
+
+		@Override
+		public int read(ByteBuffer dst)
+		{
+			ByteBuffer chunk = chunks.peek();
+			if (chunk == null) return -1;
+
+			int n = Math.min(dst.remaining(), chunk.remaining());
+			ByteBuffer slice = chunk.duplicate();
+			slice.limit(slice.position() + n);
+			dst.put(slice);
+			chunk.position(chunk.position() + n);
+			if (!chunk.hasRemaining()) chunks.poll();
+			return n;
+		}
+
+		@Override
+		public boolean isOpen()
+		{
+			return true;
+		}
+
+		@Override
+		public void close()
+		{}
+	}
+}
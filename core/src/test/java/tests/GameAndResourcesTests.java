@@ -10,6 +10,7 @@ import game.build.Settlement;
 import game.players.Player;
 import game.players.ServerPlayer;
 import grid.Hex;
+import grid.Node;
 import intergroup.board.Board;
 import intergroup.resource.Resource;
 import org.junit.Before;
@@ -51,6 +52,32 @@ public class GameAndResourcesTests extends TestHelper
 		assertTrue(p.getResources().get(hex.getResource()) == 1);
 	}
 
+	@Test
+	public void collectResourcesTwoSettlementsTest()
+			throws SettlementExistsException, BankLimitException, CannotAffordException
+	{
+		// Settle on two nodes of the same hex which are not next to each other
+		Node m = null;
+		for (Node other : hex.getNodes())
+		{
+			if (!other.equals(n) && n.findEdge(other) == null) m = other;
+		}
+		p.grantResources(Settlement.getSettlementCost(), game.getBank());
+		makeSettlement(p, n);
+		p.grantResources(Settlement.getSettlementCost(), game.getBank());
+		makeSettlement(p, m);
+
+		// Both settlements collect from the hex, as well as from any other hex
+		// around the second with the same chit and resource
+		int expected = p.getResources().get(hex.getResource()) + 1;
+		for (Hex h : m.getHexes())
+		{
+			if (h.getChit() == hex.getChit() && h.getResource() == hex.getResource()) expected++;
+		}
+		game.allocateResources(hex.getChit());
+		assertEquals(expected, (int) p.getResources().get(hex.getResource()));
+	}
+
 	@Test
 	public void collectResourcesWithRobberTest()
 			throws SettlementExistsException, BankLimitException, CannotAffordException
@@ -0,0 +1,92 @@
+package tests;
+
+import connection.MessageFrame;
+import intergroup.EmptyOuterClass;
+import intergroup.Events;
+import intergroup.Messages;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MessageFrameTests
+{
+	@Test
+	public void batchRoundTripTest() throws Exception
+	{
+		// Events of different sizes, including ones whose length takes more
+		// than one byte
+		List<Events.Event> events = Arrays.asList(chat(1), turnEnded(), chat(200), chat(20000));
+		List<MessageFrame> frames = new ArrayList<>();
+		for (Events.Event ev : events)
+		{
+			MessageFrame frame = new MessageFrame(Messages.Message.newBuilder().setEvent(ev).build());
+			frame.getEncoded(); // As though it had already been sent to someone
+			frames.add(frame);
+		}
+
+		MessageFrame batch = MessageFrame.batch(frames);
+		Messages.Message parsed = parse(batch.getEncoded());
+
+		assertEquals(Messages.Message.TypeCase.BATCH, parsed.getTypeCase());
+		assertEquals(events, parsed.getBatch().getEventsList());
+		assertEquals(batch.getMessage(), parsed);
+		assertArrayEquals(encode(batch.getMessage()), batch.getEncoded());
+	}
+
+	@Test
+	public void deflatedPartTest() throws Exception
+	{
+		// A part whose encoding is compressed cannot be copied across
+		MessageFrame big = new MessageFrame(Messages.Message.newBuilder().setEvent(chat(5000)).build());
+		MessageFrame small = new MessageFrame(Messages.Message.newBuilder().setEvent(turnEnded()).build());
+		MessageFrame deflated = big.deflated();
+		assertNotSame(big, deflated);
+
+		MessageFrame batch = MessageFrame.batch(Arrays.asList(small, deflated));
+		Messages.Message parsed = parse(batch.getEncoded());
+		assertEquals(Arrays.asList(turnEnded(), chat(5000)), parsed.getBatch().getEventsList());
+	}
+
+	@Test
+	public void singleFrameTest() throws Exception
+	{
+		Messages.Message msg = Messages.Message.newBuilder().setEvent(chat(300)).build();
+		MessageFrame frame = new MessageFrame(msg);
+
+		assertEquals(msg, parse(frame.getEncoded()));
+		assertSame(frame.getEncoded(), frame.getEncoded());
+	}
+
+	private Messages.Message parse(byte[] encoded) throws Exception
+	{
+		ByteArrayInputStream in = new ByteArrayInputStream(encoded);
+		Messages.Message msg = Messages.Message.parseDelimitedFrom(in);
+		assertEquals(0, in.available());
+		return msg;
+	}
+
+	private byte[] encode(Messages.Message msg) throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		msg.writeDelimitedTo(out);
+		return out.toByteArray();
+	}
+
+	private Events.Event chat(int length)
+	{
+		char[] text = new char[length];
+		Arrays.fill(text, 'x');
+		return Events.Event.newBuilder().setChatMessage(new String(text)).build();
+	}
+
+	private Events.Event turnEnded()
+	{
+		return Events.Event.newBuilder().setTurnEnded(EmptyOuterClass.Empty.getDefaultInstance()).build();
+	}
+}
@@ -0,0 +1,84 @@
+package tests;
+
+import enums.ResourceType;
+import game.ResourceBag;
+import game.build.City;
+import game.build.Settlement;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ResourceBagTests
+{
+	@Test
+	public void coversTest()
+	{
+		ResourceBag bag = new ResourceBag();
+		bag.set(ResourceType.Grain, 2);
+		bag.set(ResourceType.Ore, 2);
+		assertFalse(bag.covers(City.COST));
+		assertEquals(ResourceType.Ore, bag.findShortfall(City.COST));
+
+		// Enough ore doesn't make up for no brick, lumber or wool
+		bag.set(ResourceType.Ore, 9);
+		assertTrue(bag.covers(City.COST));
+		assertFalse(bag.covers(Settlement.COST));
+		assertNull(bag.findShortfall(City.COST));
+	}
+
+	@Test
+	public void addAndSubtractTest()
+	{
+		ResourceBag bag = new ResourceBag();
+		bag.set(ResourceType.Grain, 3);
+		bag.set(ResourceType.Ore, 3);
+		bag.subtract(City.COST);
+		assertEquals(1, bag.total());
+		assertEquals(1, bag.count(ResourceType.Grain));
+		assertEquals(0, bag.count(ResourceType.Ore));
+
+		bag.add(Settlement.COST);
+		assertEquals(5, bag.total());
+		assertEquals(2, bag.count(ResourceType.Grain));
+
+		// Taking away too much leaves the bag as it was
+		try
+		{
+			bag.subtract(City.COST);
+			fail();
+		}
+		catch (IllegalStateException e)
+		{}
+		assertEquals(5, bag.total());
+	}
+
+	@Test
+	public void mapTest()
+	{
+		Map<ResourceType, Integer> map = new HashMap<>();
+		map.put(ResourceType.Wool, 0);
+		map.put(ResourceType.Brick, 4);
+		ResourceBag bag = new ResourceBag(map);
+
+		// A count of zero is kept apart from no count at all
+		assertEquals(map, bag);
+		assertEquals(bag, map);
+		assertEquals(map.hashCode(), bag.hashCode());
+		assertTrue(bag.containsKey(ResourceType.Wool));
+		assertFalse(bag.containsKey(ResourceType.Ore));
+		assertNull(bag.get(ResourceType.Ore));
+
+		bag.keySet().remove(ResourceType.Wool);
+		assertEquals(1, bag.size());
+		assertEquals(4, bag.getOrDefault(ResourceType.Brick, 0).intValue());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void frozenTest()
+	{
+		City.COST.put(ResourceType.Grain, 0);
+	}
+}
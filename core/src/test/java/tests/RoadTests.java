@@ -138,9 +138,12 @@ public class RoadTests extends TestHelper
 		p.grantResources(Settlement.getSettlementCost(), game.getBank());
 		makeSettlement(p, n6);
 
-		// Build road 1
+		// Build road 1, and the sixth road next to settlement 2, as the two
+		// initial roads may not touch another road
 		p.grantResources(Road.getRoadCost(), game.getBank());
 		buildRoad(p, e1);
+		p.grantResources(Road.getRoadCost(), game.getBank());
+		buildRoad(p, e6);
 
 		// Build second road chained onto the first
 		p.grantResources(Road.getRoadCost(), game.getBank());
@@ -154,10 +157,6 @@ public class RoadTests extends TestHelper
 		p2.grantResources(Settlement.getSettlementCost(), game.getBank());
 		makeSettlement(p2, n3);
 
-		// Build sixth road next to settlement 2
-		p.grantResources(Road.getRoadCost(), game.getBank());
-		buildRoad(p, e6);
-
 		// Build fifth road chained onto the sixth
 		p.grantResources(Road.getRoadCost(), game.getBank());
 		buildRoad(p, e5);
@@ -200,7 +199,12 @@ public class RoadTests extends TestHelper
 		p.grantResources(Settlement.getSettlementCost(), game.getBank());
 		makeSettlement(p, n);
 
-		// Build road 1
+		// Make the initial roads away from each other, from a second
+		// settlement elsewhere and from the first
+		Node other = game.getGrid().nodes.get(new Point(-1, 0));
+		p.grantResources(Settlement.getSettlementCost(), game.getBank());
+		makeSettlement(p, other);
+		buildRoad(p, other.getEdges().get(0));
 		p.grantResources(Road.getRoadCost(), game.getBank());
 		buildRoad(p, e1);
 
@@ -216,9 +220,10 @@ public class RoadTests extends TestHelper
 		p2.grantResources(Settlement.getSettlementCost(), game.getBank());
 		makeSettlement(p2, n2);
 
-		// Assert previous road chain of length three was broken.
+		// Assert previous road chain of length three was broken, leaving it
+		// in two beside the separate road.
 		assertEquals(2, p.calcRoadLength());
-		assertEquals(2, p.getNumOfRoadChains());
+		assertEquals(3, p.getNumOfRoadChains());
 	}
 
 	@Test(expected = CannotAffordException.class)
@@ -261,7 +266,8 @@ public class RoadTests extends TestHelper
 
 	/**
 	 * Builds roads around a single node, and another somewhere else. This test
-	 * asserts the player has 4 roads but that the length of its longest is 3.
+	 * asserts the player has 4 roads but that the length of its longest is 2,
+	 * as a trail can only take two of the three roads around the node.
 	 * 
 	 * @throws CannotBuildRoadException
 	 * @throws RoadExistsException
@@ -292,9 +298,60 @@ public class RoadTests extends TestHelper
 		}
 
 		// Ensure four were built but that this player's longest road count
-		// is only 3
+		// is only 2
 		assertEquals(4, p.getRoads().size());
-		assertEquals(3, p.calcRoadLength());
+		assertEquals(2, p.calcRoadLength());
 	}
 
+	/**
+	 * Builds a road which forks at its end, with one branch carried on. This
+	 * test asserts the longest road only counts the roads one trail can take,
+	 * and that a foreign settlement on the fork's branch cuts it short.
+	 */
+	@Test
+	public void forkedRoadTest() throws SettlementExistsException, CannotBuildRoadException, RoadExistsException,
+			BankLimitException
+	{
+		Player p2 = new ServerPlayer(Colour.RED, "");
+		game.addPlayer(p2);
+		Node n2 = game.getGrid().nodes.get(new Point(-1, 0));
+
+		// Make two settlements, and a road from each
+		p.grantResources(Settlement.getSettlementCost(), game.getBank());
+		makeSettlement(p, n);
+		p.grantResources(Settlement.getSettlementCost(), game.getBank());
+		makeSettlement(p, n2);
+		buildRoad(p, n2.getEdges().get(0));
+		Edge e1 = n.getEdges().get(0);
+		buildRoad(p, e1);
+
+		// Fork at the end of the first road, and carry on one branch
+		Node n1 = e1.getX().equals(n) ? e1.getY() : e1.getX();
+		Edge a = null, b = null;
+		for (Edge e : n1.getEdges())
+		{
+			if (e.equals(e1)) continue;
+			if (a == null)
+				a = e;
+			else
+				b = e;
+		}
+		Node n3 = a.getX().equals(n1) ? a.getY() : a.getX();
+		Edge c = n3.getEdges().get(0).equals(a) ? n3.getEdges().get(1) : n3.getEdges().get(0);
+		for (Edge e : new Edge[] { a, b, c })
+		{
+			p.grantResources(Road.getRoadCost(), game.getBank());
+			buildRoad(p, e);
+		}
+
+		// Four roads are joined up, but a trail can only take three of them
+		assertEquals(2, p.getNumOfRoadChains());
+		assertEquals(3, p.calcRoadLength());
+
+		// A foreign settlement between the branch and its carrying on
+		p2.grantResources(Settlement.getSettlementCost(), game.getBank());
+		makeSettlement(p2, n3);
+		assertEquals(3, p.getNumOfRoadChains());
+		assertEquals(2, p.calcRoadLength());
+	}
 }
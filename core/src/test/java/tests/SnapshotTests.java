@@ -0,0 +1,154 @@
+package tests;
+
+import enums.DevelopmentCardType;
+import enums.ResourceType;
+import game.build.City;
+import game.build.Settlement;
+import game.players.Player;
+import grid.Edge;
+import grid.Hex;
+import grid.Node;
+import grid.Port;
+import org.junit.Before;
+import org.junit.Test;
+import server.ServerGame;
+
+import java.awt.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SnapshotTests extends TestHelper
+{
+	@Before
+	public void setUp()
+	{
+		reset();
+	}
+
+	@Test
+	public void roundTripTest() throws Exception
+	{
+		// Build up some state worth restoring
+		makeSettlement(p, n);
+		Edge e = n.getEdges().get(0);
+		buildRoad(p, e);
+		p.grantResources(City.getCityCost(), game.getBank());
+		makeCity(p, n);
+		p.grantResources(DevelopmentCardType.getCardCost(), game.getBank());
+		buyDevelopmentCard();
+		game.getGrid().swapRobbers(hex);
+
+		ServerGame restored = restore(snapshot(game));
+
+		// Check the player
+		Player q = restored.getPlayer(p.getColour());
+		assertEquals(p.getId(), q.getId());
+		assertEquals(p.getVp(), q.getVp());
+		assertEquals(p.getResources(), q.getResources());
+		assertEquals(p.getDevelopmentCards(), q.getDevelopmentCards());
+		assertEquals(p.getRecentBoughtDevCards(), q.getRecentBoughtDevCards());
+		assertEquals(p.getSettlements().keySet(), q.getSettlements().keySet());
+		assertTrue(q.getSettlements().get(new Point(n.getX(), n.getY())) instanceof City);
+		assertEquals(p.getNumOfRoadChains(), q.getNumOfRoadChains());
+		assertEquals(p.calcRoadLength(), q.calcRoadLength());
+
+		// Buildings and roads are placed on the restored board
+		Edge restoredEdge = q.getRoads().get(0).getEdge();
+		assertEquals(e, restoredEdge);
+		assertSame(q.getRoads().get(0), restoredEdge.getRoad());
+		assertSame(q.getSettlements().get(new Point(n.getX(), n.getY())),
+				restored.getGrid().getNode(n.getX(), n.getY()).getBuilding());
+
+		// Check the bank
+		assertEquals(game.getBank().getAvailableResources(), restored.getBank().getAvailableResources());
+		assertEquals(game.getBank().getAvailableDevCards(), restored.getBank().getAvailableDevCards());
+		assertEquals(game.getBank().getAvailableRoads(p.getColour()), restored.getBank().getAvailableRoads(p.getColour()));
+
+		// Check the board
+		for (Hex h : game.getGrid().grid.values())
+		{
+			Hex r = restored.getGrid().getHex(h.getX(), h.getY());
+			assertEquals(h.getResource(), r.getResource());
+			assertEquals(h.getChit(), r.getChit());
+			assertEquals(h.hasRobber(), r.hasRobber());
+		}
+		assertEquals(hex.getX(), restored.getGrid().getHexWithRobber().getX());
+		assertEquals(hex.getY(), restored.getGrid().getHexWithRobber().getY());
+
+		List<Port> ports = game.getGrid().getPortsAsList(), restoredPorts = restored.getGrid().getPortsAsList();
+		assertEquals(ports.size(), restoredPorts.size());
+		for (int i = 0; i < ports.size(); i++)
+		{
+			assertEquals(ports.get(i), restoredPorts.get(i));
+		}
+		assertEquals(game.getCurrentPlayer(), restored.getCurrentPlayer());
+	}
+
+	@Test
+	public void stableTest() throws Exception
+	{
+		makeSettlement(p, n);
+		buildRoad(p, n.getEdges().get(0));
+		p.grantResources(Settlement.getSettlementCost(), game.getBank());
+
+		// A restored game snapshots to the same bytes as the game it came from
+		byte[] first = snapshot(restore(snapshot(game)));
+		byte[] second = snapshot(restore(first));
+		assertTrue(Arrays.equals(first, second));
+	}
+
+	@Test
+	public void absentCountsTest() throws Exception
+	{
+		// A card which has been played is still known about
+		p.getDevelopmentCards().put(DevelopmentCardType.Knight, 0);
+		p.getResources().remove(ResourceType.Ore);
+
+		Player q = restore(snapshot(game)).getPlayer(p.getColour());
+		assertTrue(q.getDevelopmentCards().containsKey(DevelopmentCardType.Knight));
+		assertFalse(q.getResources().containsKey(ResourceType.Ore));
+	}
+
+	@Test
+	public void forkTest() throws Exception
+	{
+		makeSettlement(p, n);
+		buildRoad(p, n.getEdges().get(0));
+
+		ServerGame fork = game.fork(new Random(0));
+		assertTrue(Arrays.equals(snapshot(game), snapshot(fork)));
+		assertNotSame(game.getGrid().getState(), fork.getGrid().getState());
+
+		// Building on the fork leaves the game alone
+		Player q = fork.getPlayer(p.getColour());
+		Node far = fork.getGrid().getNodeById(fork.getGrid().getTopology().getNumNodes() - 1);
+		assertTrue(fork.getGrid().getTopology().getNodeDistance(n.getId(), far.getId()) > 2);
+		q.grantResources(Settlement.getSettlementCost(), fork.getBank());
+		fork.setCurrentPlayer(q.getColour());
+		fork.buildSettlement(far.toProto());
+
+		assertEquals(p.getSettlements().size() + 1, q.getSettlements().size());
+		assertNotNull(far.getBuilding());
+		assertNull(game.getGrid().getNodeById(far.getId()).getBuilding());
+	}
+
+	private byte[] snapshot(ServerGame game)
+	{
+		ByteBuffer buf = ByteBuffer.allocate(16 * 1024);
+		game.writeTo(buf);
+		return Arrays.copyOf(buf.array(), buf.position());
+	}
+
+	private ServerGame restore(byte[] snapshot)
+	{
+		ByteBuffer buf = ByteBuffer.wrap(snapshot);
+		ServerGame restored = new ServerGame();
+		restored.readFrom(buf);
+		assertFalse(buf.hasRemaining());
+		return restored;
+	}
+}
@@ -3,6 +3,7 @@ package tests;
 import enums.Colour;
 import enums.ResourceType;
 import exceptions.*;
+import game.VirtualClock;
 import game.build.City;
 import game.build.Road;
 import game.build.Settlement;
@@ -151,7 +152,7 @@ public class TradeTests extends TestHelper
 
 		// Player 2 sends response after 30 sec
 		server.getCurrentTrade().setTime(server.getCurrentTrade().getTime() - 30001);
-		assertTrue(server.getCurrentTrade().isExpired());
+		assertTrue(server.getCurrentTrade().isExpired(server.getClock().currentTimeMillis()));
 		msg = Messages.Message.newBuilder()
 				.setRequest(Requests.Request.newBuilder().setSubmitTradeResponse(Trade.Response.ACCEPT).build())
 				.build();
@@ -165,6 +166,54 @@ public class TradeTests extends TestHelper
 		assertTrue(0 == p2.getResources().get(ResourceType.Grain));
 	}
 
+	@Test
+	public void tradeExpiredVirtualClockTest() throws Exception
+	{
+		VirtualClock clock = new VirtualClock();
+		server.setClock(clock);
+
+		// Set up player 2
+		Player p2 = new ServerPlayer(Colour.RED, "");
+		p2.setId(Board.Player.Id.PLAYER_2);
+		game.addPlayer(p2);
+
+		// set up resources
+		Map<ResourceType, Integer> grant = new HashMap<ResourceType, Integer>();
+		grant.put(ResourceType.Brick, 1);
+		p2.grantResources(grant, game.getBank());
+		grant.put(ResourceType.Brick, 0);
+		grant.put(ResourceType.Grain, 1);
+		p.grantResources(grant, game.getBank());
+
+		Resource.Counts.Builder resource = Resource.Counts.newBuilder();
+		Trade.WithPlayer.Builder playerTrade = Trade.WithPlayer.newBuilder();
+		resource.setGrain(1);
+		playerTrade.setOffering(resource.build());
+		resource.clearGrain().setBrick(1);
+		playerTrade.setWanting(resource);
+		playerTrade.setOther(Board.Player.newBuilder().setIdValue(p2.getId().getNumber()).build());
+
+		// Send trade request
+		Messages.Message msg = Messages.Message.newBuilder().setRequest(Requests.Request.newBuilder()
+				.setInitiateTrade(Trade.Kind.newBuilder().setPlayer(playerTrade).build()).build()).build();
+		server.addMessageToProcess(new ReceivedMessage(p.getColour(), msg));
+		server.processMessage();
+		assertFalse(server.getCurrentTrade().isExpired(clock.currentTimeMillis()));
+
+		// Thirty seconds pass without anyone waiting for them
+		clock.advance(30001);
+		assertTrue(server.getCurrentTrade().isExpired(clock.currentTimeMillis()));
+		msg = Messages.Message.newBuilder()
+				.setRequest(Requests.Request.newBuilder().setSubmitTradeResponse(Trade.Response.ACCEPT).build())
+				.build();
+		server.addMessageToProcess(new ReceivedMessage(p2.getColour(), msg));
+		server.processMessage();
+
+		// assert resources AREN'T swapped
+		assertTrue(1 == p.getResources().get(ResourceType.Grain) && 1 == p.getNumResources());
+		assertTrue(1 == p2.getResources().get(ResourceType.Brick) && 1 == p2.getNumResources());
+	}
+
 	@Test(expected = IllegalBankTradeException.class)
 	public void cannotAffordBankTradeTest() throws IllegalTradeException, IllegalPortTradeException,
 			CannotAffordException, IllegalBankTradeException, BankLimitException